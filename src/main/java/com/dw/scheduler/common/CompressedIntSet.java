@@ -0,0 +1,197 @@
+package com.dw.scheduler.common;
+
+import java.util.Arrays;
+
+/**
+ * 压缩的非负整数有序集合
+ * 元素升序存储为相邻差值的变长编码(每字节7位,最高位为续位),ID连续增长时每个元素约占1~2字节;
+ * 追加大于当前最大值的元素为 O(1),其他插入与删除需重新编码整个集合
+ * 非线程安全,由调用方负责加锁
+ *
+ * @author DW Team
+ */
+public class CompressedIntSet {
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int size;
+    private int last = -1;
+
+    /**
+     * 添加元素
+     *
+     * @return 集合是否发生变化
+     */
+    public boolean add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must be non-negative: " + value);
+        }
+        if (value > last) {
+            writeVarInt(value - last);
+            last = value;
+            size++;
+            return true;
+        }
+        int[] values = toArray();
+        int index = Arrays.binarySearch(values, value);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        int[] updated = new int[values.length + 1];
+        System.arraycopy(values, 0, updated, 0, insertAt);
+        updated[insertAt] = value;
+        System.arraycopy(values, insertAt, updated, insertAt + 1, values.length - insertAt);
+        encode(updated, updated.length);
+        return true;
+    }
+
+    /**
+     * 删除元素
+     *
+     * @return 集合是否发生变化
+     */
+    public boolean remove(int value) {
+        if (value < 0 || value > last) {
+            return false;
+        }
+        int[] values = toArray();
+        int index = Arrays.binarySearch(values, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, values.length - index - 1);
+        encode(values, values.length - 1);
+        return true;
+    }
+
+    /**
+     * 删除所有小于 bound 的元素
+     *
+     * @return 删除的元素个数
+     */
+    public int removeBelow(int bound) {
+        if (size == 0 || first() >= bound) {
+            return 0;
+        }
+        int[] values = toArray();
+        int from = Arrays.binarySearch(values, bound);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int removed = from;
+        encode(Arrays.copyOfRange(values, from, values.length), values.length - from);
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 解码为升序数组
+     */
+    public int[] toArray() {
+        int[] values = new int[size];
+        int position = 0;
+        int value = -1;
+        for (int i = 0; i < size; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += delta;
+            values[i] = value;
+        }
+        return values;
+    }
+
+    /**
+     * 保留 values[0, count) 中同时属于本集合的元素(原地压缩)
+     *
+     * @param values 升序数组
+     * @param count  有效元素个数
+     * @return 保留后的有效元素个数
+     */
+    public int retainIn(int[] values, int count) {
+        int kept = 0;
+        int position = 0;
+        int decoded = 0;
+        int current = -1;
+        for (int i = 0; i < count; i++) {
+            int target = values[i];
+            while (current < target && decoded < size) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                current += delta;
+                decoded++;
+            }
+            if (current == target) {
+                values[kept++] = target;
+            } else if (current < target) {
+                break;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * 估算占用内存(字节)
+     */
+    public long memoryBytes() {
+        return data.length + 32L;
+    }
+
+    private int first() {
+        int delta = 0;
+        int shift = 0;
+        int position = 0;
+        byte b;
+        do {
+            b = data[position++];
+            delta |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return delta - 1;
+    }
+
+    private void encode(int[] values, int count) {
+        data = new byte[Math.max(8, count * 2)];
+        length = 0;
+        size = 0;
+        last = -1;
+        for (int i = 0; i < count; i++) {
+            writeVarInt(values[i] - last);
+            last = values[i];
+            size++;
+        }
+        if (data.length - length > 64 && data.length > length * 2) {
+            data = Arrays.copyOf(data, length);
+        }
+    }
+
+    private void writeVarInt(int value) {
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(length + 5, data.length + (data.length >> 1)));
+        }
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+}
@@ -0,0 +1,73 @@
+package com.dw.scheduler.common;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate 压缩工具类
+ * 压缩结果不记录原始长度,由调用方与压缩数据一同保存,解压时一次分配目标数组
+ *
+ * @author DW Team
+ */
+public final class DeflateUtil {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private DeflateUtil() {
+    }
+
+    /**
+     * 按默认压缩级别压缩
+     *
+     * @param input 原始数据
+     * @return 压缩数据
+     */
+    public static byte[] compress(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(input.length / 4 + 64);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] chunk = new byte[CHUNK_SIZE];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                compressed.write(chunk, 0, length);
+            }
+        } finally {
+            deflater.end();
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * 解压
+     *
+     * @param data     压缩数据
+     * @param rawBytes 原始数据字节数
+     * @return 原始数据
+     * @throws DataFormatException 数据损坏或解压长度与 rawBytes 不一致
+     */
+    public static byte[] decompress(byte[] data, int rawBytes) throws DataFormatException {
+        byte[] raw = new byte[rawBytes];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, raw.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("truncated data");
+                }
+                length += inflated;
+            }
+            if (length < raw.length) {
+                throw new DataFormatException("expected " + raw.length + " bytes, inflated " + length);
+            }
+        } finally {
+            inflater.end();
+        }
+        return raw;
+    }
+}
@@ -0,0 +1,167 @@
+package com.dw.scheduler.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * 插入为 O(1);超出当前层范围的条目放入上层时间轮,上层槽位到期时降级回填到下层
+ * 所有方法由内部锁保护,到期回调在锁内执行,回调中不应做耗时操作
+ *
+ * @param <T> 条目类型
+ * @author DW Team
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final Level<T> root;
+    private int size;
+
+    /**
+     * @param tickMs    最底层每格时长(毫秒)
+     * @param wheelSize 每层格数
+     * @param startMs   起始时间(毫秒)
+     */
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize must be greater than 1");
+        }
+        this.root = new Level<>(tickMs, wheelSize, startMs);
+    }
+
+    /**
+     * 添加条目
+     *
+     * @param expireAtMs 到期时间(毫秒)
+     * @param item       条目
+     * @return false 表示已到期(早于当前格),未加入时间轮,由调用方立即处理
+     */
+    public synchronized boolean add(long expireAtMs, T item) {
+        if (root.add(new Entry<>(expireAtMs, item))) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 推进时钟到指定时间,逐格弹出到期条目
+     *
+     * @param nowMs   当前时间(毫秒)
+     * @param expired 到期条目回调
+     * @return 本次到期的条目数
+     */
+    public synchronized int advance(long nowMs, Consumer<T> expired) {
+        int count = 0;
+        List<Entry<T>> drained = new ArrayList<>();
+        while (root.currentTime + root.tickMs <= nowMs) {
+            long next = root.currentTime + root.tickMs;
+
+            // 先推进上层,上层槽位到期的条目降级回填(可能直接到期)
+            root.advanceOverflow(next, drained);
+            root.currentTime = next;
+            for (Entry<T> entry : drained) {
+                if (!root.add(entry)) {
+                    size--;
+                    count++;
+                    expired.accept(entry.item);
+                }
+            }
+            drained.clear();
+
+            // 再弹出最底层当前格
+            root.drain(next, drained);
+            for (Entry<T> entry : drained) {
+                size--;
+                count++;
+                expired.accept(entry.item);
+            }
+            drained.clear();
+        }
+        return count;
+    }
+
+    /**
+     * 时间轮中等待到期的条目数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 当前时钟(已推进到的格起始时间)
+     */
+    public synchronized long currentTimeMs() {
+        return root.currentTime;
+    }
+
+    private static final class Entry<T> {
+        private final long expireAt;
+        private final T item;
+
+        private Entry(long expireAt, T item) {
+            this.expireAt = expireAt;
+            this.item = item;
+        }
+    }
+
+    private static final class Level<T> {
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final List<Entry<T>>[] buckets;
+        private long currentTime;
+        private Level<T> overflow;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Level(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.buckets = new List[wheelSize];
+            this.currentTime = startMs - (startMs % tickMs);
+        }
+
+        private boolean add(Entry<T> entry) {
+            if (entry.expireAt < currentTime + tickMs) {
+                return false;
+            }
+            if (entry.expireAt < currentTime + interval) {
+                int index = (int) ((entry.expireAt / tickMs) % wheelSize);
+                if (buckets[index] == null) {
+                    buckets[index] = new ArrayList<>();
+                }
+                buckets[index].add(entry);
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level<>(interval, wheelSize, currentTime);
+            }
+            return overflow.add(entry);
+        }
+
+        /**
+         * 推进上层时钟,跨越格边界时取出该格全部条目
+         */
+        private void advanceOverflow(long timeMs, List<Entry<T>> drained) {
+            if (overflow == null) {
+                return;
+            }
+            long levelTime = timeMs - (timeMs % overflow.tickMs);
+            if (levelTime != overflow.currentTime) {
+                overflow.advanceOverflow(timeMs, drained);
+                overflow.currentTime = levelTime;
+                overflow.drain(levelTime, drained);
+            }
+        }
+
+        private void drain(long timeMs, List<Entry<T>> drained) {
+            int index = (int) ((timeMs / tickMs) % wheelSize);
+            List<Entry<T>> bucket = buckets[index];
+            if (bucket != null && !bucket.isEmpty()) {
+                drained.addAll(bucket);
+                buckets[index] = null;
+            }
+        }
+    }
+}
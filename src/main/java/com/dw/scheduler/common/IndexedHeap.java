@@ -0,0 +1,132 @@
+package com.dw.scheduler.common;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 支持按元素更新/删除的二叉堆
+ * 元素自身记录在堆中的下标,使 update/remove 为 O(log n)
+ * 非线程安全,由调用方负责加锁
+ *
+ * @param <E> 元素类型
+ * @author DW Team
+ */
+public class IndexedHeap<E extends IndexedHeap.Element> {
+
+    /**
+     * 堆元素,记录自身在堆中的下标(不在堆中时为 -1)
+     */
+    public interface Element {
+
+        int getHeapIndex();
+
+        void setHeapIndex(int heapIndex);
+    }
+
+    private final Comparator<? super E> comparator;
+    private Object[] elements = new Object[16];
+    private int size;
+
+    /**
+     * @param comparator 比较器,较小者位于堆顶
+     */
+    public IndexedHeap(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    public void add(E element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size << 1);
+        }
+        elements[size] = element;
+        element.setHeapIndex(size);
+        siftUp(size++);
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        return size == 0 ? null : (E) elements[0];
+    }
+
+    /**
+     * 元素排序字段变化后调整位置
+     */
+    public void update(E element) {
+        int index = element.getHeapIndex();
+        if (index < 0 || index >= size || elements[index] != element) {
+            return;
+        }
+        siftDown(siftUp(index));
+    }
+
+    public boolean remove(E element) {
+        int index = element.getHeapIndex();
+        if (index < 0 || index >= size || elements[index] != element) {
+            return false;
+        }
+        size--;
+        if (index != size) {
+            move(elements[size], index);
+            elements[size] = null;
+            siftDown(siftUp(index));
+        } else {
+            elements[size] = null;
+        }
+        element.setHeapIndex(-1);
+        return true;
+    }
+
+    public boolean contains(E element) {
+        int index = element.getHeapIndex();
+        return index >= 0 && index < size && elements[index] == element;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        return (E) elements[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private int siftUp(int index) {
+        Object element = elements[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (comparator.compare((E) element, (E) elements[parent]) >= 0) {
+                break;
+            }
+            move(elements[parent], index);
+            index = parent;
+        }
+        move(element, index);
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void siftDown(int index) {
+        Object element = elements[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            int right = child + 1;
+            if (right < size && comparator.compare((E) elements[right], (E) elements[child]) < 0) {
+                child = right;
+            }
+            if (comparator.compare((E) element, (E) elements[child]) <= 0) {
+                break;
+            }
+            move(elements[child], index);
+            index = child;
+        }
+        move(element, index);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void move(Object element, int index) {
+        elements[index] = element;
+        ((E) element).setHeapIndex(index);
+    }
+}
@@ -0,0 +1,250 @@
+package com.dw.scheduler.common;
+
+import java.util.Arrays;
+
+/**
+ * 日志分块检索索引
+ * 日志按行号每 BLOCK_LINES 行分为一块,每块记录:
+ * - 级别位图: 每个级别一个位图,标记块内该级别的行
+ * - 三元组布隆过滤器: 块内所有词元(字母数字连续串,转小写)的三字符子串
+ * 关键词查询时,关键词的全部三元组都命中的块才可能包含该关键词;短于3个字符的关键词不做过滤。
+ * 含超长行(只索引了前 MAX_INDEXED_CHARS 个字符)的块对任何关键词都视为候选
+ * <p>
+ * 索引覆盖行号 (baseLine, lastLine],覆盖范围之外的行由调用方直接扫描;行号必须连续追加
+ * 所有方法均已同步,可由写入线程与查询线程并发访问
+ *
+ * @author DW Team
+ */
+public class LogBlockIndex {
+
+    public static final int BLOCK_LINES = 256;
+
+    private static final int BLOOM_BITS = 16384;
+    private static final int BLOOM_WORDS = BLOOM_BITS / 64;
+    private static final int BLOOM_HASHES = 3;
+    private static final int LEVEL_WORDS = BLOCK_LINES / 64;
+
+    /**
+     * 每行最多索引的字符数,避免超长行使布隆过滤器饱和
+     */
+    private static final int MAX_INDEXED_CHARS = 4096;
+
+    private final int levelCount;
+    private final long baseLine;
+    private long lastLine;
+
+    private long[][] blooms = new long[4][];
+    private long[][] levelBits = new long[4][];
+    private boolean[] truncated = new boolean[4];
+    private int blockCount;
+
+    /**
+     * @param levelCount 日志级别数
+     * @param baseLine   索引起始行号(不含),即建索引时已存在的行数
+     */
+    public LogBlockIndex(int levelCount, long baseLine) {
+        this.levelCount = levelCount;
+        this.baseLine = baseLine;
+        this.lastLine = baseLine;
+    }
+
+    /**
+     * 追加下一行
+     *
+     * @param lineNum 存储分配的行号,必须为 lastLine + 1
+     * @param level   级别序号
+     * @param content 日志内容
+     * @return 行号不连续(中间有行未被索引)时返回 false,索引不再可用
+     */
+    public synchronized boolean add(long lineNum, int level, String content) {
+        if (lineNum != lastLine + 1) {
+            return false;
+        }
+        lastLine = lineNum;
+        long offset = lineNum - baseLine - 1;
+        int block = (int) (offset / BLOCK_LINES);
+        if (block >= blockCount) {
+            ensureBlock(block);
+        }
+
+        int lineInBlock = (int) (offset % BLOCK_LINES);
+        if (level >= 0 && level < levelCount) {
+            levelBits[block][level * LEVEL_WORDS + (lineInBlock >>> 6)] |= 1L << lineInBlock;
+        }
+        if (content != null) {
+            addTrigrams(blooms[block], content);
+            if (content.length() > MAX_INDEXED_CHARS) {
+                truncated[block] = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查找 afterLine 之后第一段可能匹配的连续行号区间
+     *
+     * @param afterLine    起始行号(不含)
+     * @param level        级别序号,-1 表示不限
+     * @param keywordHashes 关键词三元组哈希,见 {@link #keywordHashes(String)}
+     * @return [起始行, 结束行],结束行为 Long.MAX_VALUE 表示未被索引覆盖需直接扫描
+     */
+    public synchronized LongPair nextCandidateRange(long afterLine, int level, long[] keywordHashes) {
+        long line = afterLine + 1;
+        if (line <= baseLine) {
+            return LongPair.of(line, baseLine);
+        }
+        if (line > lastLine) {
+            return LongPair.of(line, Long.MAX_VALUE);
+        }
+
+        int block = blockOf(line);
+        while (block < blockCount && !isCandidate(block, level, keywordHashes)) {
+            block++;
+        }
+        if (block >= blockCount) {
+            return LongPair.of(lastLine + 1, Long.MAX_VALUE);
+        }
+        long from = Math.max(line, blockFirstLine(block));
+
+        int end = block;
+        while (end + 1 < blockCount && isCandidate(end + 1, level, keywordHashes)) {
+            end++;
+        }
+        long to = end + 1 >= blockCount ? Long.MAX_VALUE : blockFirstLine(end + 1) - 1;
+        return LongPair.of(from, to);
+    }
+
+    public synchronized long getLastLine() {
+        return lastLine;
+    }
+
+    /**
+     * 估算占用内存(字节)
+     */
+    public synchronized long memoryBytes() {
+        return (long) blockCount * ((BLOOM_WORDS + (long) levelCount * LEVEL_WORDS) * 8 + 1) + 64;
+    }
+
+    /**
+     * 计算关键词的三元组哈希,不足3个字符时返回空数组(不过滤)
+     */
+    public static long[] keywordHashes(String keyword) {
+        if (keyword == null) {
+            return new long[0];
+        }
+        long[] hashes = new long[Math.max(0, keyword.length() - 2)];
+        int count = 0;
+        int tokenStart = -1;
+        for (int i = 0; i <= keyword.length(); i++) {
+            boolean tokenChar = i < keyword.length() && Character.isLetterOrDigit(keyword.charAt(i));
+            if (tokenChar && tokenStart < 0) {
+                tokenStart = i;
+            } else if (!tokenChar && tokenStart >= 0) {
+                for (int j = tokenStart; j + 3 <= i; j++) {
+                    hashes[count++] = trigramHash(keyword, j);
+                }
+                tokenStart = -1;
+            }
+        }
+        return Arrays.copyOf(hashes, count);
+    }
+
+    private boolean isCandidate(int block, int level, long[] keywordHashes) {
+        if (level >= 0) {
+            if (level >= levelCount) {
+                return false;
+            }
+            boolean found = false;
+            for (int i = 0; i < LEVEL_WORDS; i++) {
+                if (levelBits[block][level * LEVEL_WORDS + i] != 0) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        if (truncated[block]) {
+            return true;
+        }
+        long[] bloom = blooms[block];
+        for (long hash : keywordHashes) {
+            if (!bloomContains(bloom, hash)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int blockOf(long line) {
+        return (int) ((line - baseLine - 1) / BLOCK_LINES);
+    }
+
+    private long blockFirstLine(int block) {
+        return baseLine + (long) block * BLOCK_LINES + 1;
+    }
+
+    private void ensureBlock(int block) {
+        if (block >= blooms.length) {
+            int capacity = Math.max(blooms.length * 2, block + 1);
+            blooms = Arrays.copyOf(blooms, capacity);
+            levelBits = Arrays.copyOf(levelBits, capacity);
+            truncated = Arrays.copyOf(truncated, capacity);
+        }
+        while (blockCount <= block) {
+            blooms[blockCount] = new long[BLOOM_WORDS];
+            levelBits[blockCount] = new long[levelCount * LEVEL_WORDS];
+            blockCount++;
+        }
+    }
+
+    private static void addTrigrams(long[] bloom, String content) {
+        int length = Math.min(content.length(), MAX_INDEXED_CHARS);
+        int tokenStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean tokenChar = i < length && Character.isLetterOrDigit(content.charAt(i));
+            if (tokenChar && tokenStart < 0) {
+                tokenStart = i;
+            } else if (!tokenChar && tokenStart >= 0) {
+                for (int j = tokenStart; j + 3 <= i; j++) {
+                    bloomAdd(bloom, trigramHash(content, j));
+                }
+                tokenStart = -1;
+            }
+        }
+    }
+
+    private static long trigramHash(String text, int start) {
+        long hash = 0;
+        for (int i = start; i < start + 3; i++) {
+            hash = hash * 65599 + Character.toLowerCase(text.charAt(i));
+        }
+        // 混淆高低位
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static void bloomAdd(long[] bloom, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % BLOOM_BITS;
+            bloom[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private static boolean bloomContains(long[] bloom, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % BLOOM_BITS;
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package com.dw.scheduler.common;
+
+/**
+ * 不可变的 long 二元组,用作复合键(如依赖边的 source/target)
+ *
+ * @author DW Team
+ */
+public final class LongPair {
+
+    private final long first;
+    private final long second;
+
+    public LongPair(long first, long second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    public static LongPair of(long first, long second) {
+        return new LongPair(first, second);
+    }
+
+    public long getFirst() {
+        return first;
+    }
+
+    public long getSecond() {
+        return second;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LongPair)) {
+            return false;
+        }
+        LongPair other = (LongPair) o;
+        return first == other.first && second == other.second;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(first) + Long.hashCode(second);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + first + ", " + second + ")";
+    }
+}
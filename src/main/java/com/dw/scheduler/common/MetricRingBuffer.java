@@ -0,0 +1,111 @@
+package com.dw.scheduler.common;
+
+/**
+ * 定长时间序列环形缓冲区
+ * 按固定分辨率分桶,同一桶内的多个采样取平均;全部使用基本类型数组存储
+ * 非线程安全,由调用方负责加锁
+ *
+ * @author DW Team
+ */
+public class MetricRingBuffer {
+
+    /**
+     * 每个采样点的指标数
+     */
+    private final int metricCount;
+    private final long resolutionMs;
+    private final int capacity;
+    private final long[] timestamps;
+    private final float[] values;
+    private final int[] counts;
+
+    /**
+     * 最新桶的下标,-1 表示空
+     */
+    private int head = -1;
+    private int size;
+
+    /**
+     * @param resolutionMs 分辨率(毫秒)
+     * @param capacity     桶数量
+     * @param metricCount  每个采样点的指标数
+     */
+    public MetricRingBuffer(long resolutionMs, int capacity, int metricCount) {
+        this.resolutionMs = resolutionMs;
+        this.capacity = capacity;
+        this.metricCount = metricCount;
+        this.timestamps = new long[capacity];
+        this.values = new float[capacity * metricCount];
+        this.counts = new int[capacity * metricCount];
+    }
+
+    /**
+     * 记录一个采样,早于最新桶的采样被忽略;NaN 表示该指标缺失
+     */
+    public void record(long timestampMs, float... metrics) {
+        long bucket = timestampMs - (timestampMs % resolutionMs);
+        if (head >= 0 && bucket < timestamps[head]) {
+            return;
+        }
+        if (head < 0 || bucket > timestamps[head]) {
+            head = (head + 1) % capacity;
+            size = Math.min(size + 1, capacity);
+            timestamps[head] = bucket;
+            int offset = head * metricCount;
+            for (int i = 0; i < metricCount; i++) {
+                values[offset + i] = Float.NaN;
+                counts[offset + i] = 0;
+            }
+        }
+
+        int offset = head * metricCount;
+        for (int i = 0; i < metricCount && i < metrics.length; i++) {
+            float value = metrics[i];
+            if (Float.isNaN(value)) {
+                continue;
+            }
+            int n = ++counts[offset + i];
+            float avg = n == 1 ? 0f : values[offset + i];
+            values[offset + i] = avg + (value - avg) / n;
+        }
+    }
+
+    /**
+     * 按时间升序遍历不早于 fromMs 的桶
+     */
+    public void forEachSince(long fromMs, PointVisitor visitor) {
+        float[] point = new float[metricCount];
+        for (int i = size - 1; i >= 0; i--) {
+            int index = ((head - i) % capacity + capacity) % capacity;
+            if (timestamps[index] < fromMs) {
+                continue;
+            }
+            System.arraycopy(values, index * metricCount, point, 0, metricCount);
+            visitor.visit(timestamps[index], point);
+        }
+    }
+
+    public long getResolutionMs() {
+        return resolutionMs;
+    }
+
+    /**
+     * 缓冲区覆盖的时间跨度(毫秒)
+     */
+    public long getSpanMs() {
+        return resolutionMs * capacity;
+    }
+
+    /**
+     * 采样点访问器
+     */
+    @FunctionalInterface
+    public interface PointVisitor {
+
+        /**
+         * @param timestampMs 桶起始时间(毫秒)
+         * @param metrics     桶内各指标平均值,NaN 表示缺失;数组会被复用,不可保留引用
+         */
+        void visit(long timestampMs, float[] metrics);
+    }
+}
@@ -0,0 +1,119 @@
+package com.dw.scheduler.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁多生产者单消费者队列
+ * 基于序号数组的环形缓冲区: 生产者通过 CAS 抢占槽位,队列满时 offer 立即返回 false,不阻塞;
+ * poll/drain 只允许单个消费者线程调用
+ *
+ * @author DW Team
+ */
+public class MpscBoundedQueue<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+
+    /**
+     * 槽位序号: 等于生产位置时可写入,等于生产位置+1时可读取
+     */
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong producerIndex = new AtomicLong();
+
+    /**
+     * 仅消费者线程写入,volatile 用于 size() 估算
+     */
+    private volatile long consumerIndex;
+
+    /**
+     * @param capacity 容量,向上取整为2的幂
+     */
+    public MpscBoundedQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队,队列已满时返回 false
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            long position = producerIndex.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (producerIndex.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 出队,队列为空(或队首槽位尚未写完)时返回 null,仅消费者线程调用
+     */
+    public E poll() {
+        long position = consumerIndex;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = buffer.get(index);
+        buffer.lazySet(index, null);
+        sequences.set(index, position + mask + 1);
+        consumerIndex = position + 1;
+        return element;
+    }
+
+    /**
+     * 批量出队,仅消费者线程调用
+     *
+     * @return 出队个数
+     */
+    public int drain(Consumer<E> consumer, int maxElements) {
+        int count = 0;
+        while (count < maxElements) {
+            E element = poll();
+            if (element == null) {
+                break;
+            }
+            consumer.accept(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 近似元素个数
+     */
+    public int size() {
+        long size = producerIndex.get() - consumerIndex;
+        return (int) Math.max(0, Math.min(size, mask + 1));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,200 @@
+package com.dw.scheduler.common;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 三元组倒排索引
+ * 文本折叠后按每3个连续字符(含空格、下划线等)切分,每个三元组对应一个 {@link CompressedIntSet} 倒排表;
+ * 子串查询取关键词全部三元组倒排表的交集作为候选,候选是 LIKE '%关键词%' 结果的超集,
+ * 调用方仍需以 LIKE 条件校验
+ * <p>
+ * 关键词中的 LIKE 通配符(% _)及转义符不参与切分,不含完整三元组的关键词不可过滤
+ * <p>
+ * 折叠规则向 MySQL utf8mb4_0900_ai_ci 对齐:NFKD 分解并去掉组合音标后转小写(é -> e,全角 Ａ -> a);
+ * 折叠后仍为非ASCII的非表意字符(如 ß、ø)在排序规则下可能与其他字符等价,含此类字符的关键词三元组不参与过滤
+ * 所有方法均已同步
+ *
+ * @author DW Team
+ */
+public class TrigramIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * 三元组(3个字符各16位拼接) -> 文档ID倒排表
+     */
+    private final Map<Long, CompressedIntSet> postings = new HashMap<>();
+
+    private long postingBytes;
+
+    /**
+     * 添加文档
+     */
+    public synchronized void add(int id, String text) {
+        for (long trigram : trigrams(text, false)) {
+            CompressedIntSet posting = postings.get(trigram);
+            if (posting == null) {
+                posting = new CompressedIntSet();
+                postings.put(trigram, posting);
+            }
+            long before = posting.memoryBytes();
+            posting.add(id);
+            postingBytes += posting.memoryBytes() - before;
+        }
+    }
+
+    /**
+     * 删除文档,text 需与添加时一致
+     */
+    public synchronized void remove(int id, String text) {
+        for (long trigram : trigrams(text, false)) {
+            CompressedIntSet posting = postings.get(trigram);
+            if (posting == null) {
+                continue;
+            }
+            long before = posting.memoryBytes();
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(trigram);
+                postingBytes -= before;
+            } else {
+                postingBytes += posting.memoryBytes() - before;
+            }
+        }
+    }
+
+    /**
+     * 删除所有ID小于 bound 的文档
+     *
+     * @return 删除的倒排条目数
+     */
+    public synchronized long removeBelow(int bound) {
+        long removed = 0;
+        Iterator<CompressedIntSet> iterator = postings.values().iterator();
+        while (iterator.hasNext()) {
+            CompressedIntSet posting = iterator.next();
+            long before = posting.memoryBytes();
+            removed += posting.removeBelow(bound);
+            if (posting.isEmpty()) {
+                iterator.remove();
+                postingBytes -= before;
+            } else {
+                postingBytes += posting.memoryBytes() - before;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 查询可能包含关键词的文档ID
+     *
+     * @param keyword  关键词
+     * @param maxCount 候选数上限
+     * @return 升序候选ID;关键词不可过滤或候选数超过上限时返回 null
+     */
+    public synchronized int[] search(String keyword, int maxCount) {
+        long[] keys = trigrams(keyword, true);
+        if (keys.length == 0) {
+            return null;
+        }
+        CompressedIntSet[] lists = new CompressedIntSet[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            lists[i] = postings.get(keys[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        // 从最短的倒排表开始求交集
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        int[] candidates = lists[0].toArray();
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = lists[i].retainIn(candidates, count);
+        }
+        if (count > maxCount) {
+            return null;
+        }
+        return count == candidates.length ? candidates : Arrays.copyOf(candidates, count);
+    }
+
+    public synchronized int trigramCount() {
+        return postings.size();
+    }
+
+    /**
+     * 估算占用内存(字节)
+     */
+    public synchronized long memoryBytes() {
+        return postingBytes + postings.size() * 64L;
+    }
+
+    /**
+     * 切分去重后的三元组
+     *
+     * @param pattern 是否为 LIKE 关键词(跳过含通配符或无法可靠折叠字符的三元组)
+     */
+    private static long[] trigrams(String text, boolean pattern) {
+        if (text == null || text.length() < 3) {
+            return EMPTY;
+        }
+        text = fold(text);
+        if (text.length() < 3) {
+            return EMPTY;
+        }
+        long[] keys = new long[text.length() - 2];
+        int count = 0;
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            char c0 = text.charAt(i);
+            char c1 = text.charAt(i + 1);
+            char c2 = text.charAt(i + 2);
+            if (pattern && (!isFilterable(c0) || !isFilterable(c1) || !isFilterable(c2))) {
+                continue;
+            }
+            keys[count++] = ((long) c0 << 32) | ((long) c1 << 16) | c2;
+        }
+        Arrays.sort(keys, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || keys[unique - 1] != keys[i]) {
+                keys[unique++] = keys[i];
+            }
+        }
+        return unique == keys.length ? keys : Arrays.copyOf(keys, unique);
+    }
+
+    /**
+     * 折叠大小写、重音及全角等兼容字符,纯ASCII文本只转小写
+     */
+    private static String fold(String text) {
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (!ascii) {
+            text = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        }
+        StringBuilder folded = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            folded.append(Character.toLowerCase(text.charAt(i)));
+        }
+        return folded.toString();
+    }
+
+    private static boolean isFilterable(char c) {
+        if (c < 0x80) {
+            return !isWildcard(c);
+        }
+        return Character.isIdeographic(c);
+    }
+
+    private static boolean isWildcard(char c) {
+        return c == '%' || c == '_' || c == '\\';
+    }
+}
@@ -1,13 +1,17 @@
 package com.dw.scheduler.controller;
 
 import com.dw.scheduler.common.Result;
+import com.dw.scheduler.dto.HeartbeatDTO;
 import com.dw.scheduler.entity.Server;
 import com.dw.scheduler.enums.ServerRole;
 import com.dw.scheduler.enums.ServerStatus;
+import com.dw.scheduler.service.HeartbeatService;
+import com.dw.scheduler.service.ServerMonitorService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -30,6 +34,12 @@ import java.util.Map;
 @Api(tags = "服务器管理", description = "服务器的注册、配置和监控管理")
 public class ServerController {
 
+    @Autowired
+    private HeartbeatService heartbeatService;
+
+    @Autowired
+    private ServerMonitorService serverMonitorService;
+
     /**
      * 查询服务器列表
      * 支持按角色、资源组、状态筛选
@@ -130,6 +140,23 @@ public class ServerController {
         return Result.success();
     }
 
+    /**
+     * 服务器心跳上报
+     * Worker定期上报资源使用情况，心跳在内存中合并后定期批量写入数据库
+     * 服务器需先通过注册接口注册
+     *
+     * @param heartbeat 心跳信息
+     * @return 服务器ID
+     */
+    @PostMapping("/heartbeat")
+    @ApiOperation(value = "心跳上报", notes = "上报服务器的资源使用情况和当前运行任务数")
+    public Result<Long> heartbeat(
+            @ApiParam(value = "心跳信息", required = true)
+            @Valid @RequestBody HeartbeatDTO heartbeat) {
+        log.debug("心跳上报, ipAddress: {}", heartbeat.getIpAddress());
+        return Result.success(heartbeatService.receive(heartbeat));
+    }
+
     /**
      * 查询服务器监控数据
      * 返回服务器的实时监控指标，包括：
@@ -140,6 +167,7 @@ public class ServerController {
      * - 心跳时间
      *
      * 可用于系统监控大屏和告警
+     * 数据来自内存中的心跳时间序列,不查询数据库
      *
      * @param id 服务器ID
      * @param duration 时间范围（分钟），查询最近N分钟的数据，默认60分钟
@@ -153,25 +181,6 @@ public class ServerController {
             @ApiParam(value = "时间范围（分钟）", example = "60")
             @RequestParam(defaultValue = "60") Integer duration) {
         log.info("查询服务器监控数据, id: {}, duration: {}", id, duration);
-        // TODO: 调用Service层实现
-        // 返回格式示例：
-        // {
-        //   "serverId": 1,
-        //   "serverName": "worker-01",
-        //   "status": "ONLINE",
-        //   "current": {
-        //     "cpuUsage": 45.5,
-        //     "memoryUsage": 60.2,
-        //     "diskUsage": 35.8,
-        //     "currentTaskNum": 15,
-        //     "maxTaskNum": 100,
-        //     "lastHeartbeat": "2024-01-20 10:30:00"
-        //   },
-        //   "history": [
-        //     {"timestamp": "2024-01-20 10:00:00", "cpuUsage": 40.0, "memoryUsage": 55.0, "taskNum": 12},
-        //     {"timestamp": "2024-01-20 10:05:00", "cpuUsage": 42.0, "memoryUsage": 57.0, "taskNum": 13}
-        //   ]
-        // }
-        return Result.success();
+        return Result.success(serverMonitorService.getMonitor(id, duration));
     }
 }
@@ -0,0 +1,121 @@
+package com.dw.scheduler.controller;
+
+import com.dw.scheduler.common.Result;
+import com.dw.scheduler.service.DataPurgeService;
+import com.dw.scheduler.service.FailureDetectorService;
+import com.dw.scheduler.service.HeartbeatService;
+import com.dw.scheduler.service.InstanceAssignService;
+import com.dw.scheduler.service.InstanceDispatchService;
+import com.dw.scheduler.service.InstanceLogArchiveService;
+import com.dw.scheduler.service.InstanceLogIngestService;
+import com.dw.scheduler.service.LogSearchIndexService;
+import com.dw.scheduler.service.NameSearchIndexService;
+import com.dw.scheduler.service.ScheduleTriggerService;
+import com.dw.scheduler.service.TaskCacheService;
+import com.dw.scheduler.service.WorkerPlacementService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 系统运维控制器
+ * 提供调度内部组件的运行统计以及数据清理的触发与进度查询
+ *
+ * @author DW Team
+ * @version 1.0.0
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/system")
+@Api(tags = "系统运维", description = "调度组件运行统计与数据清理")
+public class SystemController {
+
+    @Autowired
+    private ScheduleTriggerService scheduleTriggerService;
+
+    @Autowired
+    private InstanceDispatchService instanceDispatchService;
+
+    @Autowired
+    private InstanceAssignService instanceAssignService;
+
+    @Autowired
+    private WorkerPlacementService workerPlacementService;
+
+    @Autowired
+    private HeartbeatService heartbeatService;
+
+    @Autowired
+    private FailureDetectorService failureDetectorService;
+
+    @Autowired
+    private TaskCacheService taskCacheService;
+
+    @Autowired
+    private InstanceLogIngestService instanceLogIngestService;
+
+    @Autowired
+    private LogSearchIndexService logSearchIndexService;
+
+    @Autowired
+    private InstanceLogArchiveService instanceLogArchiveService;
+
+    @Autowired
+    private NameSearchIndexService nameSearchIndexService;
+
+    @Autowired
+    private DataPurgeService dataPurgeService;
+
+    /**
+     * 查询调度组件运行统计
+     * 按组件返回调度触发、实例分发与分配、Worker选择、心跳、故障检测、任务缓存、日志写入/索引/归档、名称索引的统计信息
+     *
+     * @return 组件名称 -> 统计信息
+     */
+    @GetMapping("/statistics")
+    @ApiOperation(value = "查询组件运行统计", notes = "返回各调度组件的计数器、队列长度、内存占用等统计信息")
+    public Result<Map<String, Map<String, Object>>> getStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        statistics.put("scheduleTrigger", scheduleTriggerService.getStatistics());
+        statistics.put("instanceDispatch", instanceDispatchService.getStatistics());
+        statistics.put("instanceAssign", instanceAssignService.getStatistics());
+        statistics.put("workerPlacement", workerPlacementService.getStatistics());
+        statistics.put("heartbeat", heartbeatService.getStatistics());
+        statistics.put("failureDetector", failureDetectorService.getStatistics());
+        statistics.put("taskCache", taskCacheService.getStatistics());
+        statistics.put("logIngest", instanceLogIngestService.getStatistics());
+        statistics.put("logSearchIndex", logSearchIndexService.getStatistics());
+        statistics.put("logArchive", instanceLogArchiveService.getStatistics());
+        statistics.put("nameSearchIndex", nameSearchIndexService.getStatistics());
+        return Result.success(statistics);
+    }
+
+    /**
+     * 立即执行一轮数据清理
+     * 在后台异步执行，已有清理在执行时忽略本次请求
+     *
+     * @return 是否已提交执行
+     */
+    @PostMapping("/purge")
+    @ApiOperation(value = "触发数据清理", notes = "在后台立即执行一轮过期日志与实例清理（异步）")
+    public Result<Boolean> triggerPurge() {
+        log.info("触发数据清理");
+        return Result.success(dataPurgeService.triggerPurge());
+    }
+
+    /**
+     * 查询数据清理进度
+     *
+     * @return 各清理目标的进度与统计
+     */
+    @GetMapping("/purge/progress")
+    @ApiOperation(value = "查询数据清理进度", notes = "返回是否执行中、限速以及各清理目标的进度")
+    public Result<Map<String, Object>> getPurgeProgress() {
+        return Result.success(dataPurgeService.getProgress());
+    }
+}
@@ -1,19 +1,29 @@
 package com.dw.scheduler.controller;
 
 import com.dw.scheduler.common.Result;
+import com.dw.scheduler.dto.TaskImportResult;
+import com.dw.scheduler.dto.TaskSummary;
 import com.dw.scheduler.entity.Task;
 import com.dw.scheduler.entity.TaskDependency;
 import com.dw.scheduler.enums.TaskStatus;
+import com.dw.scheduler.service.TaskCacheService;
+import com.dw.scheduler.service.TaskService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -31,6 +41,14 @@ import java.util.Map;
 @Api(tags = "任务管理", description = "任务的创建、更新、删除、查询以及依赖关系管理")
 public class TaskController {
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
+    @Autowired
+    private TaskCacheService taskCacheService;
+
+    @Autowired
+    private TaskService taskService;
+
     /**
      * 查询任务列表（支持分页和多条件搜索）
      * 支持的查询条件：
@@ -53,7 +71,7 @@ public class TaskController {
      */
     @GetMapping
     @ApiOperation(value = "查询任务列表", notes = "支持分页和多条件组合查询任务列表")
-    public Result<Page<Task>> queryTasks(
+    public Result<Page<TaskSummary>> queryTasks(
             @ApiParam(value = "任务名称（模糊查询）", example = "etl_task")
             @RequestParam(required = false) String taskName,
             @ApiParam(value = "任务类型", example = "SQL")
@@ -259,4 +277,49 @@ public class TaskController {
         // }
         return Result.success();
     }
+
+    /**
+     * 查询任务定义缓存统计
+     * 返回缓存条数、估算内存以及命中、未命中、淘汰、过期、失效次数
+     *
+     * @return 缓存统计信息
+     */
+    @GetMapping("/cache/statistics")
+    @ApiOperation(value = "查询任务缓存统计", notes = "返回任务定义缓存的命中率、淘汰次数等统计信息")
+    public Result<Map<String, Object>> getTaskCacheStatistics() {
+        return Result.success(taskCacheService.getStatistics());
+    }
+
+    /**
+     * 批量导入任务
+     * 请求体为 JSON Lines(每行一个任务,目录按路径 directoryPath、数据源按名称 datasourceName 引用),
+     * 流式读取,每500行校验、写入并提交一次;出错的行记录行号与原因,不影响其他行
+     *
+     * @param body 请求体
+     * @return 导入结果
+     */
+    @PostMapping(value = "/import", consumes = {NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @ApiOperation(value = "批量导入任务", notes = "请求体为 JSON Lines，返回成功数与行级错误")
+    public Result<TaskImportResult> importTasks(InputStream body) {
+        log.info("批量导入任务");
+        return Result.success(taskService.importTasks(body));
+    }
+
+    /**
+     * 批量导出任务
+     * 按 JSON Lines 流式返回全部任务(含任务代码),格式与导入一致
+     *
+     * @return 任务数据流
+     */
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    @ApiOperation(value = "批量导出任务", notes = "以 JSON Lines 流式导出全部任务，可直接用于导入")
+    public ResponseEntity<StreamingResponseBody> exportTasks() {
+        log.info("批量导出任务");
+        StreamingResponseBody body = taskService::exportTasks;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=tasks.ndjson")
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
+    }
 }
@@ -1,19 +1,35 @@
 package com.dw.scheduler.controller;
 
 import com.dw.scheduler.common.Result;
+import com.dw.scheduler.dto.CursorPage;
+import com.dw.scheduler.dto.InstanceQuery;
+import com.dw.scheduler.dto.InstanceSummary;
+import com.dw.scheduler.dto.LogLine;
 import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.InstanceSortField;
 import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.enums.LogLevel;
+import com.dw.scheduler.service.InstanceEtaService;
+import com.dw.scheduler.service.InstanceLogIngestService;
+import com.dw.scheduler.service.InstanceLogService;
+import com.dw.scheduler.service.InstanceStatService;
+import com.dw.scheduler.service.TaskInstanceService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -30,6 +46,21 @@ import java.util.Map;
 @Api(tags = "任务实例管理", description = "任务实例的查询、日志查看和运行控制")
 public class TaskInstanceController {
 
+    @Autowired
+    private InstanceLogService instanceLogService;
+
+    @Autowired
+    private InstanceLogIngestService instanceLogIngestService;
+
+    @Autowired
+    private TaskInstanceService taskInstanceService;
+
+    @Autowired
+    private InstanceStatService instanceStatService;
+
+    @Autowired
+    private InstanceEtaService instanceEtaService;
+
     /**
      * 查询任务实例列表（支持分页和多条件搜索）
      * 支持的查询条件：
@@ -51,7 +82,7 @@ public class TaskInstanceController {
      */
     @GetMapping
     @ApiOperation(value = "查询实例列表", notes = "支持分页和多条件组合查询任务实例列表")
-    public Result<Page<TaskInstance>> queryInstances(
+    public Result<Page<InstanceSummary>> queryInstances(
             @ApiParam(value = "任务ID", example = "1")
             @RequestParam(required = false) Long taskId,
             @ApiParam(value = "实例名称（模糊查询）", example = "etl_task_20240120")
@@ -74,6 +105,138 @@ public class TaskInstanceController {
         return Result.success();
     }
 
+    /**
+     * 游标分页查询实例列表
+     * 按创建时间或开始时间降序滚动,不统计总数,翻页耗时与页深无关;
+     * 首页不传 cursor,后续传入上一页返回的 nextCursor
+     *
+     * @return 实例概要及下一页游标
+     */
+    @GetMapping("/scroll")
+    @ApiOperation(value = "游标分页查询实例列表", notes = "按(排序字段, id)降序滚动,返回不透明游标,适合深度翻页")
+    public Result<CursorPage<InstanceSummary>> scrollInstances(
+            @ApiParam(value = "任务ID", example = "1")
+            @RequestParam(required = false) Long taskId,
+            @ApiParam(value = "实例名称（模糊查询）", example = "etl_task_20240120")
+            @RequestParam(required = false) String instanceName,
+            @ApiParam(value = "实例状态", example = "RUNNING")
+            @RequestParam(required = false) InstanceStatus status,
+            @ApiParam(value = "业务日期起始", example = "2024-01-01")
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate businessDateStart,
+            @ApiParam(value = "业务日期结束", example = "2024-01-31")
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate businessDateEnd,
+            @ApiParam(value = "执行服务器ID", example = "worker-001")
+            @RequestParam(required = false) String workerId,
+            @ApiParam(value = "排序字段", example = "CREATE_TIME")
+            @RequestParam(defaultValue = "CREATE_TIME") InstanceSortField sortField,
+            @ApiParam(value = "上一页返回的游标")
+            @RequestParam(required = false) String cursor,
+            @ApiParam(value = "每页大小", example = "20")
+            @RequestParam(defaultValue = "20") Integer size) {
+        InstanceQuery query = buildQuery(taskId, instanceName, status, businessDateStart, businessDateEnd, workerId);
+        return Result.success(taskInstanceService.scrollInstances(query, sortField, cursor, size));
+    }
+
+    /**
+     * 分页查询实例列表(不统计总数)
+     * 只返回当前页数据和是否有下一页,省去 count 语句
+     *
+     * @return 实例概要切片
+     */
+    @GetMapping("/slice")
+    @ApiOperation(value = "切片分页查询实例列表", notes = "不统计总数,只返回是否有下一页")
+    public Result<Slice<InstanceSummary>> sliceInstances(
+            @ApiParam(value = "任务ID", example = "1")
+            @RequestParam(required = false) Long taskId,
+            @ApiParam(value = "实例名称（模糊查询）", example = "etl_task_20240120")
+            @RequestParam(required = false) String instanceName,
+            @ApiParam(value = "实例状态", example = "RUNNING")
+            @RequestParam(required = false) InstanceStatus status,
+            @ApiParam(value = "业务日期起始", example = "2024-01-01")
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate businessDateStart,
+            @ApiParam(value = "业务日期结束", example = "2024-01-31")
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate businessDateEnd,
+            @ApiParam(value = "执行服务器ID", example = "worker-001")
+            @RequestParam(required = false) String workerId,
+            @ApiParam(value = "排序字段", example = "CREATE_TIME")
+            @RequestParam(defaultValue = "CREATE_TIME") InstanceSortField sortField,
+            @ApiParam(value = "页码（从0开始）", example = "0")
+            @RequestParam(defaultValue = "0") Integer page,
+            @ApiParam(value = "每页大小", example = "20")
+            @RequestParam(defaultValue = "20") Integer size) {
+        InstanceQuery query = buildQuery(taskId, instanceName, status, businessDateStart, businessDateEnd, workerId);
+        return Result.success(taskInstanceService.getInstanceSlice(query, sortField, PageRequest.of(page, size)));
+    }
+
+    /**
+     * 查询某个业务日期的实例运行统计
+     * 返回各状态实例数、执行耗时合计，以及按责任人、资源分组的明细，数据延迟为秒级
+     *
+     * @param businessDate 业务日期
+     * @return 统计结果
+     */
+    @GetMapping("/statistics/daily")
+    @ApiOperation(value = "查询每日运行统计", notes = "按业务日期返回各状态实例数及按责任人、资源分组的明细")
+    public Result<Map<String, Object>> getDailyStatistics(
+            @ApiParam(value = "业务日期", required = true, example = "2024-01-20")
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate businessDate) {
+        return Result.success(instanceStatService.getDailyStatistics(businessDate));
+    }
+
+    /**
+     * 查询业务日期范围内每天的实例运行统计
+     *
+     * @param startDate 起始业务日期
+     * @param endDate 结束业务日期
+     * @return 每天的各状态合计
+     */
+    @GetMapping("/statistics/trend")
+    @ApiOperation(value = "查询运行统计趋势", notes = "返回业务日期范围内每天的各状态实例数，最多366天")
+    public Result<List<Map<String, Object>>> getDailyTrend(
+            @ApiParam(value = "起始业务日期", required = true, example = "2024-01-01")
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @ApiParam(value = "结束业务日期", required = true, example = "2024-01-31")
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        return Result.success(instanceStatService.getDailyTrend(startDate, endDate));
+    }
+
+    /**
+     * 按实例表重算业务日期范围内的运行统计
+     * 异步执行，建议在低峰期使用
+     *
+     * @param startDate 起始业务日期
+     * @param endDate 结束业务日期
+     * @return 是否已提交重算
+     */
+    @PostMapping("/statistics/rebuild")
+    @ApiOperation(value = "重算运行统计", notes = "按实例表重新汇总指定业务日期范围的统计（异步）")
+    public Result<Boolean> rebuildStatistics(
+            @ApiParam(value = "起始业务日期", required = true, example = "2024-01-01")
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @ApiParam(value = "结束业务日期", required = true, example = "2024-01-31")
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        log.info("重算运行统计, startDate: {}, endDate: {}", startDate, endDate);
+        return Result.success(instanceStatService.rebuild(startDate, endDate));
+    }
+
+    /**
+     * 查询业务日期的预计完成时间
+     * 按历史耗时估计与依赖关系推算该日期所有未完成实例的预计完成时间，返回最晚完成的关键路径
+     *
+     * @param businessDate 业务日期
+     * @param subject 主题（可选），只统计该主题的实例
+     * @return 预计完成时间、P90完成时间、阻塞/超时实例数与关键路径
+     */
+    @GetMapping("/eta")
+    @ApiOperation(value = "查询业务日期预计完成时间", notes = "返回业务日期（可按主题）的预计完成时间与关键路径")
+    public Result<Map<String, Object>> getBusinessDateEta(
+            @ApiParam(value = "业务日期", required = true, example = "2024-01-01")
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate businessDate,
+            @ApiParam(value = "主题", example = "ods")
+            @RequestParam(required = false) String subject) {
+        return Result.success(instanceEtaService.getBusinessDateEta(businessDate, subject));
+    }
+
     /**
      * 根据ID查询实例详情
      * 返回实例的完整信息，包括执行状态、耗时、错误信息等
@@ -91,41 +254,117 @@ public class TaskInstanceController {
         return Result.success();
     }
 
+    /**
+     * 查询实例的任务快照
+     * 返回实例创建时任务定义（含任务代码）的JSON
+     *
+     * @param id 实例ID
+     * @return 任务定义JSON
+     */
+    @GetMapping("/{id}/snapshot")
+    @ApiOperation(value = "查询实例任务快照", notes = "返回实例创建时的任务定义")
+    public Result<String> getInstanceSnapshot(
+            @ApiParam(value = "实例ID", required = true, example = "1")
+            @PathVariable("id") @NotNull(message = "实例ID不能为空") Long id) {
+        return Result.success(taskInstanceService.getInstanceSnapshot(id));
+    }
+
+    /**
+     * 查询实例预计完成时间
+     *
+     * @param id 实例ID
+     * @return 预计开始/完成时间与到该实例的关键路径
+     */
+    @GetMapping("/{id}/eta")
+    @ApiOperation(value = "查询实例预计完成时间", notes = "返回实例的预计开始、完成时间及其关键上游路径")
+    public Result<Map<String, Object>> getInstanceEta(
+            @ApiParam(value = "实例ID", required = true, example = "1")
+            @PathVariable("id") @NotNull(message = "实例ID不能为空") Long id) {
+        return Result.success(instanceEtaService.getInstanceEta(id));
+    }
+
     /**
      * 查询实例执行日志
-     * 返回实例的运行日志，支持实时查看和历史日志查询
-     * 日志按时间倒序排列，最新的日志在最前面
+     * 按行号游标增量返回日志，级别和关键词在服务端读取时过滤
+     * 日志按行号升序排列，返回的 nextLine 作为下次请求的 afterLine
+     * 跟随模式（follow=true）下若暂无满足条件的新日志，请求挂起直到有新日志、实例结束或超时
      *
      * @param id 实例ID
+     * @param afterLine 游标行号，返回该行之后的日志（默认0，从头读取）
      * @param level 日志级别（可选），如：INFO, WARN, ERROR
-     * @param keyword 关键词搜索（可选）
+     * @param keyword 关键词搜索（可选，不区分大小写）
      * @param limit 返回日志条数限制（默认1000条）
+     * @param follow 是否跟随模式（默认false）
      * @return 实例日志列表
      */
     @GetMapping("/{id}/logs")
-    @ApiOperation(value = "查询实例日志", notes = "查询任务实例的执行日志，支持按级别和关键词筛选")
-    public Result<Map<String, Object>> getInstanceLogs(
+    @ApiOperation(value = "查询实例日志", notes = "按行号游标增量查询实例日志，支持按级别和关键词筛选及跟随模式长轮询")
+    public DeferredResult<Result<Map<String, Object>>> getInstanceLogs(
             @ApiParam(value = "实例ID", required = true, example = "1")
             @PathVariable("id") @NotNull(message = "实例ID不能为空") Long id,
+            @ApiParam(value = "游标行号", example = "0")
+            @RequestParam(defaultValue = "0") Long afterLine,
             @ApiParam(value = "日志级别", example = "ERROR")
-            @RequestParam(required = false) String level,
+            @RequestParam(required = false) LogLevel level,
             @ApiParam(value = "关键词搜索", example = "exception")
             @RequestParam(required = false) String keyword,
             @ApiParam(value = "返回条数限制", example = "1000")
-            @RequestParam(defaultValue = "1000") Integer limit) {
-        log.info("查询实例日志, id: {}, level: {}, keyword: {}, limit: {}", id, level, keyword, limit);
-        // TODO: 调用Service层实现
+            @RequestParam(defaultValue = "1000") Integer limit,
+            @ApiParam(value = "跟随模式", example = "false")
+            @RequestParam(defaultValue = "false") Boolean follow) {
+        log.debug("查询实例日志, id: {}, afterLine: {}, level: {}, keyword: {}, limit: {}, follow: {}",
+                id, afterLine, level, keyword, limit, follow);
         // 返回格式示例：
         // {
         //   "instanceId": 1,
-        //   "taskName": "etl_task",
+        //   "instanceName": "etl_task_20240120",
+        //   "status": "RUNNING",
         //   "totalLines": 1500,
+        //   "nextLine": 1500,
+        //   "hasMore": false,
         //   "logs": [
-        //     {"lineNum": 1500, "timestamp": "2024-01-20 10:30:15", "level": "INFO", "content": "任务开始执行..."},
-        //     {"lineNum": 1499, "timestamp": "2024-01-20 10:30:14", "level": "INFO", "content": "初始化连接..."}
+        //     {"lineNum": 1499, "timestamp": "2024-01-20 10:30:14", "level": "INFO", "content": "初始化连接..."},
+        //     {"lineNum": 1500, "timestamp": "2024-01-20 10:30:15", "level": "INFO", "content": "任务开始执行..."}
         //   ]
         // }
-        return Result.success();
+        if (Boolean.TRUE.equals(follow)) {
+            return instanceLogService.followLogs(id, afterLine, level, keyword, limit);
+        }
+        DeferredResult<Result<Map<String, Object>>> result = new DeferredResult<>();
+        result.setResult(Result.success(instanceLogService.readLogs(id, afterLine, level, keyword, limit)));
+        return result;
+    }
+
+    /**
+     * 上报实例日志
+     * Worker批量上报实例运行日志，日志进入缓冲区后异步批量写入
+     * 仅接收运行中实例的日志；缓冲区已满时超出部分被丢弃，返回实际接收的行数，调用方可稍后重试未接收的部分
+     *
+     * @param id 实例ID
+     * @param lines 日志行（lineNum 由服务端分配，无需填写）
+     * @return 接收的行数
+     */
+    @PostMapping("/{id}/logs")
+    @ApiOperation(value = "上报实例日志", notes = "批量上报实例日志，异步写入存储")
+    public Result<Integer> appendInstanceLogs(
+            @ApiParam(value = "实例ID", required = true, example = "1")
+            @PathVariable("id") @NotNull(message = "实例ID不能为空") Long id,
+            @ApiParam(value = "日志行", required = true)
+            @RequestBody List<LogLine> lines) {
+        log.debug("上报实例日志, id: {}, lines: {}", id, lines.size());
+        return Result.success(instanceLogIngestService.submit(id, lines));
+    }
+
+    /**
+     * 查询实例日志写入统计
+     * 返回接收、丢弃、拒绝、写入、写入失败的行数以及缓冲区占用
+     *
+     * @return 写入统计信息
+     */
+    @GetMapping("/logs/statistics")
+    @ApiOperation(value = "查询实例日志写入统计", notes = "返回日志缓冲区丢弃行数、写入失败行数等统计信息")
+    public Result<Map<String, Object>> getLogIngestStatistics() {
+        return Result.success(instanceLogIngestService.getStatistics());
     }
 
     /**
@@ -194,4 +433,16 @@ public class TaskInstanceController {
         // TODO: 调用Service层实现
         return Result.success("实例取消功能开发中，敬请期待");
     }
+
+    private static InstanceQuery buildQuery(Long taskId, String instanceName, InstanceStatus status,
+                                            LocalDate businessDateStart, LocalDate businessDateEnd, String workerId) {
+        InstanceQuery query = new InstanceQuery();
+        query.setTaskId(taskId);
+        query.setInstanceName(instanceName);
+        query.setStatus(status);
+        query.setBusinessDateStart(businessDateStart);
+        query.setBusinessDateEnd(businessDateEnd);
+        query.setWorkerId(workerId);
+        return query;
+    }
 }
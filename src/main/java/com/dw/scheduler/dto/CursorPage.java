@@ -0,0 +1,27 @@
+package com.dw.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果(不统计总数)
+ *
+ * @author DW Team
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    /**
+     * 下一页游标,没有更多数据时为空
+     */
+    private String nextCursor;
+
+    private boolean hasMore;
+}
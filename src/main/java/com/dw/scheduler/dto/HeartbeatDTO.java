@@ -0,0 +1,34 @@
+package com.dw.scheduler.dto;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import java.math.BigDecimal;
+
+/**
+ * 服务器心跳上报
+ *
+ * @author DW Team
+ */
+@Data
+@ApiModel(value = "HeartbeatDTO", description = "服务器心跳上报")
+public class HeartbeatDTO {
+
+    @NotBlank(message = "IP地址不能为空")
+    @ApiModelProperty(value = "IP地址", required = true, example = "192.168.1.10")
+    private String ipAddress;
+
+    @ApiModelProperty(value = "CPU使用率(%)", example = "45.5")
+    private BigDecimal cpuUsage;
+
+    @ApiModelProperty(value = "内存使用率(%)", example = "60.2")
+    private BigDecimal memoryUsage;
+
+    @ApiModelProperty(value = "磁盘使用率(%)", example = "35.8")
+    private BigDecimal diskUsage;
+
+    @ApiModelProperty(value = "当前运行任务数", example = "15")
+    private Integer currentTaskNum;
+}
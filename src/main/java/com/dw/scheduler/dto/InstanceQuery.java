@@ -0,0 +1,39 @@
+package com.dw.scheduler.dto;
+
+import com.dw.scheduler.enums.InstanceStatus;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 实例列表查询条件
+ *
+ * @author DW Team
+ */
+@Data
+public class InstanceQuery {
+
+    /**
+     * 实例名称(模糊查询)
+     */
+    private String instanceName;
+
+    private Long taskId;
+
+    private InstanceStatus status;
+
+    /**
+     * 业务日期范围(含)
+     */
+    private LocalDate businessDateStart;
+
+    private LocalDate businessDateEnd;
+
+    private String workerId;
+
+    /**
+     * 名称检索索引解析出的候选实例ID,由服务层填充
+     */
+    private List<Long> candidateIds;
+}
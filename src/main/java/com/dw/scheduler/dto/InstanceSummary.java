@@ -0,0 +1,50 @@
+package com.dw.scheduler.dto;
+
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.enums.TriggerType;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 实例列表摘要
+ * 字段名与 {@link com.dw.scheduler.entity.TaskInstance} 属性一一对应,不含 taskSnapshot、errorMsg,完整内容通过详情接口查询
+ *
+ * @author DW Team
+ */
+@Data
+public class InstanceSummary {
+
+    private Long id;
+
+    private String instanceName;
+
+    private Long taskId;
+
+    private LocalDate businessDate;
+
+    private String owner;
+
+    private String resourceGroup;
+
+    private InstanceStatus status;
+
+    private TriggerType triggerType;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    private Integer executeTime;
+
+    private String workerId;
+
+    private Integer retryTimes;
+
+    private String snapshotHash;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
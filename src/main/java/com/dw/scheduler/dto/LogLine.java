@@ -0,0 +1,30 @@
+package com.dw.scheduler.dto;
+
+import com.dw.scheduler.enums.LogLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 实例日志行
+ *
+ * @author DW Team
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogLine {
+
+    /**
+     * 行号,从1开始,按追加顺序分配
+     */
+    private long lineNum;
+
+    private LocalDateTime logTime;
+
+    private LogLevel level;
+
+    private String content;
+}
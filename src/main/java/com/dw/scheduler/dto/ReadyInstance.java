@@ -0,0 +1,25 @@
+package com.dw.scheduler.dto;
+
+import com.dw.scheduler.enums.Priority;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 就绪实例(上游依赖已全部满足,等待分配Worker执行)
+ *
+ * @author DW Team
+ */
+@Data
+public class ReadyInstance {
+
+    private Long instanceId;
+
+    private Long taskId;
+
+    private LocalDate businessDate;
+
+    private Priority priority;
+
+    private String resourceGroup;
+}
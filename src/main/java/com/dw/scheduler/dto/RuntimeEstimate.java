@@ -0,0 +1,33 @@
+package com.dw.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 任务运行耗时估计
+ *
+ * @author DW Team
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuntimeEstimate {
+
+    private Long taskId;
+
+    /**
+     * 执行耗时指数加权移动平均(秒)
+     */
+    private long ewmaSeconds;
+
+    /**
+     * 最近样本的90分位耗时(秒)
+     */
+    private long p90Seconds;
+
+    /**
+     * 样本数,为0时两个估计值均为默认耗时
+     */
+    private int sampleCount;
+}
@@ -0,0 +1,54 @@
+package com.dw.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任务批量导入结果
+ *
+ * @author DW Team
+ */
+@Data
+public class TaskImportResult {
+
+    /**
+     * 非空行数
+     */
+    private long total;
+
+    private long created;
+
+    private long failed;
+
+    /**
+     * 行级错误,最多保留 MAX_ERRORS 条
+     */
+    private List<RowError> errors = new ArrayList<>();
+
+    /**
+     * 错误数超过上限,未全部列出
+     */
+    private boolean errorsTruncated;
+
+    /**
+     * 单行导入错误
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        /**
+         * 行号(从1开始)
+         */
+        private long lineNumber;
+
+        private String taskName;
+
+        private String message;
+    }
+}
@@ -0,0 +1,66 @@
+package com.dw.scheduler.dto;
+
+import com.dw.scheduler.enums.Priority;
+import com.dw.scheduler.enums.TaskStatus;
+import com.dw.scheduler.enums.TaskType;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任务列表摘要
+ * 字段名与 {@link com.dw.scheduler.entity.Task} 属性一一对应,不含 taskCode,完整内容通过详情接口查询
+ *
+ * @author DW Team
+ */
+@Data
+public class TaskSummary {
+
+    private Long id;
+
+    private String taskName;
+
+    private TaskType taskType;
+
+    private String description;
+
+    private Long directoryId;
+
+    private String cronExpr;
+
+    private Integer offsetDays;
+
+    private Integer timeout;
+
+    private Integer retryTimes;
+
+    private Integer retryInterval;
+
+    private Priority priority;
+
+    private String owner;
+
+    private String subject;
+
+    private TaskStatus status;
+
+    private String resourceGroup;
+
+    private Integer maxConcurrent;
+
+    private Long datasourceId;
+
+    private Integer alertEnabled;
+
+    private String alertUsers;
+
+    private String snapshotHash;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+
+    private String createBy;
+
+    private String updateBy;
+}
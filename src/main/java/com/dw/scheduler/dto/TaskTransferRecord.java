@@ -0,0 +1,67 @@
+package com.dw.scheduler.dto;
+
+import com.dw.scheduler.enums.Priority;
+import com.dw.scheduler.enums.TaskStatus;
+import com.dw.scheduler.enums.TaskType;
+import lombok.Data;
+
+/**
+ * 任务批量导入/导出记录(JSON Lines 每行一条)
+ * 目录与数据源按路径/名称引用,便于在不同环境间迁移;
+ * 导入时同时给出路径与ID的以路径为准
+ *
+ * @author DW Team
+ */
+@Data
+public class TaskTransferRecord {
+
+    private String taskName;
+
+    private TaskType taskType;
+
+    private String taskCode;
+
+    private String description;
+
+    /**
+     * 目录路径,如 /ods/user
+     */
+    private String directoryPath;
+
+    private Long directoryId;
+
+    private String cronExpr;
+
+    private Integer offsetDays;
+
+    private Integer timeout;
+
+    private Integer retryTimes;
+
+    private Integer retryInterval;
+
+    private Priority priority;
+
+    private String owner;
+
+    private String subject;
+
+    private TaskStatus status;
+
+    private String resourceGroup;
+
+    private Integer maxConcurrent;
+
+    /**
+     * 数据源名称
+     */
+    private String datasourceName;
+
+    private Long datasourceId;
+
+    private Integer alertEnabled;
+
+    private String alertUsers;
+
+    private String createBy;
+}
@@ -0,0 +1,23 @@
+package com.dw.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Worker分配结果
+ * 实例的 workerId 统一使用 Worker 的 IP 地址
+ *
+ * @author DW Team
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkerAssignment {
+
+    private Long serverId;
+
+    private String ipAddress;
+
+    private String resourceGroup;
+}
@@ -0,0 +1,56 @@
+package com.dw.scheduler.entity;
+
+import com.dw.scheduler.enums.InstanceStatus;
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 实例每日运行统计实体
+ * 按(业务日期, 责任人, 资源分组, 实例状态)汇总实例数与执行耗时,由实例状态转换增量维护
+ */
+@Data
+@Entity
+@Table(name = "t_instance_daily_stat", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_date_owner_group_status",
+                columnNames = {"business_date", "owner", "resource_group", "status"})
+})
+public class InstanceDailyStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    /**
+     * 任务责任人,任务不存在时为空串
+     */
+    @Column(name = "owner", nullable = false, length = 256)
+    private String owner;
+
+    @Column(name = "resource_group", nullable = false, length = 64)
+    private String resourceGroup;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private InstanceStatus status;
+
+    /**
+     * 当前处于该状态的实例数
+     */
+    @Column(name = "instance_count", nullable = false)
+    private Long instanceCount;
+
+    /**
+     * 处于该状态的实例执行耗时合计(秒)
+     */
+    @Column(name = "execute_time_total", nullable = false)
+    private Long executeTimeTotal;
+
+    @Column(name = "update_time")
+    private LocalDateTime updateTime;
+}
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "t_instance_log", indexes = {
         @Index(name = "idx_instance_id", columnList = "instance_id"),
-        @Index(name = "idx_instance_log_time", columnList = "instance_id,log_time")
+        @Index(name = "idx_instance_log_time", columnList = "instance_id,log_time"),
+        @Index(name = "idx_instance_line_no", columnList = "instance_id,line_no")
 })
 public class InstanceLog {
 
@@ -25,6 +26,12 @@ public class InstanceLog {
     @Column(name = "instance_id", nullable = false)
     private Long instanceId;
 
+    /**
+     * 实例内行号,从1开始按追加顺序分配
+     */
+    @Column(name = "line_no")
+    private Long lineNo;
+
     @Column(name = "log_content", columnDefinition = "TEXT")
     private String logContent;
 
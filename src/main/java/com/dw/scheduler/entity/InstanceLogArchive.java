@@ -0,0 +1,49 @@
+package com.dw.scheduler.entity;
+
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 实例日志归档块实体
+ * 已结束实例的日志按行号顺序切分为约64KB的块,每块 Deflate 压缩后存储
+ */
+@Data
+@Entity
+@Table(name = "t_instance_log_archive", indexes = {
+        @Index(name = "idx_instance_first_line", columnList = "instance_id,first_line")
+})
+public class InstanceLogArchive {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "instance_id", nullable = false)
+    private Long instanceId;
+
+    /**
+     * 块内第一行的行号
+     */
+    @Column(name = "first_line", nullable = false)
+    private Long firstLine;
+
+    @Column(name = "line_count", nullable = false)
+    private Integer lineCount;
+
+    /**
+     * 压缩前字节数
+     */
+    @Column(name = "raw_bytes")
+    private Integer rawBytes;
+
+    @Lob
+    @Column(name = "block_data", columnDefinition = "MEDIUMBLOB")
+    private byte[] blockData;
+
+    @CreationTimestamp
+    @Column(name = "create_time", updatable = false)
+    private LocalDateTime createTime;
+}
@@ -93,6 +93,12 @@ public class Task {
     @Column(name = "alert_users", length = 500)
     private String alertUsers;
 
+    /**
+     * 当前定义的快照哈希,见 {@link TaskSnapshot}
+     */
+    @Column(name = "snapshot_hash", length = 64)
+    private String snapshotHash;
+
     @Column(name = "deleted")
     private Integer deleted = 0;
 
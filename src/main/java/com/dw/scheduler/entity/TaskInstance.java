@@ -23,8 +23,9 @@ import java.time.LocalDateTime;
         @Index(name = "idx_start_time", columnList = "start_time"),
         @Index(name = "idx_worker_id", columnList = "worker_id"),
         @Index(name = "idx_create_time", columnList = "create_time"),
-        @Index(name = "idx_task_business_date", columnList = "task_id,business_date"),
-        @Index(name = "idx_status_create_time", columnList = "status,create_time")
+        @Index(name = "uk_task_business_date_live", columnList = "task_id,business_date,live_flag", unique = true),
+        @Index(name = "idx_status_create_time", columnList = "status,create_time"),
+        @Index(name = "idx_log_archived_end_time", columnList = "log_archived,end_time")
 })
 @Where(clause = "deleted = 0")
 public class TaskInstance {
@@ -39,12 +40,33 @@ public class TaskInstance {
     @Column(name = "task_id", nullable = false)
     private Long taskId;
 
+    /**
+     * 任务快照JSON(历史数据),新实例只记录 snapshotHash
+     */
     @Column(name = "task_snapshot", columnDefinition = "TEXT")
     private String taskSnapshot;
 
+    /**
+     * 创建实例时任务定义的快照哈希,见 {@link TaskSnapshot}
+     */
+    @Column(name = "snapshot_hash", length = 64)
+    private String snapshotHash;
+
     @Column(name = "business_date")
     private LocalDate businessDate;
 
+    /**
+     * 创建实例时任务的责任人,运行统计按该值归属,任务变更责任人不影响已创建实例
+     */
+    @Column(name = "owner", length = 256)
+    private String owner;
+
+    /**
+     * 创建实例时任务的资源分组,运行统计按该值归属
+     */
+    @Column(name = "resource_group", length = 64)
+    private String resourceGroup;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false, length = 16)
     private InstanceStatus status = InstanceStatus.WAITING;
@@ -71,9 +93,23 @@ public class TaskInstance {
     @Column(name = "error_msg", columnDefinition = "TEXT")
     private String errorMsg;
 
+    /**
+     * 日志是否已归档为压缩块(0-否 1-是)
+     */
+    @Column(name = "log_archived", columnDefinition = "int default 0")
+    private Integer logArchived = 0;
+
     @Column(name = "deleted")
     private Integer deleted = 0;
 
+    /**
+     * 有效标记,由数据库按 deleted 生成:未删除为1,已删除为NULL
+     * 唯一索引 uk_task_business_date_live 借此保证同一任务同一业务日期只有一个未删除实例
+     */
+    @Column(name = "live_flag", insertable = false, updatable = false,
+            columnDefinition = "tinyint generated always as (if(deleted = 0, 1, null)) stored")
+    private Integer liveFlag;
+
     @CreationTimestamp
     @Column(name = "create_time", updatable = false)
     private LocalDateTime createTime;
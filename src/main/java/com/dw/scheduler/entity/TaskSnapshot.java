@@ -0,0 +1,44 @@
+package com.dw.scheduler.entity;
+
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 任务快照实体
+ * 以任务定义序列化结果的 SHA-256 作为主键,相同定义只存一份,内容 Deflate 压缩后存储;
+ * 实例只记录快照哈希
+ */
+@Data
+@Entity
+@Table(name = "t_task_snapshot", indexes = {
+        @Index(name = "idx_task_id", columnList = "task_id")
+})
+public class TaskSnapshot {
+
+    /**
+     * 快照内容的 SHA-256(十六进制)
+     */
+    @Id
+    @Column(name = "snapshot_hash", length = 64)
+    private String snapshotHash;
+
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    /**
+     * 压缩前字节数
+     */
+    @Column(name = "raw_bytes")
+    private Integer rawBytes;
+
+    @Lob
+    @Column(name = "snapshot_data", columnDefinition = "MEDIUMBLOB")
+    private byte[] snapshotData;
+
+    @CreationTimestamp
+    @Column(name = "create_time", updatable = false)
+    private LocalDateTime createTime;
+}
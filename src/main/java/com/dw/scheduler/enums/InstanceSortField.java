@@ -0,0 +1,25 @@
+package com.dw.scheduler.enums;
+
+/**
+ * 实例列表排序字段(均按降序,主键作为第二排序键)
+ */
+public enum InstanceSortField {
+    CREATE_TIME("create_time", "创建时间"),
+    START_TIME("start_time", "开始时间");
+
+    private final String column;
+    private final String description;
+
+    InstanceSortField(String column, String description) {
+        this.column = column;
+        this.description = description;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -5,6 +5,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface DatasourceRepository extends JpaRepository<Datasource, Long>, JpaSpecificationExecutor<Datasource> {
 
@@ -12,4 +15,9 @@ public interface DatasourceRepository extends JpaRepository<Datasource, Long>, J
      * 根据数据源名称查询
      */
     Datasource findByDatasourceName(String datasourceName);
+
+    /**
+     * 根据数据源名称批量查询
+     */
+    List<Datasource> findByDatasourceNameIn(Collection<String> datasourceNames);
 }
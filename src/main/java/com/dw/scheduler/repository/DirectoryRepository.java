@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,4 +20,9 @@ public interface DirectoryRepository extends JpaRepository<Directory, Long>, Jpa
      * 根据目录名称和父目录ID查询
      */
     Directory findByDirectoryNameAndParentId(String directoryName, Long parentId);
+
+    /**
+     * 根据目录路径批量查询
+     */
+    List<Directory> findByDirectoryPathIn(Collection<String> directoryPaths);
 }
@@ -0,0 +1,38 @@
+package com.dw.scheduler.repository;
+
+import com.dw.scheduler.entity.InstanceLogArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InstanceLogArchiveRepository extends JpaRepository<InstanceLogArchive, Long> {
+
+    /**
+     * 查询实例的归档块目录(不含块数据),返回 [id, firstLine, lineCount]
+     */
+    @Query("select a.id, a.firstLine, a.lineCount from InstanceLogArchive a "
+            + "where a.instanceId = ?1 order by a.firstLine")
+    List<Object[]> findBlockDirectory(Long instanceId);
+
+    /**
+     * 删除实例的全部归档块
+     */
+    @Transactional(rollbackFor = Exception.class)
+    @Modifying
+    @Query("delete from InstanceLogArchive a where a.instanceId in ?1")
+    int deleteByInstanceIdIn(Collection<Long> instanceIds);
+
+    /**
+     * 统计归档块的原始字节数与压缩后字节数,返回 [rawBytes, compressedBytes]
+     * 全表扫描,只在后台定期调用
+     */
+    @Query(value = "select coalesce(sum(raw_bytes), 0), coalesce(sum(length(block_data)), 0) from t_instance_log_archive",
+            nativeQuery = true)
+    List<Object[]> sumBytes();
+}
@@ -0,0 +1,179 @@
+package com.dw.scheduler.repository;
+
+import cn.hutool.core.collection.ListUtil;
+import com.dw.scheduler.dto.LogLine;
+import com.dw.scheduler.enums.LogLevel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 实例日志 JDBC 数据访问
+ *
+ * @author DW Team
+ */
+@Repository
+public class InstanceLogJdbcRepository {
+
+    /**
+     * 单条 INSERT 语句包含的最大行数
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    /**
+     * 单条SQL中 IN 列表的最大参数个数
+     */
+    private static final int QUERY_BATCH_SIZE = 1000;
+
+    private static final String INSERT_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?)";
+
+    private static final RowMapper<LogLine> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp logTime = rs.getTimestamp("log_time");
+        String level = rs.getString("log_level");
+        return new LogLine(rs.getLong("line_no"), logTime == null ? null : logTime.toLocalDateTime(),
+                level == null ? null : LogLevel.valueOf(level), rs.getString("log_content"));
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 多行INSERT批量写入日志,同一实例的日志按给定顺序接续当前最大行号编号,并回写到 LogLine
+     * IDENTITY 主键下 Hibernate 无法批量插入,因此直接使用 JDBC;
+     * 行号依赖单一写入方顺序分配,调用方需在同一事务中执行
+     *
+     * @param linesByInstance 实例ID -> 日志行
+     * @return 写入行数
+     */
+    public int batchInsert(Map<Long, List<LogLine>> linesByInstance) {
+        Map<Long, Long> lastLines = findLastLineNos(linesByInstance.keySet());
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Map.Entry<Long, List<LogLine>> entry : linesByInstance.entrySet()) {
+            long lineNo = lastLines.getOrDefault(entry.getKey(), 0L);
+            for (LogLine line : entry.getValue()) {
+                LogLevel level = line.getLevel() == null ? LogLevel.INFO : line.getLevel();
+                line.setLineNum(++lineNo);
+                rows.add(new Object[]{
+                        entry.getKey(),
+                        lineNo,
+                        line.getContent(),
+                        level.name(),
+                        line.getLogTime() == null ? now : Timestamp.valueOf(line.getLogTime()),
+                        now
+                });
+            }
+        }
+
+        int total = 0;
+        for (List<Object[]> batch : ListUtil.partition(rows, INSERT_BATCH_SIZE)) {
+            StringBuilder sql = new StringBuilder("insert into t_instance_log "
+                    + "(instance_id, line_no, log_content, log_level, log_time, create_time) values ");
+            Object[] args = new Object[batch.size() * 6];
+            for (int i = 0; i < batch.size(); i++) {
+                sql.append(i == 0 ? INSERT_PLACEHOLDERS : ", " + INSERT_PLACEHOLDERS);
+                System.arraycopy(batch.get(i), 0, args, i * 6, 6);
+            }
+            total += jdbcTemplate.update(sql.toString(), args);
+        }
+        return total;
+    }
+
+    /**
+     * 按行号游标读取日志,在 (instance_id, line_no) 索引上定位起点,不扫描已跳过的行
+     *
+     * @param instanceId 实例ID
+     * @param afterLine  起始行号(不含)
+     * @param limit      最大行数
+     * @return 日志行(按行号升序)
+     */
+    public List<LogLine> findAfterLine(Long instanceId, long afterLine, int limit) {
+        return jdbcTemplate.query("select line_no, log_time, log_level, log_content from t_instance_log "
+                + "where instance_id = ? and line_no > ? order by line_no limit ?", ROW_MAPPER, instanceId, afterLine, limit);
+    }
+
+    /**
+     * 查询实例当前最大行号,没有日志时为 0
+     *
+     * @param instanceId 实例ID
+     * @return 最大行号
+     */
+    public long findLastLineNo(Long instanceId) {
+        return findLastLineNos(Collections.singleton(instanceId)).getOrDefault(instanceId, 0L);
+    }
+
+    /**
+     * 批量查询实例当前最大行号,没有日志的实例不在结果中
+     * 存在升级前写入、未编号的日志时先补齐行号
+     *
+     * @param instanceIds 实例ID
+     * @return 实例ID -> 最大行号
+     */
+    public Map<Long, Long> findLastLineNos(Collection<Long> instanceIds) {
+        Map<Long, Long> result = new HashMap<>();
+        for (List<Long> batch : ListUtil.partition(new ArrayList<>(instanceIds), QUERY_BATCH_SIZE)) {
+            StringBuilder sql = new StringBuilder("select instance_id, max(line_no) from t_instance_log where instance_id in (");
+            for (int i = 0; i < batch.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(") group by instance_id");
+            jdbcTemplate.query(sql.toString(), rs -> {
+                long lastLineNo = rs.getLong(2);
+                result.put(rs.getLong(1), rs.wasNull() ? -1L : lastLineNo);
+            }, batch.toArray());
+        }
+        for (Map.Entry<Long, Long> entry : result.entrySet()) {
+            if (entry.getValue() < 0) {
+                entry.setValue(numberLegacyLines(entry.getKey(), 0));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 实例是否存在未编号的日志
+     *
+     * @param instanceId 实例ID
+     * @return 是否存在
+     */
+    public boolean hasUnnumberedLines(Long instanceId) {
+        return !jdbcTemplate.queryForList("select 1 from t_instance_log where instance_id = ? and line_no is null limit 1",
+                Integer.class, instanceId).isEmpty();
+    }
+
+    /**
+     * 为升级前写入、line_no 为空的日志按主键顺序补齐行号
+     *
+     * @param instanceId 实例ID
+     * @param baseLineNo 已编号的最大行号
+     * @return 补齐后的最大行号
+     */
+    public long numberLegacyLines(Long instanceId, long baseLineNo) {
+        int rows = jdbcTemplate.update("update t_instance_log l join (select id, row_number() over (order by id) rn "
+                + "from t_instance_log where instance_id = ? and line_no is null) n on l.id = n.id "
+                + "set l.line_no = n.rn + ?", instanceId, baseLineNo);
+        return baseLineNo + rows;
+    }
+
+    /**
+     * 分块删除实例日志,每条语句最多删除 chunkSize 行
+     *
+     * @param instanceId 实例ID
+     * @param chunkSize  单条语句最大删除行数
+     * @return 删除行数
+     */
+    public long deleteByInstanceId(Long instanceId, int chunkSize) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("delete from t_instance_log where instance_id = ? limit ?", instanceId, chunkSize);
+            total += deleted;
+        } while (deleted >= chunkSize);
+        return total;
+    }
+}
@@ -0,0 +1,186 @@
+package com.dw.scheduler.repository;
+
+import cn.hutool.core.collection.ListUtil;
+import com.dw.scheduler.enums.InstanceStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 实例每日统计 JDBC 数据访问
+ *
+ * @author DW Team
+ */
+@Repository
+public class InstanceStatJdbcRepository {
+
+    /**
+     * 单条 INSERT 语句包含的最大行数
+     */
+    private static final int UPSERT_BATCH_SIZE = 500;
+
+    /**
+     * 单条SQL中 IN 列表的最大ID个数
+     */
+    private static final int ID_BATCH_SIZE = 1000;
+
+    private static final String UPSERT_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * 统计归属: 实例记录了责任人时使用实例的责任人与资源分组,否则取任务当前值
+     */
+    private static final String STAT_OWNER = "case when i.owner is null then coalesce(t.owner, '') else i.owner end";
+
+    private static final String STAT_GROUP = "case when i.owner is null then coalesce(t.resource_group, '') "
+            + "else coalesce(i.resource_group, '') end";
+
+    private static final RowMapper<DailyStatRow> ROW_MAPPER = (rs, rowNum) -> new DailyStatRow(
+            rs.getDate("business_date").toLocalDate(),
+            rs.getString("owner"),
+            rs.getString("resource_group"),
+            InstanceStatus.valueOf(rs.getString("status")),
+            rs.getLong("instance_count"),
+            rs.getLong("execute_time_total"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 多行 INSERT ... ON DUPLICATE KEY UPDATE 累加增量
+     *
+     * @param deltas 增量(instanceCount、executeTimeTotal 可为负)
+     * @return 影响行数
+     */
+    public int upsertDeltas(List<DailyStatRow> deltas) {
+        int total = 0;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (List<DailyStatRow> batch : ListUtil.partition(deltas, UPSERT_BATCH_SIZE)) {
+            StringBuilder sql = new StringBuilder("insert into t_instance_daily_stat (business_date, owner, "
+                    + "resource_group, status, instance_count, execute_time_total, update_time) values ");
+            List<Object> args = new ArrayList<>(batch.size() * 7);
+            for (int i = 0; i < batch.size(); i++) {
+                DailyStatRow row = batch.get(i);
+                sql.append(i == 0 ? UPSERT_PLACEHOLDERS : ", " + UPSERT_PLACEHOLDERS);
+                args.add(Date.valueOf(row.getBusinessDate()));
+                args.add(row.getOwner());
+                args.add(row.getResourceGroup());
+                args.add(row.getStatus().name());
+                args.add(row.getInstanceCount());
+                args.add(row.getExecuteTimeTotal());
+                args.add(now);
+            }
+            sql.append(" on duplicate key update instance_count = instance_count + values(instance_count), "
+                    + "execute_time_total = execute_time_total + values(execute_time_total), "
+                    + "update_time = values(update_time)");
+            total += jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+        return total;
+    }
+
+    /**
+     * 查询某个业务日期的全部统计行
+     *
+     * @param businessDate 业务日期
+     * @return 统计行
+     */
+    public List<DailyStatRow> findByBusinessDate(LocalDate businessDate) {
+        return jdbcTemplate.query("select business_date, owner, resource_group, status, instance_count, "
+                + "execute_time_total from t_instance_daily_stat where business_date = ?",
+                ROW_MAPPER, Date.valueOf(businessDate));
+    }
+
+    /**
+     * 统计表是否为空
+     */
+    public boolean isEmpty() {
+        List<Long> ids = jdbcTemplate.queryForList("select id from t_instance_daily_stat limit 1", Long.class);
+        return ids.isEmpty();
+    }
+
+    /**
+     * 按实例表全量重算业务日期范围内的统计
+     * 责任人与资源分组取实例创建时记录的值;未记录的历史实例取任务当前值(含已删除任务),任务不存在时为空串
+     *
+     * @param startDate 起始业务日期(含)
+     * @param endDate   结束业务日期(含)
+     * @return 写入行数
+     */
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        jdbcTemplate.update("delete from t_instance_daily_stat where business_date between ? and ?",
+                Date.valueOf(startDate), Date.valueOf(endDate));
+        return jdbcTemplate.update("insert into t_instance_daily_stat (business_date, owner, resource_group, "
+                        + "status, instance_count, execute_time_total, update_time) "
+                        + "select i.business_date, " + STAT_OWNER + ", " + STAT_GROUP + ", i.status, "
+                        + "count(*), coalesce(sum(i.execute_time), 0), now() "
+                        + "from t_task_instance i left join t_task t on t.id = i.task_id "
+                        + "where i.deleted = 0 and i.business_date between ? and ? "
+                        + "group by i.business_date, " + STAT_OWNER + ", " + STAT_GROUP + ", i.status",
+                Date.valueOf(startDate), Date.valueOf(endDate));
+    }
+
+    /**
+     * 查询实例业务日期范围,返回 [最小业务日期, 最大业务日期],无实例时为空
+     */
+    public LocalDate[] findBusinessDateRange() {
+        return jdbcTemplate.queryForObject("select min(business_date), max(business_date) from t_task_instance "
+                + "where deleted = 0", (rs, rowNum) -> {
+            Date min = rs.getDate(1);
+            Date max = rs.getDate(2);
+            return min == null ? null : new LocalDate[]{min.toLocalDate(), max.toLocalDate()};
+        });
+    }
+
+    /**
+     * 批量查询任务的责任人与资源分组(含已删除任务)
+     * 返回 [id, owner, resourceGroup]
+     *
+     * @param taskIds 任务ID
+     * @return 查询结果
+     */
+    public List<Object[]> findTaskOwnerGroups(Collection<Long> taskIds) {
+        List<Object[]> result = new ArrayList<>();
+        for (List<Long> batch : ListUtil.partition(new ArrayList<>(taskIds), ID_BATCH_SIZE)) {
+            StringBuilder sql = new StringBuilder("select id, owner, resource_group from t_task where id in (");
+            for (int i = 0; i < batch.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+            result.addAll(jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new Object[]{
+                    rs.getLong(1), rs.getString(2), rs.getString(3)}, batch.toArray()));
+        }
+        return result;
+    }
+
+    /**
+     * 统计行(也用于表示增量)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DailyStatRow {
+
+        private LocalDate businessDate;
+
+        private String owner;
+
+        private String resourceGroup;
+
+        private InstanceStatus status;
+
+        private long instanceCount;
+
+        private long executeTimeTotal;
+    }
+}
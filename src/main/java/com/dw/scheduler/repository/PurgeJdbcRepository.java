@@ -0,0 +1,111 @@
+package com.dw.scheduler.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 数据清理 JDBC 数据访问
+ * 按主键区间分块删除,每条语句带 LIMIT,在自动提交下执行以缩短锁持有时间
+ * 表名与条件均为调用方内部常量
+ *
+ * @author DW Team
+ */
+@Repository
+public class PurgeJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 查询最小主键,空表返回 null
+     */
+    public Long findMinId(String table) {
+        return jdbcTemplate.queryForObject("select min(id) from " + table, Long.class);
+    }
+
+    /**
+     * 查询最大主键,空表返回 null
+     */
+    public Long findMaxId(String table) {
+        return jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+    }
+
+    /**
+     * 查询主键不小于 id 的第一行的主键与创建时间,不存在时返回 null
+     *
+     * @return [id, create_time]
+     */
+    public Object[] findFirstRowFrom(String table, long id) {
+        List<Object[]> rows = jdbcTemplate.query(
+                "select id, create_time from " + table + " where id >= ? order by id limit 1",
+                (rs, rowNum) -> {
+                    Timestamp createTime = rs.getTimestamp(2);
+                    return new Object[]{rs.getLong(1), createTime == null ? null : createTime.toLocalDateTime()};
+                }, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * 查找创建时间早于 cutoff 的最大主键(主键与创建时间同向递增,按主键二分查找)
+     *
+     * @return 边界主键,不存在时返回 null
+     */
+    public Long findIdBoundary(String table, LocalDateTime cutoff) {
+        Long minId = findMinId(table);
+        Long maxId = findMaxId(table);
+        if (minId == null || maxId == null) {
+            return null;
+        }
+        Long boundary = null;
+        long low = minId;
+        long high = maxId;
+        while (low <= high) {
+            long mid = low + (high - low) / 2;
+            Object[] row = findFirstRowFrom(table, mid);
+            if (row == null) {
+                high = mid - 1;
+                continue;
+            }
+            long rowId = (Long) row[0];
+            LocalDateTime createTime = (LocalDateTime) row[1];
+            if (createTime != null && createTime.isBefore(cutoff)) {
+                boundary = rowId;
+                low = rowId + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return boundary;
+    }
+
+    /**
+     * 删除主键区间内满足条件的行,最多 limit 行
+     *
+     * @param table     表名
+     * @param condition 附加条件(可为空)
+     * @param fromId    起始主键(含)
+     * @param toId      结束主键(含)
+     * @param limit     最大删除行数
+     * @param args      附加条件参数
+     * @return 删除行数
+     */
+    public int deleteRange(String table, String condition, long fromId, long toId, int limit, Object... args) {
+        StringBuilder sql = new StringBuilder("delete from ").append(table).append(" where id between ? and ?");
+        if (condition != null) {
+            sql.append(" and (").append(condition).append(")");
+        }
+        sql.append(" limit ?");
+
+        Object[] params = new Object[args.length + 3];
+        params[0] = fromId;
+        params[1] = toId;
+        System.arraycopy(args, 0, params, 2, args.length);
+        params[params.length - 1] = limit;
+        return jdbcTemplate.update(sql.toString(), params);
+    }
+}
@@ -0,0 +1,94 @@
+package com.dw.scheduler.repository;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 服务器 JDBC 数据访问
+ *
+ * @author DW Team
+ */
+@Repository
+public class ServerJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 单条 UPDATE ... CASE 批量刷新心跳
+     * 每台服务器都更新 last_heartbeat,其余列只包含值不为空(即发生变化)的服务器
+     *
+     * @param updates 心跳更新列表
+     * @return 更新行数
+     */
+    public int batchUpdateHeartbeat(List<HeartbeatUpdate> updates) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("update t_server set ");
+        appendCase(sql, args, "last_heartbeat", updates, HeartbeatUpdate::getLastHeartbeat);
+        appendCase(sql, args, "cpu_usage", updates, HeartbeatUpdate::getCpuUsage);
+        appendCase(sql, args, "memory_usage", updates, HeartbeatUpdate::getMemoryUsage);
+        appendCase(sql, args, "disk_usage", updates, HeartbeatUpdate::getDiskUsage);
+        appendCase(sql, args, "current_task_num", updates, HeartbeatUpdate::getCurrentTaskNum);
+
+        sql.append(" where id in (");
+        for (int i = 0; i < updates.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args.add(updates.get(i).getServerId());
+        }
+        sql.append(")");
+
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private void appendCase(StringBuilder sql, List<Object> args, String column,
+                            List<HeartbeatUpdate> updates, Function<HeartbeatUpdate, Object> getter) {
+        boolean first = true;
+        for (HeartbeatUpdate update : updates) {
+            Object value = getter.apply(update);
+            if (value == null) {
+                continue;
+            }
+            if (first) {
+                sql.append(args.isEmpty() ? "" : ", ").append(column).append(" = case id");
+                first = false;
+            }
+            sql.append(" when ? then ?");
+            args.add(update.getServerId());
+            args.add(value);
+        }
+        if (!first) {
+            sql.append(" else ").append(column).append(" end");
+        }
+    }
+
+    /**
+     * 心跳更新(为空的指标表示未变化)
+     */
+    @Data
+    public static class HeartbeatUpdate {
+
+        private Long serverId;
+
+        private LocalDateTime lastHeartbeat;
+
+        private BigDecimal cpuUsage;
+
+        private BigDecimal memoryUsage;
+
+        private BigDecimal diskUsage;
+
+        private Integer currentTaskNum;
+    }
+}
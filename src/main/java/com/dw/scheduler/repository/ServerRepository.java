@@ -5,7 +5,10 @@ import com.dw.scheduler.enums.ServerRole;
 import com.dw.scheduler.enums.ServerStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -36,4 +39,12 @@ public interface ServerRepository extends JpaRepository<Server, Long>, JpaSpecif
      * 查询在线的Worker节点
      */
     List<Server> findByServerRoleAndStatus(ServerRole serverRole, ServerStatus status);
+
+    /**
+     * 条件更新服务器状态(仅当当前状态为 expectStatus 时更新)
+     */
+    @Transactional(rollbackFor = Exception.class)
+    @Modifying
+    @Query("update Server s set s.status = ?3 where s.id = ?1 and s.status = ?2")
+    int updateStatusIfMatch(Long id, ServerStatus expectStatus, ServerStatus newStatus);
 }
@@ -0,0 +1,123 @@
+package com.dw.scheduler.repository;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.PropertyAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * 列表摘要查询
+ * 按 Specification 条件只查询摘要类声明的属性(字段名与实体属性同名),跳过 TEXT 等大字段,
+ * 结果填充为摘要对象而非实体,避免把属性不完整的实体交给调用方;完整数据通过详情接口按ID查询
+ *
+ * @author DW Team
+ */
+@Repository
+public class SummaryQueryRepository {
+
+    /**
+     * 摘要类型 -> 查询属性名
+     */
+    private static final Map<Class<?>, List<String>> ATTRIBUTES = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 分页查询摘要属性
+     * 当前页不满一页且为首页时不再执行 count 语句
+     *
+     * @param entityClass  实体类型
+     * @param spec         查询条件,可为空
+     * @param summaryClass 摘要类型,其全部非静态字段作为查询属性
+     * @param pageable     分页参数
+     * @return 摘要分页
+     */
+    public <T, S> Page<S> findSummaryPage(Class<T> entityClass, Specification<T> spec,
+                                          Class<S> summaryClass, Pageable pageable) {
+        List<String> attributes = attributesOf(summaryClass);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+
+        List<Selection<?>> selections = new ArrayList<>(attributes.size());
+        for (String attribute : attributes) {
+            selections.add(root.get(attribute).alias(attribute));
+        }
+        query.multiselect(selections);
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            List<Order> orders = toOrders(pageable.getSort(), root, cb);
+            query.orderBy(orders);
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<S> content = new ArrayList<>();
+        for (Tuple tuple : typedQuery.getResultList()) {
+            S summary = BeanUtils.instantiateClass(summaryClass);
+            PropertyAccessor accessor = PropertyAccessorFactory.forDirectFieldAccess(summary);
+            for (String attribute : attributes) {
+                accessor.setPropertyValue(attribute, tuple.get(attribute));
+            }
+            content.add(summary);
+        }
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(entityClass, spec));
+    }
+
+    private static List<String> attributesOf(Class<?> summaryClass) {
+        return ATTRIBUTES.computeIfAbsent(summaryClass, type -> {
+            List<String> attributes = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                    attributes.add(field.getName());
+                }
+            }
+            return attributes;
+        });
+    }
+
+    private <T> long count(Class<T> entityClass, Specification<T> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(entityClass);
+        query.select(cb.count(root));
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,11 +22,28 @@ public interface TaskDependencyRepository extends JpaRepository<TaskDependency,
      */
     List<TaskDependency> findByDependTaskId(Long dependTaskId);
 
+    /**
+     * 批量查询多个任务的上游依赖
+     */
+    List<TaskDependency> findByTaskIdIn(Collection<Long> taskIds);
+
+    /**
+     * 批量查询多个任务的下游依赖
+     */
+    List<TaskDependency> findByDependTaskIdIn(Collection<Long> dependTaskIds);
+
     /**
      * 查询两个任务之间是否存在依赖关系
      */
     TaskDependency findByTaskIdAndDependTaskId(Long taskId, Long dependTaskId);
 
+    /**
+     * 查询全部依赖边(仅加载构建依赖图所需的列)
+     * 返回 [taskId, dependTaskId, dependType, cycleOffset]
+     */
+    @Query("select t.taskId, t.dependTaskId, t.dependType, t.cycleOffset from TaskDependency t")
+    List<Object[]> findAllEdges();
+
     /**
      * 删除任务的所有依赖关系
      */
@@ -0,0 +1,505 @@
+package com.dw.scheduler.repository;
+
+import cn.hutool.core.collection.ListUtil;
+import com.dw.scheduler.common.LongPair;
+import com.dw.scheduler.dto.InstanceQuery;
+import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.InstanceSortField;
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.enums.TriggerType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 任务实例 JDBC 数据访问
+ * 承载 JPA 不便表达或效率较低的批量操作,只读写必要的列
+ *
+ * @author DW Team
+ */
+@Repository
+public class TaskInstanceJdbcRepository {
+
+    /**
+     * 单条SQL中(task_id, business_date)二元组的最大个数
+     */
+    private static final int PAIR_BATCH_SIZE = 500;
+
+    /**
+     * 单条SQL中 IN 列表的最大ID个数
+     */
+    private static final int ID_BATCH_SIZE = 1000;
+
+    /**
+     * 实例概要列(不含 task_snapshot、error_msg 等 TEXT 列)
+     */
+    private static final String SUMMARY_COLUMNS = "id, instance_name, task_id, business_date, owner, resource_group, "
+            + "status, trigger_type, start_time, end_time, execute_time, worker_id, retry_times, create_time, update_time";
+
+    private static final RowMapper<TaskInstance> SUMMARY_ROW_MAPPER = (rs, rowNum) -> {
+        TaskInstance instance = new TaskInstance();
+        instance.setId(rs.getLong("id"));
+        instance.setInstanceName(rs.getString("instance_name"));
+        instance.setTaskId(rs.getLong("task_id"));
+        Date businessDate = rs.getDate("business_date");
+        instance.setBusinessDate(businessDate == null ? null : businessDate.toLocalDate());
+        instance.setOwner(rs.getString("owner"));
+        instance.setResourceGroup(rs.getString("resource_group"));
+        instance.setStatus(InstanceStatus.valueOf(rs.getString("status")));
+        String triggerType = rs.getString("trigger_type");
+        instance.setTriggerType(triggerType == null ? null : TriggerType.valueOf(triggerType));
+        Timestamp startTime = rs.getTimestamp("start_time");
+        instance.setStartTime(startTime == null ? null : startTime.toLocalDateTime());
+        Timestamp endTime = rs.getTimestamp("end_time");
+        instance.setEndTime(endTime == null ? null : endTime.toLocalDateTime());
+        instance.setExecuteTime((Integer) rs.getObject("execute_time"));
+        instance.setWorkerId(rs.getString("worker_id"));
+        instance.setRetryTimes((Integer) rs.getObject("retry_times"));
+        Timestamp createTime = rs.getTimestamp("create_time");
+        instance.setCreateTime(createTime == null ? null : createTime.toLocalDateTime());
+        Timestamp updateTime = rs.getTimestamp("update_time");
+        instance.setUpdateTime(updateTime == null ? null : updateTime.toLocalDateTime());
+        return instance;
+    };
+
+    /**
+     * 多行INSERT单条语句的最大行数
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private static final String INSERT_COLUMNS = "instance_name, task_id, snapshot_hash, business_date, owner, "
+            + "resource_group, status, trigger_type, worker_id, retry_times, log_archived, deleted, create_time, update_time";
+
+    private static final String INSERT_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 按(task_id, business_date)二元组批量查询实例概要
+     * 使用行构造器 IN 列表,命中 uk_task_business_date_live 索引前缀
+     *
+     * @param taskDateKeys 二元组集合,first 为任务ID,second 为业务日期的 epochDay
+     * @return 实例概要列表(按ID升序)
+     */
+    public List<TaskInstance> findSummaryByTaskDateKeys(Collection<LongPair> taskDateKeys) {
+        List<TaskInstance> result = new ArrayList<>();
+        if (taskDateKeys.isEmpty()) {
+            return result;
+        }
+
+        for (List<LongPair> batch : ListUtil.partition(new ArrayList<>(taskDateKeys), PAIR_BATCH_SIZE)) {
+            StringBuilder sql = new StringBuilder("select ").append(SUMMARY_COLUMNS)
+                    .append(" from t_task_instance where deleted = 0 and (task_id, business_date) in (");
+            Object[] args = new Object[batch.size() * 2];
+            for (int i = 0; i < batch.size(); i++) {
+                LongPair key = batch.get(i);
+                sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+                args[i * 2] = key.getFirst();
+                args[i * 2 + 1] = Date.valueOf(LocalDate.ofEpochDay(key.getSecond()));
+            }
+            sql.append(") order by id");
+            result.addAll(jdbcTemplate.query(sql.toString(), SUMMARY_ROW_MAPPER, args));
+        }
+
+        return result;
+    }
+
+    /**
+     * 按状态分页查询实例概要(按ID游标翻页,命中 idx_status 索引)
+     *
+     * @param status  实例状态
+     * @param afterId 起始ID(不含)
+     * @param limit   每页条数
+     * @return 实例概要列表(按ID升序)
+     */
+    public List<TaskInstance> findSummaryByStatusAfterId(InstanceStatus status, long afterId, int limit) {
+        String sql = "select " + SUMMARY_COLUMNS
+                + " from t_task_instance where deleted = 0 and status = ? and id > ? order by id limit ?";
+        return jdbcTemplate.query(sql, SUMMARY_ROW_MAPPER, status.name(), afterId, limit);
+    }
+
+    /**
+     * 查询某个业务日期的全部实例概要(命中 idx_business_date 索引)
+     *
+     * @param businessDate 业务日期
+     * @return 实例概要列表
+     */
+    public List<TaskInstance> findSummaryByBusinessDate(LocalDate businessDate) {
+        String sql = "select " + SUMMARY_COLUMNS + " from t_task_instance where deleted = 0 and business_date = ?";
+        return jdbcTemplate.query(sql, SUMMARY_ROW_MAPPER, Date.valueOf(businessDate));
+    }
+
+    /**
+     * 查询每个任务最近的成功实例执行耗时
+     * 按任务分区取ID最大的 perTask 条,结果按任务、ID升序(先旧后新)
+     *
+     * @param createdAfter 只统计该时间之后创建的实例
+     * @param perTask      每个任务最多条数
+     * @return [taskId, executeTime(秒)]
+     */
+    public List<long[]> findRecentExecuteTimes(LocalDateTime createdAfter, int perTask) {
+        String sql = "select task_id, execute_time from ("
+                + "select id, task_id, execute_time, row_number() over (partition by task_id order by id desc) rn "
+                + "from t_task_instance where deleted = 0 and status = ? and create_time >= ? "
+                + "and execute_time is not null) t where rn <= ? order by task_id, id";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                InstanceStatus.SUCCESS.name(), Timestamp.valueOf(createdAfter), perTask);
+    }
+
+    /**
+     * 按主键顺序分批读取实例名称(用于构建检索索引)
+     *
+     * @param afterId 起始ID(不含)
+     * @param limit   条数
+     * @return [id, instanceName]
+     */
+    public List<Object[]> findNamesAfter(long afterId, int limit) {
+        String sql = "select id, instance_name from t_task_instance where deleted = 0 and id > ? order by id limit ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2)}, afterId, limit);
+    }
+
+    /**
+     * 按ID批量查询未删除的实例概要
+     *
+     * @param ids 实例ID
+     * @return 实例概要列表
+     */
+    public List<TaskInstance> findSummaryByIds(Collection<Long> ids) {
+        List<TaskInstance> result = new ArrayList<>();
+        for (List<Long> batch : ListUtil.partition(new ArrayList<>(ids), ID_BATCH_SIZE)) {
+            StringBuilder sql = new StringBuilder("select ").append(SUMMARY_COLUMNS)
+                    .append(" from t_task_instance where deleted = 0 and id in (");
+            for (int i = 0; i < batch.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+            result.addAll(jdbcTemplate.query(sql.toString(), SUMMARY_ROW_MAPPER, batch.toArray()));
+        }
+        return result;
+    }
+
+    /**
+     * 按预期状态条件更新实例状态(CAS),每个实例一条 UPDATE ... WHERE id = ? AND status = ?,
+     * 多个实例以 JDBC 批量一次发送
+     * 目标状态决定同时更新的列:
+     * - RUNNING: 记录执行Worker与开始时间,清空结束时间
+     * - WAITING: 清空执行Worker与执行时间(重新排队/重跑)
+     * - SUCCESS/FAILED/CANCELED: 记录结束时间与执行耗时(秒),错误信息非空时写入
+     *
+     * @param ids      实例ID
+     * @param expected 预期当前状态
+     * @param target   目标状态
+     * @param workerId 执行Worker,仅 RUNNING 使用
+     * @param errorMsg 错误信息,仅终态使用
+     * @return 每个实例的更新行数,1 表示CAS成功
+     */
+    public int[] compareAndSetStatus(List<Long> ids, InstanceStatus expected, InstanceStatus target,
+                                     String workerId, String errorMsg) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String sql;
+        List<Object> setArgs = new ArrayList<>();
+        setArgs.add(target.name());
+        switch (target) {
+            case RUNNING:
+                sql = "update t_task_instance set status = ?, worker_id = ?, start_time = ?, end_time = null, "
+                        + "execute_time = null, update_time = ?";
+                setArgs.add(workerId);
+                setArgs.add(now);
+                break;
+            case WAITING:
+                sql = "update t_task_instance set status = ?, worker_id = null, start_time = null, end_time = null, "
+                        + "execute_time = null, log_archived = 0, update_time = ?";
+                break;
+            default:
+                sql = "update t_task_instance set status = ?, end_time = ?, "
+                        + "execute_time = timestampdiff(second, start_time, ?), "
+                        + "error_msg = coalesce(?, error_msg), update_time = ?";
+                setArgs.add(now);
+                setArgs.add(now);
+                setArgs.add(errorMsg);
+                break;
+        }
+        setArgs.add(now);
+        sql += " where id = ? and status = ? and deleted = 0";
+
+        if (ids.size() == 1) {
+            List<Object> args = new ArrayList<>(setArgs);
+            args.add(ids.get(0));
+            args.add(expected.name());
+            return new int[]{jdbcTemplate.update(sql, args.toArray())};
+        }
+        List<Object[]> batchArgs = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            List<Object> args = new ArrayList<>(setArgs);
+            args.add(id);
+            args.add(expected.name());
+            batchArgs.add(args.toArray());
+        }
+        return jdbcTemplate.batchUpdate(sql, batchArgs);
+    }
+
+    /**
+     * 按(排序字段, id)降序游标查询实例概要,不统计总数
+     * 排序字段为 start_time 时排除未开始的实例
+     *
+     * @param query       查询条件
+     * @param sortField   排序字段
+     * @param afterValue  上一页最后一行的排序字段值,首页为空
+     * @param afterId     上一页最后一行的ID,首页为空
+     * @param limit       条数
+     * @return 实例概要列表
+     */
+    public List<TaskInstance> findSummaryBySeek(InstanceQuery query, InstanceSortField sortField,
+                                                LocalDateTime afterValue, Long afterId, int limit) {
+        String column = sortField.getColumn();
+        StringBuilder sql = new StringBuilder("select ").append(SUMMARY_COLUMNS)
+                .append(" from t_task_instance where deleted = 0");
+        List<Object> args = new ArrayList<>();
+        appendFilters(sql, args, query);
+        if (sortField == InstanceSortField.START_TIME) {
+            sql.append(" and start_time is not null");
+        }
+        if (afterValue != null && afterId != null) {
+            sql.append(" and (").append(column).append(" < ? or (").append(column).append(" = ? and id < ?))");
+            args.add(Timestamp.valueOf(afterValue));
+            args.add(Timestamp.valueOf(afterValue));
+            args.add(afterId);
+        }
+        sql.append(" order by ").append(column).append(" desc, id desc limit ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), SUMMARY_ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * 按(排序字段, id)降序偏移查询实例概要,不统计总数
+     * 先在索引上定位主键再回表(延迟关联),跳过的行不读取整行
+     *
+     * @param query     查询条件
+     * @param sortField 排序字段
+     * @param offset    偏移量
+     * @param limit     条数
+     * @return 实例概要列表
+     */
+    public List<TaskInstance> findSummarySlice(InstanceQuery query, InstanceSortField sortField, long offset, int limit) {
+        String column = sortField.getColumn();
+        StringBuilder inner = new StringBuilder("select id from t_task_instance where deleted = 0");
+        List<Object> args = new ArrayList<>();
+        appendFilters(inner, args, query);
+        if (sortField == InstanceSortField.START_TIME) {
+            inner.append(" and start_time is not null");
+        }
+        inner.append(" order by ").append(column).append(" desc, id desc limit ?, ?");
+        args.add(offset);
+        args.add(limit);
+
+        String sql = "select " + prefixColumns("t") + " from t_task_instance t join (" + inner
+                + ") p on t.id = p.id order by t." + column + " desc, t.id desc";
+        return jdbcTemplate.query(sql, SUMMARY_ROW_MAPPER, args.toArray());
+    }
+
+    private static void appendFilters(StringBuilder sql, List<Object> args, InstanceQuery query) {
+        if (query == null) {
+            return;
+        }
+        if (query.getInstanceName() != null && !query.getInstanceName().isEmpty()) {
+            sql.append(" and instance_name like ?");
+            args.add("%" + query.getInstanceName() + "%");
+        }
+        if (query.getCandidateIds() != null) {
+            sql.append(" and id in (");
+            for (int i = 0; i < query.getCandidateIds().size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+            args.addAll(query.getCandidateIds());
+        }
+        if (query.getTaskId() != null) {
+            sql.append(" and task_id = ?");
+            args.add(query.getTaskId());
+        }
+        if (query.getStatus() != null) {
+            sql.append(" and status = ?");
+            args.add(query.getStatus().name());
+        }
+        if (query.getBusinessDateStart() != null) {
+            sql.append(" and business_date >= ?");
+            args.add(Date.valueOf(query.getBusinessDateStart()));
+        }
+        if (query.getBusinessDateEnd() != null) {
+            sql.append(" and business_date <= ?");
+            args.add(Date.valueOf(query.getBusinessDateEnd()));
+        }
+        if (query.getWorkerId() != null && !query.getWorkerId().isEmpty()) {
+            sql.append(" and worker_id = ?");
+            args.add(query.getWorkerId());
+        }
+    }
+
+    private static String prefixColumns(String alias) {
+        StringBuilder columns = new StringBuilder();
+        for (String column : SUMMARY_COLUMNS.split(",\\s*")) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+            }
+            columns.append(alias).append('.').append(column);
+        }
+        return columns.toString();
+    }
+
+    /**
+     * 按(task_id, business_date)二元组批量查询已存在实例的键
+     *
+     * @param taskDateKeys 二元组集合,first 为任务ID,second 为业务日期的 epochDay
+     * @return 已存在实例的二元组集合
+     */
+    public Set<LongPair> findExistingTaskDateKeys(Collection<LongPair> taskDateKeys) {
+        Set<LongPair> result = new HashSet<>();
+        if (taskDateKeys.isEmpty()) {
+            return result;
+        }
+
+        for (List<LongPair> batch : ListUtil.partition(new ArrayList<>(taskDateKeys), PAIR_BATCH_SIZE)) {
+            StringBuilder sql = new StringBuilder(
+                    "select task_id, business_date from t_task_instance where deleted = 0 and (task_id, business_date) in (");
+            Object[] args = new Object[batch.size() * 2];
+            for (int i = 0; i < batch.size(); i++) {
+                LongPair key = batch.get(i);
+                sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+                args[i * 2] = key.getFirst();
+                args[i * 2 + 1] = Date.valueOf(LocalDate.ofEpochDay(key.getSecond()));
+            }
+            sql.append(")");
+            jdbcTemplate.query(sql.toString(), rs -> {
+                result.add(LongPair.of(rs.getLong(1), rs.getDate(2).toLocalDate().toEpochDay()));
+            }, args);
+        }
+
+        return result;
+    }
+
+    /**
+     * 多行INSERT IGNORE批量写入实例,并回填自增ID
+     * IDENTITY 主键下 Hibernate 无法批量插入,因此直接使用 JDBC;
+     * 与并发创建的实例在 uk_task_business_date_live 上冲突的行被忽略,其ID保持为空
+     *
+     * @param instances 实例列表
+     * @return 写入行数
+     */
+    public int batchInsert(List<TaskInstance> instances) {
+        int total = 0;
+        for (List<TaskInstance> batch : ListUtil.partition(instances, INSERT_BATCH_SIZE)) {
+            total += insertRows(batch);
+        }
+        return total;
+    }
+
+    private int insertRows(List<TaskInstance> batch) {
+        StringBuilder sql = new StringBuilder("insert ignore into t_task_instance (").append(INSERT_COLUMNS).append(") values ");
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? INSERT_PLACEHOLDERS : ", " + INSERT_PLACEHOLDERS);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long[] firstId = new long[1];
+        int rows = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+                int index = 1;
+                for (TaskInstance instance : batch) {
+                    ps.setString(index++, instance.getInstanceName());
+                    ps.setLong(index++, instance.getTaskId());
+                    ps.setString(index++, instance.getSnapshotHash());
+                    ps.setDate(index++, Date.valueOf(instance.getBusinessDate()));
+                    ps.setString(index++, instance.getOwner());
+                    ps.setString(index++, instance.getResourceGroup());
+                    ps.setString(index++, instance.getStatus().name());
+                    ps.setString(index++, instance.getTriggerType() == null ? null : instance.getTriggerType().name());
+                    ps.setString(index++, instance.getWorkerId());
+                    ps.setInt(index++, instance.getRetryTimes() == null ? 0 : instance.getRetryTimes());
+                    ps.setInt(index++, 0);
+                    ps.setInt(index++, 0);
+                    ps.setTimestamp(index++, now);
+                    ps.setTimestamp(index++, now);
+                }
+                int inserted = ps.executeUpdate();
+
+                if (inserted == batch.size()) {
+                    // 回填自增ID(多行INSERT的自增ID连续返回)
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        int i = 0;
+                        while (keys.next() && i < batch.size()) {
+                            fillInserted(batch.get(i++), keys.getLong(1), now);
+                        }
+                    }
+                } else if (inserted > 0) {
+                    // 有行被忽略时自增ID不再与批次位置对应,只取本次写入的首个ID
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            firstId[0] = keys.getLong(1);
+                        }
+                    }
+                }
+                return inserted;
+            }
+        });
+
+        if (rows > 0 && rows < batch.size()) {
+            fillInsertedByKeys(batch, firstId[0], now);
+        }
+        return rows;
+    }
+
+    /**
+     * 部分行被忽略时,按(task_id, business_date)回查本次写入的行并回填ID
+     * 同一事务内此前的查询已排除已存在的键,回查只会命中本次写入的行;
+     * 以本次写入的首个自增ID为下界,进一步排除更早写入的同键行
+     */
+    private void fillInsertedByKeys(List<TaskInstance> batch, long firstId, Timestamp now) {
+        Map<LongPair, TaskInstance> instanceByKey = new HashMap<>(batch.size() * 2);
+        StringBuilder sql = new StringBuilder("select id, task_id, business_date from t_task_instance "
+                + "where deleted = 0 and id >= ? and (task_id, business_date) in (");
+        Object[] args = new Object[batch.size() * 2 + 1];
+        args[0] = firstId;
+        for (int i = 0; i < batch.size(); i++) {
+            TaskInstance instance = batch.get(i);
+            instanceByKey.put(LongPair.of(instance.getTaskId(), instance.getBusinessDate().toEpochDay()), instance);
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            args[i * 2 + 1] = instance.getTaskId();
+            args[i * 2 + 2] = Date.valueOf(instance.getBusinessDate());
+        }
+        sql.append(")");
+
+        jdbcTemplate.query(sql.toString(), rs -> {
+            TaskInstance instance = instanceByKey.get(
+                    LongPair.of(rs.getLong(2), rs.getDate(3).toLocalDate().toEpochDay()));
+            if (instance != null) {
+                fillInserted(instance, rs.getLong(1), now);
+            }
+        }, args);
+    }
+
+    private static void fillInserted(TaskInstance instance, long id, Timestamp now) {
+        instance.setId(id);
+        instance.setLogArchived(0);
+        instance.setDeleted(0);
+        instance.setCreateTime(now.toLocalDateTime());
+        instance.setUpdateTime(now.toLocalDateTime());
+    }
+}
@@ -2,11 +2,17 @@ package com.dw.scheduler.repository;
 
 import com.dw.scheduler.entity.TaskInstance;
 import com.dw.scheduler.enums.InstanceStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -36,4 +42,33 @@ public interface TaskInstanceRepository extends JpaRepository<TaskInstance, Long
      * 查询最近N条实例记录
      */
     List<TaskInstance> findTop10ByTaskIdOrderByCreateTimeDesc(Long taskId);
+
+    /**
+     * 查询实例日志头信息,返回 [instanceName, status, logArchived]
+     */
+    @Query("select t.instanceName, t.status, t.logArchived from TaskInstance t where t.id = ?1")
+    List<Object[]> findLogHeaderById(Long id);
+
+    /**
+     * 查询实例状态,实例不存在时返回空列表
+     */
+    @Query("select t.status from TaskInstance t where t.id = ?1")
+    List<InstanceStatus> findStatusById(Long id);
+
+    /**
+     * 查询待归档日志的实例ID(按ID游标分页)
+     * 由 idx_log_archived_end_time 定位未归档且已结束的实例,不扫描已归档的历史实例
+     */
+    @Query("select t.id from TaskInstance t where t.status in ?1 and t.endTime < ?2 "
+            + "and t.logArchived = 0 and t.id > ?3 order by t.id")
+    List<Long> findLogArchiveCandidates(Collection<InstanceStatus> statuses, LocalDateTime endTimeBefore,
+                                        Long afterId, Pageable pageable);
+
+    /**
+     * 标记实例日志已归档,实例已不在给定状态(如已重跑)时不更新
+     */
+    @Transactional(rollbackFor = Exception.class)
+    @Modifying
+    @Query("update TaskInstance t set t.logArchived = 1 where t.id = ?1 and t.status in ?2 and t.logArchived = 0")
+    int markLogArchived(Long id, Collection<InstanceStatus> statuses);
 }
@@ -0,0 +1,189 @@
+package com.dw.scheduler.repository;
+
+import cn.hutool.core.collection.ListUtil;
+import com.dw.scheduler.entity.Task;
+import com.dw.scheduler.enums.Priority;
+import com.dw.scheduler.enums.TaskStatus;
+import com.dw.scheduler.enums.TaskType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 任务 JDBC 数据访问
+ * 用于批量导入/导出等 JPA 逐条处理代价过高的场景
+ *
+ * @author DW Team
+ */
+@Repository
+public class TaskJdbcRepository {
+
+    /**
+     * 多行INSERT单条语句的最大行数
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    /**
+     * 单条SQL中 IN 列表的最大参数个数
+     */
+    private static final int NAME_BATCH_SIZE = 1000;
+
+    private static final String COLUMNS = "task_name, task_code, task_type, description, directory_id, cron_expr, "
+            + "offset_days, timeout, retry_times, retry_interval, priority, owner, subject, status, resource_group, "
+            + "max_concurrent, datasource_id, alert_enabled, alert_users, deleted, create_time, update_time, "
+            + "create_by, update_by";
+
+    private static final String INSERT_PLACEHOLDERS =
+            "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final RowMapper<Task> ROW_MAPPER = (rs, rowNum) -> {
+        Task task = new Task();
+        task.setId(rs.getLong("id"));
+        task.setTaskName(rs.getString("task_name"));
+        task.setTaskCode(rs.getString("task_code"));
+        task.setTaskType(TaskType.valueOf(rs.getString("task_type")));
+        task.setDescription(rs.getString("description"));
+        task.setDirectoryId(rs.getObject("directory_id", Long.class));
+        task.setCronExpr(rs.getString("cron_expr"));
+        task.setOffsetDays(rs.getObject("offset_days", Integer.class));
+        task.setTimeout(rs.getObject("timeout", Integer.class));
+        task.setRetryTimes(rs.getObject("retry_times", Integer.class));
+        task.setRetryInterval(rs.getObject("retry_interval", Integer.class));
+        String priority = rs.getString("priority");
+        task.setPriority(priority == null ? null : Priority.valueOf(priority));
+        task.setOwner(rs.getString("owner"));
+        task.setSubject(rs.getString("subject"));
+        task.setStatus(TaskStatus.valueOf(rs.getString("status")));
+        task.setResourceGroup(rs.getString("resource_group"));
+        task.setMaxConcurrent(rs.getObject("max_concurrent", Integer.class));
+        task.setDatasourceId(rs.getObject("datasource_id", Long.class));
+        task.setAlertEnabled(rs.getObject("alert_enabled", Integer.class));
+        task.setAlertUsers(rs.getString("alert_users"));
+        task.setSnapshotHash(rs.getString("snapshot_hash"));
+        task.setDeleted(rs.getInt("deleted"));
+        Timestamp createTime = rs.getTimestamp("create_time");
+        task.setCreateTime(createTime == null ? null : createTime.toLocalDateTime());
+        Timestamp updateTime = rs.getTimestamp("update_time");
+        task.setUpdateTime(updateTime == null ? null : updateTime.toLocalDateTime());
+        task.setCreateBy(rs.getString("create_by"));
+        task.setUpdateBy(rs.getString("update_by"));
+        return task;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 按主键顺序分页读取未删除的任务(含 task_code)
+     *
+     * @param afterId 起始ID(不含)
+     * @param limit   条数
+     * @return 任务列表
+     */
+    public List<Task> findAfter(long afterId, int limit) {
+        String sql = "select id, snapshot_hash, " + COLUMNS
+                + " from t_task where deleted = 0 and id > ? order by id limit ?";
+        return jdbcTemplate.query(sql, ROW_MAPPER, afterId, limit);
+    }
+
+    /**
+     * 查询已被占用的任务名称
+     * 任务名称唯一索引包含已逻辑删除的任务,因此不过滤 deleted
+     *
+     * @param taskNames 任务名称
+     * @return 任务名称 -> 是否已删除
+     */
+    public Map<String, Boolean> findUsedNames(Collection<String> taskNames) {
+        Map<String, Boolean> result = new HashMap<>();
+        for (List<String> batch : ListUtil.partition(new ArrayList<>(taskNames), NAME_BATCH_SIZE)) {
+            StringBuilder sql = new StringBuilder("select task_name, deleted from t_task where task_name in (");
+            for (int i = 0; i < batch.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+            jdbcTemplate.query(sql.toString(), rs -> {
+                result.put(rs.getString(1), rs.getInt(2) != 0);
+            }, batch.toArray());
+        }
+        return result;
+    }
+
+    /**
+     * 多行INSERT批量写入任务,并回填自增ID
+     * IDENTITY 主键下 Hibernate 无法批量插入,因此直接使用 JDBC
+     *
+     * @param tasks 任务列表
+     * @return 写入行数
+     */
+    public int batchInsert(List<Task> tasks) {
+        int total = 0;
+        for (List<Task> batch : ListUtil.partition(tasks, INSERT_BATCH_SIZE)) {
+            total += insertRows(batch);
+        }
+        return total;
+    }
+
+    private int insertRows(List<Task> batch) {
+        StringBuilder sql = new StringBuilder("insert into t_task (").append(COLUMNS).append(") values ");
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? INSERT_PLACEHOLDERS : ", " + INSERT_PLACEHOLDERS);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+                int index = 1;
+                for (Task task : batch) {
+                    ps.setString(index++, task.getTaskName());
+                    ps.setString(index++, task.getTaskCode());
+                    ps.setString(index++, task.getTaskType().name());
+                    ps.setString(index++, task.getDescription());
+                    ps.setObject(index++, task.getDirectoryId(), Types.BIGINT);
+                    ps.setString(index++, task.getCronExpr());
+                    ps.setObject(index++, task.getOffsetDays(), Types.INTEGER);
+                    ps.setObject(index++, task.getTimeout(), Types.INTEGER);
+                    ps.setObject(index++, task.getRetryTimes(), Types.INTEGER);
+                    ps.setObject(index++, task.getRetryInterval(), Types.INTEGER);
+                    ps.setString(index++, task.getPriority() == null ? null : task.getPriority().name());
+                    ps.setString(index++, task.getOwner());
+                    ps.setString(index++, task.getSubject());
+                    ps.setString(index++, task.getStatus().name());
+                    ps.setString(index++, task.getResourceGroup());
+                    ps.setObject(index++, task.getMaxConcurrent(), Types.INTEGER);
+                    ps.setObject(index++, task.getDatasourceId(), Types.BIGINT);
+                    ps.setObject(index++, task.getAlertEnabled(), Types.INTEGER);
+                    ps.setString(index++, task.getAlertUsers());
+                    ps.setInt(index++, 0);
+                    ps.setTimestamp(index++, now);
+                    ps.setTimestamp(index++, now);
+                    ps.setString(index++, task.getCreateBy());
+                    ps.setString(index++, task.getUpdateBy());
+                }
+                int rows = ps.executeUpdate();
+
+                // 回填自增ID(多行INSERT的自增ID连续返回)
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < batch.size()) {
+                        Task task = batch.get(i++);
+                        task.setId(keys.getLong(1));
+                        task.setDeleted(0);
+                        task.setCreateTime(now.toLocalDateTime());
+                        task.setUpdateTime(now.toLocalDateTime());
+                    }
+                }
+                return rows;
+            }
+        });
+    }
+}
@@ -5,8 +5,12 @@ import com.dw.scheduler.enums.TaskStatus;
 import com.dw.scheduler.enums.TaskType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -41,4 +45,47 @@ public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificat
      * 根据资源分组查询
      */
     List<Task> findByResourceGroup(String resourceGroup);
+
+    /**
+     * 根据任务状态查询调度信息(仅加载调度所需的列)
+     * 返回 [id, taskName, cronExpr, offsetDays]
+     */
+    @Query("select t.id, t.taskName, t.cronExpr, t.offsetDays from Task t where t.status = ?1")
+    List<Object[]> findScheduleInfoByStatus(TaskStatus status);
+
+    /**
+     * 根据任务ID批量查询任务名称、快照哈希、状态、责任人及资源分组(不加载 task_code 等大字段)
+     * 返回 [id, taskName, snapshotHash, status, owner, resourceGroup]
+     */
+    @Query("select t.id, t.taskName, t.snapshotHash, t.status, t.owner, t.resourceGroup from Task t where t.id in ?1")
+    List<Object[]> findNamesByIdIn(Collection<Long> ids);
+
+    /**
+     * 更新任务当前定义的快照哈希
+     */
+    @Transactional(rollbackFor = Exception.class)
+    @Modifying
+    @Query("update Task t set t.snapshotHash = ?2 where t.id = ?1")
+    int updateSnapshotHash(Long id, String snapshotHash);
+
+    /**
+     * 根据任务ID批量查询分发所需信息
+     * 返回 [id, priority, resourceGroup]
+     */
+    @Query("select t.id, t.priority, t.resourceGroup from Task t where t.id in ?1")
+    List<Object[]> findDispatchInfoByIdIn(Collection<Long> ids);
+
+    /**
+     * 根据任务ID批量查询主题
+     * 返回 [id, subject]
+     */
+    @Query("select t.id, t.subject from Task t where t.id in ?1")
+    List<Object[]> findSubjectsByIdIn(Collection<Long> ids);
+
+    /**
+     * 查询全部任务的名称与责任人(用于构建检索索引)
+     * 返回 [id, taskName, owner]
+     */
+    @Query("select t.id, t.taskName, t.owner from Task t")
+    List<Object[]> findSearchFields();
 }
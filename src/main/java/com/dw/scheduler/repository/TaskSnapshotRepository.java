@@ -0,0 +1,21 @@
+package com.dw.scheduler.repository;
+
+import com.dw.scheduler.entity.TaskSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface TaskSnapshotRepository extends JpaRepository<TaskSnapshot, String> {
+
+    /**
+     * 写入快照,哈希已存在时忽略(并发写入同一快照不报错)
+     */
+    @Transactional(rollbackFor = Exception.class)
+    @Modifying
+    @Query(value = "insert ignore into t_task_snapshot (snapshot_hash, task_id, raw_bytes, snapshot_data, create_time) "
+            + "values (?1, ?2, ?3, ?4, now())", nativeQuery = true)
+    int insertIgnore(String snapshotHash, Long taskId, Integer rawBytes, byte[] snapshotData);
+}
@@ -0,0 +1,27 @@
+package com.dw.scheduler.service;
+
+import java.util.Map;
+
+/**
+ * 数据清理服务接口
+ * 按保留期限在后台分块物理删除过期的实例日志、任务实例及其归档日志,
+ * 按主键区间推进,每条 DELETE 带 LIMIT,并按每秒行数限速
+ *
+ * @author DW Team
+ */
+public interface DataPurgeService {
+
+    /**
+     * 立即在后台执行一轮清理(已在执行时忽略)
+     *
+     * @return 是否已提交执行
+     */
+    boolean triggerPurge();
+
+    /**
+     * 查询清理进度
+     *
+     * @return 各清理目标的进度与统计
+     */
+    Map<String, Object> getProgress();
+}
@@ -0,0 +1,99 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.entity.TaskDependency;
+import com.dw.scheduler.enums.DependencyType;
+
+/**
+ * 任务依赖图索引服务
+ * 常驻内存的正向(上游)/反向(下游)邻接索引,启动时加载一次,之后随依赖增删增量维护
+ *
+ * @author DW Team
+ */
+public interface DependencyGraphService {
+
+    /**
+     * 从数据库全量重建索引
+     */
+    void reload();
+
+    /**
+     * 判断添加依赖(taskId 依赖 dependTaskId)后是否会形成环
+     * 仅从 dependTaskId 出发沿上游方向搜索是否可达 taskId
+     *
+     * @param taskId       任务ID
+     * @param dependTaskId 待添加的依赖任务ID
+     * @return 是否会形成环
+     */
+    boolean wouldCreateCycle(long taskId, long dependTaskId);
+
+    /**
+     * 索引中添加一条依赖边,存在事务时在事务提交后生效
+     *
+     * @param dependency 依赖关系
+     */
+    void addDependency(TaskDependency dependency);
+
+    /**
+     * 索引中删除一条依赖边,存在事务时在事务提交后生效
+     *
+     * @param taskId       任务ID
+     * @param dependTaskId 依赖任务ID
+     */
+    void removeDependency(long taskId, long dependTaskId);
+
+    /**
+     * 查询任务的直接上游任务ID
+     *
+     * @param taskId 任务ID
+     * @return 上游任务ID数组
+     */
+    long[] getUpstreamTaskIds(long taskId);
+
+    /**
+     * 查询任务的直接下游任务ID
+     *
+     * @param taskId 任务ID
+     * @return 下游任务ID数组
+     */
+    long[] getDownstreamTaskIds(long taskId);
+
+    /**
+     * 遍历任务的上游依赖边
+     *
+     * @param taskId  任务ID
+     * @param visitor 边访问器
+     */
+    void forEachUpstream(long taskId, EdgeVisitor visitor);
+
+    /**
+     * 遍历任务的下游依赖边
+     *
+     * @param taskId  任务ID
+     * @param visitor 边访问器
+     */
+    void forEachDownstream(long taskId, EdgeVisitor visitor);
+
+    /**
+     * 当前索引中的依赖边数量
+     *
+     * @return 边数量
+     */
+    int getEdgeCount();
+
+    /**
+     * 依赖边访问器
+     */
+    @FunctionalInterface
+    interface EdgeVisitor {
+
+        /**
+         * 访问一条依赖边(taskId 依赖 dependTaskId)
+         *
+         * @param taskId       任务ID
+         * @param dependTaskId 依赖任务ID
+         * @param dependType   依赖类型
+         * @param cycleOffset  周期偏移
+         */
+        void visit(long taskId, long dependTaskId, DependencyType dependType, int cycleOffset);
+    }
+}
@@ -0,0 +1,34 @@
+package com.dw.scheduler.service;
+
+import java.util.Map;
+
+/**
+ * 故障检测服务接口
+ * 内存中跟踪服务器心跳截止时间,超时的服务器标记为故障,并将其运行中的实例重新排队
+ *
+ * @author DW Team
+ */
+public interface FailureDetectorService {
+
+    /**
+     * 记录服务器心跳(心跳上报、注册时调用)
+     *
+     * @param serverId  服务器ID
+     * @param ipAddress IP地址
+     */
+    void onHeartbeat(Long serverId, String ipAddress);
+
+    /**
+     * 停止跟踪服务器(删除时调用)
+     *
+     * @param serverId 服务器ID
+     */
+    void forget(Long serverId);
+
+    /**
+     * 查询故障检测统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,43 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.dto.HeartbeatDTO;
+
+import java.util.Map;
+
+/**
+ * 心跳服务接口
+ * 心跳在内存中合并,定期以单条批量 UPDATE 刷新变化的指标和最后心跳时间
+ *
+ * @author DW Team
+ */
+public interface HeartbeatService {
+
+    /**
+     * 接收心跳
+     *
+     * @param heartbeat 心跳信息
+     * @return 服务器ID
+     */
+    Long receive(HeartbeatDTO heartbeat);
+
+    /**
+     * 清除IP地址到服务器ID的缓存(服务器删除或IP变更后调用)
+     *
+     * @param ipAddress IP地址
+     */
+    void evict(String ipAddress);
+
+    /**
+     * 将合并后的心跳刷新到数据库
+     *
+     * @return 刷新的服务器数量
+     */
+    int flush();
+
+    /**
+     * 查询心跳统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
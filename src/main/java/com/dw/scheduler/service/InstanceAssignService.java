@@ -0,0 +1,27 @@
+package com.dw.scheduler.service;
+
+import java.util.Map;
+
+/**
+ * 实例分配服务接口
+ * 周期性地按资源分组从分发就绪队列取出实例,分配最空闲的Worker并置为 RUNNING(workerId 为 Worker IP),
+ * Worker 按 workerId 与 RUNNING 状态查询分配给自己的实例执行
+ *
+ * @author DW Team
+ */
+public interface InstanceAssignService {
+
+    /**
+     * 执行一轮分配
+     *
+     * @return 本轮开始执行的实例数
+     */
+    int assignRound();
+
+    /**
+     * 查询分配统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,77 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.dto.ReadyInstance;
+import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.InstanceStatus;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 实例分发服务接口
+ * 内存中为每个等待实例维护未完成上游的倒计数,上游完成时 O(出度) 更新下游,
+ * 依赖全部满足的实例按资源分组、优先级进入就绪队列,由实例分配服务取出并分配Worker
+ *
+ * @author DW Team
+ */
+public interface InstanceDispatchService {
+
+    /**
+     * 登记等待中的实例,非 WAITING 状态的实例忽略
+     * 存在事务时在事务提交后生效
+     *
+     * @param instances 实例列表
+     */
+    void register(Collection<TaskInstance> instances);
+
+    /**
+     * 上游实例进入终态时调用,更新下游等待实例的倒计数
+     *
+     * @param taskId       任务ID
+     * @param businessDate 业务日期
+     * @param status       实例状态
+     */
+    void onInstanceFinished(Long taskId, LocalDate businessDate, InstanceStatus status);
+
+    /**
+     * 将任务的全部跟踪实例移出分发(任务删除时调用)
+     * 实例取消、结束经 onInstanceFinished 移出,无需单独调用
+     * 存在事务时在事务提交后生效
+     *
+     * @param taskId 任务ID
+     */
+    void unregisterTask(Long taskId);
+
+    /**
+     * 查询存在就绪实例的资源分组
+     *
+     * @return 资源分组
+     */
+    Set<String> getReadyGroups();
+
+    /**
+     * 按优先级从资源分组的就绪队列取出实例
+     *
+     * @param resourceGroup 资源分组,为空时为默认分组
+     * @param maxCount      最多取出的数量
+     * @return 就绪实例列表
+     */
+    List<ReadyInstance> pollReady(String resourceGroup, int maxCount);
+
+    /**
+     * 将已取出但未能开始执行的实例放回就绪队列
+     *
+     * @param instance 就绪实例
+     */
+    void requeue(ReadyInstance instance);
+
+    /**
+     * 查询分发统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
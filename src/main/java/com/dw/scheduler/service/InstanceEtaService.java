@@ -0,0 +1,49 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.entity.TaskInstance;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 实例预计完成时间服务接口
+ * 按业务日期在内存中构建实例依赖计划: 每个等待/运行中实例的预计开始时间取其上游预计完成时间的最大值,
+ * 预计完成时间 = 预计开始时间 + 任务耗时估计(EWMA 与 P90 各算一份),并记录决定开始时间的关键上游;
+ * 实例状态变化时只重算该实例及其下游
+ *
+ * @author DW Team
+ */
+public interface InstanceEtaService {
+
+    /**
+     * 查询业务日期的预计完成时间与关键路径
+     *
+     * @param businessDate 业务日期
+     * @param subject      主题(可选),只统计该主题的任务,如数仓分层
+     * @return 各状态实例数、预计完成时间及关键路径
+     */
+    Map<String, Object> getBusinessDateEta(LocalDate businessDate, String subject);
+
+    /**
+     * 查询单个实例的预计完成时间与关键路径
+     *
+     * @param instanceId 实例ID
+     * @return 实例预计时间及关键路径
+     */
+    Map<String, Object> getInstanceEta(Long instanceId);
+
+    /**
+     * 实例状态转换已提交,更新耗时估计并增量重算受影响的实例
+     *
+     * @param instances 转换后的实例概要
+     */
+    void onTransition(Collection<TaskInstance> instances);
+
+    /**
+     * 新实例已提交,相关业务日期的计划失效,下次查询时重建
+     *
+     * @param instances 新实例
+     */
+    void onInstancesCreated(Collection<TaskInstance> instances);
+}
@@ -0,0 +1,65 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.dto.LogLine;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 实例日志归档服务接口
+ * 结束超过指定天数的成功/失败实例,其日志转存为约64KB的 Deflate 压缩块并附行号目录,
+ * 按行号读取时只解压覆盖请求区间的块
+ *
+ * @author DW Team
+ */
+public interface InstanceLogArchiveService {
+
+    /**
+     * 执行一轮归档
+     *
+     * @return 归档的实例数
+     */
+    int archive();
+
+    /**
+     * 归档单个实例的日志
+     *
+     * @param instanceId 实例ID
+     * @return 归档的行数
+     */
+    long archiveInstance(Long instanceId);
+
+    /**
+     * 删除实例的归档日志,用于实例重跑(归档标记随状态回到 WAITING 一并清除),需在状态转换的事务中调用
+     *
+     * @param instanceIds 实例ID
+     * @return 删除的归档块数
+     */
+    int discard(Collection<Long> instanceIds);
+
+    /**
+     * 读取已归档日志中行号大于 afterLine 的行
+     *
+     * @param instanceId 实例ID
+     * @param afterLine  起始行号(不含)
+     * @param limit      最大行数
+     * @return 日志行(按行号升序)
+     */
+    List<LogLine> read(Long instanceId, long afterLine, int limit);
+
+    /**
+     * 查询已归档日志的总行数
+     *
+     * @param instanceId 实例ID
+     * @return 总行数
+     */
+    long countLines(Long instanceId);
+
+    /**
+     * 查询归档统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,39 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.dto.LogLine;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 实例日志异步写入服务接口
+ * 日志先进入有界无锁缓冲区,由写入线程按实例分组后批量写入存储;缓冲区满时丢弃并计数,不阻塞调用方
+ *
+ * @author DW Team
+ */
+public interface InstanceLogIngestService {
+
+    /**
+     * 提交日志,只接收运行中实例的日志
+     *
+     * @param instanceId 实例ID
+     * @param lines      日志行
+     * @return 成功进入缓冲区的行数,其余行因缓冲区已满被丢弃
+     * @throws com.dw.scheduler.exception.BusinessException 实例不存在或不在运行中
+     */
+    int submit(Long instanceId, List<LogLine> lines);
+
+    /**
+     * 立即写入缓冲区中的全部日志
+     *
+     * @return 写入行数
+     */
+    int flush();
+
+    /**
+     * 查询写入统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,49 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.common.Result;
+import com.dw.scheduler.enums.LogLevel;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+
+/**
+ * 实例日志服务接口
+ * 基于行号游标增量读取日志,级别/关键词在读取过程中过滤;跟随模式下无新日志时长轮询等待
+ *
+ * @author DW Team
+ */
+public interface InstanceLogService {
+
+    /**
+     * 通知实例有新日志写入,唤醒等待该实例日志的长轮询请求
+     *
+     * @param instanceId 实例ID
+     */
+    void notifyAppended(Long instanceId);
+
+    /**
+     * 读取行号大于 afterLine 且满足过滤条件的日志
+     * 单次请求扫描的行数有上限,返回的 nextLine 为下次请求的游标
+     *
+     * @param instanceId 实例ID
+     * @param afterLine  游标行号(不含),0 表示从头读取
+     * @param level      日志级别(可选)
+     * @param keyword    关键词(可选,不区分大小写)
+     * @param limit      最大返回行数
+     * @return 日志数据
+     */
+    Map<String, Object> readLogs(Long instanceId, long afterLine, LogLevel level, String keyword, int limit);
+
+    /**
+     * 跟随读取: 有满足条件的新日志或实例已结束时立即返回,否则等待新日志直到超时
+     *
+     * @param instanceId 实例ID
+     * @param afterLine  游标行号(不含)
+     * @param level      日志级别(可选)
+     * @param keyword    关键词(可选,不区分大小写)
+     * @param limit      最大返回行数
+     * @return 异步结果
+     */
+    DeferredResult<Result<Map<String, Object>>> followLogs(Long instanceId, long afterLine, LogLevel level,
+                                                           String keyword, int limit);
+}
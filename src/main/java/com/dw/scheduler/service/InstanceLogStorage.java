@@ -0,0 +1,59 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.dto.LogLine;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 实例日志存储接口
+ * 通过 scheduler.log.storage 选择实现: db(默认,t_instance_log 表) 或 file(本地分段文件)
+ *
+ * @author DW Team
+ */
+public interface InstanceLogStorage {
+
+    /**
+     * 追加日志,同一实例的日志行号按追加顺序递增
+     *
+     * @param instanceId 实例ID
+     * @param lines      日志行
+     */
+    void append(Long instanceId, List<LogLine> lines);
+
+    /**
+     * 批量追加多个实例的日志
+     *
+     * @param linesByInstance 实例ID -> 日志行
+     */
+    default void appendAll(Map<Long, List<LogLine>> linesByInstance) {
+        for (Map.Entry<Long, List<LogLine>> entry : linesByInstance.entrySet()) {
+            append(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 读取行号大于 afterLine 的日志
+     *
+     * @param instanceId 实例ID
+     * @param afterLine  起始行号(不含),0 表示从头读取
+     * @param limit      最大行数
+     * @return 日志行(按行号升序)
+     */
+    List<LogLine> read(Long instanceId, long afterLine, int limit);
+
+    /**
+     * 查询日志总行数
+     *
+     * @param instanceId 实例ID
+     * @return 总行数
+     */
+    long countLines(Long instanceId);
+
+    /**
+     * 删除实例日志
+     *
+     * @param instanceId 实例ID
+     */
+    void delete(Long instanceId);
+}
@@ -0,0 +1,63 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.InstanceStatus;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 实例运行统计服务接口
+ * 按(业务日期, 责任人, 资源分组, 实例状态)维护实例数与执行耗时汇总;
+ * 实例创建与状态转换在事务提交后累加到内存增量,定期合并写入统计表;
+ * 查询从内存汇总读取,数据延迟不超过一个刷新周期
+ *
+ * @author DW Team
+ */
+public interface InstanceStatService {
+
+    /**
+     * 记录新创建的实例
+     *
+     * @param instances 已写入的实例
+     */
+    void recordCreated(Collection<TaskInstance> instances);
+
+    /**
+     * 记录CAS成功的状态转换
+     *
+     * @param instances            转换后的实例概要(状态、执行耗时为新值)
+     * @param from                 转换前状态
+     * @param previousExecuteTimes 转换前的执行耗时(秒),仅转出终态时需要
+     */
+    void recordTransitions(Collection<TaskInstance> instances, InstanceStatus from,
+                           Map<Long, Integer> previousExecuteTimes);
+
+    /**
+     * 查询某个业务日期的统计
+     *
+     * @param businessDate 业务日期
+     * @return 各状态合计及按(责任人, 资源分组)的明细
+     */
+    Map<String, Object> getDailyStatistics(LocalDate businessDate);
+
+    /**
+     * 查询业务日期范围内每天的各状态合计
+     *
+     * @param startDate 起始业务日期(含)
+     * @param endDate   结束业务日期(含)
+     * @return 每天的统计
+     */
+    List<Map<String, Object>> getDailyTrend(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 按实例表重算业务日期范围内的统计(异步执行)
+     *
+     * @param startDate 起始业务日期(含)
+     * @param endDate   结束业务日期(含)
+     * @return 是否已提交,已有重算在执行时返回 false
+     */
+    boolean rebuild(LocalDate startDate, LocalDate endDate);
+}
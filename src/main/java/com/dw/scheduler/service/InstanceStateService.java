@@ -0,0 +1,75 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.enums.InstanceStatus;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 实例状态转换服务接口
+ * 状态机: WAITING -> RUNNING -> SUCCESS/FAILED,WAITING/RUNNING -> CANCELED,
+ * RUNNING -> WAITING(故障转移),SUCCESS/FAILED/CANCELED -> WAITING(重跑)
+ * <p>
+ * 每次转换是一条带预期状态的条件 UPDATE,不先查询再保存;返回值表示CAS是否成功,
+ * 并发转换同一实例时只有一方成功。成功的转换在事务提交后同步到实例分发
+ *
+ * @author DW Team
+ */
+public interface InstanceStateService {
+
+    /**
+     * 单个实例状态转换
+     *
+     * @param instanceId 实例ID
+     * @param expected   预期当前状态
+     * @param target     目标状态
+     * @return CAS是否成功
+     */
+    boolean transition(Long instanceId, InstanceStatus expected, InstanceStatus target);
+
+    /**
+     * 批量状态转换
+     *
+     * @param instanceIds 实例ID
+     * @param expected    预期当前状态
+     * @param target      目标状态
+     * @return CAS成功的实例ID
+     */
+    List<Long> transitionBatch(Collection<Long> instanceIds, InstanceStatus expected, InstanceStatus target);
+
+    /**
+     * 开始执行: WAITING -> RUNNING
+     *
+     * @param instanceId 实例ID
+     * @param workerId   执行Worker
+     * @return CAS是否成功
+     */
+    boolean start(Long instanceId, String workerId);
+
+    /**
+     * 批量开始执行: WAITING -> RUNNING
+     *
+     * @param instanceIds 实例ID
+     * @param workerId    执行Worker
+     * @return CAS成功的实例ID
+     */
+    List<Long> startBatch(Collection<Long> instanceIds, String workerId);
+
+    /**
+     * 执行结束: RUNNING -> SUCCESS/FAILED/CANCELED
+     *
+     * @param instanceId 实例ID
+     * @param target     结束状态
+     * @param errorMsg   错误信息(可选)
+     * @return CAS是否成功
+     */
+    boolean finish(Long instanceId, InstanceStatus target, String errorMsg);
+
+    /**
+     * 取消实例: 等待中或运行中的实例置为 CANCELED
+     *
+     * @param instanceId 实例ID
+     * @return 是否取消成功,实例已结束时返回 false
+     */
+    boolean cancel(Long instanceId);
+}
@@ -0,0 +1,51 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.common.LongPair;
+import com.dw.scheduler.dto.LogLine;
+import com.dw.scheduler.enums.LogLevel;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 实例日志检索索引服务接口
+ * 日志写入时为每个实例维护分块的级别位图与三元组布隆过滤器(内存,按总内存上限LRU淘汰),
+ * 级别/关键词查询只读取可能匹配的块
+ *
+ * @author DW Team
+ */
+public interface LogSearchIndexService {
+
+    /**
+     * 日志写入存储后更新索引
+     *
+     * @param instanceId 实例ID
+     * @param lines      本次写入的日志(按行号顺序)
+     */
+    void onAppended(Long instanceId, List<LogLine> lines);
+
+    /**
+     * 查找 afterLine 之后第一段可能匹配的连续行号区间
+     *
+     * @param instanceId 实例ID
+     * @param afterLine  起始行号(不含)
+     * @param level      日志级别(可选)
+     * @param keyword    关键词(可选)
+     * @return [起始行, 结束行],结束行为 Long.MAX_VALUE 表示之后的行未被索引需直接扫描
+     */
+    LongPair nextCandidateRange(Long instanceId, long afterLine, LogLevel level, String keyword);
+
+    /**
+     * 删除实例索引
+     *
+     * @param instanceId 实例ID
+     */
+    void remove(Long instanceId);
+
+    /**
+     * 查询索引统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,71 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.entity.TaskInstance;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 名称检索索引服务接口
+ * 为任务名称、任务责任人、实例名称维护内存三元组倒排索引,
+ * 列表查询的模糊条件先通过索引得到候选ID,再以 id in (...) 加原 LIKE 条件分页查询
+ *
+ * @author DW Team
+ */
+public interface NameSearchIndexService {
+
+    /**
+     * 查询任务名称、责任人同时可能匹配的候选任务ID
+     *
+     * @param taskName 任务名称关键词(可选)
+     * @param owner    责任人关键词(可选)
+     * @return 候选任务ID;索引未就绪、关键词不可过滤或候选过多时返回 null,调用方按原条件查询
+     */
+    List<Long> findTaskCandidates(String taskName, String owner);
+
+    /**
+     * 查询实例名称可能匹配的候选实例ID
+     *
+     * @param instanceName 实例名称关键词
+     * @return 候选实例ID;不可使用索引时返回 null
+     */
+    List<Long> findInstanceCandidates(String instanceName);
+
+    /**
+     * 任务新增或修改后更新索引
+     *
+     * @param taskId   任务ID
+     * @param taskName 任务名称
+     * @param owner    责任人
+     */
+    void onTaskSaved(Long taskId, String taskName, String owner);
+
+    /**
+     * 任务删除后移出索引
+     *
+     * @param taskId 任务ID
+     */
+    void onTaskDeleted(Long taskId);
+
+    /**
+     * 实例创建后加入索引
+     *
+     * @param instances 新建的实例
+     */
+    void onInstancesCreated(Collection<TaskInstance> instances);
+
+    /**
+     * 实例清理后移除ID小于 minId 的实例
+     *
+     * @param minId 实例表当前最小ID,表为空时为 null
+     */
+    void pruneInstances(Long minId);
+
+    /**
+     * 查询索引统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
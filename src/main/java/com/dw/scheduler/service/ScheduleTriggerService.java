@@ -0,0 +1,36 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.entity.Task;
+
+import java.util.Map;
+
+/**
+ * 调度触发服务接口
+ * 根据任务的 Cron 表达式定时生成任务实例
+ *
+ * @author DW Team
+ */
+public interface ScheduleTriggerService {
+
+    /**
+     * 刷新任务的调度计划(任务创建、修改、状态变更后调用)
+     * 非启用状态或 Cron 为空的任务会被移出调度
+     *
+     * @param task 任务信息
+     */
+    void refreshTask(Task task);
+
+    /**
+     * 将任务移出调度(任务删除后调用)
+     *
+     * @param taskId 任务ID
+     */
+    void removeTask(Long taskId);
+
+    /**
+     * 查询调度触发统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,60 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.entity.Server;
+import com.dw.scheduler.enums.ServerStatus;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * 服务器监控服务接口
+ * 心跳指标写入进程内的环形时间序列(5秒/1分钟/5分钟三级分辨率),监控查询直接从内存返回
+ *
+ * @author DW Team
+ */
+public interface ServerMonitorService {
+
+    /**
+     * 记录一次心跳指标
+     *
+     * @param serverId       服务器ID
+     * @param cpuUsage       CPU使用率(可为空)
+     * @param memoryUsage    内存使用率(可为空)
+     * @param diskUsage      磁盘使用率(可为空)
+     * @param currentTaskNum 当前运行任务数(可为空)
+     */
+    void record(Long serverId, BigDecimal cpuUsage, BigDecimal memoryUsage,
+                BigDecimal diskUsage, Integer currentTaskNum);
+
+    /**
+     * 刷新服务器基本信息(名称、状态、最大任务数),事务提交后生效
+     *
+     * @param server 服务器
+     */
+    void refreshServer(Server server);
+
+    /**
+     * 更新服务器状态
+     *
+     * @param serverId 服务器ID
+     * @param status   状态
+     */
+    void updateStatus(Long serverId, ServerStatus status);
+
+    /**
+     * 移除服务器的监控数据,事务提交后生效
+     *
+     * @param serverId 服务器ID
+     */
+    void removeServer(Long serverId);
+
+    /**
+     * 查询服务器监控数据
+     * 时间范围不超过1小时使用5秒分辨率,不超过1天使用1分钟分辨率,否则使用5分钟分辨率
+     *
+     * @param serverId        服务器ID
+     * @param durationMinutes 时间范围(分钟)
+     * @return 监控数据
+     */
+    Map<String, Object> getMonitor(Long serverId, int durationMinutes);
+}
@@ -0,0 +1,57 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.entity.Task;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 任务定义缓存服务接口
+ * 按任务ID与任务名称读穿缓存任务定义,供调度、实例创建、DAG展示等只读路径使用;
+ * 缓存的任务不含 taskCode,返回的是副本,修改不影响缓存。需要 taskCode 或在写路径中修改任务时直接查询数据库
+ *
+ * @author DW Team
+ */
+public interface TaskCacheService {
+
+    /**
+     * 按ID查询任务
+     *
+     * @param taskId 任务ID
+     * @return 任务副本(不含 taskCode)
+     */
+    Optional<Task> getById(Long taskId);
+
+    /**
+     * 按任务名称查询任务
+     *
+     * @param taskName 任务名称
+     * @return 任务副本(不含 taskCode)
+     */
+    Optional<Task> getByName(String taskName);
+
+    /**
+     * 按ID批量查询任务,未命中的一次性从数据库加载
+     *
+     * @param taskIds 任务ID
+     * @return 存在的任务副本(不含 taskCode),顺序不保证
+     */
+    List<Task> getByIds(Collection<Long> taskIds);
+
+    /**
+     * 使任务缓存失效
+     * 立即移除,并在当前事务结束后再次移除,避免事务期间读入的未提交数据留在缓存中
+     *
+     * @param taskId 任务ID
+     */
+    void invalidate(Long taskId);
+
+    /**
+     * 查询缓存统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
@@ -1,12 +1,18 @@
 package com.dw.scheduler.service;
 
-import com.dw.scheduler.entity.InstanceLog;
+import com.dw.scheduler.dto.CursorPage;
+import com.dw.scheduler.dto.InstanceQuery;
+import com.dw.scheduler.dto.InstanceSummary;
+import com.dw.scheduler.dto.LogLine;
 import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.InstanceSortField;
 import com.dw.scheduler.enums.InstanceStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +25,7 @@ public interface TaskInstanceService {
 
     /**
      * 查询实例列表(分页和多条件搜索)
+     * 列表项只包含摘要字段,不含 taskSnapshot、errorMsg,完整内容通过 {@link #getInstanceById(Long)} 查询
      *
      * @param instanceName  实例名称(模糊查询)
      * @param taskId        任务ID
@@ -29,10 +36,32 @@ public interface TaskInstanceService {
      * @param pageable      分页参数
      * @return 实例分页列表
      */
-    Page<TaskInstance> getInstanceList(String instanceName, Long taskId, InstanceStatus status,
+    Page<InstanceSummary> getInstanceList(String instanceName, Long taskId, InstanceStatus status,
                                        LocalDate businessDate, LocalDate startDateFrom,
                                        LocalDate startDateTo, Pageable pageable);
 
+    /**
+     * 游标分页查询实例概要(不统计总数)
+     * 按(排序字段, id)降序定位,翻页耗时与页深无关
+     *
+     * @param query     查询条件
+     * @param sortField 排序字段
+     * @param cursor    上一页返回的游标,首页为空
+     * @param size      每页大小
+     * @return 实例概要及下一页游标
+     */
+    CursorPage<InstanceSummary> scrollInstances(InstanceQuery query, InstanceSortField sortField, String cursor, int size);
+
+    /**
+     * 分页查询实例概要,只判断是否有下一页,不统计总数
+     *
+     * @param query     查询条件
+     * @param sortField 排序字段
+     * @param pageable  分页参数(排序以 sortField 为准)
+     * @return 实例概要切片
+     */
+    Slice<InstanceSummary> getInstanceSlice(InstanceQuery query, InstanceSortField sortField, Pageable pageable);
+
     /**
      * 查询实例详情
      *
@@ -43,11 +72,12 @@ public interface TaskInstanceService {
 
     /**
      * 查询实例日志
+     * 最多返回前 scheduler.log.max-read-lines 行,超出部分通过日志分页接口读取
      *
      * @param instanceId 实例ID
      * @return 日志列表
      */
-    List<InstanceLog> getInstanceLogs(Long instanceId);
+    List<LogLine> getInstanceLogs(Long instanceId);
 
     /**
      * 查询实例DAG图数据
@@ -57,6 +87,14 @@ public interface TaskInstanceService {
      */
     Map<String, Object> getInstanceDag(Long instanceId);
 
+    /**
+     * 查询实例创建时的任务快照
+     *
+     * @param instanceId 实例ID
+     * @return 任务定义JSON,无快照时返回空
+     */
+    String getInstanceSnapshot(Long instanceId);
+
     /**
      * 创建实例(预留接口)
      *
@@ -64,4 +102,14 @@ public interface TaskInstanceService {
      * @return 创建的实例
      */
     TaskInstance createInstance(TaskInstance instance);
+
+    /**
+     * 批量创建实例
+     * 任务信息与已存在的(任务, 业务日期)一次性批量预加载,已存在实例的条目跳过,使用多行INSERT写入;
+     * 任务已不存在的条目、以及调度触发但任务已不再启用的条目跳过,不影响同批次其他实例
+     *
+     * @param instances 实例列表
+     * @return 实际创建的实例(已回填ID)
+     */
+    List<TaskInstance> createInstances(Collection<TaskInstance> instances);
 }
@@ -0,0 +1,29 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.dto.RuntimeEstimate;
+
+/**
+ * 任务运行耗时估计服务接口
+ * 每个任务保留最近 N 次成功实例的执行耗时,维护指数加权移动平均与90分位;
+ * 启动时从实例表加载,之后随实例成功增量更新
+ *
+ * @author DW Team
+ */
+public interface TaskRuntimeEstimateService {
+
+    /**
+     * 记录一次成功执行的耗时
+     *
+     * @param taskId         任务ID
+     * @param executeSeconds 执行耗时(秒)
+     */
+    void record(Long taskId, long executeSeconds);
+
+    /**
+     * 查询任务的耗时估计,无历史样本时返回默认耗时
+     *
+     * @param taskId 任务ID
+     * @return 耗时估计
+     */
+    RuntimeEstimate getEstimate(Long taskId);
+}
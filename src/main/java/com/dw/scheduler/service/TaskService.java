@@ -1,11 +1,17 @@
 package com.dw.scheduler.service;
 
+import com.dw.scheduler.dto.TaskImportResult;
+import com.dw.scheduler.dto.TaskSummary;
+import com.dw.scheduler.dto.TaskTransferRecord;
 import com.dw.scheduler.entity.Task;
 import com.dw.scheduler.entity.TaskDependency;
 import com.dw.scheduler.enums.TaskStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -42,6 +48,7 @@ public interface TaskService {
 
     /**
      * 查询任务列表(分页和多条件搜索)
+     * 列表项只包含摘要字段,不含 taskCode,完整内容通过 {@link #getTaskById(Long)} 查询
      *
      * @param taskName      任务名称(模糊查询)
      * @param taskType      任务类型
@@ -53,7 +60,7 @@ public interface TaskService {
      * @param pageable      分页参数
      * @return 任务分页列表
      */
-    Page<Task> getTaskList(String taskName, String taskType, TaskStatus status,
+    Page<TaskSummary> getTaskList(String taskName, String taskType, TaskStatus status,
                            String owner, String subject, Long directoryId,
                            String resourceGroup, Pageable pageable);
 
@@ -123,4 +130,22 @@ public interface TaskService {
      * @return DAG图数据,包含节点和边
      */
     Map<String, Object> getTaskDag(Long taskId, int depth);
+
+    /**
+     * 批量导入任务(JSON Lines,每行一个 {@link TaskTransferRecord})
+     * 按块流式读取,每块一次查询名称冲突、批量解析目录/数据源、批量写入并单独提交;
+     * 单行错误记录到结果中,不影响其他行
+     *
+     * @param input 导入数据
+     * @return 导入结果
+     */
+    TaskImportResult importTasks(InputStream input);
+
+    /**
+     * 导出全部任务(JSON Lines),按主键分页读取并逐页写出
+     *
+     * @param output 输出流
+     * @throws IOException 写出失败
+     */
+    void exportTasks(OutputStream output) throws IOException;
 }
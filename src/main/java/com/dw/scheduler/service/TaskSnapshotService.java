@@ -0,0 +1,37 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.entity.Task;
+
+/**
+ * 任务快照服务接口
+ * 任务定义序列化后按 SHA-256 内容寻址,每个不同版本只压缩存储一份;
+ * 任务保存时计算快照并记录到任务上,生成实例时直接复用任务上的哈希
+ *
+ * @author DW Team
+ */
+public interface TaskSnapshotService {
+
+    /**
+     * 为任务当前定义生成快照,内容未变化时不重复存储
+     *
+     * @param task 任务
+     * @return 快照哈希
+     */
+    String snapshot(Task task);
+
+    /**
+     * 为尚未记录快照哈希的任务补生成快照,并回写到任务上
+     *
+     * @param taskId 任务ID
+     * @return 快照哈希
+     */
+    String backfill(Long taskId);
+
+    /**
+     * 查询快照内容
+     *
+     * @param snapshotHash 快照哈希
+     * @return 任务定义JSON
+     */
+    String getSnapshot(String snapshotHash);
+}
@@ -0,0 +1,70 @@
+package com.dw.scheduler.service;
+
+import com.dw.scheduler.dto.WorkerAssignment;
+import com.dw.scheduler.entity.Server;
+
+import java.util.Map;
+
+/**
+ * Worker分配服务接口
+ * 按资源分组在内存中维护在线Worker的堆,按空闲槽位和近期负载选择最空闲的Worker;
+ * 运行任务数由心跳上报数与已分配未确认数合并得出,心跳不会覆盖两次上报之间的分配
+ *
+ * @author DW Team
+ */
+public interface WorkerPlacementService {
+
+    /**
+     * 刷新Worker信息(注册、更新后调用),非在线Worker会被移除
+     * 存在事务时在事务提交后生效
+     *
+     * @param server 服务器信息
+     */
+    void refreshWorker(Server server);
+
+    /**
+     * 更新Worker负载(心跳上报时调用),并按上报的运行任务数确认已分配的实例
+     *
+     * @param serverId       服务器ID
+     * @param currentTaskNum 当前运行任务数
+     * @param cpuUsage       CPU使用率(%)
+     * @param memoryUsage    内存使用率(%)
+     */
+    void updateLoad(Long serverId, Integer currentTaskNum, Double cpuUsage, Double memoryUsage);
+
+    /**
+     * 移除Worker(删除、下线、故障时调用)
+     *
+     * @param serverId 服务器ID
+     */
+    void removeWorker(Long serverId);
+
+    /**
+     * 在资源分组内分配一个最空闲的Worker并占用一个槽位
+     *
+     * @param resourceGroup 资源分组
+     * @return 分配结果,无可用Worker时返回 null
+     */
+    WorkerAssignment assign(String resourceGroup);
+
+    /**
+     * 撤销一次尚未开始执行的分配(实例开始执行的CAS失败时调用)
+     *
+     * @param serverId 服务器ID
+     */
+    void release(Long serverId);
+
+    /**
+     * 运行中的实例结束后归还其Worker的槽位,下一次心跳上报会再次校正
+     *
+     * @param workerId 实例的 workerId(Worker IP)
+     */
+    void onInstanceFinished(String workerId);
+
+    /**
+     * 查询各资源分组的Worker数量与空闲槽位
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,256 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.repository.PurgeJdbcRepository;
+import com.dw.scheduler.service.DataPurgeService;
+import com.dw.scheduler.service.NameSearchIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据清理服务实现类
+ * 每个清理目标先按创建时间二分出主键上界,再从最小主键开始按 range-size 推进区间,
+ * 区间内循环执行 DELETE ... LIMIT chunk-size 直到删完,每条语句后按 rows-per-second 休眠限速
+ * <p>
+ * 清理目标:
+ * - t_instance_log: 创建时间早于日志保留期限
+ * - t_task_instance: 业务日期早于实例保留期限的已结束实例,以及已逻辑删除的实例
+ * - t_instance_log_archive: 所属实例已被清理
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class DataPurgeServiceImpl implements DataPurgeService {
+
+    private static final String TABLE_INSTANCE_LOG = "t_instance_log";
+    private static final String TABLE_TASK_INSTANCE = "t_task_instance";
+    private static final String TABLE_LOG_ARCHIVE = "t_instance_log_archive";
+
+    private static final String INSTANCE_CONDITION = "deleted = 1 or (business_date < ? "
+            + "and status in ('SUCCESS', 'FAILED', 'CANCELED'))";
+
+    private static final String ARCHIVE_CONDITION = "not exists (select 1 from t_task_instance i "
+            + "where i.id = t_instance_log_archive.instance_id)";
+
+    @Autowired
+    private PurgeJdbcRepository purgeJdbcRepository;
+
+    @Autowired
+    private NameSearchIndexService nameSearchIndexService;
+
+    @Value("${scheduler.purge.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 清理执行间隔(分钟)
+     */
+    @Value("${scheduler.purge.interval-minutes:1440}")
+    private long intervalMinutes;
+
+    @Value("${scheduler.purge.log-retention-days:30}")
+    private int logRetentionDays;
+
+    @Value("${scheduler.purge.instance-retention-days:180}")
+    private int instanceRetentionDays;
+
+    /**
+     * 每秒最多删除行数,0 表示不限速
+     */
+    @Value("${scheduler.purge.rows-per-second:2000}")
+    private long rowsPerSecond;
+
+    /**
+     * 单条 DELETE 最多删除行数
+     */
+    @Value("${scheduler.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * 每个主键区间的跨度
+     */
+    @Value("${scheduler.purge.range-size:20000}")
+    private long rangeSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Map<String, PurgeProgress> progresses = new LinkedHashMap<>();
+
+    private ScheduledExecutorService purgeExecutor;
+
+    @PostConstruct
+    public void start() {
+        progresses.put(TABLE_INSTANCE_LOG, new PurgeProgress());
+        progresses.put(TABLE_TASK_INSTANCE, new PurgeProgress());
+        progresses.put(TABLE_LOG_ARCHIVE, new PurgeProgress());
+
+        purgeExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "data-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            purgeExecutor.scheduleWithFixedDelay(this::runPurge, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        } else {
+            log.info("数据清理未启用");
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (purgeExecutor != null) {
+            purgeExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean triggerPurge() {
+        if (running.get()) {
+            return false;
+        }
+        purgeExecutor.execute(this::runPurge);
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> getProgress() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("running", running.get());
+        result.put("rowsPerSecond", rowsPerSecond);
+        for (Map.Entry<String, PurgeProgress> entry : progresses.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toMap());
+        }
+        return result;
+    }
+
+    private void runPurge() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDate instanceCutoffDate = LocalDate.now().minusDays(instanceRetentionDays);
+
+            purgeTable(TABLE_INSTANCE_LOG, now.minusDays(logRetentionDays), null);
+            purgeTable(TABLE_TASK_INSTANCE, instanceCutoffDate.atStartOfDay(), INSTANCE_CONDITION,
+                    Date.valueOf(instanceCutoffDate));
+            nameSearchIndexService.pruneInstances(purgeJdbcRepository.findMinId(TABLE_TASK_INSTANCE));
+            // 归档块在实例结束后才生成,创建时间晚于实例,因此扫描全部归档块,只删除所属实例已不存在的
+            purgeTable(TABLE_LOG_ARCHIVE, now, ARCHIVE_CONDITION);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("数据清理被中断");
+        } catch (Exception e) {
+            log.error("数据清理异常", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 清理单张表: 主键上界取创建时间早于 cutoff 的最大主键
+     */
+    private void purgeTable(String table, LocalDateTime cutoff, String condition, Object... args)
+            throws InterruptedException {
+        PurgeProgress progress = progresses.get(table);
+        progress.begin();
+        Long boundary = purgeJdbcRepository.findIdBoundary(table, cutoff);
+        Long minId = purgeJdbcRepository.findMinId(table);
+        if (boundary == null || minId == null) {
+            progress.finish();
+            return;
+        }
+        progress.boundaryId = boundary;
+        log.info("开始清理: table={}, cutoff={}, ids=[{}, {}]", table, cutoff, minId, boundary);
+
+        long windowStart = System.nanoTime();
+        long windowRows = 0;
+        for (long fromId = minId; fromId <= boundary; fromId += rangeSize) {
+            long toId = Math.min(fromId + rangeSize - 1, boundary);
+            int deleted;
+            do {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                deleted = purgeJdbcRepository.deleteRange(table, condition, fromId, toId, chunkSize, args);
+                progress.deletedRows.addAndGet(deleted);
+                progress.statements.incrementAndGet();
+                windowRows += deleted;
+
+                // 限速: 按已删除行数计算应耗时间,不足则休眠;每分钟重置窗口
+                if (rowsPerSecond > 0 && deleted > 0) {
+                    long expectedNanos = windowRows * TimeUnit.SECONDS.toNanos(1) / rowsPerSecond;
+                    long elapsedNanos = System.nanoTime() - windowStart;
+                    if (expectedNanos > elapsedNanos) {
+                        TimeUnit.NANOSECONDS.sleep(expectedNanos - elapsedNanos);
+                    }
+                    if (elapsedNanos > TimeUnit.MINUTES.toNanos(1)) {
+                        windowStart = System.nanoTime();
+                        windowRows = 0;
+                    }
+                }
+            } while (deleted >= chunkSize);
+            progress.currentId = toId;
+        }
+        progress.finish();
+        log.info("清理完成: table={}, deletedRows={}", table, progress.deletedRows.get());
+    }
+
+    /**
+     * 单张表的清理进度
+     */
+    private static class PurgeProgress {
+
+        private volatile String status = "IDLE";
+        private volatile long currentId;
+        private volatile long boundaryId;
+        private volatile LocalDateTime startTime;
+        private volatile LocalDateTime endTime;
+        private final AtomicLong deletedRows = new AtomicLong();
+        private final AtomicLong statements = new AtomicLong();
+        private final AtomicLong totalDeletedRows = new AtomicLong();
+
+        void begin() {
+            status = "RUNNING";
+            startTime = LocalDateTime.now();
+            endTime = null;
+            currentId = 0;
+            boundaryId = 0;
+            deletedRows.set(0);
+            statements.set(0);
+        }
+
+        void finish() {
+            status = "IDLE";
+            endTime = LocalDateTime.now();
+            totalDeletedRows.addAndGet(deletedRows.get());
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("status", status);
+            map.put("currentId", currentId);
+            map.put("boundaryId", boundaryId);
+            map.put("deletedRows", deletedRows.get());
+            map.put("statements", statements.get());
+            map.put("totalDeletedRows", totalDeletedRows.get());
+            map.put("startTime", startTime);
+            map.put("endTime", endTime);
+            return map;
+        }
+    }
+}
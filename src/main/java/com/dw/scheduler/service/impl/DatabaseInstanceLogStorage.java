@@ -0,0 +1,79 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.dto.LogLine;
+import com.dw.scheduler.repository.InstanceLogJdbcRepository;
+import com.dw.scheduler.service.InstanceLogStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据库日志存储(默认实现)
+ * 每行日志对应 t_instance_log 一条记录,写入时按实例接续分配 line_no,读取按 (instance_id, line_no) 索引定位
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "scheduler.log.storage", havingValue = "db", matchIfMissing = true)
+public class DatabaseInstanceLogStorage implements InstanceLogStorage {
+
+    /**
+     * 删除日志时单条语句的最大行数
+     */
+    private static final int DELETE_CHUNK_SIZE = 5000;
+
+    @Autowired
+    private InstanceLogJdbcRepository instanceLogJdbcRepository;
+
+    @Override
+    public void append(Long instanceId, List<LogLine> lines) {
+        if (lines != null && !lines.isEmpty()) {
+            appendAll(Collections.singletonMap(instanceId, lines));
+        }
+    }
+
+    /**
+     * 多个实例的日志合并为多行INSERT写入,整批在同一事务中提交,失败时不留下部分写入的行
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void appendAll(Map<Long, List<LogLine>> linesByInstance) {
+        if (!linesByInstance.isEmpty()) {
+            instanceLogJdbcRepository.batchInsert(linesByInstance);
+        }
+    }
+
+    /**
+     * 按 line_no 游标读取,翻页代价与起始行号无关
+     * 升级前写入的日志没有行号,首次读取时按主键顺序补齐
+     */
+    @Override
+    public List<LogLine> read(Long instanceId, long afterLine, int limit) {
+        if (instanceLogJdbcRepository.hasUnnumberedLines(instanceId)) {
+            long numbered = instanceLogJdbcRepository.numberLegacyLines(instanceId, 0);
+            log.info("补齐实例日志行号: instanceId={}, rows={}", instanceId, numbered);
+        }
+        return instanceLogJdbcRepository.findAfterLine(instanceId, afterLine, limit);
+    }
+
+    @Override
+    public long countLines(Long instanceId) {
+        return instanceLogJdbcRepository.findLastLineNo(instanceId);
+    }
+
+    /**
+     * 按 LIMIT 分块删除,避免派生删除逐条加载实体以及单个大事务
+     */
+    @Override
+    public void delete(Long instanceId) {
+        long deleted = instanceLogJdbcRepository.deleteByInstanceId(instanceId, DELETE_CHUNK_SIZE);
+        log.debug("删除实例日志: instanceId={}, rows={}", instanceId, deleted);
+    }
+}
@@ -0,0 +1,361 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.common.IntArrayList;
+import com.dw.scheduler.common.LongIntHashMap;
+import com.dw.scheduler.common.TransactionUtil;
+import com.dw.scheduler.entity.TaskDependency;
+import com.dw.scheduler.enums.DependencyType;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.TaskDependencyRepository;
+import com.dw.scheduler.service.DependencyGraphService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 任务依赖图索引服务实现类
+ * 任务ID映射为连续的节点下标,邻接表使用 int 数组存储,边属性(依赖类型、周期偏移)打包为一个 int
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class DependencyGraphServiceImpl implements DependencyGraphService {
+
+    private static final DependencyType[] DEPENDENCY_TYPES = DependencyType.values();
+
+    @Autowired
+    private TaskDependencyRepository taskDependencyRepository;
+
+    /**
+     * 单次循环检测最多访问的节点数
+     */
+    @Value("${scheduler.dependency.cycle-check-max-nodes:200000}")
+    private int cycleCheckMaxNodes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 任务ID -> 节点下标
+     */
+    private LongIntHashMap nodeIndex = new LongIntHashMap();
+
+    /**
+     * 节点下标 -> 任务ID
+     */
+    private long[] nodeIds = new long[16];
+
+    /**
+     * 上游邻接表(节点依赖的节点)及对应边属性
+     */
+    private IntArrayList[] upstream = new IntArrayList[16];
+    private IntArrayList[] upstreamMeta = new IntArrayList[16];
+
+    /**
+     * 下游邻接表(依赖该节点的节点)及对应边属性
+     */
+    private IntArrayList[] downstream = new IntArrayList[16];
+    private IntArrayList[] downstreamMeta = new IntArrayList[16];
+
+    private int nodeCount;
+    private int edgeCount;
+
+    /**
+     * 启动时加载依赖图
+     */
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @Override
+    public void reload() {
+        long start = System.currentTimeMillis();
+        List<Object[]> edges = taskDependencyRepository.findAllEdges();
+
+        lock.writeLock().lock();
+        try {
+            int capacity = Math.max(16, edges.size());
+            nodeIndex = new LongIntHashMap(capacity);
+            nodeIds = new long[capacity];
+            upstream = new IntArrayList[capacity];
+            upstreamMeta = new IntArrayList[capacity];
+            downstream = new IntArrayList[capacity];
+            downstreamMeta = new IntArrayList[capacity];
+            nodeCount = 0;
+            edgeCount = 0;
+
+            for (Object[] row : edges) {
+                DependencyType type = row[2] == null ? DependencyType.STRONG : (DependencyType) row[2];
+                int cycleOffset = row[3] == null ? 0 : ((Number) row[3]).intValue();
+                doAddEdge(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), type, cycleOffset);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("依赖图索引加载完成: nodes={}, edges={}, cost={}ms",
+                nodeCount, edgeCount, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 从 dependTaskId 出发沿上游方向做有界DFS,可达 taskId 即成环
+     */
+    @Override
+    public boolean wouldCreateCycle(long taskId, long dependTaskId) {
+        if (taskId == dependTaskId) {
+            return true;
+        }
+
+        lock.readLock().lock();
+        try {
+            int target = nodeIndex.get(taskId);
+            int source = nodeIndex.get(dependTaskId);
+            if (target == LongIntHashMap.NO_VALUE || source == LongIntHashMap.NO_VALUE) {
+                // 任一任务尚无依赖边,不可能成环
+                return false;
+            }
+
+            BitSet visited = new BitSet(nodeCount);
+            IntArrayList stack = new IntArrayList();
+            stack.add(source);
+            visited.set(source);
+            int visitedCount = 1;
+
+            while (!stack.isEmpty()) {
+                int current = stack.get(stack.size() - 1);
+                stack.removeAtUnordered(stack.size() - 1);
+
+                IntArrayList neighbors = upstream[current];
+                if (neighbors == null) {
+                    continue;
+                }
+                for (int i = 0; i < neighbors.size(); i++) {
+                    int next = neighbors.get(i);
+                    if (next == target) {
+                        return true;
+                    }
+                    if (!visited.get(next)) {
+                        visited.set(next);
+                        if (++visitedCount > cycleCheckMaxNodes) {
+                            throw new BusinessException("依赖链路过长,循环依赖检测超出上限");
+                        }
+                        stack.add(next);
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addDependency(TaskDependency dependency) {
+        final long taskId = dependency.getTaskId();
+        final long dependTaskId = dependency.getDependTaskId();
+        final DependencyType type = dependency.getDependType() == null
+                ? DependencyType.STRONG : dependency.getDependType();
+        final int cycleOffset = dependency.getCycleOffset() == null ? 0 : dependency.getCycleOffset();
+
+        TransactionUtil.runAfterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                doAddEdge(taskId, dependTaskId, type, cycleOffset);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void removeDependency(long taskId, long dependTaskId) {
+        TransactionUtil.runAfterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                doRemoveEdge(taskId, dependTaskId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public long[] getUpstreamTaskIds(long taskId) {
+        return neighborIds(taskId, true);
+    }
+
+    @Override
+    public long[] getDownstreamTaskIds(long taskId) {
+        return neighborIds(taskId, false);
+    }
+
+    @Override
+    public void forEachUpstream(long taskId, EdgeVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            int node = nodeIndex.get(taskId);
+            if (node == LongIntHashMap.NO_VALUE || upstream[node] == null) {
+                return;
+            }
+            IntArrayList neighbors = upstream[node];
+            IntArrayList metas = upstreamMeta[node];
+            for (int i = 0; i < neighbors.size(); i++) {
+                int meta = metas.get(i);
+                visitor.visit(taskId, nodeIds[neighbors.get(i)], metaType(meta), metaOffset(meta));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachDownstream(long taskId, EdgeVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            int node = nodeIndex.get(taskId);
+            if (node == LongIntHashMap.NO_VALUE || downstream[node] == null) {
+                return;
+            }
+            IntArrayList neighbors = downstream[node];
+            IntArrayList metas = downstreamMeta[node];
+            for (int i = 0; i < neighbors.size(); i++) {
+                int meta = metas.get(i);
+                visitor.visit(nodeIds[neighbors.get(i)], taskId, metaType(meta), metaOffset(meta));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getEdgeCount() {
+        lock.readLock().lock();
+        try {
+            return edgeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] neighborIds(long taskId, boolean up) {
+        lock.readLock().lock();
+        try {
+            int node = nodeIndex.get(taskId);
+            if (node == LongIntHashMap.NO_VALUE) {
+                return new long[0];
+            }
+            IntArrayList neighbors = up ? upstream[node] : downstream[node];
+            if (neighbors == null) {
+                return new long[0];
+            }
+            long[] ids = new long[neighbors.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = nodeIds[neighbors.get(i)];
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 添加边(调用方持有写锁),重复边只更新属性
+     */
+    private void doAddEdge(long taskId, long dependTaskId, DependencyType type, int cycleOffset) {
+        int from = nodeOf(taskId);
+        int to = nodeOf(dependTaskId);
+        int meta = packMeta(type, cycleOffset);
+
+        if (upstream[from] == null) {
+            upstream[from] = new IntArrayList();
+            upstreamMeta[from] = new IntArrayList();
+        }
+        if (downstream[to] == null) {
+            downstream[to] = new IntArrayList();
+            downstreamMeta[to] = new IntArrayList();
+        }
+
+        int existing = upstream[from].indexOf(to);
+        if (existing >= 0) {
+            upstreamMeta[from].set(existing, meta);
+            downstreamMeta[to].set(downstream[to].indexOf(from), meta);
+            return;
+        }
+
+        upstream[from].add(to);
+        upstreamMeta[from].add(meta);
+        downstream[to].add(from);
+        downstreamMeta[to].add(meta);
+        edgeCount++;
+    }
+
+    /**
+     * 删除边(调用方持有写锁)
+     */
+    private void doRemoveEdge(long taskId, long dependTaskId) {
+        int from = nodeIndex.get(taskId);
+        int to = nodeIndex.get(dependTaskId);
+        if (from == LongIntHashMap.NO_VALUE || to == LongIntHashMap.NO_VALUE || upstream[from] == null) {
+            return;
+        }
+
+        int up = upstream[from].indexOf(to);
+        if (up < 0) {
+            return;
+        }
+        upstream[from].removeAtUnordered(up);
+        upstreamMeta[from].removeAtUnordered(up);
+
+        int down = downstream[to].indexOf(from);
+        downstream[to].removeAtUnordered(down);
+        downstreamMeta[to].removeAtUnordered(down);
+        edgeCount--;
+    }
+
+    /**
+     * 获取或分配任务ID对应的节点下标(调用方持有写锁)
+     */
+    private int nodeOf(long taskId) {
+        int node = nodeIndex.get(taskId);
+        if (node != LongIntHashMap.NO_VALUE) {
+            return node;
+        }
+
+        if (nodeCount == nodeIds.length) {
+            int newCapacity = nodeCount + (nodeCount >> 1) + 1;
+            nodeIds = Arrays.copyOf(nodeIds, newCapacity);
+            upstream = Arrays.copyOf(upstream, newCapacity);
+            upstreamMeta = Arrays.copyOf(upstreamMeta, newCapacity);
+            downstream = Arrays.copyOf(downstream, newCapacity);
+            downstreamMeta = Arrays.copyOf(downstreamMeta, newCapacity);
+        }
+
+        node = nodeCount++;
+        nodeIds[node] = taskId;
+        nodeIndex.put(taskId, node);
+        return node;
+    }
+
+    /**
+     * 低2位存依赖类型,其余位存周期偏移(有符号)
+     */
+    private static int packMeta(DependencyType type, int cycleOffset) {
+        return (cycleOffset << 2) | type.ordinal();
+    }
+
+    private static DependencyType metaType(int meta) {
+        return DEPENDENCY_TYPES[meta & 0x3];
+    }
+
+    private static int metaOffset(int meta) {
+        return meta >> 2;
+    }
+}
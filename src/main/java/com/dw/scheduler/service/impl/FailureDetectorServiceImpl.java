@@ -0,0 +1,287 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.entity.Server;
+import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.enums.ServerStatus;
+import com.dw.scheduler.repository.ServerRepository;
+import com.dw.scheduler.repository.TaskInstanceRepository;
+import com.dw.scheduler.service.FailureDetectorService;
+import com.dw.scheduler.service.InstanceStateService;
+import com.dw.scheduler.service.ServerMonitorService;
+import com.dw.scheduler.service.WorkerPlacementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 故障检测服务实现类
+ * 每台服务器在截止时间队列中只有一个条目,心跳只更新内存中的最后心跳时间(O(1));
+ * 检测线程弹出到期条目时若期间有新心跳则按新截止时间重新入队,否则判定故障。
+ * 重启后首次收到心跳的服务器若在数据库中仍为故障状态,同样执行恢复
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class FailureDetectorServiceImpl implements FailureDetectorService {
+
+    @Autowired
+    private ServerRepository serverRepository;
+
+    @Autowired
+    private TaskInstanceRepository taskInstanceRepository;
+
+    @Autowired
+    private WorkerPlacementService workerPlacementService;
+
+    @Autowired
+    private InstanceStateService instanceStateService;
+
+    @Autowired
+    private ServerMonitorService serverMonitorService;
+
+    /**
+     * 心跳超时时间(秒)
+     */
+    @Value("${scheduler.failure-detector.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    /**
+     * 检测间隔(毫秒)
+     */
+    @Value("${scheduler.failure-detector.check-interval-ms:1000}")
+    private long checkIntervalMs;
+
+    /**
+     * 服务器ID -> 跟踪状态
+     */
+    private final Map<Long, TrackedServer> trackedServers = new ConcurrentHashMap<>();
+
+    /**
+     * 截止时间队列(检测线程与入队方共享,由自身加锁)
+     */
+    private final PriorityQueue<TrackedServer> deadlineQueue =
+            new PriorityQueue<>(Comparator.comparingLong((TrackedServer t) -> t.deadline));
+
+    private final AtomicLong faultCount = new AtomicLong();
+    private final AtomicLong requeuedCount = new AtomicLong();
+
+    private ScheduledExecutorService checkExecutor;
+
+    /**
+     * 启动时跟踪全部在线服务器,从当前时间开始计算超时
+     */
+    @PostConstruct
+    public void start() {
+        long now = System.currentTimeMillis();
+        for (Server server : serverRepository.findByStatus(ServerStatus.ONLINE)) {
+            TrackedServer tracked = new TrackedServer(server.getId(), server.getIpAddress());
+            tracked.lastHeartbeat = now;
+            trackedServers.put(server.getId(), tracked);
+            enqueue(tracked, now + timeoutMillis());
+        }
+
+        checkExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "failure-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkExecutor.scheduleWithFixedDelay(this::check, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+
+        log.info("故障检测启动完成: servers={}, timeout={}s", trackedServers.size(), timeoutSeconds);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (checkExecutor != null) {
+            checkExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void onHeartbeat(Long serverId, String ipAddress) {
+        long now = System.currentTimeMillis();
+        TrackedServer tracked = trackedServers.get(serverId);
+        if (tracked != null && !tracked.fault) {
+            tracked.lastHeartbeat = now;
+            if (ipAddress != null && !ipAddress.equals(tracked.ipAddress)) {
+                tracked.ipAddress = ipAddress;
+            }
+            return;
+        }
+
+        if (tracked == null) {
+            tracked = new TrackedServer(serverId, ipAddress);
+            trackedServers.put(serverId, tracked);
+        } else if (ipAddress != null) {
+            tracked.ipAddress = ipAddress;
+        }
+        // 故障服务器恢复心跳,或重启后首次跟踪的服务器在数据库中仍为故障状态,重新上线;
+        // 已标记故障但状态未能置回在线(已被下线等)时保持故障,下次心跳重试
+        if (!recover(tracked) && tracked.fault) {
+            return;
+        }
+        tracked.failoverPending = false;
+        tracked.lastHeartbeat = now;
+        tracked.fault = false;
+        enqueue(tracked, now + timeoutMillis());
+    }
+
+    @Override
+    public void forget(Long serverId) {
+        TrackedServer tracked = trackedServers.remove(serverId);
+        if (tracked != null) {
+            tracked.removed = true;
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("trackedServers", trackedServers.size());
+        statistics.put("faultCount", faultCount.get());
+        statistics.put("requeuedCount", requeuedCount.get());
+        return statistics;
+    }
+
+    /**
+     * 弹出到期条目: 有新心跳则重新入队,否则判定故障
+     */
+    private void check() {
+        long now = System.currentTimeMillis();
+        List<TrackedServer> expired = new ArrayList<>();
+        synchronized (deadlineQueue) {
+            while (!deadlineQueue.isEmpty() && deadlineQueue.peek().deadline <= now) {
+                TrackedServer tracked = deadlineQueue.poll();
+                tracked.queued = false;
+                if (tracked.removed || (tracked.fault && !tracked.failoverPending)) {
+                    continue;
+                }
+                if (tracked.failoverPending) {
+                    expired.add(tracked);
+                    continue;
+                }
+                long deadline = tracked.lastHeartbeat + timeoutMillis();
+                if (deadline > now) {
+                    tracked.deadline = deadline;
+                    tracked.queued = true;
+                    deadlineQueue.add(tracked);
+                } else {
+                    expired.add(tracked);
+                }
+            }
+        }
+
+        for (TrackedServer tracked : expired) {
+            try {
+                markFault(tracked);
+            } catch (Exception e) {
+                log.error("故障处理失败: serverId={}", tracked.serverId, e);
+                // 下一轮重试: 状态未标记成功时重新判定,已标记时只重试实例重新排队
+                if (!tracked.failoverPending) {
+                    tracked.fault = false;
+                }
+                enqueue(tracked, now + checkIntervalMs);
+            }
+        }
+    }
+
+    /**
+     * 标记故障、移出Worker分配,并将其运行中的实例重新排队
+     * 服务器已不是在线状态(下线、删除或已被标记故障)时CAS失败,不做故障转移并停止跟踪
+     */
+    private void markFault(TrackedServer tracked) {
+        if (!tracked.failoverPending) {
+            int updated = serverRepository.updateStatusIfMatch(tracked.serverId, ServerStatus.ONLINE, ServerStatus.FAULT);
+            if (updated == 0) {
+                trackedServers.remove(tracked.serverId, tracked);
+                tracked.removed = true;
+                log.info("服务器心跳超时但已不是在线状态,停止跟踪: serverId={}, ip={}", tracked.serverId, tracked.ipAddress);
+                return;
+            }
+            // CAS成功后才标记,避免期间到达的心跳按故障恢复后被覆盖为故障
+            tracked.fault = true;
+            tracked.failoverPending = true;
+            workerPlacementService.removeWorker(tracked.serverId);
+            serverMonitorService.updateStatus(tracked.serverId, ServerStatus.FAULT);
+            faultCount.incrementAndGet();
+            log.warn("服务器心跳超时,标记故障: serverId={}, ip={}", tracked.serverId, tracked.ipAddress);
+        }
+
+        List<Long> runningIds = new ArrayList<>();
+        for (TaskInstance instance : taskInstanceRepository.findByWorkerIdAndStatus(tracked.ipAddress, InstanceStatus.RUNNING)) {
+            runningIds.add(instance.getId());
+        }
+        // 仍为运行中的实例才重新排队,期间已结束的实例CAS失败被跳过;成功的实例由状态服务重新登记分发
+        List<Long> requeued = instanceStateService.transitionBatch(runningIds, InstanceStatus.RUNNING, InstanceStatus.WAITING);
+        tracked.failoverPending = false;
+        if (!requeued.isEmpty()) {
+            requeuedCount.addAndGet(requeued.size());
+            log.warn("故障服务器实例重新排队: serverId={}, instances={}", tracked.serverId, requeued.size());
+        }
+    }
+
+    /**
+     * 故障服务器恢复: 状态由故障CAS置回在线并重新加入Worker分配,非故障状态时不做处理
+     *
+     * @return 是否由故障置回在线
+     */
+    private boolean recover(TrackedServer tracked) {
+        if (serverRepository.updateStatusIfMatch(tracked.serverId, ServerStatus.FAULT, ServerStatus.ONLINE) == 0) {
+            return false;
+        }
+        serverRepository.findById(tracked.serverId).ifPresent(workerPlacementService::refreshWorker);
+        serverMonitorService.updateStatus(tracked.serverId, ServerStatus.ONLINE);
+        log.info("服务器恢复心跳,重新上线: serverId={}, ip={}", tracked.serverId, tracked.ipAddress);
+        return true;
+    }
+
+    private void enqueue(TrackedServer tracked, long deadline) {
+        synchronized (deadlineQueue) {
+            if (tracked.queued) {
+                return;
+            }
+            tracked.deadline = deadline;
+            tracked.queued = true;
+            deadlineQueue.add(tracked);
+        }
+    }
+
+    private long timeoutMillis() {
+        return timeoutSeconds * 1000;
+    }
+
+    /**
+     * 跟踪中的服务器
+     */
+    private static final class TrackedServer {
+        private final Long serverId;
+        private volatile String ipAddress;
+        private volatile long lastHeartbeat;
+        private volatile boolean fault;
+
+        /**
+         * 已标记故障但运行中实例尚未重新排队成功
+         */
+        private volatile boolean failoverPending;
+        private volatile boolean removed;
+        private long deadline;
+        private boolean queued;
+
+        private TrackedServer(Long serverId, String ipAddress) {
+            this.serverId = serverId;
+            this.ipAddress = ipAddress;
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.dto.LogLine;
+import com.dw.scheduler.enums.LogLevel;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.service.InstanceLogStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 分段文件日志存储
+ * 所有实例的日志按写入日期追加到同一个分段文件(segments/yyyyMMdd.seg),
+ * 每次追加的一批日志在分段中连续存放,实例索引文件(index/{id%256}/{id}.idx)只记录每批的位置,
+ * 读取时通过索引定位批次,使用 FileChannel 定位读取,大批次使用内存映射
+ * <p>
+ * 记录格式: [int 记录长度][long 实例ID][long 行号][long 时间戳毫秒][byte 级别][UTF-8 内容]
+ * 索引项格式: [int 分段日期(epochDay)][long 偏移][long 起始行号][int 行数][int 字节数]
+ * 分段文件超过保留天数后整体删除,最后一个批次也已过期的实例索引随之删除;清理在后台线程执行
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "scheduler.log.storage", havingValue = "file")
+public class FileInstanceLogStorage implements InstanceLogStorage {
+
+    /**
+     * 记录头长度(不含记录长度字段): 实例ID + 行号 + 时间戳 + 级别
+     */
+    private static final int RECORD_HEADER_BYTES = 8 + 8 + 8 + 1;
+
+    private static final int INDEX_ENTRY_BYTES = 4 + 8 + 8 + 4 + 4;
+
+    private static final int INDEX_DIR_COUNT = 256;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private static final DateTimeFormatter SEGMENT_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    @Value("${scheduler.log.file.dir:data/instance-logs}")
+    private String baseDir;
+
+    /**
+     * 分段文件保留天数
+     */
+    @Value("${scheduler.log.file.retention-days:30}")
+    private int retentionDays;
+
+    /**
+     * 单批次字节数达到该值时使用内存映射读取
+     */
+    @Value("${scheduler.log.file.mmap-threshold-bytes:262144}")
+    private int mmapThresholdBytes;
+
+    /**
+     * 内存中缓存的实例索引数
+     */
+    @Value("${scheduler.log.file.index-cache-size:10000}")
+    private int indexCacheSize;
+
+    private Path segmentDir;
+    private Path indexDir;
+
+    /**
+     * 当前写入的分段(仅在持有 this 锁时访问)
+     */
+    private FileChannel writeChannel;
+    private long writeDay = -1;
+
+    /**
+     * 分段日期 -> 只读通道,定位读取线程安全
+     */
+    private final Map<Long, FileChannel> readChannels = new ConcurrentHashMap<>();
+
+    /**
+     * 实例索引 LRU 缓存(访问需对自身加锁)
+     */
+    private Map<Long, InstanceIndex> indexCache;
+
+    private ExecutorService purgeExecutor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path root = Paths.get(baseDir).toAbsolutePath();
+        segmentDir = Files.createDirectories(root.resolve("segments"));
+        indexDir = Files.createDirectories(root.resolve("index"));
+        indexCache = new LinkedHashMap<Long, InstanceIndex>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, InstanceIndex> eldest) {
+                return size() > indexCacheSize;
+            }
+        };
+        purgeExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "log-segment-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("分段文件日志存储已启用: dir={}, retentionDays={}", root, retentionDays);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (purgeExecutor != null) {
+            purgeExecutor.shutdownNow();
+        }
+        closeQuietly(writeChannel);
+        writeChannel = null;
+        for (FileChannel channel : readChannels.values()) {
+            closeQuietly(channel);
+        }
+        readChannels.clear();
+    }
+
+    @Override
+    public synchronized void append(Long instanceId, List<LogLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            return;
+        }
+        try {
+            InstanceIndex index = getIndex(instanceId);
+            FileChannel channel = currentWriteChannel();
+
+            long firstLine = index.lastLine() + 1;
+            List<byte[]> contents = new ArrayList<>(lines.size());
+            int byteLength = 0;
+            for (LogLine line : lines) {
+                byte[] content = line.getContent() == null ? new byte[0] : line.getContent().getBytes(StandardCharsets.UTF_8);
+                contents.add(content);
+                byteLength += 4 + RECORD_HEADER_BYTES + content.length;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(byteLength);
+            long lineNum = firstLine;
+            for (int i = 0; i < lines.size(); i++) {
+                LogLine line = lines.get(i);
+                byte[] content = contents.get(i);
+                LocalDateTime logTime = line.getLogTime() == null ? LocalDateTime.now() : line.getLogTime();
+                LogLevel level = line.getLevel() == null ? LogLevel.INFO : line.getLevel();
+                buffer.putInt(RECORD_HEADER_BYTES + content.length);
+                buffer.putLong(instanceId);
+                buffer.putLong(lineNum);
+                buffer.putLong(logTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                buffer.put((byte) level.ordinal());
+                buffer.put(content);
+                line.setLineNum(lineNum++);
+            }
+            buffer.flip();
+
+            long offset = channel.size();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            // 先写数据再写索引,崩溃时未被索引引用的数据只是无效字节
+            IndexEntry entry = new IndexEntry(writeDay, offset, firstLine, lines.size(), byteLength);
+            appendIndexEntry(instanceId, entry);
+            index.add(entry);
+        } catch (IOException e) {
+            log.error("写入实例日志失败: instanceId={}", instanceId, e);
+            throw new BusinessException("写入实例日志失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<LogLine> read(Long instanceId, long afterLine, int limit) {
+        List<LogLine> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        List<IndexEntry> entries = getIndex(instanceId).entriesAfter(afterLine);
+        try {
+            for (IndexEntry entry : entries) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                ByteBuffer chunk = readChunk(entry);
+                if (chunk == null) {
+                    // 分段已过期删除
+                    continue;
+                }
+                decodeChunk(chunk, afterLine, limit, result);
+            }
+        } catch (IOException e) {
+            log.error("读取实例日志失败: instanceId={}", instanceId, e);
+            throw new BusinessException("读取实例日志失败: " + e.getMessage());
+        }
+        return result;
+    }
+
+    @Override
+    public long countLines(Long instanceId) {
+        return getIndex(instanceId).lastLine();
+    }
+
+    @Override
+    public synchronized void delete(Long instanceId) {
+        synchronized (indexCache) {
+            indexCache.remove(instanceId);
+        }
+        try {
+            Files.deleteIfExists(indexPath(instanceId));
+        } catch (IOException e) {
+            log.error("删除实例日志索引失败: instanceId={}", instanceId, e);
+            throw new BusinessException("删除实例日志失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取当天的写入通道,跨天时切换分段并清理过期分段
+     */
+    private FileChannel currentWriteChannel() throws IOException {
+        long today = LocalDate.now().toEpochDay();
+        if (writeChannel == null || writeDay != today) {
+            closeQuietly(writeChannel);
+            writeChannel = FileChannel.open(segmentPath(today),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            writeDay = today;
+            purgeExecutor.execute(() -> {
+                purgeExpiredSegments(today);
+                purgeExpiredIndexes(today);
+            });
+        }
+        return writeChannel;
+    }
+
+    private void purgeExpiredSegments(long today) {
+        long expireBefore = today - retentionDays;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(segmentDir, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                long day;
+                try {
+                    day = LocalDate.parse(name.substring(0, name.length() - SEGMENT_SUFFIX.length()),
+                            SEGMENT_NAME_FORMATTER).toEpochDay();
+                } catch (Exception e) {
+                    continue;
+                }
+                if (day < expireBefore) {
+                    closeQuietly(readChannels.remove(day));
+                    Files.deleteIfExists(path);
+                    log.info("删除过期日志分段: {}", name);
+                }
+            }
+        } catch (IOException e) {
+            log.error("清理过期日志分段失败", e);
+        }
+    }
+
+    /**
+     * 删除最后一个批次所在分段已过期的实例索引
+     * 索引文件的修改时间即最后一次追加时间,只有早于过期日的文件才读取最后一项确认
+     */
+    private void purgeExpiredIndexes(long today) {
+        long expireBefore = today - retentionDays;
+        long expireBeforeMillis = LocalDate.ofEpochDay(expireBefore).atStartOfDay(ZoneId.systemDefault())
+                .toInstant().toEpochMilli();
+        int deleted = 0;
+        for (int i = 0; i < INDEX_DIR_COUNT; i++) {
+            Path dir = indexDir.resolve(String.valueOf(i));
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + INDEX_SUFFIX)) {
+                for (Path path : stream) {
+                    if (Files.getLastModifiedTime(path).toMillis() < expireBeforeMillis
+                            && deleteIndexIfExpired(path, expireBefore)) {
+                        deleted++;
+                    }
+                }
+            } catch (IOException e) {
+                log.error("清理过期日志索引失败: dir={}", dir, e);
+            }
+        }
+        if (deleted > 0) {
+            log.info("删除过期日志索引: count={}", deleted);
+        }
+    }
+
+    /**
+     * 持有写入锁确认并删除过期索引,避免与并发追加交错
+     */
+    private synchronized boolean deleteIndexIfExpired(Path path, long expireBefore) throws IOException {
+        String name = path.getFileName().toString();
+        long instanceId;
+        try {
+            instanceId = Long.parseLong(name.substring(0, name.length() - INDEX_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long entryCount = channel.size() / INDEX_ENTRY_BYTES;
+            if (entryCount > 0) {
+                ByteBuffer buffer = ByteBuffer.allocate(4);
+                long position = (entryCount - 1) * INDEX_ENTRY_BYTES;
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        return false;
+                    }
+                    position += read;
+                }
+                buffer.flip();
+                if (buffer.getInt() >= expireBefore) {
+                    return false;
+                }
+            }
+        }
+        synchronized (indexCache) {
+            indexCache.remove(instanceId);
+        }
+        return Files.deleteIfExists(path);
+    }
+
+    /**
+     * 读取一个批次的字节,分段不存在时返回 null
+     */
+    private ByteBuffer readChunk(IndexEntry entry) throws IOException {
+        FileChannel channel = readChannel(entry.day);
+        if (channel == null) {
+            return null;
+        }
+        if (entry.byteLength >= mmapThresholdBytes) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.byteLength);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(entry.byteLength);
+        long position = entry.offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("日志分段不完整: day=" + entry.day + ", offset=" + entry.offset);
+            }
+            position += read;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private FileChannel readChannel(long day) throws IOException {
+        FileChannel channel = readChannels.get(day);
+        if (channel != null) {
+            return channel;
+        }
+        Path path = segmentPath(day);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        synchronized (readChannels) {
+            channel = readChannels.get(day);
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+                readChannels.put(day, channel);
+            }
+            return channel;
+        }
+    }
+
+    private static void decodeChunk(ByteBuffer chunk, long afterLine, int limit, List<LogLine> result) {
+        while (chunk.remaining() > 4 && result.size() < limit) {
+            int recordLength = chunk.getInt();
+            int recordEnd = chunk.position() + recordLength;
+            chunk.getLong();
+            long lineNum = chunk.getLong();
+            if (lineNum <= afterLine) {
+                chunk.position(recordEnd);
+                continue;
+            }
+            long epochMs = chunk.getLong();
+            int levelOrdinal = chunk.get();
+            byte[] content = new byte[recordEnd - chunk.position()];
+            chunk.get(content);
+
+            LogLevel level = levelOrdinal >= 0 && levelOrdinal < LEVELS.length ? LEVELS[levelOrdinal] : LogLevel.INFO;
+            LocalDateTime logTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+            result.add(new LogLine(lineNum, logTime, level, new String(content, StandardCharsets.UTF_8)));
+        }
+    }
+
+    private InstanceIndex getIndex(Long instanceId) {
+        synchronized (indexCache) {
+            InstanceIndex index = indexCache.get(instanceId);
+            if (index != null) {
+                return index;
+            }
+        }
+        InstanceIndex loaded = loadIndex(instanceId);
+        synchronized (indexCache) {
+            InstanceIndex index = indexCache.get(instanceId);
+            if (index != null) {
+                return index;
+            }
+            indexCache.put(instanceId, loaded);
+            return loaded;
+        }
+    }
+
+    private InstanceIndex loadIndex(Long instanceId) {
+        InstanceIndex index = new InstanceIndex();
+        Path path = indexPath(instanceId);
+        if (!Files.exists(path)) {
+            return index;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            while (buffer.remaining() >= INDEX_ENTRY_BYTES) {
+                index.add(new IndexEntry(buffer.getInt(), buffer.getLong(), buffer.getLong(),
+                        buffer.getInt(), buffer.getInt()));
+            }
+        } catch (IOException e) {
+            log.error("读取实例日志索引失败: instanceId={}", instanceId, e);
+            throw new BusinessException("读取实例日志索引失败: " + e.getMessage());
+        }
+        return index;
+    }
+
+    private void appendIndexEntry(Long instanceId, IndexEntry entry) throws IOException {
+        Path path = indexPath(instanceId);
+        Files.createDirectories(path.getParent());
+        ByteBuffer buffer = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        buffer.putInt((int) entry.day);
+        buffer.putLong(entry.offset);
+        buffer.putLong(entry.firstLine);
+        buffer.putInt(entry.lineCount);
+        buffer.putInt(entry.byteLength);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private Path segmentPath(long day) {
+        return segmentDir.resolve(LocalDate.ofEpochDay(day).format(SEGMENT_NAME_FORMATTER) + SEGMENT_SUFFIX);
+    }
+
+    private Path indexPath(Long instanceId) {
+        return indexDir.resolve(String.valueOf(instanceId % INDEX_DIR_COUNT)).resolve(instanceId + INDEX_SUFFIX);
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("关闭日志文件失败", e);
+            }
+        }
+    }
+
+    /**
+     * 一次追加的批次位置
+     */
+    private static class IndexEntry {
+
+        private final long day;
+        private final long offset;
+        private final long firstLine;
+        private final int lineCount;
+        private final int byteLength;
+
+        IndexEntry(long day, long offset, long firstLine, int lineCount, int byteLength) {
+            this.day = day;
+            this.offset = offset;
+            this.firstLine = firstLine;
+            this.lineCount = lineCount;
+            this.byteLength = byteLength;
+        }
+
+        long lastLine() {
+            return firstLine + lineCount - 1;
+        }
+    }
+
+    /**
+     * 单个实例的批次索引,按起始行号递增
+     */
+    private static class InstanceIndex {
+
+        private final List<IndexEntry> entries = new ArrayList<>();
+
+        synchronized void add(IndexEntry entry) {
+            entries.add(entry);
+        }
+
+        synchronized long lastLine() {
+            return entries.isEmpty() ? 0 : entries.get(entries.size() - 1).lastLine();
+        }
+
+        /**
+         * 二分定位包含 afterLine 之后行的第一个批次
+         */
+        synchronized List<IndexEntry> entriesAfter(long afterLine) {
+            int low = 0;
+            int high = entries.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (entries.get(mid).lastLine() <= afterLine) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return new ArrayList<>(entries.subList(low, entries.size()));
+        }
+    }
+}
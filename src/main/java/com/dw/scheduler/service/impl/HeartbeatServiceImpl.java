@@ -0,0 +1,284 @@
+package com.dw.scheduler.service.impl;
+
+import cn.hutool.core.collection.ListUtil;
+import com.dw.scheduler.dto.HeartbeatDTO;
+import com.dw.scheduler.entity.Server;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.ServerJdbcRepository;
+import com.dw.scheduler.repository.ServerJdbcRepository.HeartbeatUpdate;
+import com.dw.scheduler.repository.ServerRepository;
+import com.dw.scheduler.service.FailureDetectorService;
+import com.dw.scheduler.service.HeartbeatService;
+import com.dw.scheduler.service.ServerMonitorService;
+import com.dw.scheduler.service.WorkerPlacementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 心跳服务实现类
+ * 同一服务器在一个刷新周期内的多次心跳合并为一次,刷新时只写入相对上次刷新发生变化的指标;
+ * 批次写入成功后才记录为已刷新,写入失败的心跳放回待刷新队列,由下次刷新重试
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class HeartbeatServiceImpl implements HeartbeatService {
+
+    /**
+     * 单条 UPDATE 语句包含的最大服务器数
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Autowired
+    private ServerRepository serverRepository;
+
+    @Autowired
+    private ServerJdbcRepository serverJdbcRepository;
+
+    @Autowired
+    private WorkerPlacementService workerPlacementService;
+
+    @Autowired
+    private FailureDetectorService failureDetectorService;
+
+    @Autowired
+    private ServerMonitorService serverMonitorService;
+
+    /**
+     * 心跳刷新间隔(秒)
+     */
+    @Value("${scheduler.heartbeat.flush-interval-seconds:5}")
+    private long flushIntervalSeconds;
+
+    /**
+     * IP地址 -> 服务器ID
+     */
+    private final Map<String, Long> serverIds = new ConcurrentHashMap<>();
+
+    /**
+     * 服务器ID -> 待刷新的心跳
+     */
+    private final Map<Long, HeartbeatUpdate> pendingHeartbeats = new ConcurrentHashMap<>();
+
+    /**
+     * 服务器ID -> 上次刷新的指标(仅刷新线程访问)
+     */
+    private final Map<Long, HeartbeatUpdate> flushedHeartbeats = new HashMap<>();
+
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    public void start() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "heartbeat-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                log.error("心跳刷新异常", e);
+            }
+        }, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+        flush();
+    }
+
+    @Override
+    public Long receive(HeartbeatDTO heartbeat) {
+        Long serverId = resolveServerId(heartbeat.getIpAddress());
+
+        HeartbeatUpdate update = new HeartbeatUpdate();
+        update.setServerId(serverId);
+        update.setLastHeartbeat(LocalDateTime.now());
+        update.setCpuUsage(heartbeat.getCpuUsage());
+        update.setMemoryUsage(heartbeat.getMemoryUsage());
+        update.setDiskUsage(heartbeat.getDiskUsage());
+        update.setCurrentTaskNum(heartbeat.getCurrentTaskNum());
+        pendingHeartbeats.merge(serverId, update, HeartbeatServiceImpl::mergeHeartbeat);
+        receivedCount.incrementAndGet();
+
+        // 刷新故障检测截止时间
+        failureDetectorService.onHeartbeat(serverId, heartbeat.getIpAddress());
+
+        // 同步Worker负载
+        workerPlacementService.updateLoad(serverId, heartbeat.getCurrentTaskNum(),
+                heartbeat.getCpuUsage() == null ? null : heartbeat.getCpuUsage().doubleValue(),
+                heartbeat.getMemoryUsage() == null ? null : heartbeat.getMemoryUsage().doubleValue());
+
+        // 写入监控时间序列
+        serverMonitorService.record(serverId, heartbeat.getCpuUsage(), heartbeat.getMemoryUsage(),
+                heartbeat.getDiskUsage(), heartbeat.getCurrentTaskNum());
+
+        return serverId;
+    }
+
+    @Override
+    public void evict(String ipAddress) {
+        if (ipAddress != null) {
+            serverIds.remove(ipAddress);
+        }
+    }
+
+    @Override
+    public synchronized int flush() {
+        if (pendingHeartbeats.isEmpty()) {
+            return 0;
+        }
+
+        List<HeartbeatUpdate> pendings = new ArrayList<>(pendingHeartbeats.size());
+        for (Long serverId : new ArrayList<>(pendingHeartbeats.keySet())) {
+            HeartbeatUpdate pending = pendingHeartbeats.remove(serverId);
+            if (pending != null) {
+                pendings.add(pending);
+            }
+        }
+
+        int rows = 0;
+        int flushed = 0;
+        for (List<HeartbeatUpdate> batch : ListUtil.partition(pendings, FLUSH_BATCH_SIZE)) {
+            List<HeartbeatUpdate> updates = new ArrayList<>(batch.size());
+            for (HeartbeatUpdate pending : batch) {
+                updates.add(diffWithFlushed(pending));
+            }
+            try {
+                rows += serverJdbcRepository.batchUpdateHeartbeat(updates);
+            } catch (Exception e) {
+                // 放回待刷新队列,期间收到的新心跳优先
+                for (HeartbeatUpdate pending : batch) {
+                    pendingHeartbeats.merge(pending.getServerId(), pending,
+                            (newer, failed) -> mergeHeartbeat(failed, newer));
+                }
+                failedCount.addAndGet(batch.size());
+                log.error("心跳批量写入失败,下次刷新重试: servers={}", batch.size(), e);
+                continue;
+            }
+            for (HeartbeatUpdate update : updates) {
+                markFlushed(update);
+            }
+            flushed += batch.size();
+        }
+        flushedCount.addAndGet(rows);
+        log.debug("心跳刷新: servers={}, flushed={}, rows={}", pendings.size(), flushed, rows);
+
+        return flushed;
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("receivedCount", receivedCount.get());
+        statistics.put("flushedCount", flushedCount.get());
+        statistics.put("failedCount", failedCount.get());
+        statistics.put("pending", pendingHeartbeats.size());
+        return statistics;
+    }
+
+    private Long resolveServerId(String ipAddress) {
+        return serverIds.computeIfAbsent(ipAddress, ip -> {
+            Server server = serverRepository.findByIpAddress(ip);
+            if (server == null) {
+                throw new BusinessException("服务器未注册: " + ip);
+            }
+            return server.getId();
+        });
+    }
+
+    /**
+     * 与上次刷新的指标比较,未变化的指标置空(不写入),不修改已刷新记录
+     */
+    private HeartbeatUpdate diffWithFlushed(HeartbeatUpdate pending) {
+        HeartbeatUpdate flushed = flushedHeartbeats.get(pending.getServerId());
+        if (flushed == null) {
+            flushed = new HeartbeatUpdate();
+        }
+
+        HeartbeatUpdate update = new HeartbeatUpdate();
+        update.setServerId(pending.getServerId());
+        update.setLastHeartbeat(pending.getLastHeartbeat());
+        if (changed(flushed.getCpuUsage(), pending.getCpuUsage())) {
+            update.setCpuUsage(pending.getCpuUsage());
+        }
+        if (changed(flushed.getMemoryUsage(), pending.getMemoryUsage())) {
+            update.setMemoryUsage(pending.getMemoryUsage());
+        }
+        if (changed(flushed.getDiskUsage(), pending.getDiskUsage())) {
+            update.setDiskUsage(pending.getDiskUsage());
+        }
+        if (pending.getCurrentTaskNum() != null && !pending.getCurrentTaskNum().equals(flushed.getCurrentTaskNum())) {
+            update.setCurrentTaskNum(pending.getCurrentTaskNum());
+        }
+        return update;
+    }
+
+    /**
+     * 写入成功后记录已刷新的指标
+     */
+    private void markFlushed(HeartbeatUpdate update) {
+        HeartbeatUpdate flushed = flushedHeartbeats.computeIfAbsent(update.getServerId(), id -> {
+            HeartbeatUpdate empty = new HeartbeatUpdate();
+            empty.setServerId(id);
+            return empty;
+        });
+        if (update.getCpuUsage() != null) {
+            flushed.setCpuUsage(update.getCpuUsage());
+        }
+        if (update.getMemoryUsage() != null) {
+            flushed.setMemoryUsage(update.getMemoryUsage());
+        }
+        if (update.getDiskUsage() != null) {
+            flushed.setDiskUsage(update.getDiskUsage());
+        }
+        if (update.getCurrentTaskNum() != null) {
+            flushed.setCurrentTaskNum(update.getCurrentTaskNum());
+        }
+    }
+
+    private static boolean changed(BigDecimal flushed, BigDecimal pending) {
+        return pending != null && (flushed == null || flushed.compareTo(pending) != 0);
+    }
+
+    /**
+     * 合并同一服务器的两次心跳,新心跳中为空的指标沿用旧值
+     */
+    private static HeartbeatUpdate mergeHeartbeat(HeartbeatUpdate older, HeartbeatUpdate newer) {
+        if (newer.getCpuUsage() == null) {
+            newer.setCpuUsage(older.getCpuUsage());
+        }
+        if (newer.getMemoryUsage() == null) {
+            newer.setMemoryUsage(older.getMemoryUsage());
+        }
+        if (newer.getDiskUsage() == null) {
+            newer.setDiskUsage(older.getDiskUsage());
+        }
+        if (newer.getCurrentTaskNum() == null) {
+            newer.setCurrentTaskNum(older.getCurrentTaskNum());
+        }
+        return newer;
+    }
+}
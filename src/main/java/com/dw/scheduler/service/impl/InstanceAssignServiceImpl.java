@@ -0,0 +1,149 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.dto.ReadyInstance;
+import com.dw.scheduler.dto.WorkerAssignment;
+import com.dw.scheduler.service.InstanceAssignService;
+import com.dw.scheduler.service.InstanceDispatchService;
+import com.dw.scheduler.service.InstanceStateService;
+import com.dw.scheduler.service.WorkerPlacementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实例分配服务实现类
+ * 每轮对存在就绪实例的资源分组: 先占用一个Worker槽位,再取出一个就绪实例做 WAITING -> RUNNING 的CAS,
+ * 分组内无空闲Worker时不取出实例;CAS失败(实例已取消等)时归还槽位,数据库异常时实例放回就绪队列
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class InstanceAssignServiceImpl implements InstanceAssignService {
+
+    @Autowired
+    private InstanceDispatchService instanceDispatchService;
+
+    @Autowired
+    private WorkerPlacementService workerPlacementService;
+
+    @Autowired
+    private InstanceStateService instanceStateService;
+
+    @Value("${scheduler.dispatch.assign-enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 分配间隔(毫秒)
+     */
+    @Value("${scheduler.dispatch.assign-interval-ms:1000}")
+    private long assignIntervalMs;
+
+    /**
+     * 每个资源分组单轮最多分配的实例数
+     */
+    @Value("${scheduler.dispatch.max-assign-per-round:500}")
+    private int maxAssignPerRound;
+
+    private final AtomicLong assignedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong requeuedCount = new AtomicLong();
+    private final AtomicLong noWorkerRounds = new AtomicLong();
+
+    private ScheduledExecutorService assignExecutor;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("实例分配未启用");
+            return;
+        }
+        assignExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "instance-assign");
+            thread.setDaemon(true);
+            return thread;
+        });
+        assignExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                assignRound();
+            } catch (Exception e) {
+                log.error("实例分配异常", e);
+            }
+        }, assignIntervalMs, assignIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (assignExecutor != null) {
+            assignExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public int assignRound() {
+        int total = 0;
+        for (String group : instanceDispatchService.getReadyGroups()) {
+            int assigned = 0;
+            while (assigned < maxAssignPerRound) {
+                WorkerAssignment assignment = workerPlacementService.assign(group);
+                if (assignment == null) {
+                    noWorkerRounds.incrementAndGet();
+                    break;
+                }
+                List<ReadyInstance> ready = instanceDispatchService.pollReady(group, 1);
+                if (ready.isEmpty()) {
+                    workerPlacementService.release(assignment.getServerId());
+                    break;
+                }
+
+                ReadyInstance instance = ready.get(0);
+                try {
+                    if (instanceStateService.start(instance.getInstanceId(), assignment.getIpAddress())) {
+                        assigned++;
+                        continue;
+                    }
+                    // 实例已被取消或由其他节点开始执行
+                    rejectedCount.incrementAndGet();
+                    workerPlacementService.release(assignment.getServerId());
+                } catch (Exception e) {
+                    // 数据库异常时放回就绪队列,结束本轮
+                    workerPlacementService.release(assignment.getServerId());
+                    instanceDispatchService.requeue(instance);
+                    requeuedCount.incrementAndGet();
+                    log.warn("实例开始执行失败,放回就绪队列: instanceId={}, error={}",
+                            instance.getInstanceId(), e.getMessage());
+                    assignedCount.addAndGet(total + assigned);
+                    return total + assigned;
+                }
+            }
+            total += assigned;
+        }
+        assignedCount.addAndGet(total);
+        if (total > 0) {
+            log.debug("实例分配完成: assigned={}", total);
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("assignedCount", assignedCount.get());
+        statistics.put("rejectedCount", rejectedCount.get());
+        statistics.put("requeuedCount", requeuedCount.get());
+        statistics.put("noWorkerRounds", noWorkerRounds.get());
+        return statistics;
+    }
+}
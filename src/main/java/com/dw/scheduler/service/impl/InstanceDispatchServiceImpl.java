@@ -0,0 +1,434 @@
+package com.dw.scheduler.service.impl;
+
+import cn.hutool.core.collection.ListUtil;
+import com.dw.scheduler.common.LongPair;
+import com.dw.scheduler.common.TransactionUtil;
+import com.dw.scheduler.dto.ReadyInstance;
+import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.DependencyType;
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.enums.Priority;
+import com.dw.scheduler.repository.TaskInstanceJdbcRepository;
+import com.dw.scheduler.repository.TaskRepository;
+import com.dw.scheduler.service.DependencyGraphService;
+import com.dw.scheduler.service.InstanceDispatchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 实例分发服务实现类
+ * 以(任务ID, 业务日期)为键跟踪等待实例,每个等待实例记录尚未满足的上游任务;
+ * 强依赖(及条件依赖)要求上游成功,弱依赖只要求上游结束;
+ * 上游业务日期 = 下游业务日期 + 周期偏移。就绪实例按资源分组分别排队
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class InstanceDispatchServiceImpl implements InstanceDispatchService {
+
+    /**
+     * 启动时按ID分页加载等待实例的每页条数
+     */
+    private static final int LOAD_PAGE_SIZE = 5000;
+
+    /**
+     * 批量查询时单条 IN 语句的最大参数个数
+     */
+    private static final int BATCH_QUERY_SIZE = 1000;
+
+    private static final String DEFAULT_RESOURCE_GROUP = "DEFAULT";
+
+    /**
+     * 就绪队列顺序: 优先级 > 业务日期 > 实例ID
+     */
+    private static final Comparator<TrackedInstance> READY_ORDER = Comparator
+            .comparingInt((TrackedInstance t) -> t.priority.ordinal())
+            .thenComparingLong(t -> t.businessDay)
+            .thenComparingLong(t -> t.instanceId);
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskInstanceJdbcRepository taskInstanceJdbcRepository;
+
+    @Autowired
+    private DependencyGraphService dependencyGraphService;
+
+    /**
+     * 已结束上游状态的保留天数(按业务日期)
+     */
+    @Value("${scheduler.dispatch.finished-retention-days:7}")
+    private int finishedRetentionDays;
+
+    private final Object lock = new Object();
+
+    /**
+     * (任务ID, 业务日期) -> 跟踪中的实例(等待中或已就绪未取出)
+     */
+    private final Map<LongPair, TrackedInstance> trackedInstances = new HashMap<>();
+
+    /**
+     * (任务ID, 业务日期) -> 最近结束的实例状态,弥补登记时数据库读取与上游结束之间的时间差
+     */
+    private final Map<LongPair, InstanceStatus> finishedStatuses = new HashMap<>();
+
+    /**
+     * 资源分组 -> 就绪队列
+     */
+    private final Map<String, PriorityQueue<TrackedInstance>> readyQueues = new HashMap<>();
+
+    private long lastPruneDay;
+    private long registeredCount;
+    private long dispatchedCount;
+
+    /**
+     * 启动时加载全部等待实例
+     */
+    @PostConstruct
+    public void init() {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        int total = 0;
+        List<TaskInstance> page;
+        do {
+            page = taskInstanceJdbcRepository.findSummaryByStatusAfterId(InstanceStatus.WAITING, afterId, LOAD_PAGE_SIZE);
+            if (!page.isEmpty()) {
+                registerNow(page);
+                afterId = page.get(page.size() - 1).getId();
+                total += page.size();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+
+        log.info("实例分发加载完成: waiting={}, ready={}, cost={}ms",
+                total, readyCount(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void register(Collection<TaskInstance> instances) {
+        List<TaskInstance> waitingInstances = new ArrayList<>(instances.size());
+        for (TaskInstance instance : instances) {
+            if (instance.getStatus() == InstanceStatus.WAITING && instance.getId() != null) {
+                waitingInstances.add(instance);
+            }
+        }
+        if (!waitingInstances.isEmpty()) {
+            TransactionUtil.runAfterCommit(() -> registerNow(waitingInstances));
+        }
+    }
+
+    @Override
+    public void onInstanceFinished(Long taskId, LocalDate businessDate, InstanceStatus status) {
+        if (!isTerminal(status)) {
+            return;
+        }
+
+        long businessDay = businessDate.toEpochDay();
+        synchronized (lock) {
+            pruneFinishedStatuses();
+            finishedStatuses.put(LongPair.of(taskId, businessDay), status);
+
+            // 结束的实例自身不再跟踪
+            removeTracked(LongPair.of(taskId, businessDay));
+
+            // O(出度)更新下游等待实例
+            dependencyGraphService.forEachDownstream(taskId, (downTaskId, upTaskId, dependType, cycleOffset) -> {
+                TrackedInstance downstream = trackedInstances.get(LongPair.of(downTaskId, businessDay - cycleOffset));
+                if (downstream != null && downstream.isWaiting()
+                        && downstream.satisfy(upTaskId, status) && !downstream.isWaiting()) {
+                    addReady(downstream);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void unregisterTask(Long taskId) {
+        TransactionUtil.runAfterCommit(() -> {
+            synchronized (lock) {
+                List<LongPair> keys = new ArrayList<>();
+                for (LongPair key : trackedInstances.keySet()) {
+                    if (key.getFirst() == taskId) {
+                        keys.add(key);
+                    }
+                }
+                keys.forEach(this::removeTracked);
+            }
+        });
+    }
+
+    @Override
+    public Set<String> getReadyGroups() {
+        Set<String> groups = new HashSet<>();
+        synchronized (lock) {
+            for (Map.Entry<String, PriorityQueue<TrackedInstance>> entry : readyQueues.entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    groups.add(entry.getKey());
+                }
+            }
+        }
+        return groups;
+    }
+
+    @Override
+    public List<ReadyInstance> pollReady(String resourceGroup, int maxCount) {
+        List<ReadyInstance> result = new ArrayList<>(Math.min(maxCount, 64));
+        synchronized (lock) {
+            PriorityQueue<TrackedInstance> readyQueue = readyQueues.get(normalizeGroup(resourceGroup));
+            while (readyQueue != null && result.size() < maxCount && !readyQueue.isEmpty()) {
+                TrackedInstance tracked = readyQueue.poll();
+                if (tracked.removed) {
+                    continue;
+                }
+                trackedInstances.remove(LongPair.of(tracked.taskId, tracked.businessDay));
+                result.add(tracked.toReadyInstance());
+                dispatchedCount++;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void requeue(ReadyInstance instance) {
+        long businessDay = instance.getBusinessDate().toEpochDay();
+        LongPair key = LongPair.of(instance.getTaskId(), businessDay);
+        synchronized (lock) {
+            // 期间已重新登记时以新登记为准;已取消的实例在开始执行的CAS中被拒绝
+            if (trackedInstances.containsKey(key)) {
+                return;
+            }
+            TrackedInstance tracked = new TrackedInstance(instance.getInstanceId(), instance.getTaskId(), businessDay,
+                    instance.getPriority(), instance.getResourceGroup(), 0);
+            trackedInstances.put(key, tracked);
+            addReady(tracked);
+            dispatchedCount--;
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        synchronized (lock) {
+            statistics.put("tracked", trackedInstances.size());
+            statistics.put("ready", readyCount());
+            statistics.put("finishedCache", finishedStatuses.size());
+            statistics.put("registeredCount", registeredCount);
+            statistics.put("dispatchedCount", dispatchedCount);
+        }
+        return statistics;
+    }
+
+    /**
+     * 登记等待实例: 批量读取上游实例状态与任务优先级,再在锁内计算倒计数
+     */
+    private void registerNow(List<TaskInstance> instances) {
+        // 收集上游依赖键
+        Map<Long, List<Object[]>> upstreamEdges = new HashMap<>();
+        Set<LongPair> upstreamKeys = new HashSet<>();
+        Set<Long> taskIds = new HashSet<>();
+        for (TaskInstance instance : instances) {
+            long businessDay = instance.getBusinessDate().toEpochDay();
+            taskIds.add(instance.getTaskId());
+            upstreamEdges.computeIfAbsent(instance.getTaskId(), id -> {
+                List<Object[]> edges = new ArrayList<>();
+                dependencyGraphService.forEachUpstream(id, (downTaskId, upTaskId, dependType, cycleOffset) ->
+                        edges.add(new Object[]{upTaskId, dependType, cycleOffset}));
+                return edges;
+            });
+            for (Object[] edge : upstreamEdges.get(instance.getTaskId())) {
+                upstreamKeys.add(LongPair.of((Long) edge[0], businessDay + (Integer) edge[2]));
+            }
+        }
+
+        // 批量读取上游实例状态,同一键存在多个实例时以最新的为准
+        Map<LongPair, InstanceStatus> upstreamStatuses = new HashMap<>();
+        for (TaskInstance upstream : taskInstanceJdbcRepository.findSummaryByTaskDateKeys(upstreamKeys)) {
+            upstreamStatuses.put(LongPair.of(upstream.getTaskId(), upstream.getBusinessDate().toEpochDay()),
+                    upstream.getStatus());
+        }
+
+        // 批量读取任务优先级与资源分组
+        Map<Long, Object[]> dispatchInfos = new HashMap<>();
+        for (List<Long> batch : ListUtil.partition(new ArrayList<>(taskIds), BATCH_QUERY_SIZE)) {
+            for (Object[] row : taskRepository.findDispatchInfoByIdIn(batch)) {
+                dispatchInfos.put((Long) row[0], row);
+            }
+        }
+
+        synchronized (lock) {
+            for (TaskInstance instance : instances) {
+                Object[] dispatchInfo = dispatchInfos.get(instance.getTaskId());
+                if (dispatchInfo == null) {
+                    continue;
+                }
+
+                long businessDay = instance.getBusinessDate().toEpochDay();
+                List<Object[]> edges = upstreamEdges.get(instance.getTaskId());
+                TrackedInstance tracked = new TrackedInstance(instance.getId(), instance.getTaskId(), businessDay,
+                        dispatchInfo[1] == null ? Priority.MEDIUM : (Priority) dispatchInfo[1],
+                        normalizeGroup((String) dispatchInfo[2]), edges.size());
+
+                for (Object[] edge : edges) {
+                    LongPair upstreamKey = LongPair.of((Long) edge[0], businessDay + (Integer) edge[2]);
+                    // 上游正在跟踪(等待或就绪)时尚未结束;否则内存中的结束状态比登记前读取的数据库状态更新
+                    InstanceStatus upstreamStatus = null;
+                    if (!trackedInstances.containsKey(upstreamKey)) {
+                        upstreamStatus = finishedStatuses.get(upstreamKey);
+                        if (upstreamStatus == null) {
+                            upstreamStatus = upstreamStatuses.get(upstreamKey);
+                        }
+                    }
+                    DependencyType dependType = (DependencyType) edge[1];
+                    if (upstreamStatus == null || !isSatisfied(dependType, upstreamStatus)) {
+                        tracked.addPending((Long) edge[0], dependType);
+                    }
+                }
+
+                LongPair key = LongPair.of(instance.getTaskId(), businessDay);
+                // 重跑时清除上次运行的结束状态,避免下游按旧状态放行
+                removeTracked(key);
+                finishedStatuses.remove(key);
+                trackedInstances.put(key, tracked);
+                registeredCount++;
+                if (!tracked.isWaiting()) {
+                    addReady(tracked);
+                }
+            }
+        }
+    }
+
+    /**
+     * 加入所属资源分组的就绪队列(调用方持有锁)
+     */
+    private void addReady(TrackedInstance tracked) {
+        readyQueues.computeIfAbsent(tracked.resourceGroup, group -> new PriorityQueue<>(READY_ORDER)).add(tracked);
+    }
+
+    /**
+     * 就绪队列中的条目数(调用方持有锁),含惰性丢弃的条目
+     */
+    private int readyCount() {
+        int count = 0;
+        for (PriorityQueue<TrackedInstance> readyQueue : readyQueues.values()) {
+            count += readyQueue.size();
+        }
+        return count;
+    }
+
+    /**
+     * 移除跟踪中的实例(调用方持有锁),就绪队列中的条目惰性丢弃
+     */
+    private void removeTracked(LongPair key) {
+        TrackedInstance removed = trackedInstances.remove(key);
+        if (removed != null) {
+            removed.removed = true;
+        }
+    }
+
+    /**
+     * 清理超出保留期的结束状态(调用方持有锁),每天执行一次
+     */
+    private void pruneFinishedStatuses() {
+        long today = LocalDate.now().toEpochDay();
+        if (today == lastPruneDay) {
+            return;
+        }
+        lastPruneDay = today;
+        long minDay = today - finishedRetentionDays;
+        finishedStatuses.keySet().removeIf(key -> key.getSecond() < minDay);
+    }
+
+    /**
+     * 资源分组为空时归入默认分组,与Worker分配保持一致
+     */
+    private static String normalizeGroup(String resourceGroup) {
+        return StringUtils.hasText(resourceGroup) ? resourceGroup : DEFAULT_RESOURCE_GROUP;
+    }
+
+    private static boolean isTerminal(InstanceStatus status) {
+        return status == InstanceStatus.SUCCESS || status == InstanceStatus.FAILED
+                || status == InstanceStatus.CANCELED;
+    }
+
+    /**
+     * 弱依赖只要求上游结束,其余依赖类型要求上游成功
+     */
+    private static boolean isSatisfied(DependencyType dependType, InstanceStatus upstreamStatus) {
+        if (dependType == DependencyType.WEAK) {
+            return isTerminal(upstreamStatus);
+        }
+        return upstreamStatus == InstanceStatus.SUCCESS;
+    }
+
+    /**
+     * 跟踪中的实例
+     */
+    private static final class TrackedInstance {
+        private final long instanceId;
+        private final long taskId;
+        private final long businessDay;
+        private final Priority priority;
+        private final String resourceGroup;
+        private final long[] pendingTaskIds;
+        private final DependencyType[] pendingTypes;
+        private int pendingCount;
+        private boolean removed;
+
+        private TrackedInstance(long instanceId, long taskId, long businessDay, Priority priority,
+                                String resourceGroup, int upstreamCount) {
+            this.instanceId = instanceId;
+            this.taskId = taskId;
+            this.businessDay = businessDay;
+            this.priority = priority;
+            this.resourceGroup = resourceGroup;
+            this.pendingTaskIds = new long[upstreamCount];
+            this.pendingTypes = new DependencyType[upstreamCount];
+        }
+
+        private void addPending(long upstreamTaskId, DependencyType dependType) {
+            pendingTaskIds[pendingCount] = upstreamTaskId;
+            pendingTypes[pendingCount] = dependType;
+            pendingCount++;
+        }
+
+        /**
+         * 上游结束时尝试满足对应依赖,返回是否有依赖被满足
+         */
+        private boolean satisfy(long upstreamTaskId, InstanceStatus upstreamStatus) {
+            for (int i = 0; i < pendingCount; i++) {
+                if (pendingTaskIds[i] == upstreamTaskId) {
+                    if (!isSatisfied(pendingTypes[i], upstreamStatus)) {
+                        return false;
+                    }
+                    pendingCount--;
+                    pendingTaskIds[i] = pendingTaskIds[pendingCount];
+                    pendingTypes[i] = pendingTypes[pendingCount];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isWaiting() {
+            return pendingCount > 0;
+        }
+
+        private ReadyInstance toReadyInstance() {
+            ReadyInstance ready = new ReadyInstance();
+            ready.setInstanceId(instanceId);
+            ready.setTaskId(taskId);
+            ready.setBusinessDate(LocalDate.ofEpochDay(businessDay));
+            ready.setPriority(priority);
+            ready.setResourceGroup(resourceGroup);
+            return ready;
+        }
+    }
+}
@@ -0,0 +1,837 @@
+package com.dw.scheduler.service.impl;
+
+import cn.hutool.core.collection.ListUtil;
+import com.dw.scheduler.common.LongPair;
+import com.dw.scheduler.dto.RuntimeEstimate;
+import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.DependencyType;
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.TaskInstanceJdbcRepository;
+import com.dw.scheduler.repository.TaskRepository;
+import com.dw.scheduler.service.DependencyGraphService;
+import com.dw.scheduler.service.InstanceEtaService;
+import com.dw.scheduler.service.TaskRuntimeEstimateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实例预计完成时间服务实现类
+ * 每个业务日期一份计划,节点为该日期的实例,边为周期偏移为0的依赖;
+ * 周期偏移非0的上游(跨业务日期)读取一次状态,作为外部就绪时间。
+ * 构建时按拓扑层级全量计算一次,之后实例状态变化只沿下游按层级传播,
+ * 预计完成时间未变化的节点停止传播;新建的实例增量插入已有计划,不重新加载整个业务日期
+ * <p>
+ * 同一业务日期只由一个线程构建,其他查询等待构建完成;构建期间到达的新建实例与状态变化在构建完成后重放。
+ * 预计时间以事件发生时刻为基准,超过 plan-ttl-minutes 的计划在查询时刷新:
+ * 按内存中的依赖图重新连边、重新读取跨日上游状态,并以最新耗时估计和当前时间全量重算
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class InstanceEtaServiceImpl implements InstanceEtaService {
+
+    /**
+     * 批量查询时单条 IN 语句的最大参数个数
+     */
+    private static final int BATCH_QUERY_SIZE = 1000;
+
+    private static final long[] EMPTY_IDS = new long[0];
+
+    @Autowired
+    private TaskInstanceJdbcRepository taskInstanceJdbcRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private DependencyGraphService dependencyGraphService;
+
+    @Autowired
+    private TaskRuntimeEstimateService taskRuntimeEstimateService;
+
+    /**
+     * 内存中最多保留的业务日期计划数
+     */
+    @Value("${scheduler.eta.plan-cache-dates:7}")
+    private int planCacheDates;
+
+    /**
+     * 计划刷新间隔(分钟),超过后查询时刷新
+     */
+    @Value("${scheduler.eta.plan-ttl-minutes:10}")
+    private long planTtlMinutes;
+
+    private final Object lock = new Object();
+
+    /**
+     * epochDay -> 计划(LRU),受 lock 保护
+     */
+    private final LinkedHashMap<Long, DatePlan> plans = new LinkedHashMap<Long, DatePlan>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, DatePlan> eldest) {
+            return size() > planCacheDates;
+        }
+    };
+
+    /**
+     * 正在构建的业务日期 -> 构建期间到达的新建实例与状态变化,构建完成后重放,受 lock 保护
+     */
+    private final Map<Long, PendingChanges> buildingDays = new HashMap<>();
+
+    @Override
+    public Map<String, Object> getBusinessDateEta(LocalDate businessDate, String subject) {
+        long now = System.currentTimeMillis();
+        DatePlan plan = getPlan(businessDate.toEpochDay());
+        synchronized (lock) {
+            int[] statusCounts = new int[InstanceStatus.values().length];
+            int blocked = 0;
+            int overdue = 0;
+            Node last = null;
+            long finishP90 = 0;
+            for (Node node : plan.nodes.values()) {
+                if (subject != null && !subject.equals(node.subject)) {
+                    continue;
+                }
+                statusCounts[node.status.ordinal()]++;
+                if (node.blocked) {
+                    blocked++;
+                    continue;
+                }
+                if (!isTerminal(node.status) && node.finishE < now) {
+                    overdue++;
+                }
+                if (last == null || node.finishE > last.finishE) {
+                    last = node;
+                }
+                finishP90 = Math.max(finishP90, node.finishP);
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("businessDate", businessDate);
+            result.put("subject", subject);
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (InstanceStatus status : InstanceStatus.values()) {
+                counts.put(status.name(), statusCounts[status.ordinal()]);
+            }
+            result.put("statusCounts", counts);
+            result.put("blocked", blocked);
+            result.put("overdue", overdue);
+            result.put("projectedFinish", last == null ? null : toDateTime(last.finishE));
+            result.put("projectedFinishP90", finishP90 == 0 ? null : toDateTime(finishP90));
+            result.put("criticalPath", last == null ? Collections.emptyList() : criticalPath(plan, last));
+            result.put("planBuiltAt", toDateTime(plan.builtAt));
+            result.put("planRefreshedAt", toDateTime(plan.refreshedAt));
+            result.put("planUpdatedAt", toDateTime(plan.updatedAt));
+            return result;
+        }
+    }
+
+    @Override
+    public Map<String, Object> getInstanceEta(Long instanceId) {
+        List<TaskInstance> rows = taskInstanceJdbcRepository.findSummaryByIds(Collections.singletonList(instanceId));
+        if (rows.isEmpty()) {
+            throw new BusinessException("实例不存在");
+        }
+        TaskInstance instance = rows.get(0);
+        DatePlan plan = getPlan(instance.getBusinessDate().toEpochDay());
+        synchronized (lock) {
+            Node node = plan.nodes.get(instance.getTaskId());
+            if (node == null || node.instanceId != instanceId) {
+                throw new BusinessException("实例不在当前计划中,请稍后重试");
+            }
+            Map<String, Object> result = toNodeMap(node);
+            result.put("criticalPath", node.blocked ? Collections.emptyList() : criticalPath(plan, node));
+            return result;
+        }
+    }
+
+    @Override
+    public void onTransition(Collection<TaskInstance> instances) {
+        for (TaskInstance instance : instances) {
+            if (instance.getStatus() == InstanceStatus.SUCCESS && instance.getExecuteTime() != null) {
+                taskRuntimeEstimateService.record(instance.getTaskId(), instance.getExecuteTime());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            for (TaskInstance instance : instances) {
+                if (instance.getBusinessDate() == null) {
+                    continue;
+                }
+                long day = instance.getBusinessDate().toEpochDay();
+                PendingChanges pending = buildingDays.get(day);
+                if (pending != null) {
+                    pending.transitions.add(instance);
+                }
+                DatePlan plan = plans.get(day);
+                if (plan != null) {
+                    // 插入中的实例节点可能尚未加入计划,插入完成后重放
+                    if (plan.merging > 0) {
+                        plan.mergingTransitions.add(instance);
+                    }
+                    apply(plan, instance, now);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onInstancesCreated(Collection<TaskInstance> instances) {
+        // 构建中的业务日期缓存到构建完成后插入,已有计划的业务日期增量插入,其余日期查询时再构建
+        Map<DatePlan, List<TaskInstance>> byPlan = new HashMap<>();
+        synchronized (lock) {
+            for (TaskInstance instance : instances) {
+                if (instance.getBusinessDate() == null) {
+                    continue;
+                }
+                long day = instance.getBusinessDate().toEpochDay();
+                PendingChanges pending = buildingDays.get(day);
+                if (pending != null) {
+                    pending.created.add(instance);
+                } else {
+                    DatePlan plan = plans.get(day);
+                    if (plan != null) {
+                        byPlan.computeIfAbsent(plan, p -> new ArrayList<>()).add(instance);
+                    }
+                }
+            }
+            for (DatePlan plan : byPlan.keySet()) {
+                plan.merging++;
+            }
+        }
+
+        for (Map.Entry<DatePlan, List<TaskInstance>> entry : byPlan.entrySet()) {
+            DatePlan plan = entry.getKey();
+            PreparedNodes prepared = null;
+            try {
+                prepared = prepareNodes(plan.day, entry.getValue());
+            } finally {
+                synchronized (lock) {
+                    finishMerge(plan, entry.getValue(), prepared);
+                }
+            }
+        }
+    }
+
+    /**
+     * 结束一次增量插入(调用方持有锁): 插入节点并重放插入期间的状态变化。
+     * 计划已被淘汰时忽略,之后重新构建的计划从数据库加载到这些实例;若正在重新构建则交给构建重放
+     */
+    private void finishMerge(DatePlan plan, List<TaskInstance> instances, PreparedNodes prepared) {
+        PendingChanges pending = buildingDays.get(plan.day);
+        if (pending != null) {
+            pending.created.addAll(instances);
+        }
+        if (prepared != null && plans.get(plan.day) == plan) {
+            long now = System.currentTimeMillis();
+            mergeNodes(plan, prepared, now);
+            for (TaskInstance instance : plan.mergingTransitions) {
+                apply(plan, instance, now);
+            }
+        }
+        if (--plan.merging == 0) {
+            plan.mergingTransitions.clear();
+        }
+    }
+
+    /**
+     * 获取计划: 不存在时由当前线程构建,其他线程等待构建完成;超过刷新间隔时刷新
+     */
+    private DatePlan getPlan(long day) {
+        long now = System.currentTimeMillis();
+        DatePlan refreshing = null;
+        synchronized (lock) {
+            while (true) {
+                DatePlan plan = plans.get(day);
+                if (plan != null) {
+                    if (!plan.refreshing && now - plan.refreshedAt >= TimeUnit.MINUTES.toMillis(planTtlMinutes)) {
+                        plan.refreshing = true;
+                        refreshing = plan;
+                        break;
+                    }
+                    return plan;
+                }
+                if (!buildingDays.containsKey(day)) {
+                    buildingDays.put(day, new PendingChanges());
+                    break;
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new BusinessException("等待预计完成时间计划构建被中断");
+                }
+            }
+        }
+
+        if (refreshing != null) {
+            refreshPlan(refreshing);
+            return refreshing;
+        }
+
+        boolean published = false;
+        try {
+            DatePlan plan = buildPlan(day);
+            // 重放构建期间到达的变化: 先插入新建实例(插入需查询数据库,在锁外进行),再按到达顺序应用状态变化
+            while (true) {
+                List<TaskInstance> created;
+                synchronized (lock) {
+                    PendingChanges pending = buildingDays.get(day);
+                    if (pending.created.isEmpty()) {
+                        long replayAt = System.currentTimeMillis();
+                        for (TaskInstance instance : pending.transitions) {
+                            apply(plan, instance, replayAt);
+                        }
+                        buildingDays.remove(day);
+                        plans.put(day, plan);
+                        published = true;
+                        lock.notifyAll();
+                        return plan;
+                    }
+                    created = new ArrayList<>(pending.created);
+                    pending.created.clear();
+                }
+                // 计划尚未发布,只有当前线程访问
+                mergeNodes(plan, prepareNodes(day, created), System.currentTimeMillis());
+            }
+        } finally {
+            if (!published) {
+                synchronized (lock) {
+                    buildingDays.remove(day);
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private DatePlan buildPlan(long day) {
+        long start = System.currentTimeMillis();
+        LocalDate businessDate = LocalDate.ofEpochDay(day);
+        DatePlan plan = new DatePlan(day, start);
+        PreparedNodes prepared = prepareNodes(day, taskInstanceJdbcRepository.findSummaryByBusinessDate(businessDate));
+
+        // 节点: 同一任务存在多个实例时以ID最大的为准
+        for (TaskInstance instance : prepared.instances) {
+            Node existing = plan.nodes.get(instance.getTaskId());
+            if (existing == null || existing.instanceId < instance.getId()) {
+                plan.nodes.put(instance.getTaskId(), newNode(instance, prepared.subjects.get(instance.getTaskId())));
+            }
+        }
+        linkAll(plan);
+        for (Node node : plan.nodes.values()) {
+            applyExternalUpstreams(node, day, prepared.upstreams, start);
+        }
+        recomputeAll(plan, start);
+        log.info("实例ETA计划构建完成: businessDate={}, instances={}, externalUpstreams={}, cost={}ms",
+                businessDate, plan.nodes.size(), prepared.upstreams.size(), System.currentTimeMillis() - start);
+        return plan;
+    }
+
+    /**
+     * 刷新计划: 重新读取跨日上游状态(锁外),再按内存依赖图重新连边,以最新耗时估计和当前时间全量重算
+     */
+    private void refreshPlan(DatePlan plan) {
+        try {
+            long start = System.currentTimeMillis();
+            Set<Long> taskIds;
+            synchronized (lock) {
+                taskIds = new HashSet<>(plan.nodes.keySet());
+            }
+            Map<LongPair, TaskInstance> upstreams = findExternalUpstreams(plan.day, taskIds);
+
+            synchronized (lock) {
+                long now = System.currentTimeMillis();
+                linkAll(plan);
+                for (Node node : plan.nodes.values()) {
+                    RuntimeEstimate estimate = taskRuntimeEstimateService.getEstimate(node.taskId);
+                    node.estimateE = estimate.getEwmaSeconds();
+                    node.estimateP = estimate.getP90Seconds();
+                    // 读取期间插入的节点已按插入时的上游状态设置
+                    if (taskIds.contains(node.taskId)) {
+                        applyExternalUpstreams(node, plan.day, upstreams, now);
+                    }
+                }
+                recomputeAll(plan, now);
+                plan.refreshedAt = now;
+                plan.updatedAt = now;
+                log.info("实例ETA计划刷新完成: businessDate={}, instances={}, externalUpstreams={}, cost={}ms",
+                        LocalDate.ofEpochDay(plan.day), plan.nodes.size(), upstreams.size(),
+                        System.currentTimeMillis() - start);
+            }
+        } finally {
+            synchronized (lock) {
+                plan.refreshing = false;
+            }
+        }
+    }
+
+    /**
+     * 准备待插入的实例节点: 查询主题与跨日上游状态,不访问计划
+     */
+    private PreparedNodes prepareNodes(long day, List<TaskInstance> instances) {
+        PreparedNodes prepared = new PreparedNodes(instances);
+        Set<Long> taskIds = new HashSet<>();
+        for (TaskInstance instance : instances) {
+            taskIds.add(instance.getTaskId());
+        }
+        for (List<Long> batch : ListUtil.partition(new ArrayList<>(taskIds), BATCH_QUERY_SIZE)) {
+            for (Object[] row : taskRepository.findSubjectsByIdIn(batch)) {
+                prepared.subjects.put((Long) row[0], (String) row[1]);
+            }
+        }
+        prepared.upstreams = findExternalUpstreams(day, taskIds);
+        return prepared;
+    }
+
+    /**
+     * 查询任务的跨业务日期上游实例
+     *
+     * @return (上游任务ID, 上游业务日期) -> 实例
+     */
+    private Map<LongPair, TaskInstance> findExternalUpstreams(long day, Collection<Long> taskIds) {
+        Set<LongPair> keys = new HashSet<>();
+        for (Long taskId : taskIds) {
+            dependencyGraphService.forEachUpstream(taskId, (downTaskId, dependTaskId, dependType, cycleOffset) -> {
+                if (cycleOffset != 0) {
+                    keys.add(LongPair.of(dependTaskId, day + cycleOffset));
+                }
+            });
+        }
+        Map<LongPair, TaskInstance> upstreams = new HashMap<>();
+        if (keys.isEmpty()) {
+            return upstreams;
+        }
+        for (TaskInstance upstream : taskInstanceJdbcRepository.findSummaryByTaskDateKeys(keys)) {
+            upstreams.put(LongPair.of(upstream.getTaskId(), upstream.getBusinessDate().toEpochDay()), upstream);
+        }
+        return upstreams;
+    }
+
+    /**
+     * 插入新建的实例节点(调用方持有锁或计划尚未发布):
+     * 同一任务已有ID更大或相同的实例时忽略;替换旧实例时沿用其同日依赖边,否则与计划中的上下游连边。
+     * 重新计算拓扑层级后从插入的节点沿下游传播
+     */
+    private void mergeNodes(DatePlan plan, PreparedNodes prepared, long now) {
+        List<Node> merged = new ArrayList<>();
+        for (TaskInstance instance : prepared.instances) {
+            Node existing = plan.nodes.get(instance.getTaskId());
+            if (existing != null && existing.instanceId >= instance.getId()) {
+                continue;
+            }
+            Node node = newNode(instance, prepared.subjects.get(instance.getTaskId()));
+            plan.nodes.put(node.taskId, node);
+            if (existing != null) {
+                node.upTaskIds = existing.upTaskIds;
+                node.upTypes = existing.upTypes;
+                node.downTaskIds = existing.downTaskIds;
+                merged.remove(existing);
+            } else {
+                linkNode(plan, node);
+            }
+            applyExternalUpstreams(node, plan.day, prepared.upstreams, now);
+            merged.add(node);
+        }
+        if (merged.isEmpty()) {
+            return;
+        }
+        assignRanks(plan);
+        propagate(plan, merged, now);
+    }
+
+    private Node newNode(TaskInstance instance, String subject) {
+        Node node = new Node(instance.getId(), instance.getTaskId(), instance.getInstanceName());
+        node.subject = subject;
+        node.status = instance.getStatus();
+        node.startMs = toMillis(instance.getStartTime());
+        node.endMs = toMillis(instance.getEndTime());
+        RuntimeEstimate estimate = taskRuntimeEstimateService.getEstimate(instance.getTaskId());
+        node.estimateE = estimate.getEwmaSeconds();
+        node.estimateP = estimate.getP90Seconds();
+        return node;
+    }
+
+    /**
+     * 按同日依赖为全部节点重新连边
+     */
+    private void linkAll(DatePlan plan) {
+        Map<Long, List<Long>> downstreams = new HashMap<>();
+        for (Node node : plan.nodes.values()) {
+            List<Long> upTaskIds = new ArrayList<>();
+            List<DependencyType> upTypes = new ArrayList<>();
+            dependencyGraphService.forEachUpstream(node.taskId, (taskId, dependTaskId, dependType, cycleOffset) -> {
+                if (cycleOffset == 0 && plan.nodes.containsKey(dependTaskId)) {
+                    upTaskIds.add(dependTaskId);
+                    upTypes.add(dependType);
+                    downstreams.computeIfAbsent(dependTaskId, id -> new ArrayList<>()).add(taskId);
+                }
+            });
+            node.upTaskIds = toLongArray(upTaskIds);
+            node.upTypes = upTypes.toArray(new DependencyType[0]);
+        }
+        for (Node node : plan.nodes.values()) {
+            List<Long> downs = downstreams.get(node.taskId);
+            node.downTaskIds = downs == null ? EMPTY_IDS : toLongArray(downs);
+        }
+    }
+
+    /**
+     * 为新加入计划的节点与计划中已有的同日上下游连边,每条边只由后加入的一端添加
+     */
+    private void linkNode(DatePlan plan, Node node) {
+        List<Long> upTaskIds = new ArrayList<>();
+        List<DependencyType> upTypes = new ArrayList<>();
+        dependencyGraphService.forEachUpstream(node.taskId, (taskId, dependTaskId, dependType, cycleOffset) -> {
+            Node up = plan.nodes.get(dependTaskId);
+            if (cycleOffset == 0 && up != null && up != node) {
+                upTaskIds.add(dependTaskId);
+                upTypes.add(dependType);
+                up.downTaskIds = append(up.downTaskIds, taskId);
+            }
+        });
+        List<Long> downTaskIds = new ArrayList<>();
+        dependencyGraphService.forEachDownstream(node.taskId, (taskId, dependTaskId, dependType, cycleOffset) -> {
+            Node down = plan.nodes.get(taskId);
+            if (cycleOffset == 0 && down != null && down != node) {
+                downTaskIds.add(taskId);
+                down.upTaskIds = append(down.upTaskIds, dependTaskId);
+                down.upTypes = Arrays.copyOf(down.upTypes, down.upTypes.length + 1);
+                down.upTypes[down.upTypes.length - 1] = dependType;
+            }
+        });
+        node.upTaskIds = toLongArray(upTaskIds);
+        node.upTypes = upTypes.toArray(new DependencyType[0]);
+        node.downTaskIds = toLongArray(downTaskIds);
+    }
+
+    /**
+     * 按跨业务日期上游设置外部就绪时间:
+     * 已结束的不限制就绪时间(强依赖未成功时阻塞),未结束的按其耗时估计推算
+     */
+    private void applyExternalUpstreams(Node node, long day, Map<LongPair, TaskInstance> upstreams, long now) {
+        node.externalReadyE = 0;
+        node.externalReadyP = 0;
+        node.externalBlocked = false;
+        if (upstreams.isEmpty()) {
+            return;
+        }
+        dependencyGraphService.forEachUpstream(node.taskId, (taskId, dependTaskId, dependType, cycleOffset) -> {
+            if (cycleOffset == 0) {
+                return;
+            }
+            TaskInstance upstream = upstreams.get(LongPair.of(dependTaskId, day + cycleOffset));
+            if (upstream == null) {
+                return;
+            }
+            if (isTerminal(upstream.getStatus())) {
+                if (upstream.getStatus() != InstanceStatus.SUCCESS && dependType != DependencyType.WEAK) {
+                    node.externalBlocked = true;
+                }
+                return;
+            }
+            RuntimeEstimate estimate = taskRuntimeEstimateService.getEstimate(upstream.getTaskId());
+            long base = upstream.getStatus() == InstanceStatus.RUNNING && upstream.getStartTime() != null
+                    ? toMillis(upstream.getStartTime()) : now;
+            node.externalReadyE = Math.max(node.externalReadyE,
+                    Math.max(now, base + estimate.getEwmaSeconds() * 1000));
+            node.externalReadyP = Math.max(node.externalReadyP,
+                    Math.max(now, base + estimate.getP90Seconds() * 1000));
+        });
+    }
+
+    /**
+     * 重新计算拓扑层级,并按层级顺序全量计算
+     */
+    private static void recomputeAll(DatePlan plan, long now) {
+        assignRanks(plan);
+        List<Node> ordered = new ArrayList<>(plan.nodes.values());
+        ordered.sort(Comparator.comparingInt((Node n) -> n.rank));
+        for (Node node : ordered) {
+            compute(plan, node, now);
+        }
+    }
+
+    /**
+     * 按同日依赖计算拓扑层级(Kahn),传播时按层级顺序处理保证每个节点只在上游稳定后重算
+     */
+    private static void assignRanks(DatePlan plan) {
+        Map<Long, Integer> inDegrees = new HashMap<>();
+        Deque<Node> queue = new ArrayDeque<>();
+        for (Node node : plan.nodes.values()) {
+            node.rank = 0;
+            inDegrees.put(node.taskId, node.upTaskIds.length);
+            if (node.upTaskIds.length == 0) {
+                queue.add(node);
+            }
+        }
+        int maxRank = 0;
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            maxRank = Math.max(maxRank, node.rank);
+            for (long downTaskId : node.downTaskIds) {
+                Node down = plan.nodes.get(downTaskId);
+                down.rank = Math.max(down.rank, node.rank + 1);
+                if (inDegrees.merge(downTaskId, -1, Integer::sum) == 0) {
+                    queue.add(down);
+                }
+            }
+        }
+        // 防御: 理论上不存在环,未被处理的节点排在最后
+        for (Node node : plan.nodes.values()) {
+            if (inDegrees.get(node.taskId) > 0) {
+                node.rank = maxRank + 1;
+            }
+        }
+    }
+
+    /**
+     * 应用一次状态变化,并沿下游按层级传播(调用方持有锁)
+     */
+    private void apply(DatePlan plan, TaskInstance instance, long now) {
+        Node node = plan.nodes.get(instance.getTaskId());
+        if (node == null || node.instanceId != instance.getId()) {
+            return;
+        }
+        node.status = instance.getStatus();
+        node.startMs = toMillis(instance.getStartTime());
+        node.endMs = toMillis(instance.getEndTime());
+        RuntimeEstimate estimate = taskRuntimeEstimateService.getEstimate(instance.getTaskId());
+        node.estimateE = estimate.getEwmaSeconds();
+        node.estimateP = estimate.getP90Seconds();
+        propagate(plan, Collections.singletonList(node), now);
+    }
+
+    /**
+     * 重算起始节点,并沿下游按层级传播到预计完成时间不再变化为止(调用方持有锁)
+     */
+    private static void propagate(DatePlan plan, Collection<Node> sources, long now) {
+        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt((Node n) -> n.rank));
+        Set<Long> queued = new HashSet<>();
+        Set<Long> forced = new HashSet<>();
+        for (Node source : sources) {
+            queue.add(source);
+            queued.add(source.taskId);
+            forced.add(source.taskId);
+        }
+        while (!queue.isEmpty()) {
+            Node current = queue.poll();
+            queued.remove(current.taskId);
+            if (!compute(plan, current, now) && !forced.contains(current.taskId)) {
+                continue;
+            }
+            for (long downTaskId : current.downTaskIds) {
+                if (queued.add(downTaskId)) {
+                    queue.add(plan.nodes.get(downTaskId));
+                }
+            }
+        }
+        plan.updatedAt = now;
+    }
+
+    /**
+     * 计算节点的预计开始/完成时间与关键上游
+     *
+     * @return 预计完成时间或阻塞状态是否变化
+     */
+    private static boolean compute(DatePlan plan, Node node, long now) {
+        long oldFinishE = node.finishE;
+        long oldFinishP = node.finishP;
+        boolean oldBlocked = node.blocked;
+        node.criticalUpTaskId = -1;
+
+        if (isTerminal(node.status)) {
+            long end = node.endMs > 0 ? node.endMs : now;
+            node.blocked = false;
+            node.readyE = node.readyP = node.startMs > 0 ? node.startMs : end;
+            node.finishE = node.finishP = end;
+        } else if (node.status == InstanceStatus.RUNNING) {
+            long startMs = node.startMs > 0 ? node.startMs : now;
+            node.blocked = false;
+            node.readyE = node.readyP = startMs;
+            node.finishE = Math.max(now, startMs + node.estimateE * 1000);
+            node.finishP = Math.max(now, startMs + node.estimateP * 1000);
+        } else {
+            boolean blocked = node.externalBlocked;
+            long readyE = Math.max(now, node.externalReadyE);
+            long readyP = Math.max(now, node.externalReadyP);
+            for (int i = 0; i < node.upTaskIds.length; i++) {
+                Node up = plan.nodes.get(node.upTaskIds[i]);
+                if (up.blocked) {
+                    blocked = true;
+                } else if (isTerminal(up.status)) {
+                    // 强依赖要求上游成功,失败/取消的上游使下游无法运行
+                    if (up.status != InstanceStatus.SUCCESS && node.upTypes[i] != DependencyType.WEAK) {
+                        blocked = true;
+                    }
+                } else {
+                    if (up.finishE > readyE) {
+                        readyE = up.finishE;
+                        node.criticalUpTaskId = up.taskId;
+                    }
+                    readyP = Math.max(readyP, up.finishP);
+                }
+            }
+            node.blocked = blocked;
+            if (blocked) {
+                node.criticalUpTaskId = -1;
+                node.readyE = node.readyP = node.finishE = node.finishP = 0;
+            } else {
+                node.readyE = readyE;
+                node.readyP = readyP;
+                node.finishE = readyE + node.estimateE * 1000;
+                node.finishP = readyP + node.estimateP * 1000;
+            }
+        }
+        return node.finishE != oldFinishE || node.finishP != oldFinishP || node.blocked != oldBlocked;
+    }
+
+    /**
+     * 从节点沿关键上游回溯,返回从起点到该节点的路径
+     */
+    private static List<Map<String, Object>> criticalPath(DatePlan plan, Node last) {
+        LinkedList<Map<String, Object>> path = new LinkedList<>();
+        Node node = last;
+        while (node != null) {
+            path.addFirst(toNodeMap(node));
+            node = node.criticalUpTaskId < 0 ? null : plan.nodes.get(node.criticalUpTaskId);
+        }
+        return path;
+    }
+
+    private static Map<String, Object> toNodeMap(Node node) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("instanceId", node.instanceId);
+        map.put("taskId", node.taskId);
+        map.put("instanceName", node.instanceName);
+        map.put("subject", node.subject);
+        map.put("status", node.status);
+        map.put("blocked", node.blocked);
+        map.put("estimateSeconds", node.estimateE);
+        map.put("estimateSecondsP90", node.estimateP);
+        map.put("projectedStart", node.blocked ? null : toDateTime(node.readyE));
+        map.put("projectedFinish", node.blocked ? null : toDateTime(node.finishE));
+        map.put("projectedFinishP90", node.blocked ? null : toDateTime(node.finishP));
+        return map;
+    }
+
+    private static boolean isTerminal(InstanceStatus status) {
+        return status == InstanceStatus.SUCCESS || status == InstanceStatus.FAILED
+                || status == InstanceStatus.CANCELED;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? 0 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static long[] append(long[] values, long value) {
+        long[] array = Arrays.copyOf(values, values.length + 1);
+        array[values.length] = value;
+        return array;
+    }
+
+    private static long[] toLongArray(List<Long> values) {
+        long[] array = new long[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * 单个业务日期的计划
+     */
+    private static final class DatePlan {
+        private final long day;
+        private final long builtAt;
+        private long refreshedAt;
+        private long updatedAt;
+        private boolean refreshing;
+        private final Map<Long, Node> nodes = new HashMap<>();
+
+        /**
+         * 进行中的增量插入数,以及插入期间到达的状态变化
+         */
+        private int merging;
+        private final List<TaskInstance> mergingTransitions = new ArrayList<>();
+
+        private DatePlan(long day, long builtAt) {
+            this.day = day;
+            this.builtAt = builtAt;
+            this.refreshedAt = builtAt;
+            this.updatedAt = builtAt;
+        }
+    }
+
+    /**
+     * 构建期间到达的变化
+     */
+    private static final class PendingChanges {
+        private final List<TaskInstance> created = new ArrayList<>();
+        private final List<TaskInstance> transitions = new ArrayList<>();
+    }
+
+    /**
+     * 待插入的实例及其主题、跨日上游实例
+     */
+    private static final class PreparedNodes {
+        private final List<TaskInstance> instances;
+        private final Map<Long, String> subjects = new HashMap<>();
+        private Map<LongPair, TaskInstance> upstreams = Collections.emptyMap();
+
+        private PreparedNodes(List<TaskInstance> instances) {
+            this.instances = instances;
+        }
+    }
+
+    /**
+     * 计划中的实例节点,时间均为毫秒时间戳,0 表示无
+     */
+    private static final class Node {
+        private final long instanceId;
+        private final long taskId;
+        private final String instanceName;
+        private String subject;
+        private InstanceStatus status;
+        private long startMs;
+        private long endMs;
+        private long estimateE;
+        private long estimateP;
+        private int rank;
+
+        private long[] upTaskIds = EMPTY_IDS;
+        private DependencyType[] upTypes = new DependencyType[0];
+        private long[] downTaskIds = EMPTY_IDS;
+        private long externalReadyE;
+        private long externalReadyP;
+        private boolean externalBlocked;
+
+        private boolean blocked;
+        private long readyE;
+        private long readyP;
+        private long finishE;
+        private long finishP;
+        private long criticalUpTaskId = -1;
+
+        private Node(long instanceId, long taskId, String instanceName) {
+            this.instanceId = instanceId;
+            this.taskId = taskId;
+            this.instanceName = instanceName;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.common.DeflateUtil;
+import com.dw.scheduler.dto.LogLine;
+import com.dw.scheduler.entity.InstanceLogArchive;
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.enums.LogLevel;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.InstanceLogArchiveRepository;
+import com.dw.scheduler.repository.TaskInstanceRepository;
+import com.dw.scheduler.service.InstanceLogArchiveService;
+import com.dw.scheduler.service.InstanceLogStorage;
+import com.dw.scheduler.service.LogSearchIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+
+/**
+ * 实例日志归档服务实现类
+ * 块内行格式: [long 行号][long 时间戳毫秒][byte 级别][int 内容长度][UTF-8 内容]
+ * 归档块写入与实例归档标记在同一事务中提交,提交后再删除原日志;实例在归档期间被重跑时回滚,保留原日志;
+ * 实例重跑时删除上一次运行的归档块,新日志重新写入原日志存储;
+ * 读取时按块目录二分定位,解压后的块放入小容量LRU缓存,便于连续翻页;
+ * 归档字节数需扫描整个归档表,只在启动后与每轮归档后由归档线程统计一次,查询统计信息时返回最近一次结果
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class InstanceLogArchiveServiceImpl implements InstanceLogArchiveService {
+
+    private static final int READ_PAGE_SIZE = 5000;
+
+    private static final int CANDIDATE_PAGE_SIZE = 200;
+
+    private static final int LINE_HEADER_BYTES = 8 + 8 + 1 + 4;
+
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    private static final List<InstanceStatus> ARCHIVE_STATUSES =
+            Arrays.asList(InstanceStatus.SUCCESS, InstanceStatus.FAILED);
+
+    @Autowired
+    private InstanceLogArchiveRepository instanceLogArchiveRepository;
+
+    @Autowired
+    private TaskInstanceRepository taskInstanceRepository;
+
+    @Autowired
+    private InstanceLogStorage instanceLogStorage;
+
+    @Autowired
+    private LogSearchIndexService logSearchIndexService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${scheduler.log.archive.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 实例结束超过该天数后归档
+     */
+    @Value("${scheduler.log.archive.after-days:7}")
+    private int afterDays;
+
+    /**
+     * 归档块压缩前的目标字节数
+     */
+    @Value("${scheduler.log.archive.block-bytes:65536}")
+    private int blockBytes;
+
+    /**
+     * 归档执行间隔(分钟)
+     */
+    @Value("${scheduler.log.archive.interval-minutes:60}")
+    private long intervalMinutes;
+
+    /**
+     * 解压块缓存容量
+     */
+    @Value("${scheduler.log.archive.block-cache-size:64}")
+    private int blockCacheSize;
+
+    private Map<Long, List<LogLine>> blockCache;
+
+    private final AtomicLong archivedInstances = new AtomicLong();
+    private final AtomicLong archivedLines = new AtomicLong();
+    private final AtomicLong decodedBlocks = new AtomicLong();
+    private final AtomicLong discardedBlocks = new AtomicLong();
+
+    /**
+     * 最近一次统计的 [原始字节数, 压缩后字节数, 统计时间毫秒],未统计时为 null
+     */
+    private volatile long[] archiveBytes;
+
+    private ScheduledExecutorService archiveExecutor;
+
+    @PostConstruct
+    public void start() {
+        blockCache = new LinkedHashMap<Long, List<LogLine>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<LogLine>> eldest) {
+                return size() > blockCacheSize;
+            }
+        };
+        if (!enabled) {
+            log.info("实例日志归档未启用");
+            return;
+        }
+        archiveExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "instance-log-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        archiveExecutor.execute(this::refreshArchiveBytes);
+        archiveExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                archive();
+            } catch (Exception e) {
+                log.error("实例日志归档异常", e);
+            }
+            refreshArchiveBytes();
+        }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (archiveExecutor != null) {
+            archiveExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public int archive() {
+        LocalDateTime endTimeBefore = LocalDateTime.now().minusDays(afterDays);
+        int archived = 0;
+        long afterId = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> candidates = taskInstanceRepository.findLogArchiveCandidates(ARCHIVE_STATUSES, endTimeBefore,
+                    afterId, PageRequest.of(0, CANDIDATE_PAGE_SIZE));
+            for (Long instanceId : candidates) {
+                try {
+                    archiveInstance(instanceId);
+                    archived++;
+                } catch (Exception e) {
+                    log.error("归档实例日志失败: instanceId={}", instanceId, e);
+                }
+            }
+            if (candidates.size() < CANDIDATE_PAGE_SIZE) {
+                break;
+            }
+            afterId = candidates.get(candidates.size() - 1);
+        }
+        if (archived > 0) {
+            log.info("实例日志归档完成: instances={}", archived);
+        }
+        return archived;
+    }
+
+    @Override
+    public long archiveInstance(Long instanceId) {
+        Long lines = transactionTemplate.execute(status -> {
+            BlockWriter writer = new BlockWriter(instanceId);
+            long afterLine = 0;
+            while (true) {
+                List<LogLine> page = instanceLogStorage.read(instanceId, afterLine, READ_PAGE_SIZE);
+                for (LogLine line : page) {
+                    writer.add(line);
+                }
+                if (page.size() < READ_PAGE_SIZE) {
+                    break;
+                }
+                afterLine = page.get(page.size() - 1).getLineNum();
+            }
+            writer.finish();
+            if (taskInstanceRepository.markLogArchived(instanceId, ARCHIVE_STATUSES) == 0) {
+                status.setRollbackOnly();
+                return null;
+            }
+            return writer.lineCount;
+        });
+        if (lines == null) {
+            log.info("实例已重跑或已归档,放弃归档: instanceId={}", instanceId);
+            return 0;
+        }
+
+        // 归档提交后再删除原日志,删除失败不影响读取(已按归档读取)
+        try {
+            instanceLogStorage.delete(instanceId);
+        } catch (Exception e) {
+            log.error("删除已归档的原日志失败: instanceId={}", instanceId, e);
+        }
+        logSearchIndexService.remove(instanceId);
+
+        archivedInstances.incrementAndGet();
+        archivedLines.addAndGet(lines);
+        log.debug("实例日志已归档: instanceId={}, lines={}", instanceId, lines);
+        return lines;
+    }
+
+    @Override
+    public int discard(Collection<Long> instanceIds) {
+        if (instanceIds.isEmpty()) {
+            return 0;
+        }
+        int deleted = instanceLogArchiveRepository.deleteByInstanceIdIn(instanceIds);
+        if (deleted > 0) {
+            discardedBlocks.addAndGet(deleted);
+            log.info("实例重跑,删除归档日志: instances={}, blocks={}", instanceIds.size(), deleted);
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<LogLine> read(Long instanceId, long afterLine, int limit) {
+        List<LogLine> result = new ArrayList<>();
+        List<Object[]> directory = instanceLogArchiveRepository.findBlockDirectory(instanceId);
+
+        // 二分定位第一个包含 afterLine 之后行的块
+        int low = 0;
+        int high = directory.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Object[] block = directory.get(mid);
+            long lastLine = (Long) block[1] + (Integer) block[2] - 1;
+            if (lastLine <= afterLine) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        for (int i = low; i < directory.size() && result.size() < limit; i++) {
+            for (LogLine line : loadBlock((Long) directory.get(i)[0])) {
+                if (line.getLineNum() <= afterLine) {
+                    continue;
+                }
+                result.add(line);
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long countLines(Long instanceId) {
+        List<Object[]> directory = instanceLogArchiveRepository.findBlockDirectory(instanceId);
+        if (directory.isEmpty()) {
+            return 0;
+        }
+        Object[] last = directory.get(directory.size() - 1);
+        return (Long) last[1] + (Integer) last[2] - 1;
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("archivedInstances", archivedInstances.get());
+        statistics.put("archivedLines", archivedLines.get());
+        statistics.put("decodedBlocks", decodedBlocks.get());
+        statistics.put("discardedBlocks", discardedBlocks.get());
+        long[] bytes = archiveBytes;
+        if (bytes != null) {
+            statistics.put("rawBytes", bytes[0]);
+            statistics.put("compressedBytes", bytes[1]);
+            statistics.put("bytesComputedAt",
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(bytes[2]), ZoneId.systemDefault()));
+        }
+        return statistics;
+    }
+
+    /**
+     * 统计归档表的原始与压缩后字节数(全表扫描,仅在归档线程中执行)
+     */
+    private void refreshArchiveBytes() {
+        try {
+            List<Object[]> rows = instanceLogArchiveRepository.sumBytes();
+            if (!rows.isEmpty()) {
+                archiveBytes = new long[]{((Number) rows.get(0)[0]).longValue(),
+                        ((Number) rows.get(0)[1]).longValue(), System.currentTimeMillis()};
+            }
+        } catch (Exception e) {
+            log.error("统计归档字节数失败", e);
+        }
+    }
+
+    private List<LogLine> loadBlock(Long blockId) {
+        synchronized (blockCache) {
+            List<LogLine> cached = blockCache.get(blockId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        InstanceLogArchive block = instanceLogArchiveRepository.findById(blockId)
+                .orElseThrow(() -> new BusinessException("日志归档块不存在: " + blockId));
+        List<LogLine> lines = decodeBlock(block);
+        decodedBlocks.incrementAndGet();
+        synchronized (blockCache) {
+            blockCache.put(blockId, lines);
+        }
+        return lines;
+    }
+
+    private static List<LogLine> decodeBlock(InstanceLogArchive block) {
+        byte[] raw;
+        try {
+            raw = DeflateUtil.decompress(block.getBlockData(), block.getRawBytes());
+        } catch (DataFormatException e) {
+            throw new BusinessException("日志归档块损坏: " + block.getId());
+        }
+
+        List<LogLine> lines = new ArrayList<>(block.getLineCount());
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        while (buffer.remaining() >= LINE_HEADER_BYTES) {
+            long lineNum = buffer.getLong();
+            long epochMs = buffer.getLong();
+            int levelOrdinal = buffer.get();
+            byte[] content = new byte[buffer.getInt()];
+            buffer.get(content);
+            LogLevel level = levelOrdinal >= 0 && levelOrdinal < LEVELS.length ? LEVELS[levelOrdinal] : LogLevel.INFO;
+            LocalDateTime logTime = epochMs < 0 ? null
+                    : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+            lines.add(new LogLine(lineNum, logTime, level, new String(content, StandardCharsets.UTF_8)));
+        }
+        return lines;
+    }
+
+    /**
+     * 按目标大小切块、压缩并写入归档块
+     */
+    private class BlockWriter {
+
+        private final Long instanceId;
+        private final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        private long firstLine;
+        private int blockLines;
+        private long lineCount;
+
+        BlockWriter(Long instanceId) {
+            this.instanceId = instanceId;
+        }
+
+        void add(LogLine line) {
+            byte[] content = line.getContent() == null ? new byte[0] : line.getContent().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(LINE_HEADER_BYTES + content.length);
+            buffer.putLong(line.getLineNum());
+            buffer.putLong(line.getLogTime() == null ? -1
+                    : line.getLogTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            buffer.put((byte) (line.getLevel() == null ? LogLevel.INFO.ordinal() : line.getLevel().ordinal()));
+            buffer.putInt(content.length);
+            buffer.put(content);
+
+            if (blockLines == 0) {
+                firstLine = line.getLineNum();
+            }
+            raw.write(buffer.array(), 0, buffer.position());
+            blockLines++;
+            lineCount++;
+            if (raw.size() >= blockBytes) {
+                flushBlock();
+            }
+        }
+
+        void finish() {
+            if (blockLines > 0) {
+                flushBlock();
+            }
+        }
+
+        private void flushBlock() {
+            byte[] input = raw.toByteArray();
+
+            InstanceLogArchive block = new InstanceLogArchive();
+            block.setInstanceId(instanceId);
+            block.setFirstLine(firstLine);
+            block.setLineCount(blockLines);
+            block.setRawBytes(input.length);
+            block.setBlockData(DeflateUtil.compress(input));
+            instanceLogArchiveRepository.save(block);
+
+            raw.reset();
+            blockLines = 0;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.common.MpscBoundedQueue;
+import com.dw.scheduler.dto.LogLine;
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.TaskInstanceRepository;
+import com.dw.scheduler.service.InstanceLogIngestService;
+import com.dw.scheduler.service.InstanceLogService;
+import com.dw.scheduler.service.InstanceLogStorage;
+import com.dw.scheduler.service.LogSearchIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 实例日志异步写入服务实现类
+ * 写入线程在缓冲区积累到 flush-lines 行或距上次写入超过 flush-interval-ms 时,
+ * 取出至多 max-batch-lines 行,按实例分组(保持实例内顺序)后一次写入存储
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class InstanceLogIngestServiceImpl implements InstanceLogIngestService {
+
+    @Autowired
+    private InstanceLogStorage instanceLogStorage;
+
+    @Autowired
+    private InstanceLogService instanceLogService;
+
+    @Autowired
+    private LogSearchIndexService logSearchIndexService;
+
+    @Autowired
+    private TaskInstanceRepository taskInstanceRepository;
+
+    /**
+     * 缓冲区容量(行)
+     */
+    @Value("${scheduler.log.ingest.buffer-size:65536}")
+    private int bufferSize;
+
+    /**
+     * 最长写入间隔(毫秒)
+     */
+    @Value("${scheduler.log.ingest.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    /**
+     * 缓冲区积累到该行数时立即写入
+     */
+    @Value("${scheduler.log.ingest.flush-lines:2000}")
+    private int flushLines;
+
+    /**
+     * 单次写入的最大行数
+     */
+    @Value("${scheduler.log.ingest.max-batch-lines:5000}")
+    private int maxBatchLines;
+
+    private MpscBoundedQueue<PendingLine> buffer;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        buffer = new MpscBoundedQueue<>(bufferSize);
+        running = true;
+        writerThread = new Thread(this::writeLoop, "instance-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Override
+    public int submit(Long instanceId, List<LogLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            return 0;
+        }
+        List<InstanceStatus> statuses = taskInstanceRepository.findStatusById(instanceId);
+        if (statuses.isEmpty()) {
+            rejectedCount.addAndGet(lines.size());
+            throw new BusinessException("实例不存在");
+        }
+        if (statuses.get(0) != InstanceStatus.RUNNING) {
+            rejectedCount.addAndGet(lines.size());
+            throw new BusinessException("实例未在运行中,不接收日志: status=" + statuses.get(0));
+        }
+        int accepted = 0;
+        for (LogLine line : lines) {
+            if (line.getLogTime() == null) {
+                line.setLogTime(LocalDateTime.now());
+            }
+            if (!buffer.offer(new PendingLine(instanceId, line))) {
+                break;
+            }
+            accepted++;
+        }
+        acceptedCount.addAndGet(accepted);
+        if (accepted < lines.size()) {
+            long dropped = droppedCount.addAndGet(lines.size() - accepted);
+            log.warn("日志缓冲区已满,丢弃日志: instanceId={}, dropped={}, totalDropped={}",
+                    instanceId, lines.size() - accepted, dropped);
+        }
+        if (buffer.size() >= flushLines) {
+            LockSupport.unpark(writerThread);
+        }
+        return accepted;
+    }
+
+    @Override
+    public int flush() {
+        // 缓冲区只允许写入线程消费,这里唤醒写入线程并等待缓冲区清空
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        long before = writtenCount.get();
+        while (buffer.size() > 0 && System.currentTimeMillis() < deadline && writerThread.isAlive()) {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        return (int) (writtenCount.get() - before);
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("acceptedCount", acceptedCount.get());
+        statistics.put("droppedCount", droppedCount.get());
+        statistics.put("rejectedCount", rejectedCount.get());
+        statistics.put("writtenCount", writtenCount.get());
+        statistics.put("failedCount", failedCount.get());
+        statistics.put("batchCount", batchCount.get());
+        statistics.put("buffered", buffer.size());
+        statistics.put("bufferCapacity", buffer.capacity());
+        return statistics;
+    }
+
+    private void writeLoop() {
+        long lastWrite = System.currentTimeMillis();
+        while (running || buffer.size() > 0) {
+            long elapsed = System.currentTimeMillis() - lastWrite;
+            int buffered = buffer.size();
+            if (buffered == 0 || (running && buffered < flushLines && elapsed < flushIntervalMs)) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs - elapsed)));
+                continue;
+            }
+            try {
+                writeBatch();
+            } catch (Exception e) {
+                log.error("批量写入实例日志异常", e);
+            }
+            lastWrite = System.currentTimeMillis();
+        }
+    }
+
+    private void writeBatch() {
+        Map<Long, List<LogLine>> linesByInstance = new LinkedHashMap<>();
+        int drained = buffer.drain(pending -> linesByInstance
+                .computeIfAbsent(pending.instanceId, id -> new ArrayList<>())
+                .add(pending.line), maxBatchLines);
+        if (drained == 0) {
+            return;
+        }
+
+        try {
+            instanceLogStorage.appendAll(linesByInstance);
+            writtenCount.addAndGet(drained);
+            batchCount.incrementAndGet();
+        } catch (Exception e) {
+            failedCount.addAndGet(drained);
+            // 存储可能已写入部分行,删除相关实例索引避免行号错位
+            for (Long instanceId : linesByInstance.keySet()) {
+                logSearchIndexService.remove(instanceId);
+            }
+            log.error("写入实例日志失败,丢弃本批日志: instances={}, lines={}", linesByInstance.size(), drained, e);
+            return;
+        }
+
+        for (Map.Entry<Long, List<LogLine>> entry : linesByInstance.entrySet()) {
+            try {
+                logSearchIndexService.onAppended(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                // 索引失败时删除该实例索引,查询退化为扫描
+                logSearchIndexService.remove(entry.getKey());
+                log.error("更新实例日志索引失败: instanceId={}", entry.getKey(), e);
+            }
+            instanceLogService.notifyAppended(entry.getKey());
+        }
+        log.debug("批量写入实例日志: instances={}, lines={}", linesByInstance.size(), drained);
+    }
+
+    /**
+     * 缓冲区中的待写入日志
+     */
+    private static class PendingLine {
+
+        private final Long instanceId;
+        private final LogLine line;
+
+        PendingLine(Long instanceId, LogLine line) {
+            this.instanceId = instanceId;
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.common.LongPair;
+import com.dw.scheduler.common.Result;
+import com.dw.scheduler.dto.LogLine;
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.enums.LogLevel;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.TaskInstanceRepository;
+import com.dw.scheduler.service.InstanceLogArchiveService;
+import com.dw.scheduler.service.InstanceLogService;
+import com.dw.scheduler.service.InstanceLogStorage;
+import com.dw.scheduler.service.LogSearchIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 实例日志服务实现类
+ * 跟随模式的请求登记为等待者,日志追加时由通知线程从各自游标处增量读取,
+ * 每次唤醒只读取游标之后的新日志;带过滤条件时通过检索索引跳过不可能匹配的块;
+ * 已归档实例从归档块读取
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class InstanceLogServiceImpl implements InstanceLogService {
+
+    /**
+     * 带过滤条件时每次从存储读取的行数
+     */
+    private static final int READ_CHUNK_SIZE = 2000;
+
+    /**
+     * 单次请求最大返回行数
+     */
+    private static final int MAX_LIMIT = 5000;
+
+    @Autowired
+    private InstanceLogStorage instanceLogStorage;
+
+    @Autowired
+    private TaskInstanceRepository taskInstanceRepository;
+
+    @Autowired
+    private LogSearchIndexService logSearchIndexService;
+
+    @Autowired
+    private InstanceLogArchiveService instanceLogArchiveService;
+
+    /**
+     * 单次请求最多扫描的日志行数,超过后返回游标由客户端继续
+     */
+    @Value("${scheduler.log.max-scan-lines:50000}")
+    private int maxScanLines;
+
+    /**
+     * 跟随模式长轮询超时时间(毫秒)
+     */
+    @Value("${scheduler.log.follow-timeout-ms:30000}")
+    private long followTimeoutMs;
+
+    /**
+     * 实例ID -> 等待新日志的请求
+     */
+    private final Map<Long, Set<LogWaiter>> waiters = new ConcurrentHashMap<>();
+
+    private ExecutorService notifyExecutor;
+
+    @PostConstruct
+    public void start() {
+        notifyExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "instance-log-notify");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (notifyExecutor != null) {
+            notifyExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void notifyAppended(Long instanceId) {
+        Set<LogWaiter> instanceWaiters = waiters.remove(instanceId);
+        if (instanceWaiters == null || instanceWaiters.isEmpty()) {
+            return;
+        }
+        notifyExecutor.execute(() -> {
+            for (LogWaiter waiter : instanceWaiters) {
+                poll(waiter);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, Object> readLogs(Long instanceId, long afterLine, LogLevel level, String keyword, int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new BusinessException("返回条数需在1到" + MAX_LIMIT + "之间");
+        }
+        if (afterLine < 0) {
+            throw new BusinessException("游标行号不能为负数");
+        }
+
+        List<Object[]> rows = taskInstanceRepository.findLogHeaderById(instanceId);
+        if (rows.isEmpty()) {
+            throw new BusinessException("实例不存在");
+        }
+        Object[] row = rows.get(0);
+        boolean archived = Integer.valueOf(1).equals(row[2]);
+
+        String filterKeyword = StringUtils.hasText(keyword) ? keyword : null;
+        boolean filtered = level != null || filterKeyword != null;
+
+        List<Map<String, Object>> logs = new ArrayList<>();
+        long cursor = afterLine;
+        int scanned = 0;
+        boolean exhausted = false;
+        while (logs.size() < limit && scanned < maxScanLines) {
+            int chunkSize = Math.min(filtered ? READ_CHUNK_SIZE : limit - logs.size(), maxScanLines - scanned);
+            if (filtered && !archived) {
+                // 跳过索引判定不可能匹配的块,只读取候选区间
+                LongPair range = logSearchIndexService.nextCandidateRange(instanceId, cursor, level, filterKeyword);
+                cursor = range.getFirst() - 1;
+                chunkSize = (int) Math.min(chunkSize, range.getSecond() - cursor);
+            }
+            List<LogLine> lines = archived
+                    ? instanceLogArchiveService.read(instanceId, cursor, chunkSize)
+                    : instanceLogStorage.read(instanceId, cursor, chunkSize);
+            for (LogLine line : lines) {
+                scanned++;
+                cursor = line.getLineNum();
+                if (matches(line, level, filterKeyword)) {
+                    logs.add(toLogMap(line));
+                    if (logs.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+            if (lines.size() < chunkSize) {
+                exhausted = true;
+                break;
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("instanceId", instanceId);
+        result.put("instanceName", row[0]);
+        result.put("status", row[1]);
+        // 总行数仅在首次读取时返回
+        if (afterLine == 0) {
+            result.put("totalLines", archived
+                    ? instanceLogArchiveService.countLines(instanceId)
+                    : instanceLogStorage.countLines(instanceId));
+        }
+        result.put("nextLine", cursor);
+        result.put("hasMore", !exhausted);
+        result.put("logs", logs);
+        return result;
+    }
+
+    @Override
+    public DeferredResult<Result<Map<String, Object>>> followLogs(Long instanceId, long afterLine, LogLevel level,
+                                                                  String keyword, int limit) {
+        DeferredResult<Result<Map<String, Object>>> result = new DeferredResult<>(followTimeoutMs);
+        LogWaiter waiter = new LogWaiter(instanceId, afterLine, level, keyword, limit, result);
+        result.onTimeout(() -> {
+            try {
+                result.setResult(Result.success(readLogs(instanceId, waiter.afterLine, level, keyword, limit)));
+            } catch (Exception e) {
+                result.setErrorResult(e);
+            }
+        });
+        result.onCompletion(() -> unregister(waiter));
+        poll(waiter);
+        return result;
+    }
+
+    /**
+     * 先登记再读取,保证读取之后追加的日志一定会再次唤醒该等待者
+     */
+    private void poll(LogWaiter waiter) {
+        synchronized (waiter) {
+            if (waiter.result.isSetOrExpired()) {
+                return;
+            }
+            register(waiter);
+            try {
+                Map<String, Object> data = readLogs(waiter.instanceId, waiter.afterLine, waiter.level,
+                        waiter.keyword, waiter.limit);
+                boolean hasLogs = !((List<?>) data.get("logs")).isEmpty();
+                if (hasLogs || Boolean.TRUE.equals(data.get("hasMore")) || isFinished(data.get("status"))) {
+                    unregister(waiter);
+                    waiter.result.setResult(Result.success(data));
+                    return;
+                }
+                waiter.afterLine = (Long) data.get("nextLine");
+            } catch (Exception e) {
+                unregister(waiter);
+                waiter.result.setErrorResult(e);
+            }
+        }
+    }
+
+    private void register(LogWaiter waiter) {
+        waiters.computeIfAbsent(waiter.instanceId, id -> ConcurrentHashMap.newKeySet()).add(waiter);
+    }
+
+    private void unregister(LogWaiter waiter) {
+        waiters.computeIfPresent(waiter.instanceId, (id, set) -> {
+            set.remove(waiter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static boolean isFinished(Object status) {
+        return status == InstanceStatus.SUCCESS || status == InstanceStatus.FAILED || status == InstanceStatus.CANCELED;
+    }
+
+    private static boolean matches(LogLine line, LogLevel level, String keyword) {
+        if (level != null && line.getLevel() != level) {
+            return false;
+        }
+        return keyword == null || containsIgnoreCase(line.getContent(), keyword);
+    }
+
+    private static boolean containsIgnoreCase(String content, String keyword) {
+        if (content == null) {
+            return false;
+        }
+        int max = content.length() - keyword.length();
+        for (int i = 0; i <= max; i++) {
+            if (content.regionMatches(true, i, keyword, 0, keyword.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, Object> toLogMap(LogLine line) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("lineNum", line.getLineNum());
+        map.put("timestamp", line.getLogTime());
+        map.put("level", line.getLevel());
+        map.put("content", line.getContent());
+        return map;
+    }
+
+    /**
+     * 跟随模式下等待新日志的请求
+     */
+    private static class LogWaiter {
+
+        private final Long instanceId;
+        private final LogLevel level;
+        private final String keyword;
+        private final int limit;
+        private final DeferredResult<Result<Map<String, Object>>> result;
+        private volatile long afterLine;
+
+        LogWaiter(Long instanceId, long afterLine, LogLevel level, String keyword, int limit,
+                  DeferredResult<Result<Map<String, Object>>> result) {
+            this.instanceId = instanceId;
+            this.afterLine = afterLine;
+            this.level = level;
+            this.keyword = keyword;
+            this.limit = limit;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.common.TransactionUtil;
+import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.InstanceStatJdbcRepository;
+import com.dw.scheduler.repository.InstanceStatJdbcRepository.DailyStatRow;
+import com.dw.scheduler.service.InstanceStatService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 实例运行统计服务实现类
+ * 每天的统计为 (责任人, 资源分组) -> 计数数组,数组前半为各状态实例数,后半为各状态执行耗时合计;
+ * 责任人与资源分组取实例创建时记录的值,保证同一实例的创建与后续转换计入同一分组(历史实例取任务当前值);
+ * - 待刷新增量: 提交后累加,刷新线程定期取出并在一个事务中以 INSERT ... ON DUPLICATE KEY UPDATE 累加到统计表
+ * - 已加载汇总: 按业务日期从统计表加载(LRU),刷新成功后同步累加
+ * 查询结果 = 已加载汇总 + 待刷新增量 + 正在刷新的增量,三者在同一把锁下读取
+ * <p>
+ * 统计表为空时(首次部署)按实例表全量重算一次。统计只随状态转换变化,
+ * 数据清理删除实例不影响已有统计
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class InstanceStatServiceImpl implements InstanceStatService {
+
+    private static final InstanceStatus[] STATUSES = InstanceStatus.values();
+
+    private static final int STATUS_COUNT = STATUSES.length;
+
+    /**
+     * 趋势查询最大天数
+     */
+    private static final int MAX_TREND_DAYS = 366;
+
+    /**
+     * 全量重算时每条语句覆盖的天数
+     */
+    private static final int REBUILD_CHUNK_DAYS = 31;
+
+    /**
+     * 任务责任人/资源分组缓存有效期(毫秒)
+     */
+    private static final long TASK_INFO_TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final int MAX_TASK_INFO_CACHE = 100000;
+
+    /**
+     * 加载某天统计时遇到并发刷新的最大重试次数
+     */
+    private static final int LOAD_RETRY_TIMES = 3;
+
+    @Autowired
+    private InstanceStatJdbcRepository instanceStatJdbcRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 增量刷新间隔(毫秒)
+     */
+    @Value("${scheduler.stats.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+
+    /**
+     * 内存中最多保留的业务日期数
+     */
+    @Value("${scheduler.stats.cache-days:400}")
+    private int cacheDays;
+
+    private final Object lock = new Object();
+
+    /**
+     * epochDay -> 统计,受 lock 保护
+     */
+    private LinkedHashMap<Long, Map<GroupKey, long[]>> loadedDays;
+
+    private Map<Long, Map<GroupKey, long[]>> pendingDeltas = new HashMap<>();
+
+    private Map<Long, Map<GroupKey, long[]>> flushingDeltas = Collections.emptyMap();
+
+    /**
+     * 每次刷新成功后递增,用于识别加载期间发生的刷新
+     */
+    private long flushGeneration;
+
+    /**
+     * 任务ID -> [责任人, 资源分组, 加载时间]
+     */
+    private final Map<Long, Object[]> taskInfos = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private ScheduledExecutorService statExecutor;
+
+    @PostConstruct
+    public void start() {
+        loadedDays = new LinkedHashMap<Long, Map<GroupKey, long[]>>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<GroupKey, long[]>> eldest) {
+                return size() > cacheDays;
+            }
+        };
+        statExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "instance-stat-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        statExecutor.execute(this::initialize);
+        statExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (statExecutor != null) {
+            statExecutor.shutdown();
+            try {
+                statExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public void recordCreated(Collection<TaskInstance> instances) {
+        Map<Long, Object[]> infos = resolveTaskInfos(instances);
+        Map<Long, Map<GroupKey, long[]>> deltas = new HashMap<>();
+        for (TaskInstance instance : instances) {
+            if (instance.getBusinessDate() == null || instance.getStatus() == null) {
+                continue;
+            }
+            long[] counts = deltaCounts(deltas, instance, infos);
+            counts[instance.getStatus().ordinal()]++;
+        }
+        addPendingAfterCommit(deltas);
+    }
+
+    @Override
+    public void recordTransitions(Collection<TaskInstance> instances, InstanceStatus from,
+                                  Map<Long, Integer> previousExecuteTimes) {
+        Map<Long, Object[]> infos = resolveTaskInfos(instances);
+        Map<Long, Map<GroupKey, long[]>> deltas = new HashMap<>();
+        for (TaskInstance instance : instances) {
+            if (instance.getBusinessDate() == null || instance.getStatus() == null) {
+                continue;
+            }
+            long[] counts = deltaCounts(deltas, instance, infos);
+            counts[from.ordinal()]--;
+            Integer previousExecuteTime = previousExecuteTimes == null ? null : previousExecuteTimes.get(instance.getId());
+            if (previousExecuteTime != null) {
+                counts[STATUS_COUNT + from.ordinal()] -= previousExecuteTime;
+            }
+            counts[instance.getStatus().ordinal()]++;
+            if (instance.getExecuteTime() != null) {
+                counts[STATUS_COUNT + instance.getStatus().ordinal()] += instance.getExecuteTime();
+            }
+        }
+        addPendingAfterCommit(deltas);
+    }
+
+    @Override
+    public Map<String, Object> getDailyStatistics(LocalDate businessDate) {
+        Map<GroupKey, long[]> groups = snapshotDay(businessDate.toEpochDay());
+
+        long[] totals = new long[STATUS_COUNT * 2];
+        List<Map<String, Object>> details = new ArrayList<>(groups.size());
+        for (Map.Entry<GroupKey, long[]> entry : groups.entrySet()) {
+            long[] counts = entry.getValue();
+            for (int i = 0; i < counts.length; i++) {
+                totals[i] += counts[i];
+            }
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("owner", entry.getKey().owner);
+            detail.put("resourceGroup", entry.getKey().resourceGroup);
+            detail.putAll(toStatusMap(counts));
+            details.add(detail);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("businessDate", businessDate);
+        result.putAll(toStatusMap(totals));
+        result.put("groups", details);
+        return result;
+    }
+
+    @Override
+    public List<Map<String, Object>> getDailyTrend(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new BusinessException("起始日期不能晚于结束日期");
+        }
+        if (endDate.toEpochDay() - startDate.toEpochDay() >= MAX_TREND_DAYS) {
+            throw new BusinessException("查询范围不能超过" + MAX_TREND_DAYS + "天");
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            long[] totals = new long[STATUS_COUNT * 2];
+            for (long[] counts : snapshotDay(date.toEpochDay()).values()) {
+                for (int i = 0; i < counts.length; i++) {
+                    totals[i] += counts[i];
+                }
+            }
+            Map<String, Object> day = new LinkedHashMap<>();
+            day.put("businessDate", date);
+            day.putAll(toStatusMap(totals));
+            result.add(day);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean rebuild(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new BusinessException("起始日期不能晚于结束日期");
+        }
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        statExecutor.execute(() -> {
+            try {
+                rebuildNow(startDate, endDate);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 首次部署时统计表为空,按实例表全量重算
+     */
+    private void initialize() {
+        try {
+            if (!instanceStatJdbcRepository.isEmpty()) {
+                return;
+            }
+            LocalDate[] range = instanceStatJdbcRepository.findBusinessDateRange();
+            if (range != null && rebuilding.compareAndSet(false, true)) {
+                try {
+                    rebuildNow(range[0], range[1]);
+                } finally {
+                    rebuilding.set(false);
+                }
+            }
+        } catch (Exception e) {
+            log.error("实例统计初始化失败", e);
+        }
+    }
+
+    /**
+     * 重算前先刷新已有增量;重算期间提交的转换可能被重复计入,应在低峰执行
+     */
+    private void rebuildNow(LocalDate startDate, LocalDate endDate) {
+        long start = System.currentTimeMillis();
+        flush();
+        int rows = 0;
+        for (LocalDate from = startDate; !from.isAfter(endDate); from = from.plusDays(REBUILD_CHUNK_DAYS)) {
+            LocalDate to = from.plusDays(REBUILD_CHUNK_DAYS - 1);
+            if (to.isAfter(endDate)) {
+                to = endDate;
+            }
+            rows += instanceStatJdbcRepository.rebuild(from, to);
+        }
+        synchronized (lock) {
+            long fromDay = startDate.toEpochDay();
+            long toDay = endDate.toEpochDay();
+            loadedDays.keySet().removeIf(day -> day >= fromDay && day <= toDay);
+            flushGeneration++;
+        }
+        log.info("实例统计重算完成: businessDate=[{}, {}], rows={}, cost={}ms",
+                startDate, endDate, rows, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 将待刷新增量写入统计表,成功后累加到已加载汇总,失败时放回待刷新增量
+     * 全部行在同一事务中写入,失败时整体回滚,放回的增量不会被重复累加
+     */
+    private void flush() {
+        Map<Long, Map<GroupKey, long[]>> deltas;
+        synchronized (lock) {
+            if (pendingDeltas.isEmpty()) {
+                return;
+            }
+            deltas = pendingDeltas;
+            flushingDeltas = deltas;
+            pendingDeltas = new HashMap<>();
+        }
+
+        List<DailyStatRow> rows = new ArrayList<>();
+        for (Map.Entry<Long, Map<GroupKey, long[]>> dayEntry : deltas.entrySet()) {
+            LocalDate businessDate = LocalDate.ofEpochDay(dayEntry.getKey());
+            for (Map.Entry<GroupKey, long[]> entry : dayEntry.getValue().entrySet()) {
+                long[] counts = entry.getValue();
+                for (int i = 0; i < STATUS_COUNT; i++) {
+                    if (counts[i] != 0 || counts[STATUS_COUNT + i] != 0) {
+                        rows.add(new DailyStatRow(businessDate, entry.getKey().owner, entry.getKey().resourceGroup,
+                                STATUSES[i], counts[i], counts[STATUS_COUNT + i]));
+                    }
+                }
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> instanceStatJdbcRepository.upsertDeltas(rows));
+            synchronized (lock) {
+                for (Map.Entry<Long, Map<GroupKey, long[]>> dayEntry : deltas.entrySet()) {
+                    Map<GroupKey, long[]> loaded = loadedDays.get(dayEntry.getKey());
+                    if (loaded != null) {
+                        mergeInto(loaded, dayEntry.getValue());
+                    }
+                }
+                flushingDeltas = Collections.emptyMap();
+                flushGeneration++;
+            }
+        } catch (Exception e) {
+            log.error("实例统计刷新失败,增量保留到下次刷新: rows={}", rows.size(), e);
+            synchronized (lock) {
+                for (Map.Entry<Long, Map<GroupKey, long[]>> dayEntry : deltas.entrySet()) {
+                    mergeInto(pendingDeltas.computeIfAbsent(dayEntry.getKey(), day -> new HashMap<>()),
+                            dayEntry.getValue());
+                }
+                flushingDeltas = Collections.emptyMap();
+            }
+        }
+    }
+
+    /**
+     * 读取某天的统计副本: 已加载汇总 + 正在刷新的增量 + 待刷新增量
+     */
+    private Map<GroupKey, long[]> snapshotDay(long day) {
+        for (int attempt = 0; ; attempt++) {
+            long generation;
+            boolean idle;
+            synchronized (lock) {
+                Map<GroupKey, long[]> loaded = loadedDays.get(day);
+                if (loaded != null) {
+                    return withDeltas(loaded, day);
+                }
+                generation = flushGeneration;
+                idle = flushingDeltas.isEmpty();
+            }
+
+            // 锁外读取统计表,期间若发生刷新则重新读取,避免漏掉或重复计入刷新的增量
+            Map<GroupKey, long[]> loaded = new HashMap<>();
+            for (DailyStatRow row : instanceStatJdbcRepository.findByBusinessDate(LocalDate.ofEpochDay(day))) {
+                long[] counts = loaded.computeIfAbsent(new GroupKey(row.getOwner(), row.getResourceGroup()),
+                        key -> new long[STATUS_COUNT * 2]);
+                counts[row.getStatus().ordinal()] += row.getInstanceCount();
+                counts[STATUS_COUNT + row.getStatus().ordinal()] += row.getExecuteTimeTotal();
+            }
+            synchronized (lock) {
+                if (idle && generation == flushGeneration && flushingDeltas.isEmpty()) {
+                    loadedDays.putIfAbsent(day, loaded);
+                    return withDeltas(loadedDays.get(day), day);
+                }
+                if (attempt >= LOAD_RETRY_TIMES) {
+                    // 持续刷新中,返回近似结果且不缓存
+                    return withDeltas(loaded, day);
+                }
+            }
+        }
+    }
+
+    /**
+     * 汇总副本叠加正在刷新与待刷新的增量(调用方持有锁)
+     */
+    private Map<GroupKey, long[]> withDeltas(Map<GroupKey, long[]> loaded, long day) {
+        Map<GroupKey, long[]> result = copyOf(loaded);
+        Map<GroupKey, long[]> flushing = flushingDeltas.get(day);
+        if (flushing != null) {
+            mergeInto(result, flushing);
+        }
+        Map<GroupKey, long[]> pending = pendingDeltas.get(day);
+        if (pending != null) {
+            mergeInto(result, pending);
+        }
+        return result;
+    }
+
+    private void addPendingAfterCommit(Map<Long, Map<GroupKey, long[]>> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        TransactionUtil.runAfterCommit(() -> {
+            synchronized (lock) {
+                for (Map.Entry<Long, Map<GroupKey, long[]>> dayEntry : deltas.entrySet()) {
+                    mergeInto(pendingDeltas.computeIfAbsent(dayEntry.getKey(), day -> new HashMap<>()),
+                            dayEntry.getValue());
+                }
+            }
+        });
+    }
+
+    private static long[] deltaCounts(Map<Long, Map<GroupKey, long[]>> deltas, TaskInstance instance,
+                                      Map<Long, Object[]> infos) {
+        GroupKey key;
+        if (instance.getOwner() != null) {
+            key = new GroupKey(instance.getOwner(), instance.getResourceGroup() == null ? "" : instance.getResourceGroup());
+        } else {
+            Object[] info = infos.get(instance.getTaskId());
+            key = info == null ? new GroupKey("", "") : new GroupKey((String) info[0], (String) info[1]);
+        }
+        return deltas.computeIfAbsent(instance.getBusinessDate().toEpochDay(), day -> new HashMap<>())
+                .computeIfAbsent(key, k -> new long[STATUS_COUNT * 2]);
+    }
+
+    /**
+     * 批量解析未记录责任人的历史实例所属任务的责任人与资源分组,缓存过期或缺失的一次查询
+     */
+    private Map<Long, Object[]> resolveTaskInfos(Collection<TaskInstance> instances) {
+        long now = System.currentTimeMillis();
+        Map<Long, Object[]> result = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (TaskInstance instance : instances) {
+            if (instance.getOwner() != null) {
+                continue;
+            }
+            Object[] info = taskInfos.get(instance.getTaskId());
+            if (info != null && now - (Long) info[2] < TASK_INFO_TTL_MS) {
+                result.put(instance.getTaskId(), info);
+            } else {
+                missing.add(instance.getTaskId());
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        if (taskInfos.size() > MAX_TASK_INFO_CACHE) {
+            taskInfos.clear();
+        }
+        for (Object[] row : instanceStatJdbcRepository.findTaskOwnerGroups(missing)) {
+            Object[] info = new Object[]{
+                    row[1] == null ? "" : row[1],
+                    row[2] == null ? "" : row[2],
+                    now};
+            taskInfos.put((Long) row[0], info);
+            result.put((Long) row[0], info);
+        }
+        return result;
+    }
+
+    private static Map<String, Object> toStatusMap(long[] counts) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        long total = 0;
+        long executeTime = 0;
+        Map<String, Long> statusCounts = new LinkedHashMap<>();
+        for (int i = 0; i < STATUS_COUNT; i++) {
+            statusCounts.put(STATUSES[i].name(), counts[i]);
+            total += counts[i];
+            executeTime += counts[STATUS_COUNT + i];
+        }
+        map.put("total", total);
+        map.put("statusCounts", statusCounts);
+        map.put("executeTimeTotal", executeTime);
+        return map;
+    }
+
+    private static Map<GroupKey, long[]> copyOf(Map<GroupKey, long[]> source) {
+        Map<GroupKey, long[]> copy = new HashMap<>(source.size() * 4 / 3 + 1);
+        for (Map.Entry<GroupKey, long[]> entry : source.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().clone());
+        }
+        return copy;
+    }
+
+    private static void mergeInto(Map<GroupKey, long[]> target, Map<GroupKey, long[]> deltas) {
+        for (Map.Entry<GroupKey, long[]> entry : deltas.entrySet()) {
+            long[] counts = target.computeIfAbsent(entry.getKey(), key -> new long[STATUS_COUNT * 2]);
+            long[] delta = entry.getValue();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += delta[i];
+            }
+        }
+    }
+
+    /**
+     * (责任人, 资源分组)
+     */
+    private static final class GroupKey {
+        private final String owner;
+        private final String resourceGroup;
+
+        private GroupKey(String owner, String resourceGroup) {
+            this.owner = owner;
+            this.resourceGroup = resourceGroup;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey other = (GroupKey) o;
+            return owner.equals(other.owner) && resourceGroup.equals(other.resourceGroup);
+        }
+
+        @Override
+        public int hashCode() {
+            return owner.hashCode() * 31 + resourceGroup.hashCode();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.dw.scheduler.service.impl;
+
+import cn.hutool.core.collection.ListUtil;
+import com.dw.scheduler.common.TransactionUtil;
+import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.TaskInstanceJdbcRepository;
+import com.dw.scheduler.service.InstanceDispatchService;
+import com.dw.scheduler.service.InstanceEtaService;
+import com.dw.scheduler.service.InstanceLogArchiveService;
+import com.dw.scheduler.service.InstanceStateService;
+import com.dw.scheduler.service.InstanceStatService;
+import com.dw.scheduler.service.WorkerPlacementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * 实例状态转换服务实现类
+ * 批量转换以 JDBC 批量发送逐行的条件 UPDATE,按各自更新行数得到每个实例的CAS结果;
+ * 只为CAS成功的实例读取概要,累加到运行统计,提交后更新预计完成时间并通知实例分发:
+ * 进入终态时更新下游倒计数,回到 WAITING 时重新登记;运行中的实例结束时归还Worker槽位
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class InstanceStateServiceImpl implements InstanceStateService {
+
+    /**
+     * 单次批量UPDATE的最大实例数
+     */
+    private static final int UPDATE_BATCH_SIZE = 1000;
+
+    /**
+     * 允许的状态转换
+     */
+    private static final Map<InstanceStatus, Set<InstanceStatus>> TRANSITIONS = new EnumMap<>(InstanceStatus.class);
+
+    static {
+        TRANSITIONS.put(InstanceStatus.WAITING, EnumSet.of(InstanceStatus.RUNNING, InstanceStatus.CANCELED));
+        TRANSITIONS.put(InstanceStatus.RUNNING, EnumSet.of(InstanceStatus.SUCCESS, InstanceStatus.FAILED,
+                InstanceStatus.CANCELED, InstanceStatus.WAITING));
+        TRANSITIONS.put(InstanceStatus.SUCCESS, EnumSet.of(InstanceStatus.WAITING));
+        TRANSITIONS.put(InstanceStatus.FAILED, EnumSet.of(InstanceStatus.WAITING));
+        TRANSITIONS.put(InstanceStatus.CANCELED, EnumSet.of(InstanceStatus.WAITING));
+    }
+
+    @Autowired
+    private TaskInstanceJdbcRepository taskInstanceJdbcRepository;
+
+    @Autowired
+    private InstanceDispatchService instanceDispatchService;
+
+    @Autowired
+    private InstanceStatService instanceStatService;
+
+    @Autowired
+    private InstanceEtaService instanceEtaService;
+
+    @Autowired
+    private WorkerPlacementService workerPlacementService;
+
+    @Autowired
+    private InstanceLogArchiveService instanceLogArchiveService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean transition(Long instanceId, InstanceStatus expected, InstanceStatus target) {
+        return !doTransition(Collections.singletonList(instanceId), expected, target, null, null).isEmpty();
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<Long> transitionBatch(Collection<Long> instanceIds, InstanceStatus expected, InstanceStatus target) {
+        return doTransition(instanceIds, expected, target, null, null);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean start(Long instanceId, String workerId) {
+        return !doTransition(Collections.singletonList(instanceId), InstanceStatus.WAITING, InstanceStatus.RUNNING,
+                workerId, null).isEmpty();
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<Long> startBatch(Collection<Long> instanceIds, String workerId) {
+        return doTransition(instanceIds, InstanceStatus.WAITING, InstanceStatus.RUNNING, workerId, null);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean finish(Long instanceId, InstanceStatus target, String errorMsg) {
+        if (!isTerminal(target)) {
+            throw new BusinessException("结束状态必须为成功、失败或已取消");
+        }
+        return !doTransition(Collections.singletonList(instanceId), InstanceStatus.RUNNING, target,
+                null, errorMsg).isEmpty();
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean cancel(Long instanceId) {
+        List<Long> ids = Collections.singletonList(instanceId);
+        return !doTransition(ids, InstanceStatus.WAITING, InstanceStatus.CANCELED, null, null).isEmpty()
+                || !doTransition(ids, InstanceStatus.RUNNING, InstanceStatus.CANCELED, null, null).isEmpty();
+    }
+
+    private List<Long> doTransition(Collection<Long> instanceIds, InstanceStatus expected, InstanceStatus target,
+                                    String workerId, String errorMsg) {
+        if (expected == null || target == null || !TRANSITIONS.get(expected).contains(target)) {
+            throw new BusinessException("不支持的实例状态转换: " + expected + " -> " + target);
+        }
+        List<Long> won = new ArrayList<>();
+        if (instanceIds.isEmpty()) {
+            return won;
+        }
+
+        // 转出终态(重跑)时先记录原执行耗时,用于从统计中扣除
+        Map<Long, Integer> previousExecuteTimes = null;
+        if (isTerminal(expected)) {
+            previousExecuteTimes = new HashMap<>();
+            for (TaskInstance instance : taskInstanceJdbcRepository.findSummaryByIds(instanceIds)) {
+                previousExecuteTimes.put(instance.getId(), instance.getExecuteTime());
+            }
+        }
+
+        for (List<Long> batch : ListUtil.partition(new ArrayList<>(instanceIds), UPDATE_BATCH_SIZE)) {
+            int[] counts = taskInstanceJdbcRepository.compareAndSetStatus(batch, expected, target, workerId, errorMsg);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    won.add(batch.get(i));
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("实例状态转换: {} -> {}, requested={}, won={}", expected, target, instanceIds.size(), won.size());
+        }
+
+        if (!won.isEmpty()) {
+            if (isTerminal(expected) && target == InstanceStatus.WAITING) {
+                // 重跑: 归档标记已随CAS清除,同一事务中删除上一次运行的归档块
+                instanceLogArchiveService.discard(won);
+            }
+            List<TaskInstance> instances = taskInstanceJdbcRepository.findSummaryByIds(won);
+            instanceStatService.recordTransitions(instances, expected, previousExecuteTimes);
+            TransactionUtil.runAfterCommit(() -> instanceEtaService.onTransition(instances));
+            if (isTerminal(target) || target == InstanceStatus.WAITING) {
+                syncDispatch(instances, target);
+            }
+            if (expected == InstanceStatus.RUNNING && isTerminal(target)) {
+                TransactionUtil.runAfterCommit(() -> {
+                    for (TaskInstance instance : instances) {
+                        workerPlacementService.onInstanceFinished(instance.getWorkerId());
+                    }
+                });
+            }
+        }
+        return won;
+    }
+
+    /**
+     * 将CAS成功的转换同步到实例分发
+     */
+    private void syncDispatch(List<TaskInstance> instances, InstanceStatus target) {
+        if (target == InstanceStatus.WAITING) {
+            // register 自身在事务提交后生效
+            instanceDispatchService.register(instances);
+            return;
+        }
+        TransactionUtil.runAfterCommit(() -> {
+            for (TaskInstance instance : instances) {
+                instanceDispatchService.onInstanceFinished(instance.getTaskId(), instance.getBusinessDate(), target);
+            }
+        });
+    }
+
+    private static boolean isTerminal(InstanceStatus status) {
+        return status == InstanceStatus.SUCCESS || status == InstanceStatus.FAILED
+                || status == InstanceStatus.CANCELED;
+    }
+}
@@ -0,0 +1,143 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.common.LogBlockIndex;
+import com.dw.scheduler.common.LongPair;
+import com.dw.scheduler.dto.LogLine;
+import com.dw.scheduler.enums.LogLevel;
+import com.dw.scheduler.service.LogSearchIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实例日志检索索引服务实现类
+ * 实例首次写入日志时创建索引,起始行号为本次写入首行之前的行号(之前的行不被索引,查询时直接扫描);
+ * 行号取存储实际分配的值,与索引末行不连续时(有写入未被索引)删除该实例索引,查询退化为扫描;
+ * 索引总内存超过上限时淘汰最久未访问的实例
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class LogSearchIndexServiceImpl implements LogSearchIndexService {
+
+    private static final int LEVEL_COUNT = LogLevel.values().length;
+
+    /**
+     * 索引内存上限(MB)
+     */
+    @Value("${scheduler.log.index.max-memory-mb:256}")
+    private long maxMemoryMb;
+
+    /**
+     * 实例ID -> 索引(访问顺序,访问需对自身加锁)
+     */
+    private final LinkedHashMap<Long, LogBlockIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memoryBytes;
+
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong skippedLines = new AtomicLong();
+    private final AtomicLong invalidatedCount = new AtomicLong();
+
+    @Override
+    public void onAppended(Long instanceId, List<LogLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            return;
+        }
+        LogBlockIndex index;
+        synchronized (indexes) {
+            index = indexes.get(instanceId);
+        }
+        if (index == null) {
+            index = new LogBlockIndex(LEVEL_COUNT, lines.get(0).getLineNum() - 1);
+            synchronized (indexes) {
+                LogBlockIndex previous = indexes.putIfAbsent(instanceId, index);
+                if (previous != null) {
+                    index = previous;
+                } else {
+                    memoryBytes += index.memoryBytes();
+                }
+            }
+        }
+
+        long before = index.memoryBytes();
+        boolean contiguous = true;
+        for (LogLine line : lines) {
+            int level = line.getLevel() == null ? LogLevel.INFO.ordinal() : line.getLevel().ordinal();
+            if (!index.add(line.getLineNum(), level, line.getContent())) {
+                log.warn("实例日志行号不连续,删除索引: instanceId={}, lastLine={}, lineNum={}",
+                        instanceId, index.getLastLine(), line.getLineNum());
+                contiguous = false;
+                break;
+            }
+        }
+        long delta = index.memoryBytes() - before;
+
+        synchronized (indexes) {
+            // 追加期间索引已被淘汰或删除时,其占用已整体扣除,不再累加
+            if (indexes.get(instanceId) == index) {
+                memoryBytes += delta;
+                if (!contiguous) {
+                    indexes.remove(instanceId);
+                    memoryBytes -= index.memoryBytes();
+                    invalidatedCount.incrementAndGet();
+                }
+            }
+            evictIfNecessary();
+        }
+    }
+
+    @Override
+    public LongPair nextCandidateRange(Long instanceId, long afterLine, LogLevel level, String keyword) {
+        LogBlockIndex index;
+        synchronized (indexes) {
+            index = indexes.get(instanceId);
+        }
+        if (index == null) {
+            return LongPair.of(afterLine + 1, Long.MAX_VALUE);
+        }
+        LongPair range = index.nextCandidateRange(afterLine, level == null ? -1 : level.ordinal(),
+                LogBlockIndex.keywordHashes(keyword));
+        skippedLines.addAndGet(range.getFirst() - afterLine - 1);
+        return range;
+    }
+
+    @Override
+    public void remove(Long instanceId) {
+        synchronized (indexes) {
+            LogBlockIndex index = indexes.remove(instanceId);
+            if (index != null) {
+                memoryBytes -= index.memoryBytes();
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        synchronized (indexes) {
+            statistics.put("instances", indexes.size());
+            statistics.put("memoryBytes", memoryBytes);
+        }
+        statistics.put("evictedCount", evictedCount.get());
+        statistics.put("skippedLines", skippedLines.get());
+        statistics.put("invalidatedCount", invalidatedCount.get());
+        return statistics;
+    }
+
+    private void evictIfNecessary() {
+        long maxBytes = maxMemoryMb * 1024 * 1024;
+        Iterator<Map.Entry<Long, LogBlockIndex>> iterator = indexes.entrySet().iterator();
+        while (memoryBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Long, LogBlockIndex> eldest = iterator.next();
+            memoryBytes -= eldest.getValue().memoryBytes();
+            iterator.remove();
+            evictedCount.incrementAndGet();
+            log.debug("淘汰实例日志索引: instanceId={}", eldest.getKey());
+        }
+    }
+}
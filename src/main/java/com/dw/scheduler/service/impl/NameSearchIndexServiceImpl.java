@@ -0,0 +1,317 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.common.TrigramIndex;
+import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.repository.TaskInstanceJdbcRepository;
+import com.dw.scheduler.repository.TaskRepository;
+import com.dw.scheduler.service.NameSearchIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 名称检索索引服务实现类
+ * 启动后在后台线程全量构建索引,构建完成前查询返回 null(按原 LIKE 条件查询);
+ * 实例索引构建期间新建的实例先缓存,构建完成后再加入,保证倒排表按ID顺序追加
+ * <p>
+ * 索引只用于缩小候选范围,已删除数据残留的ID由查询条件过滤,不影响结果;
+ * ID超出 int 范围时对应索引停用
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class NameSearchIndexServiceImpl implements NameSearchIndexService {
+
+    /**
+     * 构建实例索引时每批读取的行数
+     */
+    private static final int BUILD_BATCH_SIZE = 10000;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskInstanceJdbcRepository taskInstanceJdbcRepository;
+
+    /**
+     * 是否启用名称检索索引
+     */
+    @Value("${scheduler.search.index.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 候选ID个数上限,超过时按原条件查询
+     */
+    @Value("${scheduler.search.index.max-candidates:5000}")
+    private int maxCandidates;
+
+    private final TrigramIndex taskNameIndex = new TrigramIndex();
+    private final TrigramIndex ownerIndex = new TrigramIndex();
+    private final TrigramIndex instanceNameIndex = new TrigramIndex();
+
+    /**
+     * 任务ID -> [任务名称, 责任人],用于更新/删除时移除旧值,受自身锁保护
+     */
+    private final Map<Integer, String[]> taskFields = new HashMap<>();
+
+    private final Object instanceLock = new Object();
+
+    /**
+     * 实例索引构建期间新建的实例,受 instanceLock 保护
+     */
+    private List<TaskInstance> pendingInstances = new ArrayList<>();
+
+    private volatile boolean taskReady;
+    private volatile boolean instanceReady;
+    private volatile boolean taskDisabled;
+    private volatile boolean instanceDisabled;
+
+    private final AtomicLong indexedInstances = new AtomicLong();
+    private final AtomicLong indexedQueries = new AtomicLong();
+    private final AtomicLong fallbackQueries = new AtomicLong();
+
+    private ExecutorService buildExecutor;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("名称检索索引未启用");
+            return;
+        }
+        buildExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "name-index-build");
+            thread.setDaemon(true);
+            return thread;
+        });
+        buildExecutor.execute(this::build);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (buildExecutor != null) {
+            buildExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public List<Long> findTaskCandidates(String taskName, String owner) {
+        if (!taskReady || taskDisabled || (!StringUtils.hasText(taskName) && !StringUtils.hasText(owner))) {
+            return null;
+        }
+        int[] byName = StringUtils.hasText(taskName) ? taskNameIndex.search(taskName, Integer.MAX_VALUE) : null;
+        int[] byOwner = StringUtils.hasText(owner) ? ownerIndex.search(owner, Integer.MAX_VALUE) : null;
+        int[] candidates;
+        if (byName != null && byOwner != null) {
+            candidates = intersect(byName, byOwner);
+        } else {
+            candidates = byName != null ? byName : byOwner;
+        }
+        return toCandidates(candidates);
+    }
+
+    @Override
+    public List<Long> findInstanceCandidates(String instanceName) {
+        if (!instanceReady || instanceDisabled || !StringUtils.hasText(instanceName)) {
+            return null;
+        }
+        return toCandidates(instanceNameIndex.search(instanceName, maxCandidates));
+    }
+
+    @Override
+    public void onTaskSaved(Long taskId, String taskName, String owner) {
+        if (!enabled || taskDisabled || !checkRange(taskId, true)) {
+            return;
+        }
+        int id = taskId.intValue();
+        synchronized (taskFields) {
+            String[] previous = taskFields.put(id, new String[]{taskName, owner});
+            if (previous != null) {
+                taskNameIndex.remove(id, previous[0]);
+                ownerIndex.remove(id, previous[1]);
+            }
+            taskNameIndex.add(id, taskName);
+            ownerIndex.add(id, owner);
+        }
+    }
+
+    @Override
+    public void onTaskDeleted(Long taskId) {
+        if (!enabled || taskId > Integer.MAX_VALUE) {
+            return;
+        }
+        int id = taskId.intValue();
+        synchronized (taskFields) {
+            String[] previous = taskFields.remove(id);
+            if (previous != null) {
+                taskNameIndex.remove(id, previous[0]);
+                ownerIndex.remove(id, previous[1]);
+            }
+        }
+    }
+
+    @Override
+    public void onInstancesCreated(Collection<TaskInstance> instances) {
+        if (!enabled || instanceDisabled) {
+            return;
+        }
+        synchronized (instanceLock) {
+            if (!instanceReady) {
+                if (pendingInstances != null) {
+                    pendingInstances.addAll(instances);
+                }
+                return;
+            }
+        }
+        for (TaskInstance instance : instances) {
+            addInstance(instance.getId(), instance.getInstanceName());
+        }
+    }
+
+    @Override
+    public void pruneInstances(Long minId) {
+        if (!instanceReady || instanceDisabled) {
+            return;
+        }
+        int bound = minId == null || minId > Integer.MAX_VALUE ? Integer.MAX_VALUE : minId.intValue();
+        long start = System.currentTimeMillis();
+        long removed = instanceNameIndex.removeBelow(bound);
+        log.info("实例名称索引清理完成: minId={}, removedEntries={}, cost={}ms",
+                minId, removed, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("taskReady", taskReady && !taskDisabled);
+        statistics.put("instanceReady", instanceReady && !instanceDisabled);
+        synchronized (taskFields) {
+            statistics.put("tasks", taskFields.size());
+        }
+        statistics.put("indexedInstances", indexedInstances.get());
+        statistics.put("trigrams", taskNameIndex.trigramCount() + ownerIndex.trigramCount()
+                + instanceNameIndex.trigramCount());
+        statistics.put("memoryBytes", taskNameIndex.memoryBytes() + ownerIndex.memoryBytes()
+                + instanceNameIndex.memoryBytes());
+        statistics.put("indexedQueries", indexedQueries.get());
+        statistics.put("fallbackQueries", fallbackQueries.get());
+        return statistics;
+    }
+
+    private void build() {
+        try {
+            long start = System.currentTimeMillis();
+            List<Object[]> tasks = taskRepository.findSearchFields();
+            synchronized (taskFields) {
+                for (Object[] row : tasks) {
+                    Long taskId = (Long) row[0];
+                    if (!checkRange(taskId, true)) {
+                        break;
+                    }
+                    // 构建期间已由写入路径更新的任务以写入路径为准
+                    if (!taskFields.containsKey(taskId.intValue())) {
+                        taskFields.put(taskId.intValue(), new String[]{(String) row[1], (String) row[2]});
+                        taskNameIndex.add(taskId.intValue(), (String) row[1]);
+                        ownerIndex.add(taskId.intValue(), (String) row[2]);
+                    }
+                }
+            }
+            taskReady = true;
+            log.info("任务名称索引构建完成: tasks={}, cost={}ms", tasks.size(), System.currentTimeMillis() - start);
+
+            start = System.currentTimeMillis();
+            long afterId = 0;
+            List<Object[]> rows;
+            do {
+                rows = taskInstanceJdbcRepository.findNamesAfter(afterId, BUILD_BATCH_SIZE);
+                for (Object[] row : rows) {
+                    afterId = (Long) row[0];
+                    addInstance(afterId, (String) row[1]);
+                }
+            } while (rows.size() == BUILD_BATCH_SIZE && !instanceDisabled && !Thread.currentThread().isInterrupted());
+
+            List<TaskInstance> pending;
+            synchronized (instanceLock) {
+                pending = pendingInstances;
+                pendingInstances = null;
+                for (TaskInstance instance : pending) {
+                    addInstance(instance.getId(), instance.getInstanceName());
+                }
+                instanceReady = true;
+            }
+            log.info("实例名称索引构建完成: instances={}, memoryBytes={}, cost={}ms", indexedInstances.get(),
+                    instanceNameIndex.memoryBytes(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("名称检索索引构建失败,列表查询按原条件执行", e);
+            instanceDisabled = true;
+            synchronized (instanceLock) {
+                pendingInstances = null;
+            }
+        }
+    }
+
+    private void addInstance(Long instanceId, String instanceName) {
+        if (instanceId == null || !checkRange(instanceId, false)) {
+            return;
+        }
+        instanceNameIndex.add(instanceId.intValue(), instanceName);
+        indexedInstances.incrementAndGet();
+    }
+
+    /**
+     * ID超出 int 范围时停用对应索引
+     */
+    private boolean checkRange(Long id, boolean task) {
+        if (id <= Integer.MAX_VALUE) {
+            return true;
+        }
+        if (task) {
+            taskDisabled = true;
+        } else {
+            instanceDisabled = true;
+        }
+        log.warn("ID超出名称索引范围,停用{}名称索引: id={}", task ? "任务" : "实例", id);
+        return false;
+    }
+
+    private List<Long> toCandidates(int[] candidates) {
+        if (candidates == null || candidates.length > maxCandidates) {
+            fallbackQueries.incrementAndGet();
+            return null;
+        }
+        indexedQueries.incrementAndGet();
+        List<Long> ids = new ArrayList<>(candidates.length);
+        for (int candidate : candidates) {
+            ids.add((long) candidate);
+        }
+        return ids;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
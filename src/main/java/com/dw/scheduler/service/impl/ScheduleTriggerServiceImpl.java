@@ -0,0 +1,360 @@
+package com.dw.scheduler.service.impl;
+
+import cn.hutool.core.collection.ListUtil;
+import com.dw.scheduler.common.HierarchicalTimingWheel;
+import com.dw.scheduler.common.TransactionUtil;
+import com.dw.scheduler.entity.Task;
+import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.enums.TaskStatus;
+import com.dw.scheduler.enums.TriggerType;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.TaskRepository;
+import com.dw.scheduler.service.ScheduleTriggerService;
+import com.dw.scheduler.service.TaskInstanceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调度触发服务实现类
+ * 启动时一次性加载全部启用任务,计算下次触发时间放入分层时间轮;
+ * 时钟线程每格推进时间轮,到期任务通过批量创建接口生成实例后计算再下一次触发时间重新入轮,
+ * 运行期间不再轮询任务表,任务变更通过 refreshTask/removeTask 增量同步
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class ScheduleTriggerServiceImpl implements ScheduleTriggerService {
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskInstanceService taskInstanceService;
+
+    @Value("${scheduler.trigger.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 时间轮每格时长(毫秒)
+     */
+    @Value("${scheduler.trigger.tick-ms:1000}")
+    private long tickMs;
+
+    /**
+     * 时间轮每层格数
+     */
+    @Value("${scheduler.trigger.wheel-size:60}")
+    private int wheelSize;
+
+    /**
+     * 批量生成实例时每批写入的行数
+     */
+    @Value("${scheduler.trigger.insert-batch-size:1000}")
+    private int insertBatchSize;
+
+    /**
+     * 批次写入失败后的最大重试次数
+     */
+    @Value("${scheduler.trigger.max-retries:5}")
+    private int maxRetries;
+
+    /**
+     * 首次重试间隔(毫秒),之后每次翻倍
+     */
+    @Value("${scheduler.trigger.retry-interval-ms:2000}")
+    private long retryIntervalMs;
+
+    /**
+     * 任务ID -> 当前有效的调度计划,时间轮中的过期计划通过引用比较识别并丢弃
+     */
+    private final Map<Long, ScheduledTask> scheduledTasks = new ConcurrentHashMap<>();
+
+    /**
+     * 入轮时已到期的计划,由下一次时钟推进处理
+     */
+    private final Queue<ScheduledTask> dueTasks = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong firedCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong lostCount = new AtomicLong();
+
+    private HierarchicalTimingWheel<ScheduledTask> timingWheel;
+    private ScheduledExecutorService tickExecutor;
+    private ExecutorService generateExecutor;
+
+    /**
+     * 加载启用任务并启动时钟线程
+     * 停机期间错过的触发不补跑,从当前时间开始计算下次触发
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("调度触发未启用");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        timingWheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, start);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Object[] row : taskRepository.findScheduleInfoByStatus(TaskStatus.ENABLED)) {
+            ScheduledTask scheduledTask = createScheduledTask((Long) row[0], (String) row[1],
+                    (String) row[2], (Integer) row[3]);
+            if (scheduledTask != null) {
+                scheduledTasks.put(scheduledTask.taskId, scheduledTask);
+                schedule(scheduledTask, now);
+            }
+        }
+
+        tickExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "schedule-trigger-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        generateExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "schedule-trigger-generate");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tickExecutor.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+
+        log.info("调度触发启动完成: scheduledTasks={}, cost={}ms",
+                scheduledTasks.size(), System.currentTimeMillis() - start);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (tickExecutor != null) {
+            tickExecutor.shutdownNow();
+        }
+        if (generateExecutor != null) {
+            generateExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public void refreshTask(Task task) {
+        final Long taskId = task.getId();
+        final boolean schedulable = task.getStatus() == TaskStatus.ENABLED && StringUtils.hasText(task.getCronExpr());
+        final String taskName = task.getTaskName();
+        final String cronExpr = task.getCronExpr();
+        final Integer offsetDays = task.getOffsetDays();
+
+        TransactionUtil.runAfterCommit(() -> {
+            if (timingWheel == null) {
+                return;
+            }
+            if (!schedulable) {
+                scheduledTasks.remove(taskId);
+                return;
+            }
+            ScheduledTask scheduledTask = createScheduledTask(taskId, taskName, cronExpr, offsetDays);
+            if (scheduledTask == null) {
+                scheduledTasks.remove(taskId);
+                return;
+            }
+            scheduledTasks.put(taskId, scheduledTask);
+            schedule(scheduledTask, LocalDateTime.now());
+            log.info("刷新任务调度计划: taskId={}, nextFireTime={}",
+                    taskId, toLocalDateTime(scheduledTask.nextFireTime));
+        });
+    }
+
+    @Override
+    public void removeTask(Long taskId) {
+        TransactionUtil.runAfterCommit(() -> {
+            if (scheduledTasks.remove(taskId) != null) {
+                log.info("任务移出调度: taskId={}", taskId);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("scheduledTasks", scheduledTasks.size());
+        statistics.put("pendingInWheel", timingWheel == null ? 0 : timingWheel.size());
+        statistics.put("firedCount", firedCount.get());
+        statistics.put("createdCount", createdCount.get());
+        statistics.put("skippedCount", skippedCount.get());
+        statistics.put("retryCount", retryCount.get());
+        statistics.put("lostCount", lostCount.get());
+        return statistics;
+    }
+
+    /**
+     * 时钟推进: 弹出到期计划,构建实例并重新入轮,实例写入交给生成线程
+     */
+    private void tick() {
+        try {
+            List<ScheduledTask> fired = new ArrayList<>();
+            timingWheel.advance(System.currentTimeMillis(), fired::add);
+            ScheduledTask due;
+            while ((due = dueTasks.poll()) != null) {
+                fired.add(due);
+            }
+            if (fired.isEmpty()) {
+                return;
+            }
+
+            List<TaskInstance> instances = new ArrayList<>(fired.size());
+            for (ScheduledTask scheduledTask : fired) {
+                // 已被刷新或移除的计划直接丢弃
+                if (scheduledTasks.get(scheduledTask.taskId) != scheduledTask) {
+                    continue;
+                }
+                LocalDateTime fireTime = toLocalDateTime(scheduledTask.nextFireTime);
+                instances.add(buildInstance(scheduledTask, fireTime));
+                schedule(scheduledTask, fireTime);
+            }
+            if (instances.isEmpty()) {
+                return;
+            }
+
+            firedCount.addAndGet(instances.size());
+            generateExecutor.execute(() -> generateInstances(instances, 0));
+        } catch (Exception e) {
+            log.error("调度时钟推进异常", e);
+        }
+    }
+
+    /**
+     * 分批调用批量创建接口生成实例,已存在的(任务, 业务日期)及已删除/停用任务的实例会被跳过
+     * 批次写入失败时整批回滚,按指数退避重新入队;重试时已写入的条目按(任务, 业务日期)去重,不会重复创建
+     *
+     * @param attempt 已重试次数
+     */
+    private void generateInstances(List<TaskInstance> instances, int attempt) {
+        long start = System.currentTimeMillis();
+        int created = 0;
+        int failed = 0;
+
+        for (List<TaskInstance> batch : ListUtil.partition(instances, insertBatchSize)) {
+            try {
+                created += taskInstanceService.createInstances(batch).size();
+            } catch (BusinessException e) {
+                // 参数错误重试也不会成功
+                failed += batch.size();
+                lostCount.addAndGet(batch.size());
+                log.error("批量生成实例失败,放弃该批次: batchSize={}, error={}", batch.size(), e.getMessage());
+            } catch (Exception e) {
+                failed += batch.size();
+                retry(new ArrayList<>(batch), attempt, e);
+            }
+        }
+
+        createdCount.addAndGet(created);
+        skippedCount.addAndGet(instances.size() - created - failed);
+        log.info("调度生成实例: fired={}, created={}, failed={}, attempt={}, cost={}ms",
+                instances.size(), created, failed, attempt, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 写入失败的批次延迟后重新交给生成线程,超过最大重试次数后放弃并计数
+     */
+    private void retry(List<TaskInstance> batch, int attempt, Exception cause) {
+        if (attempt >= maxRetries || tickExecutor.isShutdown()) {
+            lostCount.addAndGet(batch.size());
+            log.error("批量生成实例失败,已达最大重试次数: batchSize={}, attempts={}", batch.size(), attempt + 1, cause);
+            return;
+        }
+        long delay = retryIntervalMs << Math.min(attempt, 10);
+        retryCount.incrementAndGet();
+        log.warn("批量生成实例失败,{}ms 后重试: batchSize={}, attempt={}, error={}",
+                delay, batch.size(), attempt + 1, cause.getMessage());
+        // 回滚后回填的ID已无效
+        for (TaskInstance instance : batch) {
+            instance.setId(null);
+        }
+        tickExecutor.schedule(() -> generateExecutor.execute(() -> generateInstances(batch, attempt + 1)),
+                delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 计算 after 之后的下次触发时间并放入时间轮
+     */
+    private void schedule(ScheduledTask scheduledTask, LocalDateTime after) {
+        LocalDateTime next = scheduledTask.cron.next(after);
+        if (next == null) {
+            return;
+        }
+        scheduledTask.nextFireTime = next.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (!timingWheel.add(scheduledTask.nextFireTime, scheduledTask)) {
+            dueTasks.add(scheduledTask);
+        }
+    }
+
+    private TaskInstance buildInstance(ScheduledTask scheduledTask, LocalDateTime fireTime) {
+        LocalDate businessDate = fireTime.toLocalDate().minusDays(scheduledTask.offsetDays);
+
+        TaskInstance instance = new TaskInstance();
+        instance.setTaskId(scheduledTask.taskId);
+        instance.setBusinessDate(businessDate);
+        instance.setInstanceName(String.format("%s_%s", scheduledTask.taskName, businessDate.toString()));
+        instance.setStatus(InstanceStatus.WAITING);
+        instance.setTriggerType(TriggerType.SCHEDULE);
+        return instance;
+    }
+
+    /**
+     * 构建调度计划,Cron 非法时返回 null
+     * 兼容5位(分 时 日 月 周)和6位(秒 分 时 日 月 周)表达式
+     */
+    private ScheduledTask createScheduledTask(Long taskId, String taskName, String cronExpr, Integer offsetDays) {
+        if (!StringUtils.hasText(cronExpr)) {
+            return null;
+        }
+        String expression = cronExpr.trim();
+        if (expression.split("\\s+").length == 5) {
+            expression = "0 " + expression;
+        }
+        try {
+            return new ScheduledTask(taskId, taskName, CronExpression.parse(expression),
+                    offsetDays == null ? 0 : offsetDays);
+        } catch (IllegalArgumentException e) {
+            log.warn("无效的Cron表达式: taskId={}, cronExpr={}", taskId, cronExpr);
+            return null;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+
+    /**
+     * 任务调度计划
+     */
+    private static final class ScheduledTask {
+        private final Long taskId;
+        private final String taskName;
+        private final CronExpression cron;
+        private final int offsetDays;
+        private volatile long nextFireTime;
+
+        private ScheduledTask(Long taskId, String taskName, CronExpression cron, int offsetDays) {
+            this.taskId = taskId;
+            this.taskName = taskName;
+            this.cron = cron;
+            this.offsetDays = offsetDays;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.common.MetricRingBuffer;
+import com.dw.scheduler.common.TransactionUtil;
+import com.dw.scheduler.entity.Server;
+import com.dw.scheduler.enums.ServerStatus;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.ServerRepository;
+import com.dw.scheduler.service.ServerMonitorService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务器监控服务实现类
+ * 每台服务器维护三个环形缓冲区:
+ * 5秒 x 720(1小时)、1分钟 x 1440(1天)、5分钟 x 2016(7天),单台约170KB
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class ServerMonitorServiceImpl implements ServerMonitorService {
+
+    private static final int METRIC_CPU = 0;
+    private static final int METRIC_MEMORY = 1;
+    private static final int METRIC_DISK = 2;
+    private static final int METRIC_TASK_NUM = 3;
+    private static final int METRIC_COUNT = 4;
+
+    private static final long SECOND_MS = 1000L;
+    private static final long MINUTE_MS = 60 * SECOND_MS;
+
+    @Autowired
+    private ServerRepository serverRepository;
+
+    /**
+     * 服务器ID -> 监控数据
+     */
+    private final Map<Long, ServerSeries> seriesMap = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(Long serverId, BigDecimal cpuUsage, BigDecimal memoryUsage,
+                       BigDecimal diskUsage, Integer currentTaskNum) {
+        ServerSeries series = seriesMap.computeIfAbsent(serverId, this::loadSeries);
+        long now = System.currentTimeMillis();
+        float cpu = toFloat(cpuUsage);
+        float memory = toFloat(memoryUsage);
+        float disk = toFloat(diskUsage);
+        float taskNum = currentTaskNum == null ? Float.NaN : currentTaskNum;
+
+        synchronized (series) {
+            series.lastHeartbeat = now;
+            if (!Float.isNaN(cpu)) {
+                series.cpuUsage = cpu;
+            }
+            if (!Float.isNaN(memory)) {
+                series.memoryUsage = memory;
+            }
+            if (!Float.isNaN(disk)) {
+                series.diskUsage = disk;
+            }
+            if (currentTaskNum != null) {
+                series.currentTaskNum = currentTaskNum;
+            }
+            for (MetricRingBuffer buffer : series.buffers) {
+                buffer.record(now, cpu, memory, disk, taskNum);
+            }
+        }
+    }
+
+    @Override
+    public void refreshServer(Server server) {
+        TransactionUtil.runAfterCommit(() -> {
+            ServerSeries series = seriesMap.computeIfAbsent(server.getId(), id -> new ServerSeries());
+            synchronized (series) {
+                series.applyServer(server);
+            }
+        });
+    }
+
+    @Override
+    public void updateStatus(Long serverId, ServerStatus status) {
+        ServerSeries series = seriesMap.get(serverId);
+        if (series != null) {
+            synchronized (series) {
+                series.status = status;
+            }
+        }
+    }
+
+    @Override
+    public void removeServer(Long serverId) {
+        TransactionUtil.runAfterCommit(() -> seriesMap.remove(serverId));
+    }
+
+    @Override
+    public Map<String, Object> getMonitor(Long serverId, int durationMinutes) {
+        if (durationMinutes <= 0) {
+            throw new BusinessException("时间范围必须大于0");
+        }
+        ServerSeries series = seriesMap.computeIfAbsent(serverId, this::loadSeries);
+
+        long now = System.currentTimeMillis();
+        long durationMs = durationMinutes * MINUTE_MS;
+        long fromMs = now - durationMs;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        synchronized (series) {
+            MetricRingBuffer buffer = series.selectBuffer(durationMs);
+
+            result.put("serverId", serverId);
+            result.put("serverName", series.serverName);
+            result.put("status", series.status);
+            result.put("resolutionSeconds", buffer.getResolutionMs() / SECOND_MS);
+
+            Map<String, Object> current = new LinkedHashMap<>();
+            current.put("cpuUsage", toDecimal(series.cpuUsage));
+            current.put("memoryUsage", toDecimal(series.memoryUsage));
+            current.put("diskUsage", toDecimal(series.diskUsage));
+            current.put("currentTaskNum", series.currentTaskNum);
+            current.put("maxTaskNum", series.maxTaskNum);
+            current.put("lastHeartbeat", series.lastHeartbeat > 0 ? toDateTime(series.lastHeartbeat) : null);
+            result.put("current", current);
+
+            List<Map<String, Object>> history = new ArrayList<>();
+            buffer.forEachSince(fromMs, (timestamp, metrics) -> {
+                Map<String, Object> point = new LinkedHashMap<>();
+                point.put("timestamp", toDateTime(timestamp));
+                point.put("cpuUsage", toDecimal(metrics[METRIC_CPU]));
+                point.put("memoryUsage", toDecimal(metrics[METRIC_MEMORY]));
+                point.put("diskUsage", toDecimal(metrics[METRIC_DISK]));
+                point.put("taskNum", toDecimal(metrics[METRIC_TASK_NUM]));
+                history.add(point);
+            });
+            result.put("history", history);
+        }
+        return result;
+    }
+
+    /**
+     * 首次访问时从数据库加载服务器基本信息
+     */
+    private ServerSeries loadSeries(Long serverId) {
+        Server server = serverRepository.findById(serverId)
+                .orElseThrow(() -> new BusinessException("服务器不存在: " + serverId));
+        ServerSeries series = new ServerSeries();
+        series.applyServer(server);
+        return series;
+    }
+
+    private static float toFloat(BigDecimal value) {
+        return value == null ? Float.NaN : value.floatValue();
+    }
+
+    private static BigDecimal toDecimal(float value) {
+        if (Float.isNaN(value)) {
+            return null;
+        }
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static LocalDateTime toDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+
+    /**
+     * 单台服务器的监控数据,访问需对实例加锁
+     */
+    private static class ServerSeries {
+
+        /**
+         * 按分辨率从细到粗排列
+         */
+        private final MetricRingBuffer[] buffers = {
+                new MetricRingBuffer(5 * SECOND_MS, 720, METRIC_COUNT),
+                new MetricRingBuffer(MINUTE_MS, 1440, METRIC_COUNT),
+                new MetricRingBuffer(5 * MINUTE_MS, 2016, METRIC_COUNT)
+        };
+
+        private String serverName;
+        private ServerStatus status;
+        private Integer maxTaskNum;
+
+        private long lastHeartbeat;
+        private float cpuUsage = Float.NaN;
+        private float memoryUsage = Float.NaN;
+        private float diskUsage = Float.NaN;
+        private Integer currentTaskNum;
+
+        private void applyServer(Server server) {
+            this.serverName = server.getServerName();
+            this.status = server.getStatus();
+            this.maxTaskNum = server.getMaxTaskNum();
+            if (lastHeartbeat == 0) {
+                if (server.getLastHeartbeat() != null) {
+                    lastHeartbeat = server.getLastHeartbeat().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                }
+                cpuUsage = toFloat(server.getCpuUsage());
+                memoryUsage = toFloat(server.getMemoryUsage());
+                diskUsage = toFloat(server.getDiskUsage());
+                currentTaskNum = server.getCurrentTaskNum();
+            }
+        }
+
+        /**
+         * 选择能覆盖时间范围的最细分辨率
+         */
+        private MetricRingBuffer selectBuffer(long durationMs) {
+            for (MetricRingBuffer buffer : buffers) {
+                if (durationMs <= buffer.getSpanMs()) {
+                    return buffer;
+                }
+            }
+            return buffers[buffers.length - 1];
+        }
+    }
+}
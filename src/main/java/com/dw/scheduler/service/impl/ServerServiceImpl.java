@@ -1,11 +1,16 @@
 package com.dw.scheduler.service.impl;
 
+import com.dw.scheduler.common.TransactionUtil;
 import com.dw.scheduler.entity.Server;
 import com.dw.scheduler.enums.ServerRole;
 import com.dw.scheduler.enums.ServerStatus;
 import com.dw.scheduler.exception.BusinessException;
 import com.dw.scheduler.repository.ServerRepository;
+import com.dw.scheduler.service.FailureDetectorService;
+import com.dw.scheduler.service.HeartbeatService;
+import com.dw.scheduler.service.ServerMonitorService;
 import com.dw.scheduler.service.ServerService;
+import com.dw.scheduler.service.WorkerPlacementService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -32,6 +37,18 @@ public class ServerServiceImpl implements ServerService {
     @Autowired
     private ServerRepository serverRepository;
 
+    @Autowired
+    private WorkerPlacementService workerPlacementService;
+
+    @Autowired
+    private HeartbeatService heartbeatService;
+
+    @Autowired
+    private FailureDetectorService failureDetectorService;
+
+    @Autowired
+    private ServerMonitorService serverMonitorService;
+
     /**
      * 注册服务器
      */
@@ -49,7 +66,11 @@ public class ServerServiceImpl implements ServerService {
             // 如果服务器已存在,更新信息
             log.info("服务器已存在,更新信息: {}", server.getIpAddress());
             updateServerInfo(existServer, server);
-            return serverRepository.save(existServer);
+            Server savedServer = serverRepository.save(existServer);
+            workerPlacementService.refreshWorker(savedServer);
+            serverMonitorService.refreshServer(savedServer);
+            failureDetectorService.onHeartbeat(savedServer.getId(), savedServer.getIpAddress());
+            return savedServer;
         }
 
         // 设置默认值
@@ -66,7 +87,14 @@ public class ServerServiceImpl implements ServerService {
         // 设置最后心跳时间
         server.setLastHeartbeat(LocalDateTime.now());
 
-        return serverRepository.save(server);
+        Server savedServer = serverRepository.save(server);
+
+        // 提交后同步到Worker分配
+        workerPlacementService.refreshWorker(savedServer);
+        serverMonitorService.refreshServer(savedServer);
+        failureDetectorService.onHeartbeat(savedServer.getId(), savedServer.getIpAddress());
+
+        return savedServer;
     }
 
     /**
@@ -90,10 +118,19 @@ public class ServerServiceImpl implements ServerService {
             throw new BusinessException("IP地址已存在");
         }
 
+        // IP地址变更时清除心跳缓存
+        heartbeatService.evict(existServer.getIpAddress());
+
         // 更新服务器信息
         updateServerInfo(existServer, server);
 
-        return serverRepository.save(existServer);
+        Server savedServer = serverRepository.save(existServer);
+
+        // 提交后同步到Worker分配
+        workerPlacementService.refreshWorker(savedServer);
+        serverMonitorService.refreshServer(savedServer);
+
+        return savedServer;
     }
 
     /**
@@ -121,6 +158,15 @@ public class ServerServiceImpl implements ServerService {
         // 逻辑删除
         server.setDeleted(1);
         serverRepository.save(server);
+
+        // 提交后再移出内存组件,回滚时保持与数据库一致
+        String ipAddress = server.getIpAddress();
+        TransactionUtil.runAfterCommit(() -> {
+            workerPlacementService.removeWorker(id);
+            heartbeatService.evict(ipAddress);
+            failureDetectorService.forget(id);
+        });
+        serverMonitorService.removeServer(id);
     }
 
     /**
@@ -0,0 +1,289 @@
+package com.dw.scheduler.service.impl;
+
+import cn.hutool.core.collection.ListUtil;
+import com.dw.scheduler.common.TransactionUtil;
+import com.dw.scheduler.entity.Task;
+import com.dw.scheduler.repository.TaskRepository;
+import com.dw.scheduler.service.TaskCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 任务定义缓存服务实现类
+ * 按最近访问顺序淘汰,同时限制条数与估算内存(不含 taskCode);
+ * 条目超过 expire-seconds 后重新加载,覆盖其他节点修改任务的情况
+ * <p>
+ * 加载前记录失效版本号,加载期间发生过失效时不写入缓存,避免并发失效后写回旧数据
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class TaskCacheServiceImpl implements TaskCacheService {
+
+    /**
+     * 批量加载时单条 IN 语句的最大参数个数
+     */
+    private static final int BATCH_QUERY_SIZE = 1000;
+
+    /**
+     * 任务对象除字符串外的估算固定开销(字节)
+     */
+    private static final int BASE_WEIGHT = 256;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    /**
+     * 最大缓存任务数
+     */
+    @Value("${scheduler.task-cache.max-entries:20000}")
+    private int maxEntries;
+
+    /**
+     * 最大估算内存(MB)
+     */
+    @Value("${scheduler.task-cache.max-weight-mb:32}")
+    private long maxWeightMb;
+
+    /**
+     * 条目有效期(秒)
+     */
+    @Value("${scheduler.task-cache.expire-seconds:300}")
+    private long expireSeconds;
+
+    /**
+     * 任务ID -> 缓存条目(访问顺序),与 names、weight 一起受 entries 锁保护
+     */
+    private final LinkedHashMap<Long, CacheEntry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * 任务名称 -> 任务ID
+     */
+    private final Map<String, Long> names = new HashMap<>();
+
+    private long weight;
+
+    /**
+     * 失效版本号,每次失效递增
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong expirationCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    @Override
+    public Optional<Task> getById(Long taskId) {
+        if (taskId == null) {
+            return Optional.empty();
+        }
+        Task cached = lookup(taskId);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        long version = generation.get();
+        Optional<Task> loaded = taskRepository.findById(taskId);
+        loaded.ifPresent(task -> put(task, version));
+        return loaded.map(TaskCacheServiceImpl::copy);
+    }
+
+    @Override
+    public Optional<Task> getByName(String taskName) {
+        if (taskName == null) {
+            return Optional.empty();
+        }
+        Long taskId;
+        synchronized (entries) {
+            taskId = names.get(taskName);
+        }
+        Task cached = taskId == null ? null : lookup(taskId);
+        if (cached != null && taskName.equals(cached.getTaskName())) {
+            return Optional.of(copy(cached));
+        }
+        if (taskId == null) {
+            missCount.incrementAndGet();
+        }
+        long version = generation.get();
+        Task loaded = taskRepository.findByTaskName(taskName);
+        if (loaded == null) {
+            return Optional.empty();
+        }
+        put(loaded, version);
+        return Optional.of(copy(loaded));
+    }
+
+    @Override
+    public List<Task> getByIds(Collection<Long> taskIds) {
+        List<Task> result = new ArrayList<>(taskIds.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long taskId : new LinkedHashSet<>(taskIds)) {
+            Task cached = lookup(taskId);
+            if (cached != null) {
+                result.add(copy(cached));
+            } else {
+                missing.add(taskId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long version = generation.get();
+        for (List<Long> batch : ListUtil.partition(missing, BATCH_QUERY_SIZE)) {
+            for (Task task : taskRepository.findAllById(batch)) {
+                put(task, version);
+                result.add(copy(task));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void invalidate(Long taskId) {
+        remove(taskId);
+        // 事务期间可能有其他读取把未提交的数据写入缓存,事务结束后再移除一次
+        TransactionUtil.runAfterCompletion(() -> remove(taskId));
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        synchronized (entries) {
+            statistics.put("size", entries.size());
+            statistics.put("weightBytes", weight);
+        }
+        statistics.put("maxEntries", maxEntries);
+        statistics.put("maxWeightBytes", maxWeightMb * 1024 * 1024);
+        long hits = hitCount.get();
+        long misses = missCount.get();
+        statistics.put("hitCount", hits);
+        statistics.put("missCount", misses);
+        statistics.put("hitRate", hits + misses == 0 ? 0D : (double) hits / (hits + misses));
+        statistics.put("loadCount", loadCount.get());
+        statistics.put("evictionCount", evictionCount.get());
+        statistics.put("expirationCount", expirationCount.get());
+        statistics.put("invalidationCount", invalidationCount.get());
+        return statistics;
+    }
+
+    /**
+     * 查找未过期的缓存条目并记录命中/未命中
+     */
+    private Task lookup(Long taskId) {
+        synchronized (entries) {
+            CacheEntry entry = entries.get(taskId);
+            if (entry != null && System.currentTimeMillis() - entry.loadedAt > TimeUnit.SECONDS.toMillis(expireSeconds)) {
+                removeEntry(taskId);
+                expirationCount.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+            hitCount.incrementAndGet();
+            return entry.task;
+        }
+    }
+
+    private void put(Task task, long version) {
+        loadCount.incrementAndGet();
+        Task value = copy(task);
+        long entryWeight = weigh(value);
+        long maxWeight = maxWeightMb * 1024 * 1024;
+        synchronized (entries) {
+            // 加载期间发生过失效,数据可能已过时
+            if (generation.get() != version || entryWeight > maxWeight) {
+                return;
+            }
+            removeEntry(value.getId());
+            entries.put(value.getId(), new CacheEntry(value, entryWeight, System.currentTimeMillis()));
+            names.put(value.getTaskName(), value.getId());
+            weight += entryWeight;
+
+            Iterator<Map.Entry<Long, CacheEntry>> iterator = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+                Map.Entry<Long, CacheEntry> eldest = iterator.next();
+                iterator.remove();
+                unlinkName(eldest.getValue());
+                weight -= eldest.getValue().weight;
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void remove(Long taskId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            if (removeEntry(taskId)) {
+                invalidationCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 移除条目(调用方持有锁)
+     */
+    private boolean removeEntry(Long taskId) {
+        CacheEntry entry = entries.remove(taskId);
+        if (entry == null) {
+            return false;
+        }
+        unlinkName(entry);
+        weight -= entry.weight;
+        return true;
+    }
+
+    private void unlinkName(CacheEntry entry) {
+        String taskName = entry.task.getTaskName();
+        if (entry.task.getId().equals(names.get(taskName))) {
+            names.remove(taskName);
+        }
+    }
+
+    /**
+     * 复制任务,不含 taskCode
+     */
+    private static Task copy(Task source) {
+        Task target = new Task();
+        BeanUtils.copyProperties(source, target, "taskCode");
+        return target;
+    }
+
+    /**
+     * 估算任务占用内存: 固定开销加字符串字段(每字符2字节)
+     */
+    private static long weigh(Task task) {
+        return BASE_WEIGHT + 2L * (length(task.getTaskName()) + length(task.getDescription())
+                + length(task.getCronExpr()) + length(task.getOwner()) + length(task.getSubject())
+                + length(task.getResourceGroup()) + length(task.getAlertUsers()) + length(task.getSnapshotHash())
+                + length(task.getCreateBy()) + length(task.getUpdateBy()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static final class CacheEntry {
+        private final Task task;
+        private final long weight;
+        private final long loadedAt;
+
+        private CacheEntry(Task task, long weight, long loadedAt) {
+            this.task = task;
+            this.weight = weight;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
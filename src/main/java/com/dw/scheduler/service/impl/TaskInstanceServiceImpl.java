@@ -1,27 +1,53 @@
 package com.dw.scheduler.service.impl;
 
-import com.dw.scheduler.entity.InstanceLog;
+import cn.hutool.core.collection.ListUtil;
+import com.dw.scheduler.common.LongPair;
+import com.dw.scheduler.common.TransactionUtil;
+import com.dw.scheduler.dto.CursorPage;
+import com.dw.scheduler.dto.InstanceQuery;
+import com.dw.scheduler.dto.InstanceSummary;
+import com.dw.scheduler.dto.LogLine;
 import com.dw.scheduler.entity.Task;
-import com.dw.scheduler.entity.TaskDependency;
 import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.InstanceSortField;
 import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.enums.TaskStatus;
+import com.dw.scheduler.enums.TriggerType;
 import com.dw.scheduler.exception.BusinessException;
-import com.dw.scheduler.repository.InstanceLogRepository;
-import com.dw.scheduler.repository.TaskDependencyRepository;
+import com.dw.scheduler.repository.SummaryQueryRepository;
+import com.dw.scheduler.repository.TaskInstanceJdbcRepository;
 import com.dw.scheduler.repository.TaskInstanceRepository;
 import com.dw.scheduler.repository.TaskRepository;
+import com.dw.scheduler.service.DependencyGraphService;
+import com.dw.scheduler.service.InstanceDispatchService;
+import com.dw.scheduler.service.InstanceEtaService;
+import com.dw.scheduler.service.InstanceLogArchiveService;
+import com.dw.scheduler.service.InstanceLogStorage;
+import com.dw.scheduler.service.InstanceStatService;
+import com.dw.scheduler.service.NameSearchIndexService;
+import com.dw.scheduler.service.TaskCacheService;
 import com.dw.scheduler.service.TaskInstanceService;
+import com.dw.scheduler.service.TaskSnapshotService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.criteria.Predicate;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 /**
@@ -33,6 +59,23 @@ import java.util.*;
 @Service
 public class TaskInstanceServiceImpl implements TaskInstanceService {
 
+    /**
+     * 批量查询时单条 IN 语句的最大参数个数
+     */
+    private static final int BATCH_QUERY_SIZE = 1000;
+
+    /**
+     * 分页读取日志时每页行数
+     */
+    private static final int LOG_READ_PAGE_SIZE = 5000;
+
+    /**
+     * 游标/切片分页每页最大条数
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String CURSOR_SEPARATOR = "|";
+
     @Autowired
     private TaskInstanceRepository taskInstanceRepository;
 
@@ -40,25 +83,69 @@ public class TaskInstanceServiceImpl implements TaskInstanceService {
     private TaskRepository taskRepository;
 
     @Autowired
-    private TaskDependencyRepository taskDependencyRepository;
+    private TaskInstanceJdbcRepository taskInstanceJdbcRepository;
+
+    @Autowired
+    private SummaryQueryRepository summaryQueryRepository;
+
+    @Autowired
+    private DependencyGraphService dependencyGraphService;
+
+    @Autowired
+    private InstanceDispatchService instanceDispatchService;
 
     @Autowired
-    private InstanceLogRepository instanceLogRepository;
+    private InstanceLogStorage instanceLogStorage;
+
+    @Autowired
+    private InstanceLogArchiveService instanceLogArchiveService;
+
+    @Autowired
+    private TaskSnapshotService taskSnapshotService;
+
+    @Autowired
+    private InstanceStatService instanceStatService;
+
+    @Autowired
+    private InstanceEtaService instanceEtaService;
+
+    @Autowired
+    private NameSearchIndexService nameSearchIndexService;
+
+    @Autowired
+    private TaskCacheService taskCacheService;
+
+    /**
+     * 一次性查询实例日志时返回的最大行数
+     */
+    @Value("${scheduler.log.max-read-lines:100000}")
+    private int maxLogReadLines;
 
     /**
      * 查询实例列表(分页和多条件搜索)
      */
     @Override
-    public Page<TaskInstance> getInstanceList(String instanceName, Long taskId, InstanceStatus status,
+    public Page<InstanceSummary> getInstanceList(String instanceName, Long taskId, InstanceStatus status,
                                               LocalDate businessDate, LocalDate startDateFrom,
                                               LocalDate startDateTo, Pageable pageable) {
         log.info("查询实例列表: instanceName={}, taskId={}, status={}, businessDate={}",
                 instanceName, taskId, status, businessDate);
 
+        // 名称模糊条件先由检索索引得到候选ID,不可用时为 null
+        List<Long> candidateIds = nameSearchIndexService.findInstanceCandidates(instanceName);
+        if (candidateIds != null && candidateIds.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+
         // 构建动态查询条件
         Specification<TaskInstance> spec = (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
+            // 检索索引候选ID,LIKE 条件仍保留用于校验
+            if (candidateIds != null) {
+                predicates.add(root.get("id").in(candidateIds));
+            }
+
             // 实例名称模糊查询
             if (StringUtils.hasText(instanceName)) {
                 predicates.add(cb.like(root.get("instanceName"), "%" + instanceName + "%"));
@@ -90,7 +177,93 @@ public class TaskInstanceServiceImpl implements TaskInstanceService {
             return cb.and(predicates.toArray(new Predicate[0]));
         };
 
-        return taskInstanceRepository.findAll(spec, pageable);
+        // 列表只查询摘要列,task_snapshot、error_msg 通过详情接口获取
+        return summaryQueryRepository.findSummaryPage(TaskInstance.class, spec, InstanceSummary.class, pageable);
+    }
+
+    /**
+     * 游标分页查询实例概要
+     * 游标为 "排序字段|排序值|id" 的 Base64URL 编码,对客户端不透明
+     */
+    @Override
+    public CursorPage<InstanceSummary> scrollInstances(InstanceQuery query, InstanceSortField sortField,
+                                                       String cursor, int size) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new BusinessException("每页大小需在1到" + MAX_PAGE_SIZE + "之间");
+        }
+        InstanceSortField field = sortField == null ? InstanceSortField.CREATE_TIME : sortField;
+
+        LocalDateTime afterValue = null;
+        Long afterId = null;
+        if (StringUtils.hasText(cursor)) {
+            String[] parts = decodeCursor(cursor);
+            if (!field.name().equals(parts[0])) {
+                throw new BusinessException("游标与排序字段不匹配");
+            }
+            afterValue = LocalDateTime.parse(parts[1]);
+            afterId = Long.valueOf(parts[2]);
+        }
+
+        if (!resolveCandidates(query)) {
+            return new CursorPage<>(Collections.emptyList(), null, false);
+        }
+        // 多取一行判断是否还有下一页
+        List<TaskInstance> rows = taskInstanceJdbcRepository.findSummaryBySeek(query, field, afterValue, afterId, size + 1);
+        boolean hasMore = rows.size() > size;
+        List<TaskInstance> content = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            TaskInstance last = content.get(content.size() - 1);
+            LocalDateTime lastValue = field == InstanceSortField.START_TIME ? last.getStartTime() : last.getCreateTime();
+            nextCursor = encodeCursor(field, lastValue, last.getId());
+        }
+        return new CursorPage<>(toSummaries(content), nextCursor, hasMore);
+    }
+
+    /**
+     * 分页查询实例概要,不执行 count 语句
+     */
+    @Override
+    public Slice<InstanceSummary> getInstanceSlice(InstanceQuery query, InstanceSortField sortField, Pageable pageable) {
+        if (pageable.getPageSize() > MAX_PAGE_SIZE) {
+            throw new BusinessException("每页大小不能超过" + MAX_PAGE_SIZE);
+        }
+        InstanceSortField field = sortField == null ? InstanceSortField.CREATE_TIME : sortField;
+        int size = pageable.getPageSize();
+        if (!resolveCandidates(query)) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+        List<TaskInstance> rows = taskInstanceJdbcRepository.findSummarySlice(query, field, pageable.getOffset(), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<TaskInstance> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(toSummaries(content), pageable, hasNext);
+    }
+
+    /**
+     * 概要查询结果转换为列表摘要,概要查询不读取 taskSnapshot、errorMsg
+     */
+    private static List<InstanceSummary> toSummaries(List<TaskInstance> rows) {
+        List<InstanceSummary> summaries = new ArrayList<>(rows.size());
+        for (TaskInstance row : rows) {
+            InstanceSummary summary = new InstanceSummary();
+            BeanUtils.copyProperties(row, summary);
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+
+    /**
+     * 由检索索引解析实例名称的候选ID
+     *
+     * @return 是否可能有结果(候选为空时返回 false)
+     */
+    private boolean resolveCandidates(InstanceQuery query) {
+        if (query == null || !StringUtils.hasText(query.getInstanceName())) {
+            return true;
+        }
+        List<Long> candidateIds = nameSearchIndexService.findInstanceCandidates(query.getInstanceName());
+        query.setCandidateIds(candidateIds);
+        return candidateIds == null || !candidateIds.isEmpty();
     }
 
     /**
@@ -104,22 +277,56 @@ public class TaskInstanceServiceImpl implements TaskInstanceService {
                 .orElseThrow(() -> new BusinessException("实例不存在"));
     }
 
+    /**
+     * 查询实例任务快照
+     * 新实例按快照哈希从快照存储读取,历史实例直接返回原快照列
+     */
+    @Override
+    public String getInstanceSnapshot(Long instanceId) {
+        TaskInstance instance = taskInstanceRepository.findById(instanceId)
+                .orElseThrow(() -> new BusinessException("实例不存在"));
+        if (instance.getSnapshotHash() != null) {
+            return taskSnapshotService.getSnapshot(instance.getSnapshotHash());
+        }
+        return instance.getTaskSnapshot();
+    }
+
     /**
      * 查询实例日志
+     * 最多返回前 max-read-lines 行,完整日志通过分页接口按行号游标读取
      */
     @Override
-    public List<InstanceLog> getInstanceLogs(Long instanceId) {
+    public List<LogLine> getInstanceLogs(Long instanceId) {
         log.info("查询实例日志: instanceId={}", instanceId);
 
         // 检查实例是否存在
         TaskInstance instance = taskInstanceRepository.findById(instanceId)
                 .orElseThrow(() -> new BusinessException("实例不存在"));
 
-        return instanceLogRepository.findByInstanceIdOrderByLogTimeAsc(instanceId);
+        // 已归档实例从压缩块读取
+        boolean archived = Integer.valueOf(1).equals(instance.getLogArchived());
+
+        List<LogLine> lines = new ArrayList<>();
+        long afterLine = 0;
+        while (lines.size() < maxLogReadLines) {
+            int limit = Math.min(LOG_READ_PAGE_SIZE, maxLogReadLines - lines.size());
+            List<LogLine> page = archived
+                    ? instanceLogArchiveService.read(instanceId, afterLine, limit)
+                    : instanceLogStorage.read(instanceId, afterLine, limit);
+            lines.addAll(page);
+            if (page.size() < limit) {
+                return lines;
+            }
+            afterLine = page.get(page.size() - 1).getLineNum();
+        }
+        log.warn("实例日志超过单次读取上限,已截断: instanceId={}, maxLines={}", instanceId, maxLogReadLines);
+        return lines;
     }
 
     /**
      * 查询实例DAG图数据
+     * 先通过依赖图索引解析整个可达任务集合及各自的业务日期,
+     * 再批量加载任务信息,并按(task_id, business_date)一次性加载实例
      */
     @Override
     public Map<String, Object> getInstanceDag(Long instanceId) {
@@ -129,19 +336,39 @@ public class TaskInstanceServiceImpl implements TaskInstanceService {
         TaskInstance instance = taskInstanceRepository.findById(instanceId)
                 .orElseThrow(() -> new BusinessException("实例不存在"));
 
-        // 查询该业务日期下的所有相关实例
-        LocalDate businessDate = instance.getBusinessDate();
-        Long taskId = instance.getTaskId();
-
-        // 构建DAG图数据
-        Map<String, Object> dagData = new HashMap<>();
-        Set<Long> visitedTaskIds = new HashSet<>();
-        List<Map<String, Object>> nodes = new ArrayList<>();
+        // 解析可达任务及其业务日期(考虑周期偏移),同时收集边
+        Map<Long, LocalDate> taskBusinessDates = new LinkedHashMap<>();
         List<Map<String, Object>> edges = new ArrayList<>();
+        resolveInstanceDag(instance.getTaskId(), instance.getBusinessDate(), taskBusinessDates, edges);
 
-        // 递归构建DAG图
-        buildInstanceDagData(taskId, businessDate, visitedTaskIds, nodes, edges);
+        // 批量查询任务信息
+        Map<Long, Task> taskMap = new HashMap<>();
+        for (List<Long> batch : ListUtil.partition(new ArrayList<>(taskBusinessDates.keySet()), BATCH_QUERY_SIZE)) {
+            for (Task task : taskCacheService.getByIds(batch)) {
+                taskMap.put(task.getId(), task);
+            }
+        }
 
+        // 按(task_id, business_date)批量查询实例
+        List<LongPair> taskDateKeys = new ArrayList<>(taskMap.size());
+        for (Long taskId : taskMap.keySet()) {
+            taskDateKeys.add(LongPair.of(taskId, taskBusinessDates.get(taskId).toEpochDay()));
+        }
+        Map<Long, TaskInstance> instanceMap = new HashMap<>();
+        for (TaskInstance taskInstance : taskInstanceJdbcRepository.findSummaryByTaskDateKeys(taskDateKeys)) {
+            instanceMap.putIfAbsent(taskInstance.getTaskId(), taskInstance);
+        }
+
+        // 构建节点
+        List<Map<String, Object>> nodes = new ArrayList<>(taskMap.size());
+        for (Long taskId : taskBusinessDates.keySet()) {
+            Task task = taskMap.get(taskId);
+            if (task != null) {
+                nodes.add(buildInstanceDagNode(task, instanceMap.get(taskId)));
+            }
+        }
+
+        Map<String, Object> dagData = new HashMap<>();
         dagData.put("nodes", nodes);
         dagData.put("edges", edges);
         dagData.put("currentInstanceId", instanceId);
@@ -166,7 +393,7 @@ public class TaskInstanceServiceImpl implements TaskInstanceService {
         }
 
         // 检查任务是否存在
-        Task task = taskRepository.findById(instance.getTaskId())
+        Task task = taskCacheService.getById(instance.getTaskId())
                 .orElseThrow(() -> new BusinessException("任务不存在"));
 
         // 检查该任务的业务日期是否已有实例
@@ -188,39 +415,187 @@ public class TaskInstanceServiceImpl implements TaskInstanceService {
             instance.setStatus(InstanceStatus.WAITING);
         }
 
-        // 保存任务快照(可选)
-        // instance.setTaskSnapshot(JsonUtil.toJson(task));
+        // 记录任务快照哈希,任务保存时已生成快照,历史任务补生成
+        instance.setSnapshotHash(task.getSnapshotHash() != null
+                ? task.getSnapshotHash() : taskSnapshotService.backfill(task.getId()));
+        instance.setOwner(task.getOwner());
+        instance.setResourceGroup(task.getResourceGroup());
+
+        TaskInstance savedInstance;
+        try {
+            savedInstance = taskInstanceRepository.saveAndFlush(instance);
+        } catch (DataIntegrityViolationException e) {
+            // 与调度批量创建并发,由唯一索引 uk_task_business_date_live 拦截
+            throw new BusinessException("该任务在该业务日期下已存在实例");
+        }
+        instanceStatService.recordCreated(Collections.singletonList(savedInstance));
+        TransactionUtil.runAfterCommit(() -> {
+            instanceEtaService.onInstancesCreated(Collections.singletonList(savedInstance));
+            nameSearchIndexService.onInstancesCreated(Collections.singletonList(savedInstance));
+        });
 
-        return taskInstanceRepository.save(instance);
+        // 提交后登记到分发队列
+        instanceDispatchService.register(Collections.singletonList(savedInstance));
+
+        return savedInstance;
     }
 
     /**
-     * 递归构建实例DAG图数据
+     * 批量创建实例
      */
-    private void buildInstanceDagData(Long taskId, LocalDate businessDate,
-                                     Set<Long> visitedTaskIds,
-                                     List<Map<String, Object>> nodes,
-                                     List<Map<String, Object>> edges) {
-        // 如果已访问过,则返回
-        if (visitedTaskIds.contains(taskId)) {
-            return;
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<TaskInstance> createInstances(Collection<TaskInstance> instances) {
+        log.info("批量创建实例: size={}", instances.size());
+
+        List<TaskInstance> created = new ArrayList<>(instances.size());
+        if (instances.isEmpty()) {
+            return created;
         }
 
-        visitedTaskIds.add(taskId);
+        // 参数校验
+        Set<Long> taskIds = new HashSet<>();
+        for (TaskInstance instance : instances) {
+            if (instance.getTaskId() == null) {
+                throw new BusinessException("任务ID不能为空");
+            }
+            if (instance.getBusinessDate() == null) {
+                throw new BusinessException("业务日期不能为空");
+            }
+            taskIds.add(instance.getTaskId());
+        }
+
+        // 批量预加载任务名称、快照哈希、状态及统计归属
+        Map<Long, String> taskNames = new HashMap<>();
+        Map<Long, String> snapshotHashes = new HashMap<>();
+        Map<Long, TaskStatus> taskStatuses = new HashMap<>();
+        Map<Long, Object[]> ownerGroups = new HashMap<>();
+        for (List<Long> batch : ListUtil.partition(new ArrayList<>(taskIds), BATCH_QUERY_SIZE)) {
+            for (Object[] row : taskRepository.findNamesByIdIn(batch)) {
+                taskNames.put((Long) row[0], (String) row[1]);
+                snapshotHashes.put((Long) row[0], (String) row[2]);
+                taskStatuses.put((Long) row[0], (TaskStatus) row[3]);
+                ownerGroups.put((Long) row[0], new Object[]{row[4], row[5]});
+            }
+        }
+        for (Long taskId : taskIds) {
+            // 任务已删除时跳过其实例,不影响同批次其他任务
+            if (!taskNames.containsKey(taskId)) {
+                log.warn("批量创建实例跳过不存在的任务: taskId={}", taskId);
+                continue;
+            }
+            // 历史任务尚无快照时补生成,之后的批次直接复用
+            if (snapshotHashes.get(taskId) == null) {
+                snapshotHashes.put(taskId, taskSnapshotService.backfill(taskId));
+            }
+        }
+
+        // 批量预加载已存在的(任务, 业务日期)
+        Set<LongPair> taskDateKeys = new LinkedHashSet<>();
+        for (TaskInstance instance : instances) {
+            taskDateKeys.add(LongPair.of(instance.getTaskId(), instance.getBusinessDate().toEpochDay()));
+        }
+        Set<LongPair> existKeys = taskInstanceJdbcRepository.findExistingTaskDateKeys(taskDateKeys);
+
+        int skippedTasks = 0;
+        for (TaskInstance instance : instances) {
+            // 任务不存在,或调度触发后任务已不再启用
+            if (!taskNames.containsKey(instance.getTaskId())
+                    || (instance.getTriggerType() == TriggerType.SCHEDULE
+                    && taskStatuses.get(instance.getTaskId()) != TaskStatus.ENABLED)) {
+                skippedTasks++;
+                continue;
+            }
+            // 已存在或本批次内重复的条目跳过
+            if (!existKeys.add(LongPair.of(instance.getTaskId(), instance.getBusinessDate().toEpochDay()))) {
+                continue;
+            }
+
+            // 设置实例名称
+            if (!StringUtils.hasText(instance.getInstanceName())) {
+                String instanceName = String.format("%s_%s",
+                        taskNames.get(instance.getTaskId()), instance.getBusinessDate().toString());
+                instance.setInstanceName(instanceName);
+            }
+
+            // 设置默认状态
+            if (instance.getStatus() == null) {
+                instance.setStatus(InstanceStatus.WAITING);
+            }
+            instance.setSnapshotHash(snapshotHashes.get(instance.getTaskId()));
+            Object[] ownerGroup = ownerGroups.get(instance.getTaskId());
+            instance.setOwner((String) ownerGroup[0]);
+            instance.setResourceGroup((String) ownerGroup[1]);
 
-        // 查询任务信息
-        Optional<Task> taskOpt = taskRepository.findById(taskId);
-        if (!taskOpt.isPresent()) {
-            return;
+            created.add(instance);
         }
 
-        Task task = taskOpt.get();
+        // 与并发创建的实例冲突而被忽略的条目不再登记
+        int inserted = taskInstanceJdbcRepository.batchInsert(created);
+        if (inserted < created.size()) {
+            log.warn("批量创建实例忽略并发创建的重复实例: count={}", created.size() - inserted);
+            created.removeIf(instance -> instance.getId() == null);
+        }
+        instanceStatService.recordCreated(created);
+        TransactionUtil.runAfterCommit(() -> {
+            instanceEtaService.onInstancesCreated(created);
+            nameSearchIndexService.onInstancesCreated(created);
+        });
+
+        // 提交后登记到分发队列
+        instanceDispatchService.register(created);
+        log.info("批量创建实例完成: requested={}, created={}, skippedByTask={}",
+                instances.size(), created.size(), skippedTasks);
+
+        return created;
+    }
 
-        // 查询该任务在该业务日期下的实例
-        List<TaskInstance> instances = taskInstanceRepository.findByTaskIdAndBusinessDate(taskId, businessDate);
-        TaskInstance instance = instances.isEmpty() ? null : instances.get(0);
+    /**
+     * 基于依赖图索引做BFS,解析与起点连通的全部任务及其业务日期
+     * 上游业务日期 = 当前业务日期 + 周期偏移,下游业务日期 = 当前业务日期 - 周期偏移
+     */
+    private void resolveInstanceDag(Long startTaskId, LocalDate startBusinessDate,
+                                    Map<Long, LocalDate> taskBusinessDates,
+                                    List<Map<String, Object>> edges) {
+        Set<LongPair> edgeKeys = new HashSet<>();
+        Deque<Long> queue = new ArrayDeque<>();
+        taskBusinessDates.put(startTaskId, startBusinessDate);
+        queue.add(startTaskId);
+
+        while (!queue.isEmpty()) {
+            long taskId = queue.poll();
+            LocalDate businessDate = taskBusinessDates.get(taskId);
+
+            DependencyGraphService.EdgeVisitor collectEdge = (downTaskId, upTaskId, dependType, cycleOffset) -> {
+                // 添加边,按(source,target)去重
+                if (edgeKeys.add(LongPair.of(upTaskId, downTaskId))) {
+                    Map<String, Object> edge = new HashMap<>();
+                    edge.put("source", upTaskId);
+                    edge.put("target", downTaskId);
+                    edge.put("type", dependType);
+                    edge.put("cycleOffset", cycleOffset);
+                    edges.add(edge);
+                }
+
+                // 计算相邻任务的业务日期(考虑周期偏移)
+                if (upTaskId == taskId && !taskBusinessDates.containsKey(downTaskId)) {
+                    taskBusinessDates.put(downTaskId, businessDate.minusDays(cycleOffset));
+                    queue.add(downTaskId);
+                } else if (downTaskId == taskId && !taskBusinessDates.containsKey(upTaskId)) {
+                    taskBusinessDates.put(upTaskId, businessDate.plusDays(cycleOffset));
+                    queue.add(upTaskId);
+                }
+            };
+
+            dependencyGraphService.forEachUpstream(taskId, collectEdge);
+            dependencyGraphService.forEachDownstream(taskId, collectEdge);
+        }
+    }
 
-        // 添加节点
+    /**
+     * 构建实例DAG图节点
+     */
+    private Map<String, Object> buildInstanceDagNode(Task task, TaskInstance instance) {
         Map<String, Object> node = new HashMap<>();
         node.put("taskId", task.getId());
         node.put("taskName", task.getTaskName());
@@ -238,44 +613,27 @@ public class TaskInstanceServiceImpl implements TaskInstanceService {
             node.put("status", "NOT_CREATED");
         }
 
-        nodes.add(node);
-
-        // 查询上游依赖
-        List<TaskDependency> upstreamDeps = taskDependencyRepository.findByTaskId(taskId);
-        for (TaskDependency dep : upstreamDeps) {
-            // 添加边
-            Map<String, Object> edge = new HashMap<>();
-            edge.put("source", dep.getDependTaskId());
-            edge.put("target", dep.getTaskId());
-            edge.put("type", dep.getDependType());
-            edge.put("cycleOffset", dep.getCycleOffset());
-            edges.add(edge);
-
-            // 计算依赖任务的业务日期(考虑周期偏移)
-            LocalDate dependBusinessDate = businessDate.plusDays(dep.getCycleOffset());
+        return node;
+    }
 
-            // 递归处理上游任务
-            buildInstanceDagData(dep.getDependTaskId(), dependBusinessDate, visitedTaskIds, nodes, edges);
-        }
+    private static String encodeCursor(InstanceSortField field, LocalDateTime value, Long id) {
+        String raw = field.name() + CURSOR_SEPARATOR + value + CURSOR_SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-        // 查询下游依赖
-        List<TaskDependency> downstreamDeps = taskDependencyRepository.findByDependTaskId(taskId);
-        for (TaskDependency dep : downstreamDeps) {
-            // 添加边
-            Map<String, Object> edge = new HashMap<>();
-            edge.put("source", dep.getDependTaskId());
-            edge.put("target", dep.getTaskId());
-            edge.put("type", dep.getDependType());
-            edge.put("cycleOffset", dep.getCycleOffset());
-            if (!edges.contains(edge)) {
-                edges.add(edge);
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new BusinessException("游标无效");
             }
-
-            // 计算下游任务的业务日期(考虑周期偏移)
-            LocalDate downstreamBusinessDate = businessDate.minusDays(dep.getCycleOffset());
-
-            // 递归处理下游任务
-            buildInstanceDagData(dep.getTaskId(), downstreamBusinessDate, visitedTaskIds, nodes, edges);
+            // 提前校验格式,避免解析异常泄漏到调用方
+            LocalDateTime.parse(parts[1]);
+            Long.parseLong(parts[2]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException("游标无效");
         }
     }
 }
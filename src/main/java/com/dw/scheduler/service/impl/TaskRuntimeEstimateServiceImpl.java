@@ -0,0 +1,118 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.dto.RuntimeEstimate;
+import com.dw.scheduler.repository.TaskInstanceJdbcRepository;
+import com.dw.scheduler.service.TaskRuntimeEstimateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务运行耗时估计服务实现类
+ * 每个任务一个环形样本缓冲,新样本到达时更新 EWMA 并重算90分位(样本数很小,直接排序)
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class TaskRuntimeEstimateServiceImpl implements TaskRuntimeEstimateService {
+
+    @Autowired
+    private TaskInstanceJdbcRepository taskInstanceJdbcRepository;
+
+    /**
+     * 每个任务保留的样本数
+     */
+    @Value("${scheduler.eta.sample-size:20}")
+    private int sampleSize;
+
+    /**
+     * EWMA 平滑系数,越大越偏重最近样本
+     */
+    @Value("${scheduler.eta.ewma-alpha:0.3}")
+    private double ewmaAlpha;
+
+    /**
+     * 启动时加载样本的回溯天数
+     */
+    @Value("${scheduler.eta.history-days:60}")
+    private int historyDays;
+
+    /**
+     * 无历史样本时的默认耗时(秒)
+     */
+    @Value("${scheduler.eta.default-runtime-seconds:600}")
+    private long defaultRuntimeSeconds;
+
+    private final Map<Long, RuntimeStat> stats = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        long start = System.currentTimeMillis();
+        List<long[]> rows = taskInstanceJdbcRepository.findRecentExecuteTimes(
+                LocalDateTime.now().minusDays(historyDays), sampleSize);
+        for (long[] row : rows) {
+            record(row[0], row[1]);
+        }
+        log.info("任务耗时估计加载完成: tasks={}, samples={}, cost={}ms",
+                stats.size(), rows.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void record(Long taskId, long executeSeconds) {
+        if (taskId == null || executeSeconds < 0) {
+            return;
+        }
+        RuntimeStat stat = stats.computeIfAbsent(taskId, id -> new RuntimeStat(sampleSize));
+        synchronized (stat) {
+            stat.add(executeSeconds, ewmaAlpha);
+        }
+    }
+
+    @Override
+    public RuntimeEstimate getEstimate(Long taskId) {
+        RuntimeStat stat = stats.get(taskId);
+        if (stat == null) {
+            return new RuntimeEstimate(taskId, defaultRuntimeSeconds, defaultRuntimeSeconds, 0);
+        }
+        synchronized (stat) {
+            return new RuntimeEstimate(taskId, Math.round(stat.ewma), stat.p90, stat.count);
+        }
+    }
+
+    /**
+     * 单个任务的耗时样本
+     */
+    private static final class RuntimeStat {
+        private final long[] samples;
+        private int count;
+        private int next;
+        private double ewma;
+        private long p90;
+
+        private RuntimeStat(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        private void add(long value, double alpha) {
+            ewma = count == 0 ? value : alpha * value + (1 - alpha) * ewma;
+            samples[next] = value;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) {
+                count++;
+            }
+
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            p90 = sorted[(int) Math.ceil(count * 0.9) - 1];
+        }
+    }
+}
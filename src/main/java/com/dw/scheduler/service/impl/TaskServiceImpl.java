@@ -1,23 +1,48 @@
 package com.dw.scheduler.service.impl;
 
+import cn.hutool.core.collection.ListUtil;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.dw.scheduler.common.LongPair;
+import com.dw.scheduler.common.TransactionUtil;
+import com.dw.scheduler.dto.TaskImportResult;
+import com.dw.scheduler.dto.TaskSummary;
+import com.dw.scheduler.dto.TaskTransferRecord;
+import com.dw.scheduler.entity.Datasource;
+import com.dw.scheduler.entity.Directory;
 import com.dw.scheduler.entity.Task;
 import com.dw.scheduler.entity.TaskDependency;
 import com.dw.scheduler.enums.TaskStatus;
 import com.dw.scheduler.enums.TaskType;
 import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.DatasourceRepository;
+import com.dw.scheduler.repository.DirectoryRepository;
+import com.dw.scheduler.repository.SummaryQueryRepository;
 import com.dw.scheduler.repository.TaskDependencyRepository;
+import com.dw.scheduler.repository.TaskJdbcRepository;
 import com.dw.scheduler.repository.TaskRepository;
+import com.dw.scheduler.service.DependencyGraphService;
+import com.dw.scheduler.service.InstanceDispatchService;
+import com.dw.scheduler.service.NameSearchIndexService;
+import com.dw.scheduler.service.ScheduleTriggerService;
+import com.dw.scheduler.service.TaskCacheService;
 import com.dw.scheduler.service.TaskService;
+import com.dw.scheduler.service.TaskSnapshotService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.criteria.Predicate;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -29,12 +54,65 @@ import java.util.*;
 @Service
 public class TaskServiceImpl implements TaskService {
 
+    /**
+     * DAG批量查询时单条 IN 语句的最大参数个数
+     */
+    private static final int DAG_BATCH_SIZE = 1000;
+
+    /**
+     * 批量导入时每块的行数,每块单独校验、写入并提交
+     */
+    private static final int IMPORT_CHUNK_SIZE = 500;
+
+    /**
+     * 批量导入结果中最多保留的行级错误数
+     */
+    private static final int MAX_IMPORT_ERRORS = 1000;
+
+    /**
+     * 导出时每页读取的任务数
+     */
+    private static final int EXPORT_PAGE_SIZE = 500;
+
     @Autowired
     private TaskRepository taskRepository;
 
     @Autowired
     private TaskDependencyRepository taskDependencyRepository;
 
+    @Autowired
+    private SummaryQueryRepository summaryQueryRepository;
+
+    @Autowired
+    private DependencyGraphService dependencyGraphService;
+
+    @Autowired
+    private ScheduleTriggerService scheduleTriggerService;
+
+    @Autowired
+    private InstanceDispatchService instanceDispatchService;
+
+    @Autowired
+    private TaskSnapshotService taskSnapshotService;
+
+    @Autowired
+    private NameSearchIndexService nameSearchIndexService;
+
+    @Autowired
+    private TaskCacheService taskCacheService;
+
+    @Autowired
+    private TaskJdbcRepository taskJdbcRepository;
+
+    @Autowired
+    private DirectoryRepository directoryRepository;
+
+    @Autowired
+    private DatasourceRepository datasourceRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * 创建任务
      */
@@ -57,7 +135,17 @@ public class TaskServiceImpl implements TaskService {
             task.setStatus(TaskStatus.DEVELOPING);
         }
 
-        return taskRepository.save(task);
+        Task savedTask = taskRepository.save(task);
+
+        // 快照包含任务ID,保存后生成,哈希随事务提交写回
+        savedTask.setSnapshotHash(taskSnapshotService.snapshot(savedTask));
+        taskCacheService.invalidate(savedTask.getId());
+
+        // 提交后同步调度计划与检索索引
+        scheduleTriggerService.refreshTask(savedTask);
+        indexAfterCommit(savedTask);
+
+        return savedTask;
     }
 
     /**
@@ -101,8 +189,16 @@ public class TaskServiceImpl implements TaskService {
         existTask.setAlertEnabled(task.getAlertEnabled());
         existTask.setAlertUsers(task.getAlertUsers());
         existTask.setUpdateBy(task.getUpdateBy());
+        existTask.setSnapshotHash(taskSnapshotService.snapshot(existTask));
+
+        Task savedTask = taskRepository.save(existTask);
+        taskCacheService.invalidate(id);
+
+        // 提交后同步调度计划与检索索引
+        scheduleTriggerService.refreshTask(savedTask);
+        indexAfterCommit(savedTask);
 
-        return taskRepository.save(existTask);
+        return savedTask;
     }
 
     /**
@@ -132,21 +228,38 @@ public class TaskServiceImpl implements TaskService {
         // 逻辑删除
         task.setDeleted(1);
         taskRepository.save(task);
+        taskCacheService.invalidate(id);
+
+        // 提交后移出调度、分发与检索索引
+        scheduleTriggerService.removeTask(id);
+        instanceDispatchService.unregisterTask(id);
+        TransactionUtil.runAfterCommit(() -> nameSearchIndexService.onTaskDeleted(id));
     }
 
     /**
      * 查询任务列表(分页和多条件搜索)
      */
     @Override
-    public Page<Task> getTaskList(String taskName, String taskType, TaskStatus status,
+    public Page<TaskSummary> getTaskList(String taskName, String taskType, TaskStatus status,
                                   String owner, String subject, Long directoryId,
                                   String resourceGroup, Pageable pageable) {
         log.info("查询任务列表: taskName={}, taskType={}, status={}", taskName, taskType, status);
 
+        // 名称/责任人的模糊条件先由检索索引得到候选ID,不可用时为 null
+        List<Long> candidateIds = nameSearchIndexService.findTaskCandidates(taskName, owner);
+        if (candidateIds != null && candidateIds.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+
         // 构建动态查询条件
         Specification<Task> spec = (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
+            // 检索索引候选ID,LIKE 条件仍保留用于校验
+            if (candidateIds != null) {
+                predicates.add(root.get("id").in(candidateIds));
+            }
+
             // 任务名称模糊查询
             if (StringUtils.hasText(taskName)) {
                 predicates.add(cb.like(root.get("taskName"), "%" + taskName + "%"));
@@ -190,7 +303,8 @@ public class TaskServiceImpl implements TaskService {
             return cb.and(predicates.toArray(new Predicate[0]));
         };
 
-        return taskRepository.findAll(spec, pageable);
+        // 列表只查询摘要列,task_code 通过详情接口获取
+        return summaryQueryRepository.findSummaryPage(Task.class, spec, TaskSummary.class, pageable);
     }
 
     /**
@@ -220,7 +334,13 @@ public class TaskServiceImpl implements TaskService {
         }
 
         task.setStatus(status);
-        return taskRepository.save(task);
+        Task savedTask = taskRepository.save(task);
+        taskCacheService.invalidate(id);
+
+        // 提交后同步调度计划
+        scheduleTriggerService.refreshTask(savedTask);
+
+        return savedTask;
     }
 
     /**
@@ -242,9 +362,9 @@ public class TaskServiceImpl implements TaskService {
         }
 
         // 检查任务是否存在
-        Task task = taskRepository.findById(dependency.getTaskId())
+        Task task = taskCacheService.getById(dependency.getTaskId())
                 .orElseThrow(() -> new BusinessException("任务不存在"));
-        Task dependTask = taskRepository.findById(dependency.getDependTaskId())
+        Task dependTask = taskCacheService.getById(dependency.getDependTaskId())
                 .orElseThrow(() -> new BusinessException("依赖任务不存在"));
 
         // 检查依赖关系是否已存在
@@ -259,7 +379,12 @@ public class TaskServiceImpl implements TaskService {
             throw new BusinessException("添加该依赖会造成循环依赖");
         }
 
-        return taskDependencyRepository.save(dependency);
+        TaskDependency savedDependency = taskDependencyRepository.save(dependency);
+
+        // 提交后增量更新依赖图索引
+        dependencyGraphService.addDependency(savedDependency);
+
+        return savedDependency;
     }
 
     /**
@@ -278,6 +403,9 @@ public class TaskServiceImpl implements TaskService {
         // 逻辑删除
         dependency.setDeleted(1);
         taskDependencyRepository.save(dependency);
+
+        // 提交后增量更新依赖图索引
+        dependencyGraphService.removeDependency(taskId, dependTaskId);
     }
 
     /**
@@ -302,45 +430,42 @@ public class TaskServiceImpl implements TaskService {
 
     /**
      * 循环依赖检测
-     * 使用拓扑排序算法(基于DFS)检测是否存在环
+     * 基于常驻内存的依赖图索引,仅从依赖任务出发沿上游方向做可达性搜索
      */
     @Override
     public boolean hasCyclicDependency(Long taskId, Long dependTaskId) {
         log.info("循环依赖检测: taskId={}, dependTaskId={}", taskId, dependTaskId);
 
-        // 构建依赖图
-        Map<Long, List<Long>> graph = new HashMap<>();
-        buildDependencyGraph(graph);
-
-        // 临时添加新的依赖关系
-        graph.computeIfAbsent(taskId, k -> new ArrayList<>()).add(dependTaskId);
-
-        // 使用DFS检测环
-        Set<Long> visited = new HashSet<>();
-        Set<Long> recursionStack = new HashSet<>();
-
-        return hasCycle(taskId, graph, visited, recursionStack);
+        return dependencyGraphService.wouldCreateCycle(taskId, dependTaskId);
     }
 
     /**
      * 查询任务DAG图数据
+     * 按层(BFS前沿)批量加载,每层只发起 O(1) 次 IN 查询,总查询次数为 O(depth)
      */
     @Override
     public Map<String, Object> getTaskDag(Long taskId, int depth) {
         log.info("查询任务DAG图数据: taskId={}, depth={}", taskId, depth);
 
         // 查询任务是否存在
-        Task task = taskRepository.findById(taskId)
+        Task task = taskCacheService.getById(taskId)
                 .orElseThrow(() -> new BusinessException("任务不存在"));
 
         // 构建DAG图数据
         Map<String, Object> dagData = new HashMap<>();
         Set<Long> visitedNodes = new HashSet<>();
+        Set<LongPair> edgeKeys = new HashSet<>();
         List<Map<String, Object>> nodes = new ArrayList<>();
         List<Map<String, Object>> edges = new ArrayList<>();
 
-        // 递归构建DAG图
-        buildDagData(taskId, depth, 0, visitedNodes, nodes, edges);
+        // 逐层构建DAG图
+        List<Long> frontier = Collections.singletonList(taskId);
+        visitedNodes.add(taskId);
+        int currentDepth = 0;
+        while (!frontier.isEmpty() && (depth <= 0 || currentDepth < depth)) {
+            frontier = buildDagLevel(frontier, visitedNodes, edgeKeys, nodes, edges);
+            currentDepth++;
+        }
 
         dagData.put("nodes", nodes);
         dagData.put("edges", edges);
@@ -349,98 +474,368 @@ public class TaskServiceImpl implements TaskService {
     }
 
     /**
-     * 构建依赖图
+     * 构建DAG图的一层: 批量加载本层任务及其上下游依赖,返回下一层待访问的任务ID
      */
-    private void buildDependencyGraph(Map<Long, List<Long>> graph) {
-        List<TaskDependency> allDependencies = taskDependencyRepository.findAll();
-        for (TaskDependency dep : allDependencies) {
-            graph.computeIfAbsent(dep.getTaskId(), k -> new ArrayList<>()).add(dep.getDependTaskId());
+    private List<Long> buildDagLevel(List<Long> frontier, Set<Long> visitedNodes, Set<LongPair> edgeKeys,
+                                     List<Map<String, Object>> nodes, List<Map<String, Object>> edges) {
+        List<Long> nextFrontier = new ArrayList<>();
+
+        for (List<Long> batch : ListUtil.partition(frontier, DAG_BATCH_SIZE)) {
+            // 批量查询任务信息,不存在的任务不展开
+            Set<Long> existTaskIds = new HashSet<>();
+            for (Task task : taskCacheService.getByIds(batch)) {
+                existTaskIds.add(task.getId());
+
+                // 添加节点
+                Map<String, Object> node = new HashMap<>();
+                node.put("id", task.getId());
+                node.put("name", task.getTaskName());
+                node.put("type", task.getTaskType());
+                node.put("status", task.getStatus());
+                nodes.add(node);
+            }
+            if (existTaskIds.isEmpty()) {
+                continue;
+            }
+
+            // 批量查询上游依赖和下游依赖
+            List<TaskDependency> dependencies = new ArrayList<>(taskDependencyRepository.findByTaskIdIn(existTaskIds));
+            dependencies.addAll(taskDependencyRepository.findByDependTaskIdIn(existTaskIds));
+
+            for (TaskDependency dep : dependencies) {
+                // 添加边,按(source,target)去重
+                if (edgeKeys.add(LongPair.of(dep.getDependTaskId(), dep.getTaskId()))) {
+                    Map<String, Object> edge = new HashMap<>();
+                    edge.put("source", dep.getDependTaskId());
+                    edge.put("target", dep.getTaskId());
+                    edge.put("type", dep.getDependType());
+                    edges.add(edge);
+                }
+
+                // 上游任务和下游任务进入下一层
+                if (existTaskIds.contains(dep.getTaskId()) && visitedNodes.add(dep.getDependTaskId())) {
+                    nextFrontier.add(dep.getDependTaskId());
+                }
+                if (existTaskIds.contains(dep.getDependTaskId()) && visitedNodes.add(dep.getTaskId())) {
+                    nextFrontier.add(dep.getTaskId());
+                }
+            }
         }
+
+        return nextFrontier;
     }
 
     /**
-     * DFS检测环
+     * 批量导入任务
      */
-    private boolean hasCycle(Long taskId, Map<Long, List<Long>> graph,
-                            Set<Long> visited, Set<Long> recursionStack) {
-        visited.add(taskId);
-        recursionStack.add(taskId);
-
-        List<Long> neighbors = graph.get(taskId);
-        if (neighbors != null) {
-            for (Long neighbor : neighbors) {
-                if (!visited.contains(neighbor)) {
-                    if (hasCycle(neighbor, graph, visited, recursionStack)) {
-                        return true;
-                    }
-                } else if (recursionStack.contains(neighbor)) {
-                    // 发现环
-                    return true;
+    @Override
+    public TaskImportResult importTasks(InputStream input) {
+        log.info("批量导入任务开始");
+        long start = System.currentTimeMillis();
+        TaskImportResult result = new TaskImportResult();
+        List<ImportRow> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!StringUtils.hasText(line)) {
+                    continue;
+                }
+                result.setTotal(result.getTotal() + 1);
+                TaskTransferRecord record;
+                try {
+                    record = JSON.parseObject(line, TaskTransferRecord.class);
+                } catch (JSONException e) {
+                    addImportError(result, lineNumber, null, "JSON格式错误: " + e.getMessage());
+                    continue;
+                }
+                if (record == null) {
+                    addImportError(result, lineNumber, null, "JSON格式错误");
+                    continue;
+                }
+                chunk.add(new ImportRow(lineNumber, record));
+                if (chunk.size() >= IMPORT_CHUNK_SIZE) {
+                    importChunk(chunk, result);
+                    chunk.clear();
                 }
             }
+        } catch (IOException e) {
+            // 已提交的块保留,读取中断的位置记录为错误
+            log.warn("读取导入数据中断: line={}", lineNumber, e);
+            addImportError(result, lineNumber + 1, null, "读取导入数据中断: " + e.getMessage());
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
         }
 
-        recursionStack.remove(taskId);
-        return false;
+        log.info("批量导入任务完成: total={}, created={}, failed={}, cost={}ms", result.getTotal(),
+                result.getCreated(), result.getFailed(), System.currentTimeMillis() - start);
+        return result;
     }
 
     /**
-     * 递归构建DAG图数据
+     * 导出全部任务
      */
-    private void buildDagData(Long taskId, int maxDepth, int currentDepth,
-                             Set<Long> visitedNodes, List<Map<String, Object>> nodes,
-                             List<Map<String, Object>> edges) {
-        // 如果已访问过或超过最大深度,则返回
-        if (visitedNodes.contains(taskId) || (maxDepth > 0 && currentDepth >= maxDepth)) {
+    @Override
+    public void exportTasks(OutputStream output) throws IOException {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        long afterId = 0;
+        long exported = 0;
+        List<Task> page;
+        do {
+            page = taskJdbcRepository.findAfter(afterId, EXPORT_PAGE_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            // 本页引用的目录路径与数据源名称
+            Set<Long> directoryIds = new HashSet<>();
+            Set<Long> datasourceIds = new HashSet<>();
+            for (Task task : page) {
+                if (task.getDirectoryId() != null) {
+                    directoryIds.add(task.getDirectoryId());
+                }
+                if (task.getDatasourceId() != null) {
+                    datasourceIds.add(task.getDatasourceId());
+                }
+            }
+            Map<Long, String> directoryPaths = new HashMap<>();
+            for (Directory directory : directoryRepository.findAllById(directoryIds)) {
+                directoryPaths.put(directory.getId(), directory.getDirectoryPath());
+            }
+            Map<Long, String> datasourceNames = new HashMap<>();
+            for (Datasource datasource : datasourceRepository.findAllById(datasourceIds)) {
+                datasourceNames.put(datasource.getId(), datasource.getDatasourceName());
+            }
+
+            for (Task task : page) {
+                writer.write(JSON.toJSONString(toTransferRecord(task, directoryPaths, datasourceNames)));
+                writer.write('\n');
+                afterId = task.getId();
+            }
+            exported += page.size();
+            writer.flush();
+        } while (page.size() == EXPORT_PAGE_SIZE);
+        writer.flush();
+
+        log.info("导出任务完成: count={}, cost={}ms", exported, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 导入一块数据: 校验、批量检查名称冲突、批量解析目录/数据源,通过校验的行批量写入并提交
+     */
+    private void importChunk(List<ImportRow> rows, TaskImportResult result) {
+        // 字段校验与文件内重名检查
+        List<ImportRow> valid = new ArrayList<>(rows.size());
+        Set<String> names = new HashSet<>();
+        for (ImportRow row : rows) {
+            try {
+                row.task = toImportTask(row.record);
+                validateTask(row.task);
+            } catch (BusinessException e) {
+                addImportError(result, row.lineNumber, row.record.getTaskName(), e.getMessage());
+                continue;
+            }
+            if (!names.add(row.task.getTaskName())) {
+                addImportError(result, row.lineNumber, row.task.getTaskName(), "文件内任务名称重复");
+                continue;
+            }
+            valid.add(row);
+        }
+        if (valid.isEmpty()) {
             return;
         }
 
-        visitedNodes.add(taskId);
+        // 一次查询本块全部名称(含已逻辑删除的任务,名称唯一索引不区分删除状态)
+        Map<String, Boolean> usedNames = taskJdbcRepository.findUsedNames(names);
 
-        // 查询任务信息
-        Optional<Task> taskOpt = taskRepository.findById(taskId);
-        if (!taskOpt.isPresent()) {
+        // 批量解析目录路径与数据源名称
+        Set<String> directoryPaths = new HashSet<>();
+        Set<String> datasourceNames = new HashSet<>();
+        for (ImportRow row : valid) {
+            if (StringUtils.hasText(row.record.getDirectoryPath())) {
+                directoryPaths.add(row.record.getDirectoryPath());
+            }
+            if (StringUtils.hasText(row.record.getDatasourceName())) {
+                datasourceNames.add(row.record.getDatasourceName());
+            }
+        }
+        Map<String, Long> directoryIds = new HashMap<>();
+        if (!directoryPaths.isEmpty()) {
+            for (Directory directory : directoryRepository.findByDirectoryPathIn(directoryPaths)) {
+                directoryIds.put(directory.getDirectoryPath(), directory.getId());
+            }
+        }
+        Map<String, Long> datasourceIds = new HashMap<>();
+        if (!datasourceNames.isEmpty()) {
+            for (Datasource datasource : datasourceRepository.findByDatasourceNameIn(datasourceNames)) {
+                datasourceIds.put(datasource.getDatasourceName(), datasource.getId());
+            }
+        }
+
+        List<ImportRow> insertable = new ArrayList<>(valid.size());
+        for (ImportRow row : valid) {
+            Task task = row.task;
+            Boolean deleted = usedNames.get(task.getTaskName());
+            if (deleted != null) {
+                addImportError(result, row.lineNumber, task.getTaskName(),
+                        deleted ? "任务名称已被已删除的任务占用" : "任务名称已存在");
+                continue;
+            }
+            String directoryPath = row.record.getDirectoryPath();
+            if (StringUtils.hasText(directoryPath)) {
+                Long directoryId = directoryIds.get(directoryPath);
+                if (directoryId == null) {
+                    addImportError(result, row.lineNumber, task.getTaskName(), "目录不存在: " + directoryPath);
+                    continue;
+                }
+                task.setDirectoryId(directoryId);
+            }
+            String datasourceName = row.record.getDatasourceName();
+            if (StringUtils.hasText(datasourceName)) {
+                Long datasourceId = datasourceIds.get(datasourceName);
+                if (datasourceId == null) {
+                    addImportError(result, row.lineNumber, task.getTaskName(), "数据源不存在: " + datasourceName);
+                    continue;
+                }
+                task.setDatasourceId(datasourceId);
+            }
+            insertable.add(row);
+        }
+        if (insertable.isEmpty()) {
             return;
         }
 
-        Task task = taskOpt.get();
-
-        // 添加节点
-        Map<String, Object> node = new HashMap<>();
-        node.put("id", task.getId());
-        node.put("name", task.getTaskName());
-        node.put("type", task.getTaskType());
-        node.put("status", task.getStatus());
-        nodes.add(node);
-
-        // 查询上游依赖
-        List<TaskDependency> upstreamDeps = taskDependencyRepository.findByTaskId(taskId);
-        for (TaskDependency dep : upstreamDeps) {
-            // 添加边
-            Map<String, Object> edge = new HashMap<>();
-            edge.put("source", dep.getDependTaskId());
-            edge.put("target", dep.getTaskId());
-            edge.put("type", dep.getDependType());
-            edges.add(edge);
-
-            // 递归处理上游任务
-            buildDagData(dep.getDependTaskId(), maxDepth, currentDepth + 1, visitedNodes, nodes, edges);
-        }
-
-        // 查询下游依赖
-        List<TaskDependency> downstreamDeps = taskDependencyRepository.findByDependTaskId(taskId);
-        for (TaskDependency dep : downstreamDeps) {
-            // 添加边
-            Map<String, Object> edge = new HashMap<>();
-            edge.put("source", dep.getDependTaskId());
-            edge.put("target", dep.getTaskId());
-            edge.put("type", dep.getDependType());
-            if (!edges.contains(edge)) {
-                edges.add(edge);
+        try {
+            insertImportedTasks(insertable);
+            result.setCreated(result.getCreated() + insertable.size());
+        } catch (DataAccessException e) {
+            // 整块写入失败时逐行重试,定位出错的行
+            log.warn("批量写入任务失败,逐行重试: rows={}, error={}", insertable.size(),
+                    e.getMostSpecificCause().getMessage());
+            for (ImportRow row : insertable) {
+                try {
+                    insertImportedTasks(Collections.singletonList(row));
+                    result.setCreated(result.getCreated() + 1);
+                } catch (DataAccessException rowError) {
+                    addImportError(result, row.lineNumber, row.task.getTaskName(),
+                            "写入失败: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 在单独的事务中批量写入任务,提交后同步调度计划与检索索引
+     * 快照在首次创建实例时补生成
+     */
+    private void insertImportedTasks(List<ImportRow> rows) {
+        List<Task> tasks = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            tasks.add(row.task);
+        }
+        transactionTemplate.execute(status -> {
+            taskJdbcRepository.batchInsert(tasks);
+            for (Task task : tasks) {
+                scheduleTriggerService.refreshTask(task);
+                indexAfterCommit(task);
             }
+            return null;
+        });
+    }
+
+    private static Task toImportTask(TaskTransferRecord record) {
+        Task task = new Task();
+        task.setTaskName(record.getTaskName());
+        task.setTaskType(record.getTaskType());
+        task.setTaskCode(record.getTaskCode());
+        task.setDescription(record.getDescription());
+        task.setDirectoryId(record.getDirectoryId());
+        task.setCronExpr(record.getCronExpr());
+        task.setOwner(record.getOwner());
+        task.setSubject(record.getSubject());
+        task.setDatasourceId(record.getDatasourceId());
+        task.setAlertUsers(record.getAlertUsers());
+        task.setCreateBy(record.getCreateBy());
+        task.setUpdateBy(record.getCreateBy());
+        // 未提供的字段保留实体默认值
+        if (record.getOffsetDays() != null) {
+            task.setOffsetDays(record.getOffsetDays());
+        }
+        if (record.getTimeout() != null) {
+            task.setTimeout(record.getTimeout());
+        }
+        if (record.getRetryTimes() != null) {
+            task.setRetryTimes(record.getRetryTimes());
+        }
+        if (record.getRetryInterval() != null) {
+            task.setRetryInterval(record.getRetryInterval());
+        }
+        if (record.getPriority() != null) {
+            task.setPriority(record.getPriority());
+        }
+        if (record.getStatus() != null) {
+            task.setStatus(record.getStatus());
+        }
+        if (record.getResourceGroup() != null) {
+            task.setResourceGroup(record.getResourceGroup());
+        }
+        if (record.getMaxConcurrent() != null) {
+            task.setMaxConcurrent(record.getMaxConcurrent());
+        }
+        if (record.getAlertEnabled() != null) {
+            task.setAlertEnabled(record.getAlertEnabled());
+        }
+        return task;
+    }
 
-            // 递归处理下游任务
-            buildDagData(dep.getTaskId(), maxDepth, currentDepth + 1, visitedNodes, nodes, edges);
+    private static TaskTransferRecord toTransferRecord(Task task, Map<Long, String> directoryPaths,
+                                                       Map<Long, String> datasourceNames) {
+        TaskTransferRecord record = new TaskTransferRecord();
+        record.setTaskName(task.getTaskName());
+        record.setTaskType(task.getTaskType());
+        record.setTaskCode(task.getTaskCode());
+        record.setDescription(task.getDescription());
+        // 目录/数据源优先按路径/名称导出,引用已不存在时保留原ID
+        String directoryPath = directoryPaths.get(task.getDirectoryId());
+        if (directoryPath != null) {
+            record.setDirectoryPath(directoryPath);
+        } else {
+            record.setDirectoryId(task.getDirectoryId());
+        }
+        String datasourceName = datasourceNames.get(task.getDatasourceId());
+        if (datasourceName != null) {
+            record.setDatasourceName(datasourceName);
+        } else {
+            record.setDatasourceId(task.getDatasourceId());
+        }
+        record.setCronExpr(task.getCronExpr());
+        record.setOffsetDays(task.getOffsetDays());
+        record.setTimeout(task.getTimeout());
+        record.setRetryTimes(task.getRetryTimes());
+        record.setRetryInterval(task.getRetryInterval());
+        record.setPriority(task.getPriority());
+        record.setOwner(task.getOwner());
+        record.setSubject(task.getSubject());
+        record.setStatus(task.getStatus());
+        record.setResourceGroup(task.getResourceGroup());
+        record.setMaxConcurrent(task.getMaxConcurrent());
+        record.setAlertEnabled(task.getAlertEnabled());
+        record.setAlertUsers(task.getAlertUsers());
+        record.setCreateBy(task.getCreateBy());
+        return record;
+    }
+
+    private static void addImportError(TaskImportResult result, long lineNumber, String taskName, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_IMPORT_ERRORS) {
+            result.getErrors().add(new TaskImportResult.RowError(lineNumber, taskName, message));
+        } else {
+            result.setErrorsTruncated(true);
         }
     }
 
@@ -458,4 +853,28 @@ public class TaskServiceImpl implements TaskService {
             throw new BusinessException("责任人不能为空");
         }
     }
+
+    /**
+     * 事务提交后更新任务名称检索索引
+     */
+    private void indexAfterCommit(Task task) {
+        Long taskId = task.getId();
+        String taskName = task.getTaskName();
+        String owner = task.getOwner();
+        TransactionUtil.runAfterCommit(() -> nameSearchIndexService.onTaskSaved(taskId, taskName, owner));
+    }
+
+    /**
+     * 导入中的一行
+     */
+    private static final class ImportRow {
+        private final long lineNumber;
+        private final TaskTransferRecord record;
+        private Task task;
+
+        private ImportRow(long lineNumber, TaskTransferRecord record) {
+            this.lineNumber = lineNumber;
+            this.record = record;
+        }
+    }
 }
@@ -0,0 +1,156 @@
+package com.dw.scheduler.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.dw.scheduler.common.DeflateUtil;
+import com.dw.scheduler.common.TransactionUtil;
+import com.dw.scheduler.entity.Task;
+import com.dw.scheduler.entity.TaskSnapshot;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.TaskRepository;
+import com.dw.scheduler.repository.TaskSnapshotRepository;
+import com.dw.scheduler.service.TaskCacheService;
+import com.dw.scheduler.service.TaskSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+
+/**
+ * 任务快照服务实现类
+ * 快照只包含任务定义字段,不含状态、创建/更新时间等,状态变化不产生新快照;
+ * 字段按固定顺序序列化,相同定义得到相同哈希。已确认存在的哈希缓存在内存中,
+ * 重复保存未修改的任务不访问数据库
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class TaskSnapshotServiceImpl implements TaskSnapshotService {
+
+    /**
+     * 已存在快照哈希的缓存条数
+     */
+    private static final int KNOWN_HASH_CACHE_SIZE = 10000;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    @Autowired
+    private TaskSnapshotRepository taskSnapshotRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskCacheService taskCacheService;
+
+    /**
+     * 已确认落库的快照哈希(LRU)
+     */
+    private final Set<String> knownHashes = Collections.newSetFromMap(
+            new LinkedHashMap<String, Boolean>(KNOWN_HASH_CACHE_SIZE * 4 / 3 + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > KNOWN_HASH_CACHE_SIZE;
+                }
+            });
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public String snapshot(Task task) {
+        byte[] raw = serialize(task).getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(raw);
+        synchronized (knownHashes) {
+            if (knownHashes.contains(hash)) {
+                return hash;
+            }
+        }
+
+        byte[] compressed = DeflateUtil.compress(raw);
+        int inserted = taskSnapshotRepository.insertIgnore(hash, task.getId(), raw.length, compressed);
+        if (inserted > 0) {
+            log.debug("新增任务快照: taskId={}, hash={}, rawBytes={}, compressedBytes={}",
+                    task.getId(), hash, raw.length, compressed.length);
+        }
+        // 提交后才登记,避免事务回滚后缓存中残留不存在的哈希
+        TransactionUtil.runAfterCommit(() -> {
+            synchronized (knownHashes) {
+                knownHashes.add(hash);
+            }
+        });
+        return hash;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public String backfill(Long taskId) {
+        Task task = taskRepository.findById(taskId)
+                .orElseThrow(() -> new BusinessException("任务不存在: " + taskId));
+        String hash = snapshot(task);
+        taskRepository.updateSnapshotHash(taskId, hash);
+        taskCacheService.invalidate(taskId);
+        return hash;
+    }
+
+    @Override
+    public String getSnapshot(String snapshotHash) {
+        TaskSnapshot snapshot = taskSnapshotRepository.findById(snapshotHash)
+                .orElseThrow(() -> new BusinessException("任务快照不存在"));
+        try {
+            return new String(DeflateUtil.decompress(snapshot.getSnapshotData(), snapshot.getRawBytes()),
+                    StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new BusinessException("任务快照损坏: " + snapshot.getSnapshotHash());
+        }
+    }
+
+    /**
+     * 按固定字段顺序序列化任务定义
+     */
+    private static String serialize(Task task) {
+        Map<String, Object> definition = new LinkedHashMap<>();
+        definition.put("id", task.getId());
+        definition.put("taskName", task.getTaskName());
+        definition.put("taskType", task.getTaskType());
+        definition.put("taskCode", task.getTaskCode());
+        definition.put("description", task.getDescription());
+        definition.put("directoryId", task.getDirectoryId());
+        definition.put("cronExpr", task.getCronExpr());
+        definition.put("offsetDays", task.getOffsetDays());
+        definition.put("timeout", task.getTimeout());
+        definition.put("retryTimes", task.getRetryTimes());
+        definition.put("retryInterval", task.getRetryInterval());
+        definition.put("priority", task.getPriority());
+        definition.put("owner", task.getOwner());
+        definition.put("subject", task.getSubject());
+        definition.put("resourceGroup", task.getResourceGroup());
+        definition.put("maxConcurrent", task.getMaxConcurrent());
+        definition.put("datasourceId", task.getDatasourceId());
+        definition.put("alertEnabled", task.getAlertEnabled());
+        definition.put("alertUsers", task.getAlertUsers());
+        return JSON.toJSONString(definition, SerializerFeature.WriteMapNullValue);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX_DIGITS[(digest[i] >>> 4) & 0xF];
+                hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
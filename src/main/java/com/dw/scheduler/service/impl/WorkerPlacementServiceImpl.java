@@ -0,0 +1,334 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.common.IndexedHeap;
+import com.dw.scheduler.common.TransactionUtil;
+import com.dw.scheduler.dto.WorkerAssignment;
+import com.dw.scheduler.entity.Server;
+import com.dw.scheduler.enums.ServerRole;
+import com.dw.scheduler.enums.ServerStatus;
+import com.dw.scheduler.repository.ServerRepository;
+import com.dw.scheduler.service.WorkerPlacementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Worker分配服务实现类
+ * 每个资源分组一个堆,堆顶为空闲槽位最多、同等槽位下CPU/内存负载最低的Worker,
+ * 分配与释放均为 O(log n),不访问数据库
+ * <p>
+ * 运行任务数 = 最近一次心跳上报数 + 已分配未确认数。心跳上报数较上次增加的部分确认最早的分配,
+ * 超过 ack-window-ms 仍未确认的分配视为已包含在上报数中;负载为CPU/内存使用率的指数加权移动平均
+ *
+ * @author DW Team
+ */
+@Slf4j
+@Service
+public class WorkerPlacementServiceImpl implements WorkerPlacementService {
+
+    private static final String DEFAULT_RESOURCE_GROUP = "DEFAULT";
+
+    /**
+     * 堆顺序: 空闲槽位多者优先,其次负载低者优先
+     */
+    private static final Comparator<WorkerNode> PLACEMENT_ORDER = Comparator
+            .comparingInt((WorkerNode w) -> -w.freeSlots())
+            .thenComparingDouble(w -> w.load);
+
+    @Autowired
+    private ServerRepository serverRepository;
+
+    /**
+     * 分配后等待心跳确认的时间(毫秒)
+     */
+    @Value("${scheduler.placement.ack-window-ms:15000}")
+    private long ackWindowMs;
+
+    /**
+     * 负载指数加权移动平均的平滑系数
+     */
+    @Value("${scheduler.placement.load-alpha:0.3}")
+    private double loadAlpha;
+
+    /**
+     * 资源分组 -> Worker堆
+     */
+    private final Map<String, IndexedHeap<WorkerNode>> groupHeaps = new ConcurrentHashMap<>();
+
+    /**
+     * 服务器ID -> Worker节点
+     */
+    private final Map<Long, WorkerNode> workerNodes = new ConcurrentHashMap<>();
+
+    /**
+     * Worker IP -> Worker节点,实例的 workerId 为 Worker IP
+     */
+    private final Map<String, WorkerNode> ipNodes = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时加载在线Worker
+     */
+    @PostConstruct
+    public void init() {
+        for (Server server : serverRepository.findByServerRoleAndStatus(ServerRole.WORKER, ServerStatus.ONLINE)) {
+            doRefresh(server);
+        }
+        log.info("Worker分配加载完成: workers={}, groups={}", workerNodes.size(), groupHeaps.size());
+    }
+
+    @Override
+    public void refreshWorker(Server server) {
+        final Server snapshot = new Server();
+        snapshot.setId(server.getId());
+        snapshot.setIpAddress(server.getIpAddress());
+        snapshot.setServerRole(server.getServerRole());
+        snapshot.setStatus(server.getStatus());
+        snapshot.setResourceGroup(server.getResourceGroup());
+        snapshot.setMaxTaskNum(server.getMaxTaskNum());
+        snapshot.setCurrentTaskNum(server.getCurrentTaskNum());
+        snapshot.setCpuUsage(server.getCpuUsage());
+        snapshot.setMemoryUsage(server.getMemoryUsage());
+
+        TransactionUtil.runAfterCommit(() -> doRefresh(snapshot));
+    }
+
+    @Override
+    public void updateLoad(Long serverId, Integer currentTaskNum, Double cpuUsage, Double memoryUsage) {
+        WorkerNode node = workerNodes.get(serverId);
+        if (node == null) {
+            return;
+        }
+        IndexedHeap<WorkerNode> heap = heapOf(node.resourceGroup);
+        synchronized (heap) {
+            if (currentTaskNum != null) {
+                node.reconcile(currentTaskNum, System.currentTimeMillis() - ackWindowMs);
+            }
+            node.updateLoad(cpuUsage, memoryUsage, loadAlpha);
+            heap.update(node);
+        }
+    }
+
+    @Override
+    public void removeWorker(Long serverId) {
+        WorkerNode node = workerNodes.remove(serverId);
+        if (node == null) {
+            return;
+        }
+        IndexedHeap<WorkerNode> heap = heapOf(node.resourceGroup);
+        synchronized (heap) {
+            heap.remove(node);
+            ipNodes.remove(node.ipAddress, node);
+        }
+        log.info("Worker移出分配: serverId={}, ip={}", serverId, node.ipAddress);
+    }
+
+    @Override
+    public WorkerAssignment assign(String resourceGroup) {
+        String group = StringUtils.hasText(resourceGroup) ? resourceGroup : DEFAULT_RESOURCE_GROUP;
+        IndexedHeap<WorkerNode> heap = groupHeaps.get(group);
+        if (heap == null) {
+            return null;
+        }
+        synchronized (heap) {
+            WorkerNode node = heap.peek();
+            if (node == null || node.freeSlots() <= 0) {
+                return null;
+            }
+            node.pendingAssignments.addLast(System.currentTimeMillis());
+            heap.update(node);
+            return new WorkerAssignment(node.serverId, node.ipAddress, group);
+        }
+    }
+
+    @Override
+    public void release(Long serverId) {
+        WorkerNode node = workerNodes.get(serverId);
+        if (node == null) {
+            return;
+        }
+        IndexedHeap<WorkerNode> heap = heapOf(node.resourceGroup);
+        synchronized (heap) {
+            // 撤销最近一次未确认的分配
+            if (node.pendingAssignments.pollLast() != null) {
+                heap.update(node);
+            }
+        }
+    }
+
+    @Override
+    public void onInstanceFinished(String workerId) {
+        WorkerNode node = workerId == null ? null : ipNodes.get(workerId);
+        if (node == null) {
+            return;
+        }
+        IndexedHeap<WorkerNode> heap = heapOf(node.resourceGroup);
+        synchronized (heap) {
+            // 结束的实例多已包含在上报数中,下一次心跳会校正
+            if (node.reportedTasks > 0) {
+                node.reportedTasks--;
+            } else if (node.pendingAssignments.pollFirst() == null) {
+                return;
+            }
+            if (heap.contains(node)) {
+                heap.update(node);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        for (Map.Entry<String, IndexedHeap<WorkerNode>> entry : groupHeaps.entrySet()) {
+            IndexedHeap<WorkerNode> heap = entry.getValue();
+            int freeSlots = 0;
+            int workers;
+            synchronized (heap) {
+                workers = heap.size();
+                for (int i = 0; i < workers; i++) {
+                    freeSlots += Math.max(0, heap.get(i).freeSlots());
+                }
+            }
+            Map<String, Object> groupStatistics = new HashMap<>();
+            groupStatistics.put("workers", workers);
+            groupStatistics.put("freeSlots", freeSlots);
+            statistics.put(entry.getKey(), groupStatistics);
+        }
+        return statistics;
+    }
+
+    private void doRefresh(Server server) {
+        if (server.getServerRole() != ServerRole.WORKER || server.getStatus() != ServerStatus.ONLINE) {
+            removeWorker(server.getId());
+            return;
+        }
+
+        String group = StringUtils.hasText(server.getResourceGroup())
+                ? server.getResourceGroup() : DEFAULT_RESOURCE_GROUP;
+        WorkerNode node = workerNodes.get(server.getId());
+        if (node != null && !node.resourceGroup.equals(group)) {
+            // 资源分组变更,从原分组移除
+            removeWorker(server.getId());
+            node = null;
+        }
+
+        IndexedHeap<WorkerNode> heap = heapOf(group);
+        synchronized (heap) {
+            if (node == null) {
+                node = new WorkerNode(server.getId(), group);
+                workerNodes.put(server.getId(), node);
+                if (server.getCurrentTaskNum() != null) {
+                    node.reportedTasks = server.getCurrentTaskNum();
+                }
+            }
+            if (node.ipAddress != null && !node.ipAddress.equals(server.getIpAddress())) {
+                ipNodes.remove(node.ipAddress, node);
+            }
+            node.ipAddress = server.getIpAddress();
+            if (node.ipAddress != null) {
+                ipNodes.put(node.ipAddress, node);
+            }
+            node.maxTasks = server.getMaxTaskNum() == null ? 0 : server.getMaxTaskNum();
+            node.updateLoad(server.getCpuUsage() == null ? null : server.getCpuUsage().doubleValue(),
+                    server.getMemoryUsage() == null ? null : server.getMemoryUsage().doubleValue(), loadAlpha);
+            if (heap.contains(node)) {
+                heap.update(node);
+            } else {
+                heap.add(node);
+            }
+        }
+    }
+
+    private IndexedHeap<WorkerNode> heapOf(String resourceGroup) {
+        return groupHeaps.computeIfAbsent(resourceGroup, group -> new IndexedHeap<>(PLACEMENT_ORDER));
+    }
+
+    /**
+     * Worker节点
+     */
+    private static final class WorkerNode implements IndexedHeap.Element {
+        private final Long serverId;
+        private final String resourceGroup;
+        private String ipAddress;
+        private int maxTasks;
+
+        /**
+         * 最近一次心跳上报的运行任务数
+         */
+        private int reportedTasks;
+
+        /**
+         * 已分配未确认的分配时间(毫秒),按时间升序
+         */
+        private final ArrayDeque<Long> pendingAssignments = new ArrayDeque<>();
+
+        private double cpuUsage;
+        private double memoryUsage;
+        private boolean loadSampled;
+        private double load;
+        private int heapIndex = -1;
+
+        private WorkerNode(Long serverId, String resourceGroup) {
+            this.serverId = serverId;
+            this.resourceGroup = resourceGroup;
+        }
+
+        private int runningTasks() {
+            return reportedTasks + pendingAssignments.size();
+        }
+
+        private int freeSlots() {
+            return maxTasks - runningTasks();
+        }
+
+        /**
+         * 按心跳上报数校正: 上报数的增量确认最早的分配,早于 ackBefore 的分配视为已确认
+         */
+        private void reconcile(int reported, long ackBefore) {
+            int acknowledged = reported - reportedTasks;
+            while (acknowledged > 0 && pendingAssignments.pollFirst() != null) {
+                acknowledged--;
+            }
+            while (!pendingAssignments.isEmpty() && pendingAssignments.peekFirst() < ackBefore) {
+                pendingAssignments.pollFirst();
+            }
+            reportedTasks = Math.max(0, reported);
+        }
+
+        /**
+         * CPU/内存使用率按指数加权移动平均平滑,首个样本直接采用
+         */
+        private void updateLoad(Double cpu, Double memory, double alpha) {
+            if (cpu == null && memory == null) {
+                return;
+            }
+            double weight = loadSampled ? alpha : 1D;
+            if (cpu != null) {
+                cpuUsage += weight * (cpu - cpuUsage);
+            }
+            if (memory != null) {
+                memoryUsage += weight * (memory - memoryUsage);
+            }
+            loadSampled = true;
+            load = (cpuUsage + memoryUsage) / 2;
+        }
+
+        @Override
+        public int getHeapIndex() {
+            return heapIndex;
+        }
+
+        @Override
+        public void setHeapIndex(int heapIndex) {
+            this.heapIndex = heapIndex;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.dw.scheduler.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 压缩整数集合测试
+ *
+ * @author DW Team
+ */
+class CompressedIntSetTest {
+
+    @Test
+    void keepsElementsSortedAndUnique() {
+        CompressedIntSet set = new CompressedIntSet();
+        assertTrue(set.add(5));
+        assertTrue(set.add(1 << 30));
+        assertTrue(set.add(0));
+        assertTrue(set.add(300));
+        assertFalse(set.add(300));
+
+        assertArrayEquals(new int[]{0, 5, 300, 1 << 30}, set.toArray());
+        assertEquals(4, set.size());
+        assertThrows(IllegalArgumentException.class, () -> set.add(-1));
+    }
+
+    @Test
+    void removesElements() {
+        CompressedIntSet set = new CompressedIntSet();
+        for (int i = 0; i < 10; i++) {
+            set.add(i * 10);
+        }
+
+        assertTrue(set.remove(90));
+        assertFalse(set.remove(90));
+        assertFalse(set.remove(15));
+        assertTrue(set.remove(0));
+        assertArrayEquals(new int[]{10, 20, 30, 40, 50, 60, 70, 80}, set.toArray());
+
+        // 删除最大值后仍可按追加路径写入
+        assertTrue(set.add(85));
+        assertArrayEquals(new int[]{10, 20, 30, 40, 50, 60, 70, 80, 85}, set.toArray());
+
+        assertEquals(4, set.removeBelow(50));
+        assertArrayEquals(new int[]{50, 60, 70, 80, 85}, set.toArray());
+        assertEquals(0, set.removeBelow(50));
+        assertEquals(5, set.removeBelow(Integer.MAX_VALUE));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void retainsIntersection() {
+        CompressedIntSet set = new CompressedIntSet();
+        for (int value : new int[]{2, 4, 6, 8, 1000}) {
+            set.add(value);
+        }
+
+        int[] values = {1, 2, 3, 6, 1000, 2000};
+        int kept = set.retainIn(values, values.length);
+        assertEquals(3, kept);
+        assertEquals(2, values[0]);
+        assertEquals(6, values[1]);
+        assertEquals(1000, values[2]);
+    }
+
+    @Test
+    void matchesTreeSetUnderRandomOperations() {
+        CompressedIntSet set = new CompressedIntSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 3000; i++) {
+            int value = random.nextInt(100000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+
+        int[] array = set.toArray();
+        assertEquals(expected.size(), array.length);
+        int i = 0;
+        for (Integer value : expected) {
+            assertEquals(value.intValue(), array[i++]);
+        }
+    }
+}
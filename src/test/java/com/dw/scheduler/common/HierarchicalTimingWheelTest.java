@@ -0,0 +1,86 @@
+package com.dw.scheduler.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分层时间轮测试
+ *
+ * @author DW Team
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK_MS = 10;
+
+    @Test
+    void rejectsExpiredEntries() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK_MS, 8, 1003);
+
+        assertEquals(1000, wheel.currentTimeMs());
+        assertFalse(wheel.add(1005, "expired"));
+        assertTrue(wheel.add(1010, "next"));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void firesEntriesAcrossLevelsInTheirTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK_MS, 8, 1000);
+        assertTrue(wheel.add(1015, "level0"));
+        assertTrue(wheel.add(1095, "level1"));
+        assertTrue(wheel.add(1700, "level2"));
+
+        Map<String, Long> firedAt = new HashMap<>();
+        for (long now = 1000; now <= 2000; now += TICK_MS) {
+            long current = now;
+            wheel.advance(now, item -> assertNull(firedAt.put(item, current)));
+        }
+
+        assertEquals(1010L, firedAt.get("level0"));
+        assertEquals(1090L, firedAt.get("level1"));
+        assertEquals(1700L, firedAt.get("level2"));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void firesEveryEntryOnceWithIrregularAdvances() {
+        long start = 1000;
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK_MS, 8, start);
+        Random random = new Random(42);
+        List<Long> expireTimes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long expireAt = start + TICK_MS + random.nextInt(20000);
+            expireTimes.add(expireAt);
+            assertTrue(wheel.add(expireAt, expireAt));
+        }
+
+        Map<Long, Integer> fired = new HashMap<>();
+        long previous = start;
+        long now = start;
+        int total = 0;
+        while (now < start + 22000) {
+            now += 1 + random.nextInt(50);
+            long from = previous;
+            long to = now;
+            total += wheel.advance(now, expireAt -> {
+                long tickStart = expireAt - expireAt % TICK_MS;
+                assertTrue(tickStart > from && tickStart <= to,
+                        "entry " + expireAt + " fired in (" + from + ", " + to + "]");
+                fired.merge(expireAt, 1, Integer::sum);
+            });
+            previous = now;
+        }
+
+        assertEquals(expireTimes.size(), total);
+        assertEquals(0, wheel.size());
+        for (Long expireAt : expireTimes) {
+            assertTrue(fired.containsKey(expireAt));
+        }
+    }
+}
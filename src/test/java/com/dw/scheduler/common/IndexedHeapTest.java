@@ -0,0 +1,116 @@
+package com.dw.scheduler.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 可索引二叉堆测试
+ *
+ * @author DW Team
+ */
+class IndexedHeapTest {
+
+    private static final Comparator<Item> ORDER = Comparator.comparingLong((Item item) -> item.priority)
+            .thenComparingInt(item -> item.id);
+
+    @Test
+    void maintainsIndexOnAddAndRemove() {
+        IndexedHeap<Item> heap = new IndexedHeap<>(ORDER);
+        Item a = new Item(1, 30);
+        Item b = new Item(2, 10);
+        Item c = new Item(3, 20);
+        heap.add(a);
+        heap.add(b);
+        heap.add(c);
+
+        assertSame(b, heap.peek());
+        for (int i = 0; i < heap.size(); i++) {
+            assertEquals(i, heap.get(i).getHeapIndex());
+        }
+
+        assertTrue(heap.remove(b));
+        assertEquals(-1, b.getHeapIndex());
+        assertFalse(heap.contains(b));
+        assertFalse(heap.remove(b));
+        assertSame(c, heap.peek());
+        assertEquals(2, heap.size());
+    }
+
+    @Test
+    void reordersOnUpdate() {
+        IndexedHeap<Item> heap = new IndexedHeap<>(ORDER);
+        Item a = new Item(1, 10);
+        Item b = new Item(2, 20);
+        heap.add(a);
+        heap.add(b);
+
+        a.priority = 30;
+        heap.update(a);
+        assertSame(b, heap.peek());
+
+        a.priority = 5;
+        heap.update(a);
+        assertSame(a, heap.peek());
+    }
+
+    @Test
+    void matchesOrderedSetUnderRandomOperations() {
+        IndexedHeap<Item> heap = new IndexedHeap<>(ORDER);
+        TreeSet<Item> expected = new TreeSet<>(ORDER);
+        List<Item> present = new ArrayList<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 5000; i++) {
+            int op = random.nextInt(3);
+            if (op == 0 || present.isEmpty()) {
+                Item item = new Item(i, random.nextInt(1000));
+                heap.add(item);
+                expected.add(item);
+                present.add(item);
+            } else if (op == 1) {
+                Item item = present.get(random.nextInt(present.size()));
+                expected.remove(item);
+                item.priority = random.nextInt(1000);
+                heap.update(item);
+                expected.add(item);
+            } else {
+                Item item = present.remove(random.nextInt(present.size()));
+                assertTrue(heap.remove(item));
+                expected.remove(item);
+            }
+            assertEquals(expected.size(), heap.size());
+            assertSame(expected.isEmpty() ? null : expected.first(), heap.peek());
+        }
+        for (Item item : present) {
+            assertTrue(heap.contains(item));
+        }
+    }
+
+    private static final class Item implements IndexedHeap.Element {
+        private final int id;
+        private long priority;
+        private int heapIndex = -1;
+
+        private Item(int id, long priority) {
+            this.id = id;
+            this.priority = priority;
+        }
+
+        @Override
+        public int getHeapIndex() {
+            return heapIndex;
+        }
+
+        @Override
+        public void setHeapIndex(int heapIndex) {
+            this.heapIndex = heapIndex;
+        }
+    }
+}
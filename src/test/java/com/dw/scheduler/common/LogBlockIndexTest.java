@@ -0,0 +1,123 @@
+package com.dw.scheduler.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 日志分块检索索引测试
+ *
+ * @author DW Team
+ */
+class LogBlockIndexTest {
+
+    private static final int LEVELS = 4;
+    private static final int INFO = 1;
+    private static final int ERROR = 3;
+    private static final long BASE_LINE = 10;
+
+    @Test
+    void rejectsNonContiguousLines() {
+        LogBlockIndex index = new LogBlockIndex(LEVELS, BASE_LINE);
+
+        assertFalse(index.add(BASE_LINE + 2, INFO, "skipped a line"));
+        assertTrue(index.add(BASE_LINE + 1, INFO, "first"));
+        assertFalse(index.add(BASE_LINE + 1, INFO, "duplicate"));
+        assertEquals(BASE_LINE + 1, index.getLastLine());
+    }
+
+    @Test
+    void returnsUnindexedRangesForDirectScan() {
+        LogBlockIndex index = new LogBlockIndex(LEVELS, BASE_LINE);
+        fill(index, 3, -1, null);
+        long[] hashes = LogBlockIndex.keywordHashes("anything");
+
+        // 建索引前已存在的行
+        assertEquals(LongPair.of(1, BASE_LINE), index.nextCandidateRange(0, -1, hashes));
+        // 索引之后追加的行
+        long lastLine = index.getLastLine();
+        assertEquals(LongPair.of(lastLine + 1, Long.MAX_VALUE), index.nextCandidateRange(lastLine, -1, hashes));
+    }
+
+    @Test
+    void skipsBlocksWithoutKeyword() {
+        LogBlockIndex index = new LogBlockIndex(LEVELS, BASE_LINE);
+        fill(index, 3, 1, "payment timeout on order 42");
+        long[] hashes = LogBlockIndex.keywordHashes("Timeout");
+
+        LongPair range = index.nextCandidateRange(BASE_LINE, -1, hashes);
+        assertEquals(firstLine(1), range.getFirst());
+        assertEquals(firstLine(2) - 1, range.getSecond());
+
+        // 最后一块之后无候选,剩余部分交给直接扫描
+        range = index.nextCandidateRange(range.getSecond(), -1, hashes);
+        assertEquals(LongPair.of(index.getLastLine() + 1, Long.MAX_VALUE), range);
+    }
+
+    @Test
+    void filtersByLevel() {
+        LogBlockIndex index = new LogBlockIndex(LEVELS, BASE_LINE);
+        for (int block = 0; block < 3; block++) {
+            for (int i = 0; i < LogBlockIndex.BLOCK_LINES; i++) {
+                long line = index.getLastLine() + 1;
+                int level = block == 2 && i == 7 ? ERROR : INFO;
+                assertTrue(index.add(line, level, "heartbeat ok"));
+            }
+        }
+
+        LongPair range = index.nextCandidateRange(BASE_LINE, ERROR, new long[0]);
+        assertEquals(firstLine(2), range.getFirst());
+        assertEquals(Long.MAX_VALUE, range.getSecond());
+
+        range = index.nextCandidateRange(BASE_LINE, INFO, new long[0]);
+        assertEquals(firstLine(0), range.getFirst());
+    }
+
+    @Test
+    void treatsBlocksWithTruncatedLinesAsCandidates() {
+        LogBlockIndex index = new LogBlockIndex(LEVELS, BASE_LINE);
+        StringBuilder longLine = new StringBuilder();
+        while (longLine.length() < 5000) {
+            longLine.append("padding ");
+        }
+        longLine.append("needle");
+
+        for (int block = 0; block < 3; block++) {
+            for (int i = 0; i < LogBlockIndex.BLOCK_LINES; i++) {
+                long line = index.getLastLine() + 1;
+                String content = block == 1 && i == 0 ? longLine.toString() : "heartbeat ok";
+                assertTrue(index.add(line, INFO, content));
+            }
+        }
+
+        // 关键词位于未索引的超长行尾部,该块仍需扫描
+        LongPair range = index.nextCandidateRange(BASE_LINE, -1, LogBlockIndex.keywordHashes("needle"));
+        assertEquals(firstLine(1), range.getFirst());
+        assertEquals(firstLine(2) - 1, range.getSecond());
+    }
+
+    @Test
+    void doesNotFilterShortKeywords() {
+        assertEquals(0, LogBlockIndex.keywordHashes("ab").length);
+        assertEquals(0, LogBlockIndex.keywordHashes(null).length);
+        // 只取字母数字连续串内的三元组
+        assertEquals(1, LogBlockIndex.keywordHashes("ab-cde-fg").length);
+    }
+
+    /**
+     * 追加若干整块,关键词只写入指定块的第一行
+     */
+    private static void fill(LogBlockIndex index, int blocks, int keywordBlock, String keywordLine) {
+        for (int block = 0; block < blocks; block++) {
+            for (int i = 0; i < LogBlockIndex.BLOCK_LINES; i++) {
+                long line = index.getLastLine() + 1;
+                String content = block == keywordBlock && i == 0 ? keywordLine : "heartbeat ok";
+                assertTrue(index.add(line, INFO, content));
+            }
+        }
+    }
+
+    private static long firstLine(int block) {
+        return BASE_LINE + (long) block * LogBlockIndex.BLOCK_LINES + 1;
+    }
+}
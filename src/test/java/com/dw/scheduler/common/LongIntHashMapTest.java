@@ -0,0 +1,141 @@
+package com.dw.scheduler.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * long -> int 开放寻址哈希表测试
+ *
+ * @author DW Team
+ */
+class LongIntHashMapTest {
+
+    /**
+     * 默认容量16对应的槽位数
+     */
+    private static final int DEFAULT_SLOTS = 32;
+
+    @Test
+    void putsGetsAndOverwrites() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.put(1L, 10);
+        map.put(-1L, 20);
+        map.put(Long.MAX_VALUE, 30);
+        map.put(Long.MIN_VALUE, 40);
+        map.put(0L, 50);
+        map.put(1L, 11);
+
+        assertEquals(5, map.size());
+        assertEquals(11, map.get(1L));
+        assertEquals(20, map.get(-1L));
+        assertEquals(30, map.get(Long.MAX_VALUE));
+        assertEquals(40, map.get(Long.MIN_VALUE));
+        assertEquals(50, map.get(0L));
+        assertEquals(LongIntHashMap.NO_VALUE, map.get(2L));
+        assertFalse(map.containsKey(2L));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(1L));
+    }
+
+    @Test
+    void keepsProbeChainAfterRemovingCollidingKeys() {
+        // 构造同一探测链:a、b、c 落在同一槽位,d 落在下一个槽位,依次占据连续槽位
+        long[] sameSlot = keysInSlot(0, 3);
+        long a = sameSlot[0];
+        long b = sameSlot[1];
+        long c = sameSlot[2];
+        long d = keysInSlot(1, 1)[0];
+
+        LongIntHashMap map = new LongIntHashMap();
+        map.put(a, 1);
+        map.put(b, 2);
+        map.put(c, 3);
+        map.put(d, 4);
+
+        // 删除链头后其余键需回填,仍可查到
+        assertEquals(1, map.remove(a));
+        assertEquals(LongIntHashMap.NO_VALUE, map.get(a));
+        assertEquals(2, map.get(b));
+        assertEquals(3, map.get(c));
+        assertEquals(4, map.get(d));
+
+        assertEquals(3, map.remove(c));
+        assertEquals(2, map.get(b));
+        assertEquals(4, map.get(d));
+        assertEquals(LongIntHashMap.NO_VALUE, map.remove(c));
+
+        // 删除后重新写入不产生重复条目
+        map.put(a, 5);
+        map.put(b, 6);
+        assertEquals(3, map.size());
+        assertEquals(5, map.get(a));
+        assertEquals(6, map.get(b));
+        assertEquals(4, map.get(d));
+    }
+
+    @Test
+    void resizesAndKeepsAllEntries() {
+        LongIntHashMap map = new LongIntHashMap(1);
+        for (int i = 0; i < 10000; i++) {
+            map.put(i * 31L, i);
+        }
+
+        assertEquals(10000, map.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, map.get(i * 31L));
+        }
+        assertFalse(map.containsKey(1L));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        // 键空间较小,删除与写入交替触发回填和扩容
+        for (int i = 0; i < 50000; i++) {
+            long key = random.nextInt(512) - 256;
+            if (random.nextInt(3) == 0) {
+                Integer old = expected.remove(key);
+                assertEquals(old == null ? LongIntHashMap.NO_VALUE : old, map.remove(key));
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (long key = -256; key < 256; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value == null ? LongIntHashMap.NO_VALUE : value, map.get(key));
+        }
+    }
+
+    /**
+     * 查找默认容量下落在指定槽位的键,散列方式与 LongIntHashMap 保持一致
+     */
+    private static long[] keysInSlot(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            if (((int) (h ^ (h >>> 32)) & (DEFAULT_SLOTS - 1)) == slot) {
+                keys.add(key);
+            }
+        }
+        long[] result = new long[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = keys.get(i);
+        }
+        return result;
+    }
+}
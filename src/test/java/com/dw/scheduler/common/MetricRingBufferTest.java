@@ -0,0 +1,82 @@
+package com.dw.scheduler.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 时间序列环形缓冲区测试
+ *
+ * @author DW Team
+ */
+class MetricRingBufferTest {
+
+    @Test
+    void averagesSamplesWithinBucket() {
+        MetricRingBuffer buffer = new MetricRingBuffer(1000, 3, 2);
+        buffer.record(1000, 1f, Float.NaN);
+        buffer.record(1500, 3f, 4f);
+
+        List<float[]> points = collect(buffer, 0, new ArrayList<>());
+        assertEquals(1, points.size());
+        assertEquals(2f, points.get(0)[0]);
+        assertEquals(4f, points.get(0)[1]);
+    }
+
+    @Test
+    void marksMissingMetricsAsNaN() {
+        MetricRingBuffer buffer = new MetricRingBuffer(1000, 3, 2);
+        buffer.record(1000, 1f);
+
+        List<float[]> points = collect(buffer, 0, new ArrayList<>());
+        assertEquals(1f, points.get(0)[0]);
+        assertTrue(Float.isNaN(points.get(0)[1]));
+    }
+
+    @Test
+    void ignoresSamplesOlderThanLatestBucket() {
+        MetricRingBuffer buffer = new MetricRingBuffer(1000, 3, 1);
+        buffer.record(2000, 5f);
+        buffer.record(1999, 100f);
+
+        List<Long> timestamps = new ArrayList<>();
+        List<float[]> points = collect(buffer, 0, timestamps);
+        assertEquals(1, points.size());
+        assertEquals(2000L, timestamps.get(0));
+        assertEquals(5f, points.get(0)[0]);
+    }
+
+    @Test
+    void overwritesOldestBucketAndIteratesInOrder() {
+        MetricRingBuffer buffer = new MetricRingBuffer(1000, 3, 1);
+        for (long t = 1000; t <= 4000; t += 1000) {
+            buffer.record(t + 10, (float) t);
+        }
+        assertEquals(3000, buffer.getSpanMs());
+
+        List<Long> timestamps = new ArrayList<>();
+        List<float[]> points = collect(buffer, 0, timestamps);
+        assertEquals(3, points.size());
+        assertEquals(2000L, timestamps.get(0));
+        assertEquals(3000L, timestamps.get(1));
+        assertEquals(4000L, timestamps.get(2));
+        assertEquals(4000f, points.get(2)[0]);
+
+        timestamps.clear();
+        collect(buffer, 3000, timestamps);
+        assertEquals(2, timestamps.size());
+        assertEquals(3000L, timestamps.get(0));
+    }
+
+    private static List<float[]> collect(MetricRingBuffer buffer, long fromMs, List<Long> timestamps) {
+        List<float[]> points = new ArrayList<>();
+        buffer.forEachSince(fromMs, (timestampMs, metrics) -> {
+            timestamps.add(timestampMs);
+            points.add(metrics.clone());
+        });
+        return points;
+    }
+}
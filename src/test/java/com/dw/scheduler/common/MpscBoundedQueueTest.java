@@ -0,0 +1,103 @@
+package com.dw.scheduler.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多生产者单消费者有界队列测试
+ *
+ * @author DW Team
+ */
+class MpscBoundedQueueTest {
+
+    @Test
+    void roundsCapacityAndRejectsWhenFull() {
+        MpscBoundedQueue<Integer> queue = new MpscBoundedQueue<>(5);
+        assertEquals(8, queue.capacity());
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(8));
+        assertEquals(8, queue.size());
+
+        assertEquals(0, queue.poll());
+        assertTrue(queue.offer(8));
+    }
+
+    @Test
+    void pollsAndDrainsInFifoOrder() {
+        MpscBoundedQueue<Integer> queue = new MpscBoundedQueue<>(4);
+        assertNull(queue.poll());
+        for (int i = 0; i < 4; i++) {
+            queue.offer(i);
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, queue.drain(drained::add, 3));
+        assertEquals(3, drained.size());
+        assertEquals(0, drained.get(0));
+        assertEquals(2, drained.get(2));
+        assertEquals(3, queue.poll());
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+        assertThrows(NullPointerException.class, () -> queue.offer(null));
+    }
+
+    @Test
+    void deliversEveryElementFromConcurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20000;
+        MpscBoundedQueue<Long> queue = new MpscBoundedQueue<>(64);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    startSignal.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (long seq = 0; seq < perProducer; seq++) {
+                    while (!queue.offer(producer * perProducer + seq)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        startSignal.countDown();
+        long[] nextSeq = new long[producers];
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < producers * perProducer) {
+            assertTrue(System.nanoTime() < deadline, "timed out after " + received + " elements");
+            Long element = queue.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) (element / perProducer);
+            // 同一生产者的元素保持入队顺序
+            assertEquals(nextSeq[producer]++, element % perProducer);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(queue.poll());
+        for (long seq : nextSeq) {
+            assertEquals(perProducer, seq);
+        }
+    }
+}
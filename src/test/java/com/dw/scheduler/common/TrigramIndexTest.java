@@ -0,0 +1,81 @@
+package com.dw.scheduler.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 三元组倒排索引测试
+ *
+ * @author DW Team
+ */
+class TrigramIndexTest {
+
+    @Test
+    void findsSubstringCandidatesIgnoringCase() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "dwd_order_detail");
+        index.add(2, "DWS_ORDER_SUMMARY");
+        index.add(3, "ods_user_info");
+
+        assertArrayEquals(new int[]{1, 2}, index.search("order", 100));
+        assertArrayEquals(new int[]{2}, index.search("Order_Sum", 100));
+        assertArrayEquals(new int[0], index.search("payment", 100));
+    }
+
+    @Test
+    void foldsAccentsAndFullWidthLikeCollation() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "café_orders");
+        index.add(2, "strasse_job");
+        index.add(3, "订单明细_日报");
+
+        assertArrayEquals(new int[]{1}, index.search("cafe", 100));
+        assertArrayEquals(new int[]{1}, index.search("CAFÉ", 100));
+        assertArrayEquals(new int[]{1}, index.search("ＯＲＤＥＲ", 100));
+        assertArrayEquals(new int[]{3}, index.search("订单明", 100));
+        // ß 无法可靠折叠,仅以其余三元组过滤
+        assertArrayEquals(new int[]{2}, index.search("straße", 100));
+        assertNull(index.search("aßb", 100));
+    }
+
+    @Test
+    void returnsNullWhenKeywordCannotBeFiltered() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "dwd_order_detail");
+
+        assertNull(index.search("or", 100));
+        // 含通配符的三元组不参与过滤
+        assertNull(index.search("o%d", 100));
+        assertArrayEquals(new int[]{1}, index.search("order%", 100));
+    }
+
+    @Test
+    void returnsNullWhenCandidatesExceedLimit() {
+        TrigramIndex index = new TrigramIndex();
+        for (int id = 1; id <= 10; id++) {
+            index.add(id, "task_" + id);
+        }
+
+        assertNull(index.search("task", 5));
+        assertEquals(10, index.search("task", 10).length);
+    }
+
+    @Test
+    void removesDocuments() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "dwd_order_detail");
+        index.add(2, "dws_order_summary");
+        index.add(3, "ads_order_report");
+        long memory = index.memoryBytes();
+
+        index.remove(2, "dws_order_summary");
+        assertArrayEquals(new int[]{1, 3}, index.search("order", 100));
+        assertArrayEquals(new int[0], index.search("summary", 100));
+        assertTrue(index.memoryBytes() < memory);
+
+        assertTrue(index.removeBelow(3) > 0);
+        assertArrayEquals(new int[]{3}, index.search("order", 100));
+        assertArrayEquals(new int[0], index.search("detail", 100));
+    }
+}
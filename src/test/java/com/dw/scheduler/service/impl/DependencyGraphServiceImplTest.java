@@ -0,0 +1,115 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.entity.TaskDependency;
+import com.dw.scheduler.enums.DependencyType;
+import com.dw.scheduler.exception.BusinessException;
+import com.dw.scheduler.repository.TaskDependencyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 任务依赖图索引循环检测测试
+ *
+ * @author DW Team
+ */
+class DependencyGraphServiceImplTest {
+
+    private TaskDependencyRepository repository;
+    private DependencyGraphServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TaskDependencyRepository.class);
+        service = new DependencyGraphServiceImpl();
+        ReflectionTestUtils.setField(service, "taskDependencyRepository", repository);
+        ReflectionTestUtils.setField(service, "cycleCheckMaxNodes", 200000);
+    }
+
+    @Test
+    void detectsCycleAlongUpstreamChain() {
+        // 任务 i 依赖任务 i+1
+        load(chain(1, 10));
+
+        assertTrue(service.wouldCreateCycle(10, 1));
+        assertTrue(service.wouldCreateCycle(5, 2));
+        assertFalse(service.wouldCreateCycle(1, 10));
+        assertFalse(service.wouldCreateCycle(1, 5));
+        assertTrue(service.wouldCreateCycle(3, 3));
+        // 尚无依赖边的任务不可能成环
+        assertFalse(service.wouldCreateCycle(100, 1));
+        assertFalse(service.wouldCreateCycle(1, 100));
+    }
+
+    @Test
+    void followsIncrementalEdgeChanges() {
+        load(chain(1, 3));
+        assertFalse(service.wouldCreateCycle(4, 1));
+
+        service.addDependency(dependency(3, 4));
+        assertTrue(service.wouldCreateCycle(4, 1));
+        assertEquals(3, service.getEdgeCount());
+
+        service.removeDependency(2, 3);
+        assertFalse(service.wouldCreateCycle(4, 1));
+        assertTrue(service.wouldCreateCycle(4, 3));
+        assertEquals(2, service.getEdgeCount());
+    }
+
+    @Test
+    void visitsSharedUpstreamOnce() {
+        // 菱形依赖:1 依赖 2、3,2、3 均依赖 4;5 依赖 6 与之不连通
+        load(Arrays.asList(edge(1, 2), edge(1, 3), edge(2, 4), edge(3, 4), edge(5, 6)));
+        ReflectionTestUtils.setField(service, "cycleCheckMaxNodes", 4);
+
+        assertTrue(service.wouldCreateCycle(4, 1));
+        // 节点 4 经两条路径可达,只计数一次,不超出上限
+        assertFalse(service.wouldCreateCycle(5, 1));
+    }
+
+    @Test
+    void failsWhenSearchExceedsMaxNodes() {
+        load(chain(1, 10));
+        ReflectionTestUtils.setField(service, "cycleCheckMaxNodes", 3);
+
+        assertThrows(BusinessException.class, () -> service.wouldCreateCycle(10, 1));
+        // 上限内即可得出结论的检测不受影响
+        assertTrue(service.wouldCreateCycle(3, 1));
+        assertFalse(service.wouldCreateCycle(1, 9));
+    }
+
+    private void load(List<Object[]> edges) {
+        when(repository.findAllEdges()).thenReturn(edges);
+        service.reload();
+    }
+
+    /**
+     * 链式依赖:from 依赖 from+1,直到 to
+     */
+    private static List<Object[]> chain(long from, long to) {
+        List<Object[]> edges = new ArrayList<>();
+        for (long taskId = from; taskId < to; taskId++) {
+            edges.add(edge(taskId, taskId + 1));
+        }
+        return edges;
+    }
+
+    private static Object[] edge(long taskId, long dependTaskId) {
+        return new Object[]{taskId, dependTaskId, DependencyType.STRONG, 0};
+    }
+
+    private static TaskDependency dependency(long taskId, long dependTaskId) {
+        TaskDependency dependency = new TaskDependency();
+        dependency.setTaskId(taskId);
+        dependency.setDependTaskId(dependTaskId);
+        return dependency;
+    }
+}
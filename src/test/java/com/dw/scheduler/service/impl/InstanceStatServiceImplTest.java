@@ -0,0 +1,168 @@
+package com.dw.scheduler.service.impl;
+
+import com.dw.scheduler.entity.TaskInstance;
+import com.dw.scheduler.enums.InstanceStatus;
+import com.dw.scheduler.repository.InstanceStatJdbcRepository;
+import com.dw.scheduler.repository.InstanceStatJdbcRepository.DailyStatRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 实例统计服务增量合并测试
+ * 增量按实例创建时记录的责任人/资源分组归属,未记录的历史实例按任务当前责任人归属
+ *
+ * @author DW Team
+ */
+class InstanceStatServiceImplTest {
+
+    private static final LocalDate BUSINESS_DATE = LocalDate.of(2024, 6, 1);
+
+    private InstanceStatJdbcRepository repository;
+    private InstanceStatServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(InstanceStatJdbcRepository.class);
+        when(repository.isEmpty()).thenReturn(false);
+        when(repository.findByBusinessDate(any())).thenReturn(Collections.emptyList());
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        service = new InstanceStatServiceImpl();
+        ReflectionTestUtils.setField(service, "instanceStatJdbcRepository", repository);
+        ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+        // 刷新由测试通过 stop() 触发
+        ReflectionTestUtils.setField(service, "flushIntervalMs", 3600000L);
+        ReflectionTestUtils.setField(service, "cacheDays", 10);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void attributesDeltasToOwnerRecordedAtCreation() {
+        when(repository.findTaskOwnerGroups(any())).thenReturn(
+                Collections.singletonList(new Object[]{7L, "bob", null}));
+
+        service.recordCreated(Arrays.asList(
+                instance(1L, 5L, "alice", "etl", InstanceStatus.WAITING, null),
+                instance(2L, 5L, "alice", "etl", InstanceStatus.WAITING, null),
+                instance(3L, 7L, null, null, InstanceStatus.WAITING, null)));
+        service.recordTransitions(Collections.singletonList(
+                instance(1L, 5L, "alice", "etl", InstanceStatus.SUCCESS, 30)), InstanceStatus.WAITING, null);
+
+        Map<String, Object> statistics = service.getDailyStatistics(BUSINESS_DATE);
+        assertEquals(3L, statistics.get("total"));
+        assertEquals(30L, statistics.get("executeTimeTotal"));
+
+        Map<String, Object> alice = group(statistics, "alice", "etl");
+        assertEquals(1L, statusCount(alice, InstanceStatus.WAITING));
+        assertEquals(1L, statusCount(alice, InstanceStatus.SUCCESS));
+        Map<String, Object> bob = group(statistics, "bob", "");
+        assertEquals(1L, statusCount(bob, InstanceStatus.WAITING));
+        // 已记录责任人的实例不查询任务
+        verify(repository).findTaskOwnerGroups(Collections.singleton(7L));
+    }
+
+    @Test
+    void flushesNonZeroDeltasOnceAndKeepsTotals() {
+        service.recordCreated(Collections.singletonList(
+                instance(1L, 5L, "alice", "etl", InstanceStatus.WAITING, null)));
+        service.recordTransitions(Collections.singletonList(
+                instance(1L, 5L, "alice", "etl", InstanceStatus.RUNNING, null)), InstanceStatus.WAITING, null);
+        // 加载当天汇总,刷新成功后增量累加到汇总
+        service.getDailyStatistics(BUSINESS_DATE);
+
+        service.stop();
+
+        List<DailyStatRow> rows = captureUpserts(1).get(0);
+        assertEquals(1, rows.size());
+        DailyStatRow row = rows.get(0);
+        assertEquals(BUSINESS_DATE, row.getBusinessDate());
+        assertEquals("alice", row.getOwner());
+        assertEquals("etl", row.getResourceGroup());
+        assertEquals(InstanceStatus.RUNNING, row.getStatus());
+        assertEquals(1L, row.getInstanceCount());
+
+        Map<String, Object> statistics = service.getDailyStatistics(BUSINESS_DATE);
+        assertEquals(1L, statistics.get("total"));
+        assertEquals(1L, statusCount(group(statistics, "alice", "etl"), InstanceStatus.RUNNING));
+
+        // 无新增量时不再写入
+        service.stop();
+        captureUpserts(1);
+    }
+
+    @Test
+    void keepsDeltasWhenFlushFails() {
+        service.recordCreated(Collections.singletonList(
+                instance(1L, 5L, "alice", "etl", InstanceStatus.WAITING, null)));
+        service.getDailyStatistics(BUSINESS_DATE);
+        when(repository.upsertDeltas(anyList())).thenThrow(new IllegalStateException("db down")).thenReturn(1);
+
+        service.stop();
+        assertEquals(1L, service.getDailyStatistics(BUSINESS_DATE).get("total"));
+
+        service.stop();
+        List<List<DailyStatRow>> upserts = captureUpserts(2);
+        assertEquals(upserts.get(0), upserts.get(1));
+        assertEquals(1L, service.getDailyStatistics(BUSINESS_DATE).get("total"));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<List<DailyStatRow>> captureUpserts(int times) {
+        ArgumentCaptor<List<DailyStatRow>> captor = ArgumentCaptor.forClass((Class) List.class);
+        verify(repository, times(times)).upsertDeltas(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static TaskInstance instance(Long id, Long taskId, String owner, String resourceGroup,
+                                         InstanceStatus status, Integer executeTime) {
+        TaskInstance instance = new TaskInstance();
+        instance.setId(id);
+        instance.setTaskId(taskId);
+        instance.setBusinessDate(BUSINESS_DATE);
+        instance.setOwner(owner);
+        instance.setResourceGroup(resourceGroup);
+        instance.setStatus(status);
+        instance.setExecuteTime(executeTime);
+        return instance;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> group(Map<String, Object> statistics, String owner, String resourceGroup) {
+        for (Map<String, Object> group : (List<Map<String, Object>>) statistics.get("groups")) {
+            if (owner.equals(group.get("owner")) && resourceGroup.equals(group.get("resourceGroup"))) {
+                return group;
+            }
+        }
+        return fail("group not found: " + owner + "/" + resourceGroup);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long statusCount(Map<String, Object> group, InstanceStatus status) {
+        return ((Map<String, Long>) group.get("statusCounts")).get(status.name());
+    }
+}